@@ -0,0 +1,201 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Lote de búsquedas por clave con sus resultados, pensado para reutilizarse: los
+ * arreglos internos se conservan entre un lote y otro y solo crecen cuando llega un
+ * lote más grande, así que resolver muchos lotes no reserva memoria por cada uno.
+ * <p>
+ * Las claves se guardan en el orden en que se agregaron, que es el orden en que se
+ * consultan los resultados. Para recorrer el árbol una sola vez, {@link BinarySearchTree}
+ * y {@link PersistentTree} piden además el orden ascendente de las claves, que se
+ * calcula con un ordenamiento por mezcla sobre índices.
+ * 
+ * @param <K> Tipo de clave.
+ * @param <V> Tipo de valor encontrado.
+ */
+public class BatchLookup<K extends Comparable<K>, V> {
+    private Object[] keys = new Object[16];
+    private Object[] values = new Object[16];
+    private int[] order = new int[16];
+    private int[] scratch = new int[16];
+    private int size;
+    private boolean sorted;
+
+    /**
+     * Reemplaza las claves del lote y borra los resultados anteriores.
+     * 
+     * @param probeKeys Claves a buscar, en el orden en que se consultarán los resultados.
+     * @return Este lote.
+     */
+    public BatchLookup<K, V> reset(Collection<? extends K> probeKeys) {
+        clear();
+        for (K key : probeKeys) {
+            add(key);
+        }
+        return this;
+    }
+
+    /**
+     * Agrega una clave al lote.
+     * 
+     * @param key Clave a buscar.
+     */
+    public void add(K key) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+            order = new int[capacity];
+            scratch = new int[capacity];
+        }
+        keys[size] = key;
+        values[size] = null;
+        size++;
+        sorted = false;
+    }
+
+    /**
+     * Vacía el lote conservando la capacidad reservada.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        sorted = false;
+    }
+
+    /**
+     * Obtiene la cantidad de claves del lote.
+     * 
+     * @return Número de claves.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Obtiene una clave del lote.
+     * 
+     * @param index Posición de la clave, en el orden en que se agregó.
+     * @return Clave en esa posición.
+     */
+    @SuppressWarnings("unchecked")
+    public K key(int index) {
+        checkIndex(index);
+        return (K) keys[index];
+    }
+
+    /**
+     * Obtiene el resultado de una clave del lote.
+     * 
+     * @param index Posición de la clave, en el orden en que se agregó.
+     * @return Valor encontrado, o null si la clave no existe.
+     */
+    @SuppressWarnings("unchecked")
+    public V value(int index) {
+        checkIndex(index);
+        return (V) values[index];
+    }
+
+    /**
+     * Cuenta las claves que se encontraron.
+     * 
+     * @return Cantidad de resultados distintos de null.
+     */
+    public int found() {
+        int found = 0;
+        for (int i = 0; i < size; i++) {
+            if (values[i] != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Recorre las claves encontradas con su resultado, en el orden en que se agregaron.
+     * 
+     * @param action Acción a aplicar a cada clave y su valor.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachFound(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] != null) {
+                action.accept((K) keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Copia los resultados encontrados a una lista nueva.
+     * 
+     * @return Valores encontrados, en el orden en que se agregaron sus claves.
+     */
+    public List<V> foundValues() {
+        List<V> found = new ArrayList<>(size);
+        forEachFound((key, value) -> found.add(value));
+        return found;
+    }
+
+    /**
+     * Guarda el resultado de una clave.
+     * 
+     * @param index Posición de la clave, en el orden en que se agregó.
+     * @param value Valor encontrado, o null.
+     */
+    void set(int index, V value) {
+        values[index] = value;
+    }
+
+    /**
+     * Obtiene las posiciones de las claves en orden ascendente de clave; las claves
+     * repetidas quedan juntas. El arreglo es interno y solo sus primeras
+     * {@link #size()} posiciones son válidas.
+     */
+    int[] sortedOrder() {
+        if (!sorted) {
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            // Ordenamiento por mezcla de abajo hacia arriba, estable y sin recursión
+            int[] from = order;
+            int[] to = scratch;
+            for (int width = 1; width < size; width *= 2) {
+                for (int lo = 0; lo < size; lo += 2 * width) {
+                    merge(from, to, lo, Math.min(lo + width, size), Math.min(lo + 2 * width, size));
+                }
+                int[] swap = from;
+                from = to;
+                to = swap;
+            }
+            if (from != order) {
+                System.arraycopy(from, 0, order, 0, size);
+            }
+            sorted = true;
+        }
+        return order;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void merge(int[] from, int[] to, int lo, int mid, int hi) {
+        int left = lo;
+        int right = mid;
+        for (int i = lo; i < hi; i++) {
+            if (right >= hi || (left < mid && ((K) keys[from[left]]).compareTo((K) keys[from[right]]) <= 0)) {
+                to[i] = from[left++];
+            } else {
+                to[i] = from[right++];
+            }
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Posición " + index + " fuera del lote de " + size);
+        }
+    }
+}
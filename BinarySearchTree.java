@@ -1,64 +1,503 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
 /**
  * Implementación de un árbol binario de búsqueda genérico.
+ * Puede operar como árbol simple o en modo auto-balanceado (rojo-negro), que
+ * mantiene la altura en O(log n) aun cuando las claves se insertan ya ordenadas.
+ * Todas las operaciones son iterativas, por lo que no dependen de la profundidad
+ * de la pila aunque el árbol simple quede muy sesgado.
+ * Los recorridos en orden se exponen como iteradores perezosos que devuelven los
+ * propios nodos como entradas de solo lectura, sin reservar memoria por elemento.
+ * Cada nodo guarda la cantidad de nodos de su subárbol, con lo que la posición de
+ * una clave ({@link #rank}), la clave en una posición ({@link #select}) y las
+ * páginas de un listado ({@link #page}) se obtienen sin recorrer lo anterior.
+ * Modificar el árbol mientras se recorre produce resultados indefinidos.
  * 
  * @param <K> Tipo de clave, debe ser comparable.
  * @param <V> Tipo de valor asociado a la clave.
  */
-public class BinarySearchTree<K extends Comparable<K>, V> {
+public class BinarySearchTree<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>> {
     private Node root;
+    private final boolean balanced;
+    private int size;
 
     /**
      * Clase interna que representa un nodo del árbol.
+     * Cada nodo es también la entrada que devuelven los iteradores.
      */
-    private class Node {
+    private class Node implements Map.Entry<K, V> {
         K key;
         V value;
-        Node left, right;
+        Node left, right, parent;
+        boolean red = true;
+        int count = 1;
 
         /**
          * Constructor del nodo.
          * 
-         * @param key   Clave del nodo.
-         * @param value Valor asociado a la clave.
+         * @param key    Clave del nodo.
+         * @param value  Valor asociado a la clave.
+         * @param parent Nodo padre, o null si es la raíz.
          */
-        Node(K key, V value) {
+        Node(K key, V value, Node parent) {
             this.key = key;
             this.value = value;
+            this.parent = parent;
             left = right = null;
         }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("Las entradas del árbol son de solo lectura");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Constructor de un árbol binario de búsqueda simple (sin balanceo).
+     */
+    public BinarySearchTree() {
+        this(false);
+    }
+
+    /**
+     * Constructor que permite elegir el modo de operación del árbol.
+     * 
+     * @param balanced true para mantener el árbol balanceado (rojo-negro),
+     *                 false para un árbol binario de búsqueda simple.
+     */
+    public BinarySearchTree(boolean balanced) {
+        this.balanced = balanced;
     }
 
     /**
      * Inserta un nuevo nodo en el árbol.
      * Si la clave ya existe, no se inserta un nuevo nodo.
+     * Realiza una sola comparación por nivel y solo reserva memoria para el nodo nuevo.
      * 
      * @param key   Clave del nuevo nodo.
      * @param value Valor asociado a la clave.
      */
     public void insert(K key, V value) {
-        root = insertRec(root, key, value);
+        if (root == null) {
+            root = new Node(key, value, null);
+            root.red = false;
+            size = 1;
+            return;
+        }
+
+        Node parent;
+        Node current = root;
+        int cmp;
+        do {
+            parent = current;
+            cmp = key.compareTo(current.key);
+            if (cmp < 0) {
+                current = current.left;
+            } else if (cmp > 0) {
+                current = current.right;
+            } else {
+                return;
+            }
+        } while (current != null);
+
+        Node node = new Node(key, value, parent);
+        if (cmp < 0) {
+            parent.left = node;
+        } else {
+            parent.right = node;
+        }
+        size++;
+        for (Node ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+            ancestor.count++;
+        }
+
+        if (balanced) {
+            fixAfterInsertion(node);
+        }
     }
 
     /**
-     * Método auxiliar recursivo para insertar un nodo.
+     * Restablece las invariantes rojo-negro subiendo desde el nodo recién insertado.
      * 
-     * @param root  Raíz del árbol o subárbol.
-     * @param key   Clave a insertar.
-     * @param value Valor asociado a la clave.
-     * @return Nodo actualizado después de la inserción.
+     * @param x Nodo insertado.
      */
-    private Node insertRec(Node root, K key, V value) {
-        if (root == null) {
-            return new Node(key, value);
+    private void fixAfterInsertion(Node x) {
+        while (x != root && x.parent.red) {
+            Node parent = x.parent;
+            Node grandparent = parent.parent;
+            if (parent == grandparent.left) {
+                Node uncle = grandparent.right;
+                if (isRed(uncle)) {
+                    parent.red = false;
+                    uncle.red = false;
+                    grandparent.red = true;
+                    x = grandparent;
+                } else {
+                    if (x == parent.right) {
+                        x = parent;
+                        rotateLeft(x);
+                        parent = x.parent;
+                    }
+                    parent.red = false;
+                    grandparent.red = true;
+                    rotateRight(grandparent);
+                }
+            } else {
+                Node uncle = grandparent.left;
+                if (isRed(uncle)) {
+                    parent.red = false;
+                    uncle.red = false;
+                    grandparent.red = true;
+                    x = grandparent;
+                } else {
+                    if (x == parent.left) {
+                        x = parent;
+                        rotateRight(x);
+                        parent = x.parent;
+                    }
+                    parent.red = false;
+                    grandparent.red = true;
+                    rotateLeft(grandparent);
+                }
+            }
+        }
+        root.red = false;
+    }
+
+    private boolean isRed(Node node) {
+        return node != null && node.red;
+    }
+
+    private void rotateLeft(Node p) {
+        Node r = p.right;
+        p.right = r.left;
+        if (r.left != null) {
+            r.left.parent = p;
+        }
+        r.parent = p.parent;
+        if (p.parent == null) {
+            root = r;
+        } else if (p.parent.left == p) {
+            p.parent.left = r;
+        } else {
+            p.parent.right = r;
+        }
+        r.left = p;
+        p.parent = r;
+        r.count = p.count;
+        p.count = count(p.left) + count(p.right) + 1;
+    }
+
+    private void rotateRight(Node p) {
+        Node l = p.left;
+        p.left = l.right;
+        if (l.right != null) {
+            l.right.parent = p;
+        }
+        l.parent = p.parent;
+        if (p.parent == null) {
+            root = l;
+        } else if (p.parent.right == p) {
+            p.parent.right = l;
+        } else {
+            p.parent.left = l;
+        }
+        l.right = p;
+        p.parent = l;
+        l.count = p.count;
+        p.count = count(p.left) + count(p.right) + 1;
+    }
+
+    private int count(Node node) {
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * Elimina una clave del árbol. En modo balanceado restablece las invariantes
+     * rojo-negro, así que la altura sigue siendo O(log n).
+     * Si el nodo tiene dos hijos, toma la clave y el valor de su sucesor y se elimina
+     * el nodo del sucesor.
+     * 
+     * @param key Clave a eliminar.
+     * @return Valor que tenía la clave, o null si no existía.
+     */
+    public V remove(K key) {
+        Node node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                break;
+            }
+        }
+        if (node == null) {
+            return null;
+        }
+        V removed = node.value;
+        size--;
+
+        if (node.left != null && node.right != null) {
+            Node next = successor(node);
+            node.key = next.key;
+            node.value = next.value;
+            node = next;
+        }
+        // El nodo que se desprende deja de contar en todos sus ancestros
+        node.count = 0;
+        for (Node ancestor = node.parent; ancestor != null; ancestor = ancestor.parent) {
+            ancestor.count--;
         }
 
-        if (key.compareTo(root.key) < 0) {
-            root.left = insertRec(root.left, key, value);
-        } else if (key.compareTo(root.key) > 0) {
-            root.right = insertRec(root.right, key, value);
+        Node replacement = node.left != null ? node.left : node.right;
+        if (replacement != null) {
+            replacement.parent = node.parent;
+            if (node.parent == null) {
+                root = replacement;
+            } else if (node == node.parent.left) {
+                node.parent.left = replacement;
+            } else {
+                node.parent.right = replacement;
+            }
+            node.left = node.right = node.parent = null;
+            if (balanced && !node.red) {
+                fixAfterDeletion(replacement);
+            }
+        } else if (node.parent == null) {
+            root = null;
+        } else {
+            // Hoja: se usa a sí misma como marcador durante el ajuste y luego se desprende
+            if (balanced && !node.red) {
+                fixAfterDeletion(node);
+            }
+            if (node.parent != null) {
+                if (node == node.parent.left) {
+                    node.parent.left = null;
+                } else if (node == node.parent.right) {
+                    node.parent.right = null;
+                }
+                node.parent = null;
+            }
         }
+        return removed;
+    }
 
-        return root;
+    /**
+     * Restablece las invariantes rojo-negro después de quitar un nodo negro, subiendo
+     * desde el nodo que ocupó su lugar.
+     * 
+     * @param x Nodo que reemplazó al eliminado (o la hoja que se va a desprender).
+     */
+    private void fixAfterDeletion(Node x) {
+        while (x != root && !isRed(x)) {
+            Node parent = x.parent;
+            if (x == parent.left) {
+                Node sibling = parent.right;
+                if (isRed(sibling)) {
+                    sibling.red = false;
+                    parent.red = true;
+                    rotateLeft(parent);
+                    sibling = parent.right;
+                }
+                if (!isRed(sibling.left) && !isRed(sibling.right)) {
+                    sibling.red = true;
+                    x = parent;
+                } else {
+                    if (!isRed(sibling.right)) {
+                        sibling.left.red = false;
+                        sibling.red = true;
+                        rotateRight(sibling);
+                        sibling = parent.right;
+                    }
+                    sibling.red = parent.red;
+                    parent.red = false;
+                    sibling.right.red = false;
+                    rotateLeft(parent);
+                    x = root;
+                }
+            } else {
+                Node sibling = parent.left;
+                if (isRed(sibling)) {
+                    sibling.red = false;
+                    parent.red = true;
+                    rotateRight(parent);
+                    sibling = parent.left;
+                }
+                if (!isRed(sibling.right) && !isRed(sibling.left)) {
+                    sibling.red = true;
+                    x = parent;
+                } else {
+                    if (!isRed(sibling.left)) {
+                        sibling.right.red = false;
+                        sibling.red = true;
+                        rotateLeft(sibling);
+                        sibling = parent.left;
+                    }
+                    sibling.red = parent.red;
+                    parent.red = false;
+                    sibling.left.red = false;
+                    rotateRight(parent);
+                    x = root;
+                }
+            }
+        }
+        x.red = false;
+    }
+
+    /**
+     * Construye el árbol a partir de un lote de pares clave-valor en tiempo lineal.
+     * Los pares solo se ordenan si no vienen ya ordenados por clave; si una clave se
+     * repite se conserva la primera aparición, igual que con {@link #insert}. Si el
+     * árbol ya contenía datos, se mezclan con el lote y las claves existentes se
+     * mantienen. El resultado es un árbol perfectamente balanceado.
+     * 
+     * @param entries Pares clave-valor a cargar.
+     */
+    public void bulkLoad(Collection<? extends Map.Entry<K, V>> entries) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Map.Entry<K, V>[] batch = entries.toArray(new Map.Entry[0]);
+        if (!isSorted(batch)) {
+            // TimSort es estable: ante claves repetidas la primera aparición queda primero
+            Arrays.sort(batch, (a, b) -> a.getKey().compareTo(b.getKey()));
+        }
+
+        int total = size + batch.length;
+        Object[] keys = new Object[total];
+        Object[] values = new Object[total];
+        int count = 0;
+        int i = 0;
+        K last = null;
+        Node existing = first();
+        while (existing != null || i < batch.length) {
+            K key;
+            V value;
+            int cmp;
+            if (existing == null) {
+                cmp = 1;
+            } else if (i == batch.length) {
+                cmp = -1;
+            } else {
+                cmp = existing.key.compareTo(batch[i].getKey());
+            }
+
+            if (cmp <= 0) {
+                key = existing.key;
+                value = existing.value;
+                existing = successor(existing);
+                if (cmp == 0) {
+                    i++;
+                }
+            } else {
+                key = batch[i].getKey();
+                value = batch[i].getValue();
+                i++;
+            }
+
+            if (count > 0 && key.compareTo(last) == 0) {
+                continue;
+            }
+            last = key;
+            keys[count] = key;
+            values[count] = value;
+            count++;
+        }
+
+        size = count;
+        root = buildFromSorted(keys, values, 0, count - 1, 0, redLevel(count), null);
+    }
+
+    private boolean isSorted(Map.Entry<K, V>[] batch) {
+        for (int i = 1; i < batch.length; i++) {
+            if (batch[i - 1].getKey().compareTo(batch[i].getKey()) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Construye recursivamente un subárbol balanceado a partir de claves ordenadas.
+     * La recursión solo alcanza O(log n) niveles.
+     * 
+     * @param keys     Claves ordenadas sin repetidos.
+     * @param values   Valores asociados a cada clave.
+     * @param lo       Primer índice del rango.
+     * @param hi       Último índice del rango.
+     * @param level    Nivel actual (la raíz está en el nivel 0).
+     * @param redLevel Nivel cuyos nodos se colorean de rojo.
+     * @param parent   Padre del subárbol.
+     * @return Raíz del subárbol construido.
+     */
+    @SuppressWarnings("unchecked")
+    private Node buildFromSorted(Object[] keys, Object[] values, int lo, int hi, int level,
+                                 int redLevel, Node parent) {
+        if (lo > hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        Node node = new Node((K) keys[mid], (V) values[mid], parent);
+        node.red = level == redLevel;
+        node.count = hi - lo + 1;
+        node.left = buildFromSorted(keys, values, lo, mid - 1, level + 1, redLevel, node);
+        node.right = buildFromSorted(keys, values, mid + 1, hi, level + 1, redLevel, node);
+        return node;
+    }
+
+    /**
+     * Calcula el nivel de las hojas en un árbol perfectamente balanceado de n nodos
+     * cuando el último nivel está incompleto; esos nodos se colorean de rojo para
+     * que todos los caminos tengan la misma cantidad de nodos negros.
+     * 
+     * @param n Cantidad de nodos.
+     * @return Nivel a colorear de rojo.
+     */
+    private static int redLevel(int n) {
+        int level = 0;
+        for (int m = n - 1; m >= 0; m = m / 2 - 1) {
+            level++;
+        }
+        return level;
     }
 
     /**
@@ -68,45 +507,505 @@ public class BinarySearchTree<K extends Comparable<K>, V> {
      * @return Valor asociado a la clave, o null si la clave no existe.
      */
     public V search(K key) {
-        return searchRec(root, key);
+        Node current = root;
+        while (current != null) {
+            int cmp = key.compareTo(current.key);
+            if (cmp < 0) {
+                current = current.left;
+            } else if (cmp > 0) {
+                current = current.right;
+            } else {
+                return current.value;
+            }
+        }
+        return null;
     }
 
     /**
-     * Método auxiliar recursivo para buscar un nodo.
+     * Busca todas las claves de un lote en un solo recorrido del árbol. Las claves se
+     * ordenan y se reparten entre los subárboles a medida que se desciende, de modo que
+     * cada nodo se visita a lo sumo una vez y los caminos compartidos desde la raíz se
+     * recorren una sola vez en lugar de una por clave.
      * 
-     * @param root Raíz del árbol o subárbol.
-     * @param key  Clave a buscar.
-     * @return Valor asociado a la clave, o null si no se encuentra.
+     * @param batch Lote con las claves a buscar; recibe los resultados.
+     * @return El mismo lote, con el valor de cada clave o null si no existe.
      */
-    private V searchRec(Node root, K key) {
-        if (root == null || root.key.equals(key)) {
-            return root != null ? root.value : null;
+    public BatchLookup<K, V> searchAll(BatchLookup<K, V> batch) {
+        int n = batch.size();
+        if (n == 0) {
+            return batch;
+        }
+        int[] order = batch.sortedOrder();
+        Object[] nodes = new Object[64];
+        int[] bounds = new int[128];
+        nodes[0] = root;
+        bounds[0] = 0;
+        bounds[1] = n;
+        int top = 1;
+        while (top > 0) {
+            top--;
+            @SuppressWarnings("unchecked")
+            Node node = (Node) nodes[top];
+            nodes[top] = null;
+            int lo = bounds[2 * top];
+            int hi = bounds[2 * top + 1];
+            if (node == null) {
+                for (int i = lo; i < hi; i++) {
+                    batch.set(order[i], null);
+                }
+                continue;
+            }
+            // Primera posición del rango cuya clave no es menor que la del nodo
+            int first = lo;
+            int last = hi;
+            while (first < last) {
+                int mid = (first + last) >>> 1;
+                if (batch.key(order[mid]).compareTo(node.key) < 0) {
+                    first = mid + 1;
+                } else {
+                    last = mid;
+                }
+            }
+            int after = first;
+            while (after < hi && batch.key(order[after]).compareTo(node.key) == 0) {
+                batch.set(order[after], node.value);
+                after++;
+            }
+            if (top + 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            if (after < hi) {
+                nodes[top] = node.right;
+                bounds[2 * top] = after;
+                bounds[2 * top + 1] = hi;
+                top++;
+            }
+            if (lo < first) {
+                nodes[top] = node.left;
+                bounds[2 * top] = lo;
+                bounds[2 * top + 1] = first;
+                top++;
+            }
         }
+        return batch;
+    }
 
-        if (key.compareTo(root.key) < 0) {
-            return searchRec(root.left, key);
+    /**
+     * Cuenta las claves menores que una dada, en O(log n) en modo balanceado.
+     * Si la clave existe, es su posición en orden empezando en 0.
+     * 
+     * @param key Clave de referencia; no necesita existir en el árbol.
+     * @return Cantidad de claves estrictamente menores.
+     */
+    public int rank(K key) {
+        int rank = 0;
+        Node current = root;
+        while (current != null) {
+            int cmp = key.compareTo(current.key);
+            if (cmp <= 0) {
+                current = current.left;
+            } else {
+                rank += count(current.left) + 1;
+                current = current.right;
+            }
         }
+        return rank;
+    }
 
-        return searchRec(root.right, key);
+    /**
+     * Obtiene la entrada que ocupa una posición en orden ascendente de clave, en
+     * O(log n) en modo balanceado.
+     * 
+     * @param index Posición, empezando en 0.
+     * @return Entrada de solo lectura en esa posición.
+     * @throws IndexOutOfBoundsException Si la posición no está entre 0 y size() - 1.
+     */
+    public Map.Entry<K, V> select(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Posición " + index + " fuera del árbol de " + size);
+        }
+        return nodeAt(index);
+    }
+
+    /**
+     * Obtiene una página de entradas en orden ascendente de clave: baja hasta la
+     * primera posición en O(log n) y avanza con los sucesores, así que el costo es
+     * O(log n + limit) sin importar cuántas entradas haya antes.
+     * 
+     * @param offset Posición de la primera entrada, empezando en 0.
+     * @param limit  Cantidad máxima de entradas.
+     * @return Entradas de la página; vacía si la posición está fuera del árbol.
+     */
+    public List<Map.Entry<K, V>> page(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Posición y límite no pueden ser negativos: " + offset + ", " + limit);
+        }
+        List<Map.Entry<K, V>> page = new ArrayList<>(Math.min(limit, Math.max(0, size - offset)));
+        if (offset >= size) {
+            return page;
+        }
+        for (Node node = nodeAt(offset); node != null && page.size() < limit; node = successor(node)) {
+            page.add(node);
+        }
+        return page;
+    }
+
+    private Node nodeAt(int index) {
+        Node current = root;
+        while (true) {
+            int left = count(current.left);
+            if (index < left) {
+                current = current.left;
+            } else if (index > left) {
+                index -= left + 1;
+                current = current.right;
+            } else {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de claves almacenadas en el árbol.
+     * 
+     * @return Número de nodos del árbol.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calcula la altura del árbol (un árbol vacío tiene altura 0).
+     * Recorre el árbol usando los enlaces al padre, sin pila auxiliar.
+     * 
+     * @return Número de niveles del camino más largo desde la raíz.
+     */
+    public int height() {
+        return (int) walkDepths()[0];
+    }
+
+    /**
+     * Calcula la profundidad promedio de los nodos, contando la raíz como 1; es la
+     * cantidad promedio de comparaciones de una búsqueda exitosa. Recorre todo el árbol.
+     * 
+     * @return Profundidad promedio, o 0 si el árbol está vacío.
+     */
+    public double averageDepth() {
+        return size == 0 ? 0 : (double) walkDepths()[1] / size;
+    }
+
+    /**
+     * Recorre el árbol con los enlaces al padre y devuelve la profundidad máxima y la
+     * suma de las profundidades de todos los nodos.
+     */
+    private long[] walkDepths() {
+        long max = 0;
+        long sum = 0;
+        int depth = 0;
+        Node prev = null;
+        Node current = root;
+        while (current != null) {
+            Node next;
+            if (prev == current.parent) {
+                depth++;
+                max = Math.max(max, depth);
+                sum += depth;
+                next = current.left != null ? current.left
+                        : current.right != null ? current.right : current.parent;
+            } else if (prev == current.left && current.right != null) {
+                next = current.right;
+            } else {
+                next = current.parent;
+            }
+            if (next == current.parent) {
+                depth--;
+            }
+            prev = current;
+            current = next;
+        }
+        return new long[] {max, sum};
     }
 
     /**
      * Realiza un recorrido in-order del árbol e imprime los valores.
      */
     public void inOrderTraversal() {
-        inOrderRec(root);
+        inOrderTraversal(System.out::println);
+    }
+
+    /**
+     * Realiza un recorrido in-order del árbol entregando cada valor a una acción.
+     * 
+     * @param action Acción a aplicar a cada valor, en orden ascendente de clave.
+     */
+    public void inOrderTraversal(Consumer<? super V> action) {
+        for (Node node = first(); node != null; node = successor(node)) {
+            action.accept(node.value);
+        }
     }
 
     /**
-     * Método auxiliar recursivo para el recorrido in-order.
+     * Obtiene un iterador sobre todas las entradas en orden ascendente de clave.
      * 
-     * @param root Raíz del árbol o subárbol.
+     * @return Iterador perezoso de entradas de solo lectura.
      */
-    private void inOrderRec(Node root) {
-        if (root != null) {
-            inOrderRec(root.left);
-            System.out.println(root.value);
-            inOrderRec(root.right);
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator(first(), null, false, null);
+    }
+
+    /**
+     * Obtiene un spliterator ordenado sobre todas las entradas. Se divide por
+     * subárboles, por lo que puede recorrerse en paralelo.
+     * 
+     * @return Spliterator de entradas en orden ascendente de clave.
+     */
+    @Override
+    public Spliterator<Map.Entry<K, V>> spliterator() {
+        return new EntrySpliterator(first(), null, root, size, true);
+    }
+
+    /**
+     * Obtiene las entradas cuyas claves están en el rango [fromKey, toKey).
+     * 
+     * @param fromKey Límite inferior, inclusivo.
+     * @param toKey   Límite superior, exclusivo.
+     * @return Vista perezosa de las entradas del rango.
+     */
+    public Iterable<Map.Entry<K, V>> range(K fromKey, K toKey) {
+        return range(fromKey, true, toKey, false);
+    }
+
+    /**
+     * Obtiene las entradas cuyas claves están entre dos límites. Solo se visitan los
+     * nodos del camino hasta el límite inferior y los nodos dentro del rango.
+     * 
+     * @param fromKey       Límite inferior.
+     * @param fromInclusive true si el límite inferior forma parte del rango.
+     * @param toKey         Límite superior.
+     * @param toInclusive   true si el límite superior forma parte del rango.
+     * @return Vista perezosa de las entradas del rango.
+     */
+    public Iterable<Map.Entry<K, V>> range(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return () -> new EntryIterator(ceiling(fromKey, fromInclusive), toKey, toInclusive, null);
+    }
+
+    /**
+     * Obtiene las entradas cuyas claves son menores que {@code toKey}.
+     * 
+     * @param toKey Límite superior, exclusivo.
+     * @return Vista perezosa de las entradas anteriores al límite.
+     */
+    public Iterable<Map.Entry<K, V>> head(K toKey) {
+        return () -> new EntryIterator(first(), toKey, false, null);
+    }
+
+    /**
+     * Obtiene las entradas cuyas claves son mayores o iguales que {@code fromKey}.
+     * 
+     * @param fromKey Límite inferior, inclusivo.
+     * @return Vista perezosa de las entradas desde el límite.
+     */
+    public Iterable<Map.Entry<K, V>> tail(K fromKey) {
+        return () -> new EntryIterator(ceiling(fromKey, true), null, false, null);
+    }
+
+    /**
+     * Obtiene las entradas cuyas claves empiezan con un prefijo.
+     * Solo es válido en árboles cuyas claves son de tipo String.
+     * 
+     * @param prefix Prefijo a buscar.
+     * @return Vista perezosa de las entradas con ese prefijo, en orden.
+     */
+    @SuppressWarnings("unchecked")
+    public Iterable<Map.Entry<K, V>> prefix(String prefix) {
+        return () -> new EntryIterator(ceiling((K) prefix, true), null, false, prefix);
+    }
+
+    /**
+     * Busca el primer nodo cuya clave es mayor (o igual, si es inclusivo) que la dada,
+     * descendiendo una sola vez desde la raíz.
+     * 
+     * @param key       Clave de referencia.
+     * @param inclusive true si una clave igual también sirve.
+     * @return Primer nodo que cumple el límite, o null si no existe.
+     */
+    private Node ceiling(K key, boolean inclusive) {
+        Node candidate = null;
+        Node current = root;
+        while (current != null) {
+            int cmp = key.compareTo(current.key);
+            if (cmp < 0 || (cmp == 0 && inclusive)) {
+                candidate = current;
+                if (cmp == 0) {
+                    break;
+                }
+                current = current.left;
+            } else {
+                current = current.right;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * Iterador en orden que se detiene al pasar el límite superior o al salir del prefijo.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final K toKey;
+        private final boolean toInclusive;
+        private final String prefix;
+        private Node next;
+
+        EntryIterator(Node start, K toKey, boolean toInclusive, String prefix) {
+            this.toKey = toKey;
+            this.toInclusive = toInclusive;
+            this.prefix = prefix;
+            this.next = withinBounds(start);
+        }
+
+        private Node withinBounds(Node node) {
+            if (node == null) {
+                return null;
+            }
+            if (toKey != null) {
+                int cmp = node.key.compareTo(toKey);
+                if (cmp > 0 || (cmp == 0 && !toInclusive)) {
+                    return null;
+                }
+            }
+            if (prefix != null && !((String) node.key).startsWith(prefix)) {
+                return null;
+            }
+            return node;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            Node current = next;
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            next = withinBounds(successor(current));
+            return current;
+        }
+    }
+
+    /**
+     * Spliterator que recorre desde {@code current} hasta {@code fence} (exclusivo).
+     * Mientras no haya empezado a avanzar, se divide por el nodo {@code split},
+     * cuyo subárbol izquierdo queda completo en la primera mitad.
+     */
+    private final class EntrySpliterator implements Spliterator<Map.Entry<K, V>> {
+        private Node current;
+        private final Node fence;
+        private Node split;
+        private long estimate;
+        private boolean exact;
+
+        EntrySpliterator(Node current, Node fence, Node split, long estimate, boolean exact) {
+            this.current = current;
+            this.fence = fence;
+            this.split = split;
+            this.estimate = estimate;
+            this.exact = exact;
+        }
+
+        @Override
+        public Spliterator<Map.Entry<K, V>> trySplit() {
+            Node pivot = split;
+            if (pivot == null || pivot == current || estimate < 2) {
+                return null;
+            }
+            estimate >>>= 1;
+            exact = false;
+            EntrySpliterator prefix = new EntrySpliterator(current, pivot, pivot.left, estimate, false);
+            current = pivot;
+            split = pivot.right;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            if (current == null || current == fence) {
+                return false;
+            }
+            split = null;
+            Node node = current;
+            current = successor(node);
+            action.accept(node);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            Node node = current;
+            current = fence;
+            split = null;
+            for (; node != null && node != fence; node = successor(node)) {
+                action.accept(node);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT
+                    | Spliterator.NONNULL;
+            return exact ? characteristics | Spliterator.SIZED : characteristics;
+        }
+
+        @Override
+        public Comparator<? super Map.Entry<K, V>> getComparator() {
+            return Map.Entry.comparingByKey();
+        }
+    }
+
+    /**
+     * Obtiene el nodo con la menor clave del árbol.
+     * 
+     * @return Primer nodo en orden, o null si el árbol está vacío.
+     */
+    private Node first() {
+        Node current = root;
+        if (current != null) {
+            while (current.left != null) {
+                current = current.left;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Obtiene el nodo siguiente en orden usando los enlaces al padre.
+     * 
+     * @param node Nodo actual.
+     * @return Nodo con la siguiente clave mayor, o null si no existe.
+     */
+    private Node successor(Node node) {
+        if (node.right != null) {
+            Node current = node.right;
+            while (current.left != null) {
+                current = current.left;
+            }
+            return current;
+        }
+        Node child = node;
+        Node parent = node.parent;
+        while (parent != null && child == parent.right) {
+            child = parent;
+            parent = parent.parent;
         }
+        return parent;
     }
 }
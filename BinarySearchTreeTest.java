@@ -1,6 +1,8 @@
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Map;
 
 public class BinarySearchTreeTest {
     private BinarySearchTree<String, Integer> tree;
@@ -37,4 +39,301 @@ public class BinarySearchTreeTest {
         String expectedOutput = "10\n20\n30\n";
         assertEquals(expectedOutput, outContent.toString());
     }
+
+    @Test
+    void testBalancedInOrderTraversal() {
+        BinarySearchTree<String, Integer> balanced = new BinarySearchTree<>(true);
+        balanced.insert("C", 30);
+        balanced.insert("A", 10);
+        balanced.insert("B", 20);
+        balanced.insert("A", 99);
+
+        java.io.ByteArrayOutputStream outContent = new java.io.ByteArrayOutputStream();
+        System.setOut(new java.io.PrintStream(outContent));
+
+        balanced.inOrderTraversal();
+
+        assertEquals("10\n20\n30\n", outContent.toString());
+        assertEquals(3, balanced.size());
+    }
+
+    @Test
+    void testBalancedHeightWithSequentialKeys() {
+        BinarySearchTree<Integer, Integer> balanced = new BinarySearchTree<>(true);
+        int n = 1_000_000;
+        for (int i = 0; i < n; i++) {
+            balanced.insert(i, i);
+        }
+
+        assertEquals(n, balanced.size());
+        // Un árbol rojo-negro con n nodos tiene altura como máximo 2 * log2(n + 1)
+        double bound = 2 * Math.log(n + 1) / Math.log(2);
+        assertTrue(balanced.height() <= bound, "altura " + balanced.height() + " excede " + bound);
+        assertTrue(balanced.averageDepth() < balanced.height());
+        assertEquals(0, balanced.search(0));
+        assertEquals(n - 1, balanced.search(n - 1));
+        assertEquals(n / 2, balanced.search(n / 2));
+        assertNull(balanced.search(n));
+    }
+
+    @Test
+    void testSkewedTreeDoesNotOverflowStack() {
+        // Sin balanceo, las claves ordenadas forman una cadena tan profunda como n
+        BinarySearchTree<Integer, Integer> skewed = new BinarySearchTree<>();
+        int n = 20_000;
+        for (int i = 0; i < n; i++) {
+            skewed.insert(i, i);
+        }
+
+        assertEquals(n, skewed.size());
+        assertEquals(n, skewed.height());
+        assertEquals((n + 1) / 2.0, skewed.averageDepth(), 1e-9);
+        assertEquals(n - 1, skewed.search(n - 1));
+        assertNull(skewed.search(-1));
+
+        java.io.ByteArrayOutputStream outContent = new java.io.ByteArrayOutputStream();
+        System.setOut(new java.io.PrintStream(outContent));
+        skewed.inOrderTraversal();
+        assertTrue(outContent.toString().endsWith((n - 1) + "\n"));
+    }
+
+    @Test
+    void testTenMillionNodes() {
+        BinarySearchTree<Integer, Integer> large = new BinarySearchTree<>(true);
+        int n = 10_000_000;
+        for (int i = n - 1; i >= 0; i--) {
+            large.insert(i, i);
+        }
+
+        assertEquals(n, large.size());
+        assertTrue(large.height() <= 2 * Math.log(n + 1) / Math.log(2));
+        for (int i = 0; i < n; i += 9_973) {
+            assertEquals(i, large.search(i));
+        }
+        assertNull(large.search(n));
+    }
+
+    @Test
+    void testBulkLoadUnsortedWithDuplicates() {
+        java.util.List<java.util.Map.Entry<String, Integer>> entries = java.util.List.of(
+                java.util.Map.entry("C", 30),
+                java.util.Map.entry("A", 10),
+                java.util.Map.entry("B", 20),
+                java.util.Map.entry("A", 99));
+        tree.bulkLoad(entries);
+
+        assertEquals(3, tree.size());
+        assertEquals(10, tree.search("A"));
+        assertEquals(20, tree.search("B"));
+        assertEquals(30, tree.search("C"));
+    }
+
+    @Test
+    void testBulkLoadMergesWithExistingKeys() {
+        tree.insert("B", 1);
+        tree.insert("D", 2);
+        tree.bulkLoad(java.util.List.of(
+                java.util.Map.entry("A", 10),
+                java.util.Map.entry("B", 20),
+                java.util.Map.entry("C", 30)));
+
+        assertEquals(4, tree.size());
+        assertEquals(10, tree.search("A"));
+        assertEquals(1, tree.search("B"));
+        assertEquals(30, tree.search("C"));
+        assertEquals(2, tree.search("D"));
+    }
+
+    @Test
+    void testBulkLoadBuildsBalancedTree() {
+        BinarySearchTree<Integer, Integer> balanced = new BinarySearchTree<>(true);
+        int n = 1_000_000;
+        java.util.List<java.util.Map.Entry<Integer, Integer>> entries = new java.util.ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            entries.add(java.util.Map.entry(i, i));
+        }
+        balanced.bulkLoad(entries);
+
+        assertEquals(n, balanced.size());
+        // Perfectamente balanceado: altura mínima posible
+        assertEquals(32 - Integer.numberOfLeadingZeros(n), balanced.height());
+
+        // Las inserciones posteriores mantienen las invariantes rojo-negro
+        for (int i = n; i < 2 * n; i++) {
+            balanced.insert(i, i);
+        }
+        assertTrue(balanced.height() <= 2 * Math.log(2 * n + 1) / Math.log(2));
+        assertEquals(n + 7, balanced.search(n + 7));
+    }
+
+    @Test
+    void testIteratorAndRangeViews() {
+        for (String key : new String[] {"D", "B", "F", "A", "C", "E", "G"}) {
+            tree.insert(key, key.charAt(0) - 'A');
+        }
+
+        assertEquals(List.of("A", "B", "C", "D", "E", "F", "G"), keys(tree));
+        assertEquals(List.of("B", "C", "D"), keys(tree.range("B", "E")));
+        assertEquals(List.of("C", "D", "E"), keys(tree.range("B", false, "E", true)));
+        assertEquals(List.of("A", "B"), keys(tree.head("C")));
+        assertEquals(List.of("F", "G"), keys(tree.tail("F")));
+        assertEquals(List.of(), keys(tree.range("X", "Z")));
+        assertThrows(UnsupportedOperationException.class, () -> tree.iterator().next().setValue(1));
+    }
+
+    @Test
+    void testPrefixScan() {
+        tree.insert("Camiseta Running", 1);
+        tree.insert("Camiseta Térmica", 2);
+        tree.insert("Calcetas", 3);
+        tree.insert("Chamarra", 4);
+        tree.insert("Camisa", 5);
+
+        assertEquals(List.of("Camiseta Running", "Camiseta Térmica"), keys(tree.prefix("Camiseta")));
+        assertEquals(List.of("Camisa", "Camiseta Running", "Camiseta Térmica"), keys(tree.prefix("Camis")));
+        assertEquals(List.of(), keys(tree.prefix("Gorra")));
+    }
+
+    @Test
+    void testParallelSpliterator() {
+        BinarySearchTree<Integer, Integer> balanced = new BinarySearchTree<>(true);
+        int n = 100_000;
+        for (int i = 0; i < n; i++) {
+            balanced.insert(i, i);
+        }
+
+        long sum = java.util.stream.StreamSupport.stream(balanced.spliterator(), true)
+                .mapToLong(java.util.Map.Entry::getValue)
+                .sum();
+        assertEquals((long) n * (n - 1) / 2, sum);
+
+        List<Integer> ordered = java.util.stream.StreamSupport.stream(balanced.spliterator(), true)
+                .map(java.util.Map.Entry::getKey)
+                .collect(java.util.stream.Collectors.toList());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, ordered.get(i));
+        }
+    }
+
+    @Test
+    void testSearchAllInOnePass() {
+        BinarySearchTree<Integer, Integer> balanced = new BinarySearchTree<>(true);
+        for (int i = 0; i < 10_000; i += 2) {
+            balanced.insert(i, i * 10);
+        }
+
+        BatchLookup<Integer, Integer> batch = new BatchLookup<>();
+        java.util.Random random = new java.util.Random(3);
+        for (int round = 0; round < 5; round++) {
+            List<Integer> probes = new java.util.ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                probes.add(random.nextInt(10_100) - 50);
+            }
+            probes.add(probes.get(0));
+            balanced.searchAll(batch.reset(probes));
+
+            assertEquals(probes.size(), batch.size());
+            int found = 0;
+            for (int i = 0; i < probes.size(); i++) {
+                assertEquals(probes.get(i), batch.key(i));
+                assertEquals(balanced.search(probes.get(i)), batch.value(i));
+                if (batch.value(i) != null) {
+                    found++;
+                }
+            }
+            assertEquals(found, batch.found());
+        }
+
+        BinarySearchTree<Integer, Integer> skewed = new BinarySearchTree<>();
+        for (int i = 0; i < 20_000; i++) {
+            skewed.insert(i, i);
+        }
+        skewed.searchAll(batch.reset(List.of(19_999, 0, 20_000, 10_000)));
+        assertEquals(List.of(19_999, 0, 10_000), batch.foundValues());
+    }
+
+    private static <K extends Comparable<K>> List<K> keys(Iterable<? extends java.util.Map.Entry<K, ?>> entries) {
+        List<K> keys = new java.util.ArrayList<>();
+        for (java.util.Map.Entry<K, ?> entry : entries) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    @Test
+    void testRemoveKeepsOrderAndBalance() {
+        BinarySearchTree<Integer, Integer> balanced = new BinarySearchTree<>(true);
+        java.util.TreeMap<Integer, Integer> expected = new java.util.TreeMap<>();
+        java.util.Random random = new java.util.Random(11);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(50_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), balanced.remove(key));
+            } else {
+                balanced.insert(key, key);
+                expected.putIfAbsent(key, key);
+            }
+        }
+        assertEquals(expected.size(), balanced.size());
+        assertEquals(new java.util.ArrayList<>(expected.keySet()), keys(balanced));
+        double bound = 2 * Math.log(expected.size() + 1) / Math.log(2);
+        assertTrue(balanced.height() <= bound, "altura " + balanced.height() + " excede " + bound);
+
+        for (Integer key : new java.util.ArrayList<>(expected.keySet())) {
+            assertEquals(key, balanced.remove(key));
+        }
+        assertEquals(0, balanced.size());
+        assertEquals(0, balanced.height());
+        assertNull(balanced.remove(1));
+
+        BinarySearchTree<Integer, Integer> plain = new BinarySearchTree<>();
+        for (int key : new int[] {50, 30, 70, 20, 40, 60, 80}) {
+            plain.insert(key, key);
+        }
+        assertEquals(50, plain.remove(50));
+        assertEquals(30, plain.remove(30));
+        assertEquals(List.of(20, 40, 60, 70, 80), keys(plain));
+    }
+
+    @Test
+    void testRankSelectAndPage() {
+        for (boolean mode : new boolean[] {true, false}) {
+            BinarySearchTree<Integer, Integer> ordered = new BinarySearchTree<>(mode);
+            java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+            java.util.Random random = new java.util.Random(21);
+            for (int i = 0; i < 20_000; i++) {
+                int key = random.nextInt(5_000) * 2;
+                if (random.nextInt(4) == 0) {
+                    ordered.remove(key);
+                    expected.remove(key);
+                } else {
+                    ordered.insert(key, key);
+                    expected.add(key);
+                }
+            }
+            List<Map.Entry<Integer, Integer>> batch = new java.util.ArrayList<>();
+            for (int key = 1; key < 2_000; key += 4) {
+                batch.add(Map.entry(key, key));
+                expected.add(key);
+            }
+            ordered.bulkLoad(batch);
+            ordered.insert(-1, -1);
+            expected.add(-1);
+
+            List<Integer> keys = new java.util.ArrayList<>(expected);
+            assertEquals(keys.size(), ordered.size());
+            for (int i = 0; i < keys.size(); i += 37) {
+                assertEquals(keys.get(i), ordered.select(i).getKey());
+                assertEquals(i, ordered.rank(keys.get(i)));
+                int probe = random.nextInt(10_002) - 1;
+                assertEquals(expected.headSet(probe).size(), ordered.rank(probe));
+            }
+            assertEquals(keys.subList(100, 150), keys(ordered.page(100, 50)));
+            assertEquals(keys.subList(keys.size() - 3, keys.size()), keys(ordered.page(keys.size() - 3, 10)));
+            assertTrue(ordered.page(keys.size(), 10).isEmpty());
+            assertEquals(0, ordered.rank(Integer.MIN_VALUE));
+            assertEquals(keys.size(), ordered.rank(Integer.MAX_VALUE));
+            assertThrows(IndexOutOfBoundsException.class, () -> ordered.select(keys.size()));
+        }
+    }
 }
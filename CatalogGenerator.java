@@ -0,0 +1,513 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generador de catálogos sintéticos en el mismo formato que el CSV del inventario
+ * ({@code SKU,Nombre,Descripción,Cantidad por talla}), para pruebas de escala y de carga.
+ * <p>
+ * Los archivos se escriben fila por fila sin guardar nada en memoria, así que pueden
+ * tener desde miles hasta cientos de millones de filas. El contenido de cada producto
+ * depende solo de su SKU y de la semilla, de modo que la posición de la fila en el
+ * archivo (el orden de claves) no cambia los datos, y el flujo de operaciones puede
+ * referirse a productos existentes sin haber leído el catálogo.
+ * <p>
+ * Se puede configurar:
+ * <ul>
+ *   <li>el orden de los SKU: ordenado, aleatorio (una permutación sin repetidos) o
+ *   agrupado (bloques de SKU consecutivos en orden aleatorio);</li>
+ *   <li>la proporción de filas que repiten el nombre de otro producto;</li>
+ *   <li>la cantidad de palabras de la descripción;</li>
+ *   <li>la cantidad de tallas por producto y de etiquetas de talla distintas.</li>
+ * </ul>
+ * Uso: {@code java CatalogGenerator filas archivo.csv [opción=valor...]}, con las
+ * opciones {@code orden=ordenado|aleatorio|agrupado}, {@code bloque}, {@code duplicados},
+ * {@code palabras}, {@code tallas}, {@code etiquetas}, {@code semilla},
+ * {@code operaciones}, {@code lecturas} y {@code archivoOperaciones}.
+ */
+public class CatalogGenerator {
+    /**
+     * Orden en que aparecen los SKU en el archivo.
+     */
+    public enum KeyOrder {
+        SORTED, RANDOM, CLUSTERED
+    }
+
+    private static final String[] GARMENTS = {
+        "Camiseta", "Short", "Leggings", "Chamarra", "Sudadera", "Pants", "Top", "Calcetas",
+        "Gorra", "Chaleco", "Playera", "Falda", "Mallas", "Rompevientos", "Bermuda", "Jersey"
+    };
+    private static final String[] SPORTS = {
+        "Running", "Deportivo", "Compresión", "Cortaviento", "Entrenamiento", "Yoga", "Ciclismo",
+        "Fútbol", "Básquetbol", "Tenis", "Natación", "Trail", "Gimnasio", "Montaña"
+    };
+    private static final String[] WORDS = {
+        "ligera", "transpirable", "elástica", "cómoda", "ajustada", "resistente", "suave",
+        "térmica", "reflejante", "secado", "rápido", "algodón", "poliéster", "costuras",
+        "planas", "bolsillo", "cierre", "capucha", "protección", "viento", "lluvia", "soporte",
+        "muscular", "ventilación", "malla", "tela", "doble", "capa", "para", "correr", "entrenar"
+    };
+    private static final String[] STANDARD_SIZES = {"xs", "s", "m", "l", "xl", "xxl"};
+
+    private static final long NAME_SALT = 0x6E616D65L;
+    private static final long PARENT_SALT = 0x70617265L;
+    private static final long DESCRIPTION_SALT = 0x64657363L;
+    private static final long SIZE_SALT = 0x73697A65L;
+    private static final long ORDER_SALT = 0x6F726465L;
+
+    private final long rows;
+    private final int skuWidth;
+    private KeyOrder keyOrder = KeyOrder.SORTED;
+    private int clusterSize = 1_000;
+    private double duplicateNameRate = 0.1;
+    private int descriptionWords = 6;
+    private int sizesPerProduct = 3;
+    private int sizeLabels = STANDARD_SIZES.length;
+    private long seed = 42;
+
+    /**
+     * Crea un generador de catálogos con la configuración por defecto: SKU ordenados,
+     * 10% de nombres repetidos, descripciones de 6 palabras y 3 tallas por producto.
+     * 
+     * @param rows Cantidad de productos del catálogo.
+     */
+    public CatalogGenerator(long rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("La cantidad de filas no puede ser negativa: " + rows);
+        }
+        this.rows = rows;
+        this.skuWidth = Math.max(3, Long.toString(Math.max(0, rows - 1)).length());
+    }
+
+    /**
+     * Indica el orden de los SKU en el archivo.
+     * 
+     * @param keyOrder Orden de las claves.
+     * @return Este generador.
+     */
+    public CatalogGenerator keyOrder(KeyOrder keyOrder) {
+        this.keyOrder = keyOrder;
+        return this;
+    }
+
+    /**
+     * Indica cuántos SKU consecutivos forman cada bloque en el orden agrupado.
+     * 
+     * @param clusterSize Tamaño de bloque.
+     * @return Este generador.
+     */
+    public CatalogGenerator clusterSize(int clusterSize) {
+        if (clusterSize < 1) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser positivo: " + clusterSize);
+        }
+        this.clusterSize = clusterSize;
+        return this;
+    }
+
+    /**
+     * Indica la proporción de productos que repiten el nombre de otro producto.
+     * 
+     * @param duplicateNameRate Proporción entre 0 (todos distintos) y 1 (excluido).
+     * @return Este generador.
+     */
+    public CatalogGenerator duplicateNameRate(double duplicateNameRate) {
+        if (duplicateNameRate < 0 || duplicateNameRate >= 1) {
+            throw new IllegalArgumentException("La proporción de duplicados debe estar en [0, 1): "
+                    + duplicateNameRate);
+        }
+        this.duplicateNameRate = duplicateNameRate;
+        return this;
+    }
+
+    /**
+     * Indica la cantidad de palabras de cada descripción.
+     * 
+     * @param descriptionWords Palabras por descripción.
+     * @return Este generador.
+     */
+    public CatalogGenerator descriptionWords(int descriptionWords) {
+        if (descriptionWords < 1) {
+            throw new IllegalArgumentException("La descripción debe tener al menos una palabra: "
+                    + descriptionWords);
+        }
+        this.descriptionWords = descriptionWords;
+        return this;
+    }
+
+    /**
+     * Indica cuántas tallas tiene cada producto y cuántas etiquetas distintas existen.
+     * Las primeras etiquetas son xs, s, m, l, xl y xxl; las siguientes son numéricas.
+     * 
+     * @param sizesPerProduct Tallas por producto.
+     * @param sizeLabels      Etiquetas de talla distintas en todo el catálogo.
+     * @return Este generador.
+     */
+    public CatalogGenerator sizes(int sizesPerProduct, int sizeLabels) {
+        if (sizesPerProduct < 1 || sizesPerProduct > sizeLabels) {
+            throw new IllegalArgumentException("Tallas por producto fuera de rango: " + sizesPerProduct
+                    + " de " + sizeLabels);
+        }
+        this.sizesPerProduct = sizesPerProduct;
+        this.sizeLabels = sizeLabels;
+        return this;
+    }
+
+    /**
+     * Indica la semilla de la que dependen todos los datos generados.
+     * 
+     * @param seed Semilla.
+     * @return Este generador.
+     */
+    public CatalogGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Escribe el catálogo completo.
+     * 
+     * @param file Archivo CSV destino.
+     * @throws IOException Si no se puede escribir el archivo.
+     */
+    public void writeCatalog(Path file) throws IOException {
+        StringBuilder line = new StringBuilder(256);
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write("SKU,Nombre,Descripción,Cantidad por talla\n");
+            for (long position = 0; position < rows; position++) {
+                line.setLength(0);
+                appendRow(line, keyAt(position));
+                line.append('\n');
+                writer.append(line);
+            }
+        }
+    }
+
+    /**
+     * Obtiene el número de SKU que ocupa una posición del archivo según el orden elegido.
+     * 
+     * @param position Posición de la fila, desde 0.
+     * @return Número del SKU en esa fila.
+     */
+    public long keyAt(long position) {
+        switch (keyOrder) {
+            case RANDOM:
+                return permute(position, rows, ORDER_SALT);
+            case CLUSTERED: {
+                // Solo se reordenan los bloques completos; el resto final queda ordenado
+                long fullBlocks = rows / clusterSize;
+                if (position >= fullBlocks * clusterSize) {
+                    return position;
+                }
+                return permute(position / clusterSize, fullBlocks, ORDER_SALT) * clusterSize
+                        + position % clusterSize;
+            }
+            default:
+                return position;
+        }
+    }
+
+    /**
+     * Obtiene el SKU con el formato del archivo (ceros a la izquierda).
+     * 
+     * @param key Número del SKU.
+     * @return SKU como texto.
+     */
+    public String skuOf(long key) {
+        String digits = Long.toString(key);
+        if (digits.length() >= skuWidth) {
+            return digits;
+        }
+        StringBuilder sku = new StringBuilder(skuWidth);
+        for (int i = digits.length(); i < skuWidth; i++) {
+            sku.append('0');
+        }
+        return sku.append(digits).toString();
+    }
+
+    /**
+     * Obtiene el nombre del producto con un SKU dado. Un producto con nombre repetido
+     * toma el nombre de otro de SKU menor.
+     * 
+     * @param key Número del SKU.
+     * @return Nombre del producto.
+     */
+    public String nameOf(long key) {
+        long owner = key;
+        while (owner > 0 && unit(mix(seed ^ NAME_SALT ^ owner)) < duplicateNameRate) {
+            owner = Long.remainderUnsigned(mix(seed ^ PARENT_SALT ^ owner), owner);
+        }
+        return GARMENTS[(int) (owner % GARMENTS.length)] + " "
+                + SPORTS[(int) ((owner / GARMENTS.length) % SPORTS.length)] + " " + owner;
+    }
+
+    private void appendRow(StringBuilder line, long key) {
+        line.append(skuOf(key)).append(',').append(nameOf(key)).append(',');
+        appendDescription(line, key);
+        line.append(',');
+        appendSizes(line, key);
+    }
+
+    private void appendDescription(StringBuilder line, long key) {
+        long state = seed ^ DESCRIPTION_SALT ^ key;
+        for (int i = 0; i < descriptionWords; i++) {
+            state = mix(state);
+            if (i > 0) {
+                line.append(' ');
+            }
+            line.append(WORDS[(int) Long.remainderUnsigned(state, WORDS.length)]);
+        }
+    }
+
+    private void appendSizes(StringBuilder line, long key) {
+        long state = mix(seed ^ SIZE_SALT ^ key);
+        int first = (int) Long.remainderUnsigned(state, sizeLabels);
+        for (int i = 0; i < sizesPerProduct; i++) {
+            state = mix(state);
+            if (i > 0) {
+                line.append('|');
+            }
+            line.append(sizeLabel((first + i) % sizeLabels)).append(':')
+                    .append(Long.remainderUnsigned(state, 50));
+        }
+    }
+
+    private static String sizeLabel(int index) {
+        return index < STANDARD_SIZES.length
+                ? STANDARD_SIZES[index]
+                : Integer.toString(20 + 2 * (index - STANDARD_SIZES.length));
+    }
+
+    /**
+     * Escribe un flujo de operaciones mixtas sobre el catálogo, una por línea con los
+     * campos separados por tabulador:
+     * <pre>
+     *   sku          SKU                       (searchBySku)
+     *   nombre       nombre                    (searchAllByName)
+     *   texto        palabra                   (searchText)
+     *   existencia   SKU talla cantidad        (setStock)
+     *   descripcion  SKU descripción           (updateDescription)
+     *   agregar      SKU nombre descripción tallas   (addProduct de un SKU nuevo)
+     * </pre>
+     * Las lecturas se reparten 50% por SKU, 25% por nombre y 25% por palabra; las
+     * escrituras 60% de existencias, 20% de descripciones y 20% de productos nuevos.
+     * 
+     * @param file       Archivo destino.
+     * @param operations Cantidad de operaciones.
+     * @param readRatio  Proporción de lecturas, entre 0 y 1.
+     * @throws IOException Si no se puede escribir el archivo.
+     */
+    public void writeOperations(Path file, long operations, double readRatio) throws IOException {
+        if (rows == 0) {
+            throw new IllegalStateException("No se pueden generar operaciones sobre un catálogo vacío");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        long nextKey = rows;
+        StringBuilder line = new StringBuilder(256);
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            for (long i = 0; i < operations; i++) {
+                line.setLength(0);
+                long key = random.nextLong(nextKey);
+                double kind = random.nextDouble();
+                if (random.nextDouble() < readRatio) {
+                    if (kind < 0.5) {
+                        line.append("sku\t").append(skuOf(key));
+                    } else if (kind < 0.75) {
+                        line.append("nombre\t").append(nameOf(key));
+                    } else {
+                        String[] vocabulary = random.nextBoolean() ? GARMENTS : WORDS;
+                        line.append("texto\t").append(vocabulary[random.nextInt(vocabulary.length)]);
+                    }
+                } else if (kind < 0.6) {
+                    line.append("existencia\t").append(skuOf(key)).append('\t')
+                            .append(sizeLabel(random.nextInt(sizeLabels))).append('\t').append(random.nextInt(50));
+                } else if (kind < 0.8) {
+                    line.append("descripcion\t").append(skuOf(key)).append('\t');
+                    appendDescription(line, random.nextLong());
+                } else {
+                    key = nextKey++;
+                    line.append("agregar\t").append(skuOf(key)).append('\t').append(nameOf(key)).append('\t');
+                    appendDescription(line, key);
+                    line.append('\t');
+                    appendSizes(line, key);
+                }
+                line.append('\n');
+                writer.append(line);
+            }
+        }
+    }
+
+    /**
+     * Ejecuta sobre un inventario las operaciones de un archivo escrito con
+     * {@link #writeOperations}.
+     * 
+     * @param file    Archivo de operaciones.
+     * @param manager Inventario sobre el que se ejecutan.
+     * @return Cantidad de operaciones ejecutadas.
+     * @throws IOException Si no se puede leer el archivo.
+     */
+    public static long replayOperations(Path file, InventoryManager manager) throws IOException {
+        long executed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                switch (fields[0]) {
+                    case "sku":
+                        manager.searchBySku(fields[1]);
+                        break;
+                    case "nombre":
+                        manager.searchAllByName(fields[1]);
+                        break;
+                    case "texto":
+                        manager.searchText(fields[1], 10);
+                        break;
+                    case "existencia":
+                        manager.setStock(fields[1], fields[2], Integer.parseInt(fields[3]));
+                        break;
+                    case "descripcion":
+                        manager.updateDescription(fields[1], fields[2]);
+                        break;
+                    case "agregar":
+                        manager.addProduct(new Product(fields[1], fields[2], fields[3], parseSizes(fields[4])));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Operación desconocida en la línea " + (executed + 1)
+                                + ": " + fields[0]);
+                }
+                executed++;
+            }
+        }
+        return executed;
+    }
+
+    private static Map<String, Integer> parseSizes(String field) {
+        Map<String, Integer> sizes = new HashMap<>();
+        for (String entry : field.split("\\|")) {
+            int colon = entry.indexOf(':');
+            sizes.put(entry.substring(0, colon), Integer.parseInt(entry.substring(colon + 1)));
+        }
+        return sizes;
+    }
+
+    /**
+     * Permutación pseudoaleatoria de {@code [0, n)}: una red de Feistel sobre la menor
+     * potencia de 4 que cubre {@code n}, repitiéndola hasta caer dentro del rango.
+     */
+    private long permute(long value, long n, long salt) {
+        if (n <= 1) {
+            return value;
+        }
+        int half = (64 - Long.numberOfLeadingZeros(n - 1) + 1) / 2;
+        long mask = (1L << half) - 1;
+        long x = value;
+        do {
+            long left = x >>> half;
+            long right = x & mask;
+            for (int round = 0; round < 4; round++) {
+                long next = left ^ (mix(seed ^ salt ^ ((long) round << 56) ^ right) & mask);
+                left = right;
+                right = next;
+            }
+            x = (left << half) | right;
+        } while (x >= n);
+        return x;
+    }
+
+    /**
+     * Función de mezcla de SplitMix64.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double unit(long bits) {
+        return (bits >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Genera un catálogo y, opcionalmente, un flujo de operaciones desde la línea de comandos.
+     * 
+     * @param args Cantidad de filas, archivo destino y opciones {@code opción=valor}.
+     * @throws IOException Si no se pueden escribir los archivos.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Uso: java CatalogGenerator filas archivo.csv [opción=valor...]");
+            return;
+        }
+        CatalogGenerator generator = new CatalogGenerator(Long.parseLong(args[0]));
+        Path catalog = Paths.get(args[1]);
+        long operations = 0;
+        double readRatio = 0.9;
+        Path operationsFile = null;
+        int sizesPerProduct = generator.sizesPerProduct;
+        int sizeLabels = generator.sizeLabels;
+        for (int i = 2; i < args.length; i++) {
+            int equals = args[i].indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Opción sin valor: " + args[i]);
+            }
+            String value = args[i].substring(equals + 1);
+            switch (args[i].substring(0, equals)) {
+                case "orden":
+                    generator.keyOrder(value.equals("aleatorio") ? KeyOrder.RANDOM
+                            : value.equals("agrupado") ? KeyOrder.CLUSTERED : KeyOrder.SORTED);
+                    break;
+                case "bloque":
+                    generator.clusterSize(Integer.parseInt(value));
+                    break;
+                case "duplicados":
+                    generator.duplicateNameRate(Double.parseDouble(value));
+                    break;
+                case "palabras":
+                    generator.descriptionWords(Integer.parseInt(value));
+                    break;
+                case "tallas":
+                    sizesPerProduct = Integer.parseInt(value);
+                    break;
+                case "etiquetas":
+                    sizeLabels = Integer.parseInt(value);
+                    break;
+                case "semilla":
+                    generator.seed(Long.parseLong(value));
+                    break;
+                case "operaciones":
+                    operations = Long.parseLong(value);
+                    break;
+                case "lecturas":
+                    readRatio = Double.parseDouble(value);
+                    break;
+                case "archivoOperaciones":
+                    operationsFile = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+        generator.sizes(sizesPerProduct, Math.max(sizeLabels, sizesPerProduct));
+
+        long start = System.nanoTime();
+        generator.writeCatalog(catalog);
+        System.out.printf("Catálogo %s: %,d filas, %,d bytes en %.1f s%n", catalog, generator.rows,
+                Files.size(catalog), (System.nanoTime() - start) / 1e9);
+        if (operations > 0) {
+            if (operationsFile == null) {
+                operationsFile = Paths.get(catalog + ".ops");
+            }
+            generator.writeOperations(operationsFile, operations, readRatio);
+            System.out.printf("Operaciones %s: %,d%n", operationsFile, operations);
+        }
+    }
+}
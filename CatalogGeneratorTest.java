@@ -0,0 +1,126 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pruebas unitarias para la clase CatalogGenerator.
+ */
+class CatalogGeneratorTest {
+    private Path catalog;
+    private Path operations;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        catalog = Files.createTempFile("catalogo", ".csv");
+        operations = Files.createTempFile("catalogo", ".ops");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(catalog);
+        Files.deleteIfExists(operations);
+    }
+
+    /**
+     * Prueba de que el catálogo ordenado se lee con CsvParser y tiene el contenido configurado.
+     */
+    @Test
+    void testSortedCatalog() throws IOException {
+        new CatalogGenerator(5_000).descriptionWords(4).sizes(2, 8).writeCatalog(catalog);
+        List<Product> products = CsvParser.parse(catalog);
+
+        assertEquals(5_000, products.size());
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            assertEquals(String.format("%04d", i), product.getSku());
+            assertEquals(4, product.getDescription().split(" ").length);
+            assertEquals(2, product.getSizes().size());
+        }
+    }
+
+    /**
+     * Prueba de que el orden aleatorio es una permutación de todos los SKU.
+     */
+    @Test
+    void testRandomOrderIsPermutation() throws IOException {
+        CatalogGenerator generator = new CatalogGenerator(10_000).keyOrder(CatalogGenerator.KeyOrder.RANDOM);
+        generator.writeCatalog(catalog);
+        List<Product> products = CsvParser.parse(catalog);
+
+        Set<String> skus = new HashSet<>();
+        int ascending = 0;
+        for (int i = 0; i < products.size(); i++) {
+            skus.add(products.get(i).getSku());
+            if (i > 0 && products.get(i - 1).getSku().compareTo(products.get(i).getSku()) < 0) {
+                ascending++;
+            }
+        }
+        assertEquals(10_000, skus.size());
+        assertTrue(skus.contains(generator.skuOf(0)));
+        assertTrue(skus.contains(generator.skuOf(9_999)));
+        assertTrue(ascending < 7_000);
+    }
+
+    /**
+     * Prueba de que el orden agrupado conserva bloques de SKU consecutivos.
+     */
+    @Test
+    void testClusteredOrder() {
+        CatalogGenerator generator = new CatalogGenerator(10_050)
+                .keyOrder(CatalogGenerator.KeyOrder.CLUSTERED).clusterSize(100);
+        Set<Long> keys = new HashSet<>();
+        boolean reordered = false;
+        for (long position = 0; position < 10_050; position++) {
+            long key = generator.keyAt(position);
+            keys.add(key);
+            if (position % 100 != 0) {
+                assertEquals(generator.keyAt(position - 1) + 1, key);
+            }
+            reordered |= key != position;
+        }
+        assertEquals(10_050, keys.size());
+        assertTrue(reordered);
+        assertEquals(10_049, generator.keyAt(10_049));
+    }
+
+    /**
+     * Prueba de la proporción de nombres repetidos.
+     */
+    @Test
+    void testDuplicateNameRate() {
+        CatalogGenerator unique = new CatalogGenerator(10_000).duplicateNameRate(0);
+        CatalogGenerator repeated = new CatalogGenerator(10_000).duplicateNameRate(0.5);
+        Set<String> uniqueNames = new HashSet<>();
+        Set<String> repeatedNames = new HashSet<>();
+        for (long key = 0; key < 10_000; key++) {
+            uniqueNames.add(unique.nameOf(key));
+            repeatedNames.add(repeated.nameOf(key));
+        }
+        assertEquals(10_000, uniqueNames.size());
+        assertTrue(repeatedNames.size() > 4_000 && repeatedNames.size() < 6_000);
+    }
+
+    /**
+     * Prueba de que el flujo de operaciones se ejecuta sobre el catálogo cargado.
+     */
+    @Test
+    void testReplayOperations() throws IOException {
+        CatalogGenerator generator = new CatalogGenerator(2_000).keyOrder(CatalogGenerator.KeyOrder.RANDOM);
+        generator.writeCatalog(catalog);
+        generator.writeOperations(operations, 5_000, 0.5);
+        long added = Files.readAllLines(operations).stream().filter(line -> line.startsWith("agregar\t")).count();
+
+        InventoryManager manager = new InventoryManager();
+        manager.loadFromCSV(catalog.toString());
+        assertEquals(5_000, CatalogGenerator.replayOperations(operations, manager));
+        assertEquals(2_000 + added, manager.size());
+        assertNotNull(manager.searchBySku(generator.skuOf(2_000 + added - 1)));
+    }
+}
@@ -0,0 +1,687 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Variante de {@link InventoryManager} segura para varios hilos.
+ * Los índices por SKU y por nombre son árboles persistentes ({@link PersistentTree})
+ * agrupados en una {@link InventoryView} inmutable que se publica en una sola
+ * referencia atómica. Las búsquedas y los listados leen la vista vigente sin tomar
+ * candados, y como ambos índices se reemplazan juntos nunca ven un cambio aplicado
+ * a medias.
+ * <p>
+ * Cada escritura arma una vista nueva copiando solo los caminos que cambian y la
+ * publica con una comparación e intercambio; si otro escritor publicó antes, se
+ * vuelve a armar sobre la vista más reciente. Así ningún escritor bloquea a los
+ * lectores. En este modo los árboles heredados {@code skuTree} y {@code nameTree} no
+ * se usan.
+ * <p>
+ * Los índices secundarios y la bitácora se actualizan después de publicar, y para que
+ * sigan el mismo orden que la vista cada escritura toma los candados de un arreglo de
+ * {@link #STRIPES} que corresponden a su SKU y a los nombres que toca, siempre en
+ * orden ascendente para no bloquearse entre sí. Dos escrituras sobre el mismo SKU o
+ * el mismo nombre se aplican una después de la otra, desde la publicación hasta la
+ * bitácora; las demás siguen en paralelo.
+ * <p>
+ * Para inventarios que se leen mucho más de lo que se escriben, {@link #enableReadIndex}
+ * agrega un {@link EytzingerIndex} por SKU que {@link #searchBySku} consulta mientras
+ * corresponda a la vista vigente; tras cada escritura se reconstruye en un hilo de
+ * fondo y, mientras tanto, las búsquedas usan el árbol persistente.
+ */
+public class ConcurrentInventoryManager extends InventoryManager {
+    private final AtomicReference<InventoryView> view = new AtomicReference<>(InventoryView.empty());
+
+    /**
+     * Cantidad de candados en que se reparten los SKU y los nombres; potencia de dos y
+     * no más de 64.
+     */
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    /**
+     * Índice de lectura junto con el árbol por SKU a partir del cual se construyó.
+     */
+    private static final class ReadIndex {
+        final PersistentTree<String, Product> source;
+        final EytzingerIndex<Product> index;
+
+        ReadIndex(PersistentTree<String, Product> source, EytzingerIndex<Product> index) {
+            this.source = source;
+            this.index = index;
+        }
+    }
+
+    private volatile ReadIndex readIndex;
+    private volatile ScheduledExecutorService rebuilder;
+    private volatile long rebuildDelayMillis;
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    /**
+     * Constructor que inicializa la vista vacía.
+     */
+    public ConcurrentInventoryManager() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        // Los árboles heredados no se usan; solo se reporta el tamaño de los índices
+        metrics.clearGauges();
+        metrics.registerGauge("skuIndex.size", () -> view.get().bySku.size());
+        metrics.registerGauge("nameIndex.size", () -> view.get().byName.size());
+    }
+
+    /**
+     * Obtiene la vista vigente del inventario, en tiempo constante y sin copiar nada.
+     * 
+     * @return Vista inmutable de ambos índices.
+     */
+    @Override
+    public InventoryView snapshot() {
+        return view.get();
+    }
+
+    /**
+     * Agrega un producto a ambos índices en una sola publicación, de modo que quien lo
+     * encuentra por SKU también lo encuentra por nombre.
+     * 
+     * @param product Producto a agregar.
+     * @return true si el producto se agregó, false si el SKU ya existía.
+     */
+    @Override
+    public boolean addProduct(Product product) {
+        long start = metrics.start();
+        int[] held = lock(product.getSku(), product.getName());
+        try {
+            while (true) {
+                InventoryView current = view.get();
+                if (current.bySku.get(product.getSku()) != null) {
+                    return false;
+                }
+                InventoryView next = new InventoryView(current.bySku.put(product.getSku(), product),
+                        current.byName.putIfAbsent(product.getName(), product));
+                if (view.compareAndSet(current, next)) {
+                    break;
+                }
+            }
+            scheduleRebuild();
+            onProductAdded(product);
+        } finally {
+            unlock(held);
+        }
+        metrics.stop(InventoryMetrics.Operation.INSERT, start);
+        return true;
+    }
+
+    /**
+     * Elimina un producto de ambos índices en una sola publicación. Si el producto
+     * representaba a su nombre, otro producto con el mismo nombre pasa a ocupar su
+     * lugar en el índice por nombre.
+     * 
+     * @param sku SKU del producto a eliminar.
+     * @return true si el producto existía y se eliminó, false si no existía.
+     */
+    @Override
+    public boolean removeProduct(String sku) {
+        long start = metrics.start();
+        while (true) {
+            Product product = view.get().bySku.get(sku);
+            if (product == null) {
+                return false;
+            }
+            int[] held = lock(sku, product.getName());
+            try {
+                // Con el candado del SKU tomado nadie más puede cambiar este producto
+                if (view.get().bySku.get(sku) != product) {
+                    continue;
+                }
+                while (true) {
+                    InventoryView current = view.get();
+                    PersistentTree<String, Product> bySku = current.bySku.remove(sku);
+                    InventoryView next = new InventoryView(bySku, withoutName(current.byName, bySku, product));
+                    if (view.compareAndSet(current, next)) {
+                        break;
+                    }
+                }
+                scheduleRebuild();
+                onProductRemoved(product);
+            } finally {
+                unlock(held);
+            }
+            metrics.stop(InventoryMetrics.Operation.REMOVE, start);
+            return true;
+        }
+    }
+
+    /**
+     * Reemplaza un producto por otro con el mismo SKU en una sola publicación, así
+     * que un cambio de nombre nunca deja ver el producto viejo en un índice y el
+     * nuevo en el otro.
+     * 
+     * @param replacement Producto nuevo.
+     * @return true si había un producto con ese SKU y se reemplazó, false si no.
+     */
+    @Override
+    public boolean replaceProduct(Product replacement) {
+        long start = metrics.start();
+        String sku = replacement.getSku();
+        while (true) {
+            Product product = view.get().bySku.get(sku);
+            if (product == null) {
+                return false;
+            }
+            int[] held = lock(sku, product.getName(), replacement.getName());
+            try {
+                if (view.get().bySku.get(sku) != product) {
+                    continue;
+                }
+                while (true) {
+                    InventoryView current = view.get();
+                    PersistentTree<String, Product> bySku = current.bySku.put(sku, replacement);
+                    PersistentTree<String, Product> byName = current.byName;
+                    if (byName.get(product.getName()) == product && product.getName().equals(replacement.getName())) {
+                        byName = byName.put(product.getName(), replacement);
+                    } else {
+                        byName = withoutName(byName, bySku, product).putIfAbsent(replacement.getName(), replacement);
+                    }
+                    if (view.compareAndSet(current, new InventoryView(bySku, byName))) {
+                        break;
+                    }
+                }
+                scheduleRebuild();
+                onProductReplaced(product, replacement);
+            } finally {
+                unlock(held);
+            }
+            metrics.stop(InventoryMetrics.Operation.EDIT, start);
+            return true;
+        }
+    }
+
+    /**
+     * Cambia la descripción de un producto con el candado de su SKU tomado, para que el
+     * índice de palabras y la bitácora no se crucen con su eliminación o reemplazo.
+     * 
+     * @param sku         SKU del producto a modificar.
+     * @param description Nueva descripción.
+     * @return true si el producto existe y se modificó, false si no existe.
+     */
+    @Override
+    public boolean updateDescription(String sku, String description) {
+        return locked(() -> super.updateDescription(sku, description), sku);
+    }
+
+    /**
+     * Fija la cantidad de una talla con el candado del SKU tomado, así la bitácora
+     * registra los cambios de un mismo producto en el orden en que se aplicaron.
+     * 
+     * @param sku      SKU del producto a modificar.
+     * @param size     Etiqueta de la talla.
+     * @param quantity Nueva cantidad disponible.
+     * @return true si el producto existe y se modificó, false si no existe.
+     */
+    @Override
+    public boolean setStock(String sku, String size, int quantity) {
+        return locked(() -> super.setStock(sku, size, quantity), sku);
+    }
+
+    /**
+     * Suma unidades a una talla con el candado del SKU tomado, así la cantidad que queda
+     * en la bitácora es la que dejó este cambio.
+     * 
+     * @param sku    SKU del producto a modificar.
+     * @param size   Etiqueta de la talla.
+     * @param amount Unidades a agregar.
+     * @return true si el producto existe y se modificó, false si no existe.
+     */
+    @Override
+    public boolean incrementStock(String sku, String size, int amount) {
+        return locked(() -> super.incrementStock(sku, size, amount), sku);
+    }
+
+    /**
+     * Retira unidades de una talla con el candado del SKU tomado.
+     * 
+     * @param sku    SKU del producto a modificar.
+     * @param size   Etiqueta de la talla.
+     * @param amount Unidades a retirar.
+     * @return true si se retiraron las unidades, false si el producto no existe o no
+     *         tiene suficientes.
+     */
+    @Override
+    public boolean decrementStock(String sku, String size, int amount) {
+        return locked(() -> super.decrementStock(sku, size, amount), sku);
+    }
+
+    /**
+     * Fija las existencias de un lote con los candados de todos sus SKU tomados, para
+     * que ningún cambio suelto sobre esos productos se intercale entre la aplicación
+     * del lote y su registro en la bitácora.
+     * 
+     * @param batch Cambios a aplicar; al terminar indica cuáles se aplicaron.
+     * @return Cantidad de cambios aplicados.
+     */
+    @Override
+    public int setStock(StockBatch batch) {
+        String[] skus = new String[batch.size()];
+        for (int i = 0; i < skus.length; i++) {
+            skus[i] = batch.sku(i);
+        }
+        return locked(() -> super.setStock(batch), skus);
+    }
+
+    /**
+     * Reemplaza las tallas de un producto con el candado de su SKU tomado.
+     * 
+     * @param sku   SKU del producto a modificar.
+     * @param sizes Nuevas tallas con sus cantidades.
+     * @return true si el producto existe y se modificó, false si no existe.
+     */
+    @Override
+    public boolean setSizes(String sku, Map<String, Integer> sizes) {
+        return locked(() -> super.setSizes(sku, sizes), sku);
+    }
+
+    /**
+     * Agrega un lote de productos con todos los candados tomados, de modo que ninguna
+     * otra escritura se intercale entre la publicación del lote y su bitácora.
+     * 
+     * @param products Productos a agregar.
+     * @return Para cada producto, en el mismo orden, true si se agregó.
+     */
+    @Override
+    public boolean[] addProducts(List<Product> products) {
+        lockAll();
+        try {
+            return super.addProducts(products);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Toma, en orden ascendente, los candados que corresponden a las claves dadas, cada
+     * uno una sola vez aunque varias claves caigan en él. Como hay a lo sumo 64, el
+     * conjunto se arma en un {@code long}, así un lote grande no ordena un arreglo.
+     * 
+     * @param keys SKU y nombres que toca la escritura.
+     * @return Índices de los candados tomados, para {@link #unlock}.
+     */
+    private int[] lock(String... keys) {
+        long set = 0;
+        for (String key : keys) {
+            int h = key.hashCode();
+            set |= 1L << ((h ^ (h >>> 16)) & (STRIPES - 1));
+        }
+        int[] held = new int[Long.bitCount(set)];
+        for (int i = 0; i < held.length; i++) {
+            held[i] = Long.numberOfTrailingZeros(set);
+            set &= set - 1;
+        }
+        for (int stripe : held) {
+            stripes[stripe].lock();
+        }
+        return held;
+    }
+
+    private void unlock(int[] held) {
+        for (int i = held.length - 1; i >= 0; i--) {
+            stripes[held[i]].unlock();
+        }
+    }
+
+    private <T> T locked(Supplier<T> action, String... keys) {
+        int[] held = lock(keys);
+        try {
+            return action.get();
+        } finally {
+            unlock(held);
+        }
+    }
+
+    private void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    /**
+     * Activa el índice de lectura por SKU: lo construye ahora sobre la vista vigente y,
+     * después de cada escritura, lo vuelve a construir en un hilo de fondo. Las
+     * escrituras que llegan mientras tanto se agrupan en una sola reconstrucción.
+     * 
+     * @param delayMillis Milisegundos a esperar tras una escritura antes de reconstruir.
+     */
+    public synchronized void enableReadIndex(long delayMillis) {
+        if (rebuilder == null) {
+            rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "inventory-read-index");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        rebuildDelayMillis = delayMillis;
+        rebuildReadIndex();
+    }
+
+    /**
+     * Desactiva el índice de lectura y detiene el hilo que lo reconstruye.
+     */
+    public synchronized void disableReadIndex() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+            rebuilder = null;
+        }
+        readIndex = null;
+    }
+
+    /**
+     * Indica si el índice de lectura corresponde a la vista vigente, es decir, si
+     * {@link #searchBySku} lo está usando.
+     * 
+     * @return true si el índice está activo y al día.
+     */
+    public boolean isReadIndexCurrent() {
+        ReadIndex index = readIndex;
+        return index != null && index.source == view.get().bySku;
+    }
+
+    /**
+     * Construye el índice de lectura sobre la vista vigente y lo publica, salvo que el
+     * índice se haya desactivado.
+     */
+    private synchronized void rebuildReadIndex() {
+        rebuildPending.set(false);
+        if (rebuilder == null) {
+            return;
+        }
+        PersistentTree<String, Product> source = view.get().bySku;
+        ReadIndex current = readIndex;
+        if (current == null || current.source != source) {
+            readIndex = new ReadIndex(source, EytzingerIndex.fromSorted(source, source.size()));
+        }
+    }
+
+    /**
+     * Programa una reconstrucción del índice de lectura si está activo y no hay una
+     * pendiente.
+     */
+    private void scheduleRebuild() {
+        ScheduledExecutorService executor = rebuilder;
+        if (executor != null && rebuildPending.compareAndSet(false, true)) {
+            try {
+                executor.schedule(this::rebuildReadIndex, rebuildDelayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // El índice se desactivó mientras tanto
+                rebuildPending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Quita un producto del índice por nombre si lo representa, dejando en su lugar
+     * al primer otro producto con ese nombre que siga en el índice por SKU dado. Quien
+     * la llama tiene el candado del nombre, así que ningún producto con ese nombre está
+     * publicado en la vista sin estar también en el índice de palabras.
+     */
+    private PersistentTree<String, Product> withoutName(PersistentTree<String, Product> byName,
+            PersistentTree<String, Product> bySku, Product removed) {
+        String name = removed.getName();
+        if (byName.get(name) != removed) {
+            return byName;
+        }
+        for (Product candidate : searchIndex.searchByName(name)) {
+            if (candidate != removed && bySku.get(candidate.getSku()) == candidate) {
+                return byName.put(name, candidate);
+            }
+        }
+        return byName.remove(name);
+    }
+
+    /**
+     * Inserta un lote de productos en una sola publicación, sin registrarlos en la
+     * bitácora, con todos los candados tomados. Los productos cuyo SKU ya existe se
+     * ignoran.
+     * 
+     * @param products Productos a indexar.
+     */
+    @Override
+    protected void indexProducts(List<Product> products) {
+        lockAll();
+        try {
+            indexUnderLock(products);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private void indexUnderLock(List<Product> products) {
+        List<Product> added = new ArrayList<>(products.size());
+        while (true) {
+            added.clear();
+            InventoryView current = view.get();
+            PersistentTree<String, Product> bySku = current.bySku;
+            PersistentTree<String, Product> byName = current.byName;
+            for (Product product : products) {
+                PersistentTree<String, Product> updated = bySku.putIfAbsent(product.getSku(), product);
+                if (updated != bySku) {
+                    bySku = updated;
+                    byName = byName.putIfAbsent(product.getName(), product);
+                    added.add(product);
+                }
+            }
+            if (view.compareAndSet(current, new InventoryView(bySku, byName))) {
+                break;
+            }
+        }
+        scheduleRebuild();
+        searchIndex.addAll(added);
+        stockIndex.addAll(added);
+    }
+
+    /**
+     * Reconstruye los índices desde un snapshot. Los productos del índice por nombre
+     * se agregan primero para conservar el producto que representa a cada nombre.
+     * 
+     * @param bySku  Productos en orden ascendente de SKU.
+     * @param byName Productos del índice por nombre, en orden ascendente de nombre.
+     */
+    @Override
+    protected void restoreIndexes(List<Product> bySku, List<Product> byName) {
+        List<Product> products = new ArrayList<>(byName.size() + bySku.size());
+        products.addAll(byName);
+        products.addAll(bySku);
+        indexProducts(products);
+    }
+
+    /**
+     * Obtiene la cantidad de productos de la vista publicada.
+     * 
+     * @return Número de SKU distintos.
+     */
+    @Override
+    public int size() {
+        return view.get().bySku.size();
+    }
+
+    /**
+     * Busca un producto por su SKU sin bloquear, en el índice de lectura si está al día
+     * con la vista vigente y si no en el árbol persistente.
+     * 
+     * @param sku SKU del producto a buscar.
+     * @return El producto encontrado o null si no existe.
+     */
+    @Override
+    public Product searchBySku(String sku) {
+        long start = metrics.start();
+        InventoryView current = view.get();
+        ReadIndex index = readIndex;
+        Product product = index != null && index.source == current.bySku
+                ? index.index.get(sku)
+                : current.searchBySku(sku);
+        metrics.stop(InventoryMetrics.Operation.SEARCH_BY_SKU, start);
+        return product;
+    }
+
+    /**
+     * Busca un producto por su nombre sin bloquear.
+     * 
+     * @param name Nombre del producto a buscar.
+     * @return El producto encontrado o null si no existe.
+     */
+    @Override
+    public Product searchByName(String name) {
+        long start = metrics.start();
+        Product product = view.get().searchByName(name);
+        metrics.stop(InventoryMetrics.Operation.SEARCH_BY_NAME, start);
+        return product;
+    }
+
+    /**
+     * Busca varios productos por SKU reutilizando un lote de resultados, sin bloquear.
+     * Todo el lote se resuelve sobre la misma vista, en un solo recorrido del árbol.
+     * 
+     * @param skus   SKU a buscar.
+     * @param result Lote donde dejar los resultados; se vacía antes de usarse.
+     * @return El lote recibido, con el producto de cada SKU o null.
+     */
+    @Override
+    public BatchLookup<String, Product> searchBySkus(Collection<String> skus, BatchLookup<String, Product> result) {
+        return view.get().bySku.searchAll(result.reset(skus));
+    }
+
+    /**
+     * Busca varios productos por nombre reutilizando un lote de resultados, sin bloquear.
+     * Todo el lote se resuelve sobre la misma vista, en un solo recorrido del árbol.
+     * 
+     * @param names  Nombres a buscar.
+     * @param result Lote donde dejar los resultados; se vacía antes de usarse.
+     * @return El lote recibido, con el producto de cada nombre o null.
+     */
+    @Override
+    public BatchLookup<String, Product> searchByNames(Collection<String> names, BatchLookup<String, Product> result) {
+        return view.get().byName.searchAll(result.reset(names));
+    }
+
+    /**
+     * Muestra los productos en orden ascendente por SKU, tal como estaban al empezar.
+     */
+    @Override
+    public void listProductsBySku() {
+        System.out.println("Productos ordenados por SKU:");
+        view.get().forEachBySku(System.out::println);
+    }
+
+    /**
+     * Muestra los productos en orden ascendente por nombre, tal como estaban al empezar.
+     */
+    @Override
+    public void listProductsByName() {
+        System.out.println("Productos ordenados por Nombre:");
+        view.get().forEachByName(System.out::println);
+    }
+
+    /**
+     * Recorre los productos en orden ascendente por SKU sobre la vista vigente.
+     * 
+     * @param action Acción a aplicar a cada producto.
+     */
+    @Override
+    public void forEachBySku(Consumer<? super Product> action) {
+        view.get().forEachBySku(action);
+    }
+
+    /**
+     * Recorre los productos en orden ascendente por nombre sobre la vista vigente.
+     * 
+     * @param action Acción a aplicar a cada producto.
+     */
+    @Override
+    public void forEachByName(Consumer<? super Product> action) {
+        view.get().forEachByName(action);
+    }
+
+    /**
+     * Obtiene una página del listado por SKU sobre la vista vigente.
+     * 
+     * @param offset Posición del primer producto, empezando en 0.
+     * @param limit  Cantidad máxima de productos.
+     * @return Productos de la página ordenados por SKU.
+     */
+    @Override
+    public List<Product> pageBySku(int offset, int limit) {
+        return view.get().pageBySku(offset, limit);
+    }
+
+    /**
+     * Obtiene una página del listado por nombre sobre la vista vigente.
+     * 
+     * @param offset Posición del primer producto, empezando en 0.
+     * @param limit  Cantidad máxima de productos.
+     * @return Productos de la página ordenados por nombre.
+     */
+    @Override
+    public List<Product> pageByName(int offset, int limit) {
+        return view.get().pageByName(offset, limit);
+    }
+
+    /**
+     * Obtiene la posición de un SKU en el listado por SKU de la vista vigente.
+     * 
+     * @param sku SKU de referencia.
+     * @return Cantidad de productos con SKU menor.
+     */
+    @Override
+    public int rankBySku(String sku) {
+        return view.get().bySku.rank(sku);
+    }
+
+    /**
+     * Obtiene la posición de un nombre en el listado por nombre de la vista vigente.
+     * 
+     * @param name Nombre de referencia.
+     * @return Cantidad de nombres menores.
+     */
+    @Override
+    public int rankByName(String name) {
+        return view.get().byName.rank(name);
+    }
+
+    /**
+     * Busca los productos cuyo SKU está entre dos valores, ambos inclusive.
+     * 
+     * @param fromSku SKU inicial del rango.
+     * @param toSku   SKU final del rango.
+     * @return Productos del rango ordenados por SKU.
+     */
+    @Override
+    public List<Product> searchBySkuRange(String fromSku, String toSku) {
+        return view.get().searchBySkuRange(fromSku, toSku);
+    }
+
+    /**
+     * Busca los productos cuyo nombre empieza con un prefijo, con asterisco final opcional.
+     * 
+     * @param pattern Prefijo del nombre, con o sin asterisco final.
+     * @return Productos cuyo nombre empieza con el prefijo, ordenados por nombre.
+     */
+    @Override
+    public List<Product> searchByNamePrefix(String pattern) {
+        return view.get().searchByNamePrefix(stripWildcard(pattern));
+    }
+}
@@ -0,0 +1,309 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentInventoryManagerTest {
+    private ConcurrentInventoryManager inventory;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new ConcurrentInventoryManager();
+    }
+
+    @Test
+    void testAddAndSearchProducts() {
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("M", 5);
+        Product product = new Product("123", "Camisa", "Camisa de algodón", sizes);
+
+        assertTrue(inventory.addProduct(product));
+        assertFalse(inventory.addProduct(new Product("123", "Otra", "Repetida", sizes)));
+
+        assertSame(product, inventory.searchBySku("123"));
+        assertSame(product, inventory.searchByName("Camisa"));
+        assertNull(inventory.searchByName("Otra"));
+
+        BatchLookup<String, Product> batch = inventory.searchBySkus(List.of("999", "123"));
+        assertNull(batch.value(0));
+        assertSame(product, batch.value(1));
+        inventory.searchByNames(List.of("Camisa", "Otra"), batch);
+        assertSame(product, batch.value(0));
+        assertNull(batch.value(1));
+    }
+
+    @Test
+    void testConcurrentWritersKeepIndexesConsistent() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        AtomicInteger added = new AtomicInteger();
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            writers.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    // Todos los hilos compiten por los mismos SKU
+                    String sku = String.format("%06d", i);
+                    if (inventory.addProduct(new Product(sku, "Nombre " + sku, "", new HashMap<>()))) {
+                        added.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        Future<Integer> reader = pool.submit(() -> {
+            int inconsistent = 0;
+            for (int i = 0; i < perThread; i++) {
+                String sku = String.format("%06d", i);
+                Product bySku = inventory.searchBySku(sku);
+                if (bySku != null && inventory.searchByName(bySku.getName()) != bySku) {
+                    inconsistent++;
+                }
+            }
+            return inconsistent;
+        });
+
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        assertEquals(0, reader.get());
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(perThread, added.get());
+        for (int i = 0; i < perThread; i++) {
+            String sku = String.format("%06d", i);
+            assertSame(inventory.searchBySku(sku), inventory.searchByName("Nombre " + sku));
+        }
+    }
+
+    /**
+     * Prueba de que con escrituras concurrentes sobre los mismos SKU y nombres, sueltas
+     * y en lotes de existencias, el índice de palabras, el índice por nombre y la
+     * bitácora terminan iguales a la vista.
+     */
+    @Test
+    void testSecondaryIndexesAndJournalFollowTheView() throws Exception {
+        Path directory = Files.createTempDirectory("concurrente");
+        Path journalFile = directory.resolve("inventario.journal");
+        Path snapshotFile = directory.resolve("inventario.snapshot");
+        try {
+            try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile)) {
+                inventory.attachJournal(journal);
+                int threads = 4;
+                ExecutorService pool = Executors.newFixedThreadPool(threads);
+                List<Future<?>> writers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    long seed = t;
+                    writers.add(pool.submit(() -> {
+                        Random random = new Random(seed);
+                        for (int i = 0; i < 500; i++) {
+                            String sku = String.format("%03d", random.nextInt(40));
+                            String name = "Nombre " + random.nextInt(5);
+                            int op = random.nextInt(5);
+                            if (op == 4) {
+                                StockBatch batch = new StockBatch();
+                                batch.add(sku, "m", i);
+                                batch.add(String.format("%03d", random.nextInt(40)), "m", i);
+                                inventory.setStock(batch);
+                            } else if (op == 0) {
+                                inventory.removeProduct(sku);
+                            } else if (op == 1) {
+                                inventory.replaceProduct(new Product(sku, name, "Tela " + i, new HashMap<>()));
+                            } else if (op == 2) {
+                                inventory.setStock(sku, "m", i);
+                            } else {
+                                inventory.addProduct(new Product(sku, name, "Tela " + i, new HashMap<>()));
+                            }
+                        }
+                    }));
+                }
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+                pool.shutdown();
+                assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+            }
+
+            InventoryView view = inventory.snapshot();
+            for (int n = 0; n < 5; n++) {
+                String name = "Nombre " + n;
+                Set<Product> expected = new HashSet<>();
+                view.forEachBySku(product -> {
+                    if (product.getName().equals(name)) {
+                        expected.add(product);
+                    }
+                });
+                assertEquals(expected, new HashSet<>(inventory.searchAllByName(name)), name);
+                Product representative = view.searchByName(name);
+                assertEquals(!expected.isEmpty(), representative != null, name);
+                assertTrue(representative == null || expected.contains(representative), name);
+            }
+
+            InventoryManager restored = new InventoryManager();
+            try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile)) {
+                restored.attachJournal(journal);
+            }
+            assertEquals(rows(inventory.pageBySku(0, Integer.MAX_VALUE)), rows(restored.pageBySku(0, Integer.MAX_VALUE)));
+        } finally {
+            Files.deleteIfExists(journalFile);
+            Files.deleteIfExists(snapshotFile);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    void testRangeAndPrefixQueries() {
+        inventory.addProduct(new Product("001", "Camiseta Running", "", new HashMap<>()));
+        inventory.addProduct(new Product("002", "Short Deportivo", "", new HashMap<>()));
+        inventory.addProduct(new Product("003", "Camiseta Térmica", "", new HashMap<>()));
+
+        assertEquals(2, inventory.searchBySkuRange("002", "003").size());
+        assertTrue(inventory.searchBySkuRange("003", "001").isEmpty());
+        assertEquals(2, inventory.searchByNamePrefix("Camiseta*").size());
+        assertEquals("Short Deportivo", inventory.searchByNamePrefix("Sh").get(0).getName());
+    }
+
+    @Test
+    void testRemoveWhileReading() throws Exception {
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            String sku = String.format("%06d", i);
+            inventory.addProduct(new Product(sku, "Nombre " + (i % 100), "", new HashMap<>()));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<Integer> reader = pool.submit(() -> {
+            int inconsistent = 0;
+            for (int i = 0; i < count; i++) {
+                Product byName = inventory.searchByName("Nombre " + (i % 100));
+                // Los nombres impares no se eliminan y deben seguir resolviéndose
+                if (i % 2 == 1 && (byName == null || inventory.searchBySku(byName.getSku()) != byName)) {
+                    inconsistent++;
+                }
+            }
+            return inconsistent;
+        });
+        Future<?> remover = pool.submit(() -> {
+            for (int i = 0; i < count; i += 2) {
+                assertTrue(inventory.removeProduct(String.format("%06d", i)));
+            }
+        });
+        remover.get();
+        assertEquals(0, reader.get());
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertNull(inventory.searchBySku("000000"));
+        assertEquals("000001", inventory.searchByName("Nombre 1").getSku());
+        assertNull(inventory.searchByName("Nombre 0"));
+        assertEquals(count / 2, inventory.searchBySkuRange("000000", "999999").size());
+    }
+
+    @Test
+    void testSnapshotsStayConsistentWhileRenaming() throws Exception {
+        int count = 2_000;
+        for (int i = 0; i < count; i++) {
+            String sku = String.format("%06d", i);
+            inventory.addProduct(new Product(sku, "A " + sku, "", new HashMap<>()));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            int offset = t;
+            writers.add(pool.submit(() -> {
+                for (int round = 0; round < 5; round++) {
+                    for (int i = offset; i < count; i += 2) {
+                        String sku = String.format("%06d", i);
+                        String prefix = round % 2 == 0 ? "B " : "A ";
+                        assertTrue(inventory.replaceProduct(new Product(sku, prefix + sku, "", new HashMap<>())));
+                    }
+                }
+            }));
+        }
+        Future<Integer> reader = pool.submit(() -> {
+            int inconsistent = 0;
+            for (int round = 0; round < 50; round++) {
+                InventoryView view = inventory.snapshot();
+                if (view.size() != count || view.byName.size() != count) {
+                    inconsistent++;
+                }
+                for (java.util.Map.Entry<String, Product> entry : view.bySku) {
+                    if (view.searchByName(entry.getValue().getName()) != entry.getValue()) {
+                        inconsistent++;
+                    }
+                }
+            }
+            return inconsistent;
+        });
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        assertEquals(0, reader.get());
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals("B 000000", inventory.searchBySku("000000").getName());
+        assertNull(inventory.searchByName("A 000000"));
+        assertEquals(count, inventory.searchByNamePrefix("B*").size());
+    }
+
+    @Test
+    void testPagedListings() {
+        for (int i = 0; i < 300; i++) {
+            String sku = String.format("%04d", i);
+            inventory.addProduct(new Product(sku, "Nombre " + sku, "", new HashMap<>()));
+        }
+        assertEquals("0150", inventory.pageBySku(150, 10).get(0).getSku());
+        assertEquals(10, inventory.pageByName(150, 10).size());
+        assertEquals(150, inventory.rankByName("Nombre 0150"));
+        assertEquals(300, inventory.rankBySku("9999"));
+    }
+
+    @Test
+    void testReadIndexFollowsWrites() throws Exception {
+        for (int i = 0; i < 1_000; i++) {
+            String sku = String.format("%04d", i);
+            inventory.addProduct(new Product(sku, "Nombre " + sku, "", new HashMap<>()));
+        }
+        inventory.enableReadIndex(1);
+        assertTrue(inventory.isReadIndexCurrent());
+        Product product = inventory.searchBySku("0500");
+        assertEquals("Nombre 0500", product.getName());
+
+        // Hasta que se reconstruye, las búsquedas usan el árbol y ven el cambio
+        assertTrue(inventory.removeProduct("0500"));
+        assertNull(inventory.searchBySku("0500"));
+        assertTrue(inventory.addProduct(new Product("5000", "Nueva", "", new HashMap<>())));
+        assertEquals("Nueva", inventory.searchBySku("5000").getName());
+        for (int i = 0; i < 500 && !inventory.isReadIndexCurrent(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(inventory.isReadIndexCurrent());
+        assertNull(inventory.searchBySku("0500"));
+        assertEquals("Nueva", inventory.searchBySku("5000").getName());
+
+        inventory.disableReadIndex();
+        assertFalse(inventory.isReadIndexCurrent());
+        assertEquals("Nombre 0501", inventory.searchBySku("0501").getName());
+    }
+
+    private static List<String> rows(List<Product> products) {
+        List<String> rows = new ArrayList<>();
+        for (Product product : products) {
+            rows.add(product.toString());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,355 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Lector de archivos CSV de inventario con formato
+ * {@code SKU,Nombre,Descripción,Cantidad por talla}.
+ * El archivo se mapea en memoria y se recorre byte a byte, sin {@code split} ni
+ * expresiones regulares. Se divide en bloques alineados a saltos de línea que se
+ * procesan en paralelo, y los productos se devuelven en el orden del archivo.
+ * Los campos pueden ir entre comillas dobles para contener comas (una comilla
+ * literal se escribe {@code ""}); no se admiten saltos de línea dentro de un campo.
+ */
+public final class CsvParser {
+    /**
+     * Tamaño mínimo de un bloque; por debajo de esto no compensa paralelizar.
+     */
+    static final int DEFAULT_MIN_CHUNK_BYTES = 1 << 20;
+
+    /**
+     * Tamaño máximo de un bloque, limitado por lo que se puede mapear de una vez.
+     */
+    private static final int MAX_CHUNK_BYTES = Integer.MAX_VALUE - 8;
+
+    private CsvParser() {
+    }
+
+    /**
+     * Lee todos los productos de un archivo CSV, ignorando la línea de encabezado.
+     * 
+     * @param file Ruta del archivo CSV.
+     * @return Lista de productos en el orden en que aparecen en el archivo.
+     * @throws IOException Si el archivo no se puede leer o contiene filas inválidas.
+     */
+    public static List<Product> parse(Path file) throws IOException {
+        return parse(file, null);
+    }
+
+    /**
+     * Lee todos los productos de un archivo CSV y registra el tiempo de lectura y de
+     * análisis. Con las métricas activas el archivo se carga completo en memoria antes
+     * de analizarlo, para separar ambas fases; si no, se leen a la par.
+     * 
+     * @param file    Ruta del archivo CSV.
+     * @param metrics Métricas donde registrar las fases, o null.
+     * @return Lista de productos en el orden en que aparecen en el archivo.
+     * @throws IOException Si el archivo no se puede leer o contiene filas inválidas.
+     */
+    public static List<Product> parse(Path file, InventoryMetrics metrics) throws IOException {
+        return parse(file, Runtime.getRuntime().availableProcessors(), DEFAULT_MIN_CHUNK_BYTES, metrics);
+    }
+
+    /**
+     * Lee todos los productos de un archivo CSV controlando la división en bloques.
+     * 
+     * @param file          Ruta del archivo CSV.
+     * @param parallelism   Cantidad de bloques deseada.
+     * @param minChunkBytes Tamaño mínimo de cada bloque en bytes.
+     * @return Lista de productos en el orden en que aparecen en el archivo.
+     * @throws IOException Si el archivo no se puede leer o contiene filas inválidas.
+     */
+    static List<Product> parse(Path file, int parallelism, int minChunkBytes) throws IOException {
+        return parse(file, parallelism, minChunkBytes, null);
+    }
+
+    private static List<Product> parse(Path file, int parallelism, int minChunkBytes, InventoryMetrics metrics)
+            throws IOException {
+        boolean timed = metrics != null && metrics.isEnabled();
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long dataStart = nextLineStart(channel, 0, fileSize);
+            List<long[]> chunks = split(channel, dataStart, fileSize, parallelism, minChunkBytes);
+            List<MappedByteBuffer> buffers = new ArrayList<>(chunks.size());
+            for (long[] chunk : chunks) {
+                buffers.add(channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]));
+            }
+            if (timed) {
+                buffers.parallelStream().forEach(MappedByteBuffer::load);
+                long loaded = System.nanoTime();
+                metrics.recordLoadPhase(InventoryMetrics.LoadPhase.READ, loaded - start);
+                start = loaded;
+            }
+
+            try {
+                List<List<Product>> parts = IntStream.range(0, chunks.size())
+                        .parallel()
+                        .mapToObj(i -> parseChunk(buffers.get(i), chunks.get(i)[0]))
+                        .collect(Collectors.toList());
+
+                List<Product> products = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+                for (List<Product> part : parts) {
+                    products.addAll(part);
+                }
+                if (timed) {
+                    metrics.recordLoadPhase(InventoryMetrics.LoadPhase.PARSE, System.nanoTime() - start);
+                    metrics.recordLoadedRows(products.size());
+                }
+                return products;
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Divide el rango de datos en bloques cuyos límites caen justo después de un salto de línea.
+     */
+    private static List<long[]> split(FileChannel channel, long start, long end, int parallelism,
+                                      int minChunkBytes) throws IOException {
+        long target = Math.max(minChunkBytes, (end - start) / Math.max(1, parallelism));
+        target = Math.min(target, MAX_CHUNK_BYTES / 2);
+
+        List<long[]> chunks = new ArrayList<>();
+        long chunkStart = start;
+        while (chunkStart < end) {
+            long chunkEnd = chunkStart + target >= end ? end : nextLineStart(channel, chunkStart + target, end);
+            if (chunkEnd - chunkStart > MAX_CHUNK_BYTES) {
+                throw new IOException("Línea demasiado larga cerca del byte " + chunkStart);
+            }
+            chunks.add(new long[] {chunkStart, chunkEnd});
+            chunkStart = chunkEnd;
+        }
+        return chunks;
+    }
+
+    /**
+     * Busca la posición siguiente al primer salto de línea a partir de {@code from}.
+     * 
+     * @return Inicio de la línea siguiente, o {@code end} si no hay más saltos de línea.
+     */
+    private static long nextLineStart(FileChannel channel, long from, long end) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < end) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    /**
+     * Procesa un bloque de líneas completas del archivo.
+     */
+    private static List<Product> parseChunk(MappedByteBuffer buffer, long start) {
+        try {
+            return new ChunkReader(buffer, start).readAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lector de un bloque mapeado. Cada hilo usa su propia instancia, con búferes
+     * temporales reutilizables para decodificar los campos de texto y las tallas.
+     */
+    private static final class ChunkReader {
+        private final ByteBuffer buffer;
+        private final long baseOffset;
+        private final int limit;
+        private byte[] scratch = new byte[256];
+        private int[] sizeIds = new int[16];
+        private int[] quantities = new int[16];
+        private int pos;
+
+        ChunkReader(ByteBuffer buffer, long baseOffset) {
+            this.buffer = buffer;
+            this.baseOffset = baseOffset;
+            this.limit = buffer.limit();
+        }
+
+        List<Product> readAll() throws IOException {
+            List<Product> products = new ArrayList<>();
+            while (pos < limit) {
+                if (isLineEnd(pos)) {
+                    skipLineEnd();
+                    continue;
+                }
+                long rowOffset = baseOffset + pos;
+                String sku = readField(rowOffset);
+                String name = readField(rowOffset);
+                String description = readField(rowOffset);
+                int[] stock = readSizes(rowOffset);
+                skipLineEnd();
+                products.add(new Product(sku, name, description, stock));
+            }
+            return products;
+        }
+
+        private boolean isLineEnd(int index) {
+            byte b = buffer.get(index);
+            return b == '\n' || b == '\r';
+        }
+
+        private void skipLineEnd() {
+            while (pos < limit && isLineEnd(pos)) {
+                pos++;
+            }
+        }
+
+        /**
+         * Lee un campo de texto terminado en coma y deja la posición después de la coma.
+         */
+        private String readField(long rowOffset) throws IOException {
+            String value;
+            if (pos < limit && buffer.get(pos) == '"') {
+                value = readQuoted(rowOffset);
+            } else {
+                int start = pos;
+                while (pos < limit && buffer.get(pos) != ',' && !isLineEnd(pos)) {
+                    pos++;
+                }
+                value = decode(start, pos - start);
+            }
+            if (pos >= limit || buffer.get(pos) != ',') {
+                throw new IOException("Fila inválida en el byte " + rowOffset + ": faltan columnas");
+            }
+            pos++;
+            return value;
+        }
+
+        private String readQuoted(long rowOffset) throws IOException {
+            pos++;
+            int length = 0;
+            while (true) {
+                if (pos >= limit || isLineEnd(pos)) {
+                    throw new IOException("Fila inválida en el byte " + rowOffset + ": comilla sin cerrar");
+                }
+                byte b = buffer.get(pos++);
+                if (b == '"') {
+                    if (pos < limit && buffer.get(pos) == '"') {
+                        pos++;
+                    } else {
+                        break;
+                    }
+                }
+                ensureScratch(length + 1);
+                scratch[length++] = b;
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private String decode(int start, int length) {
+            ensureScratch(length);
+            buffer.get(start, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void ensureScratch(int length) {
+            if (length > scratch.length) {
+                byte[] bigger = new byte[Math.max(length, scratch.length * 2)];
+                System.arraycopy(scratch, 0, bigger, 0, scratch.length);
+                scratch = bigger;
+            }
+        }
+
+        /**
+         * Decodifica la lista {@code talla:cantidad|talla:cantidad} del último campo
+         * directamente a un arreglo de existencias indexado por {@link SizeDictionary}.
+         * Una talla vacía o con coma, comilla o barra es casi siempre una coma de más en
+         * la descripción, así que la fila se rechaza antes de registrar la etiqueta.
+         */
+        private int[] readSizes(long rowOffset) throws IOException {
+            int count = 0;
+            int maxId = -1;
+            boolean quoted = pos < limit && buffer.get(pos) == '"';
+            if (quoted) {
+                pos++;
+            }
+            while (pos < limit && !isLineEnd(pos) && buffer.get(pos) != '"') {
+                int labelStart = pos;
+                while (pos < limit && buffer.get(pos) != ':') {
+                    if (isLineEnd(pos)) {
+                        throw new IOException("Fila inválida en el byte " + rowOffset + ": talla sin cantidad");
+                    }
+                    byte b = buffer.get(pos);
+                    if (b == ',' || b == '"' || b == '|') {
+                        throw new IOException("Fila inválida en el byte " + rowOffset + ": carácter '" + (char) b
+                                + "' en una talla");
+                    }
+                    pos++;
+                }
+                if (pos >= limit) {
+                    throw new IOException("Fila inválida en el byte " + rowOffset + ": talla sin cantidad");
+                }
+                if (pos == labelStart) {
+                    throw new IOException("Fila inválida en el byte " + rowOffset + ": talla vacía");
+                }
+                int id = SizeDictionary.idOf(buffer, labelStart, pos - labelStart);
+                pos++;
+
+                int quantity = 0;
+                int digits = 0;
+                while (pos < limit) {
+                    byte b = buffer.get(pos);
+                    if (b < '0' || b > '9') {
+                        break;
+                    }
+                    if (quantity > (Integer.MAX_VALUE - (b - '0')) / 10) {
+                        throw new IOException("Fila inválida en el byte " + rowOffset + ": cantidad demasiado grande");
+                    }
+                    quantity = quantity * 10 + (b - '0');
+                    digits++;
+                    pos++;
+                }
+                if (digits == 0) {
+                    throw new IOException("Fila inválida en el byte " + rowOffset + ": cantidad no numérica");
+                }
+                if (count == sizeIds.length) {
+                    sizeIds = Arrays.copyOf(sizeIds, count * 2);
+                    quantities = Arrays.copyOf(quantities, count * 2);
+                }
+                sizeIds[count] = id;
+                quantities[count] = quantity;
+                count++;
+                maxId = Math.max(maxId, id);
+
+                if (pos < limit && buffer.get(pos) == '|') {
+                    pos++;
+                } else if (pos < limit && !isLineEnd(pos) && !(quoted && buffer.get(pos) == '"')) {
+                    throw new IOException("Fila inválida en el byte " + rowOffset + ": cantidad no numérica");
+                }
+            }
+            if (quoted && pos < limit && buffer.get(pos) == '"') {
+                pos++;
+            }
+
+            int[] stock = new int[maxId + 1];
+            Arrays.fill(stock, Product.ABSENT);
+            for (int i = 0; i < count; i++) {
+                stock[sizeIds[i]] = quantities[i];
+            }
+            return stock;
+        }
+    }
+}
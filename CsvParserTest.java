@@ -0,0 +1,134 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Pruebas unitarias para la clase CsvParser.
+ */
+class CsvParserTest {
+    private Path csv;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        csv = Files.createTempFile("inventario", ".csv");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+    }
+
+    /**
+     * Prueba de lectura de filas simples con sus tallas.
+     */
+    @Test
+    void testParseSimpleRows() throws IOException {
+        write("SKU,Nombre,Descripción,Cantidad por talla\n"
+                + "001,Camiseta Running,Camiseta ligera y transpirable,xs:5|s:10|m:20\n"
+                + "002,Short Deportivo,Short de tela elástica,s:10\n");
+
+        List<Product> products = CsvParser.parse(csv);
+
+        assertEquals(2, products.size());
+        Product first = products.get(0);
+        assertEquals("001", first.getSku());
+        assertEquals("Camiseta Running", first.getName());
+        assertEquals("Camiseta ligera y transpirable", first.getDescription());
+        assertEquals(3, first.getSizes().size());
+        assertEquals(20, first.getSizes().get("m"));
+        assertEquals(10, products.get(1).getSizes().get("s"));
+    }
+
+    /**
+     * Prueba de campos entre comillas que contienen comas y comillas escapadas.
+     */
+    @Test
+    void testParseQuotedFields() throws IOException {
+        write("SKU,Nombre,Descripción,Cantidad por talla\r\n"
+                + "003,\"Leggings, Compresión\",\"Soporte \"\"pro\"\", muscular\",\"m:18|l:20\"\r\n");
+
+        List<Product> products = CsvParser.parse(csv);
+
+        assertEquals(1, products.size());
+        assertEquals("Leggings, Compresión", products.get(0).getName());
+        assertEquals("Soporte \"pro\", muscular", products.get(0).getDescription());
+        assertEquals(20, products.get(0).getSizes().get("l"));
+    }
+
+    /**
+     * Prueba de que el resultado es el mismo al dividir el archivo en muchos bloques.
+     */
+    @Test
+    void testParseInManyChunksKeepsOrder() throws IOException {
+        StringBuilder content = new StringBuilder("SKU,Nombre,Descripción,Cantidad por talla\n");
+        for (int i = 0; i < 5_000; i++) {
+            content.append(String.format("%06d,Producto %d,Descripción %d,s:%d|m:%d%n", i, i, i, i % 7, i % 11));
+        }
+        write(content.toString());
+
+        List<Product> products = CsvParser.parse(csv, 16, 64);
+
+        assertEquals(5_000, products.size());
+        for (int i = 0; i < products.size(); i++) {
+            assertEquals(String.format("%06d", i), products.get(i).getSku());
+            assertEquals(i % 11, products.get(i).getSizes().get("m"));
+        }
+    }
+
+    /**
+     * Prueba de que una fila incompleta produce un error de lectura.
+     */
+    @Test
+    void testParseInvalidRow() throws IOException {
+        write("SKU,Nombre,Descripción,Cantidad por talla\n001,Sin columnas\n");
+
+        assertThrows(IOException.class, () -> CsvParser.parse(csv));
+    }
+
+    /**
+     * Prueba de que las cantidades con texto al final o que no caben en un int se
+     * rechazan en vez de leerse mal.
+     */
+    @Test
+    void testParseInvalidQuantities() throws IOException {
+        String header = "SKU,Nombre,Descripción,Cantidad por talla\n";
+        write(header + "001,Gorra,Ajustable,s:10x|m:5\n");
+        assertThrows(IOException.class, () -> CsvParser.parse(csv));
+        write(header + "001,Gorra,Ajustable,\"s:10 \"\n");
+        assertThrows(IOException.class, () -> CsvParser.parse(csv));
+        write(header + "001,Gorra,Ajustable,s:2147483648\n");
+        assertThrows(IOException.class, () -> CsvParser.parse(csv));
+
+        write(header + "001,Gorra,Ajustable,\"s:2147483647|m:0\"\n");
+        Product product = CsvParser.parse(csv).get(0);
+        assertEquals(Integer.MAX_VALUE, product.getStock("s"));
+        assertEquals(0, product.getStock("m"));
+    }
+
+    /**
+     * Prueba de que una coma de más en la descripción o una talla vacía rechazan la
+     * fila sin registrar etiquetas basura en {@link SizeDictionary}.
+     */
+    @Test
+    void testParseInvalidSizeLabels() throws IOException {
+        String header = "SKU,Nombre,Descripción,Cantidad por talla\n";
+        write(header + "001,Gorra,Ajustable, roja,s:10|m:5\n");
+        assertThrows(IOException.class, () -> CsvParser.parse(csv));
+        assertEquals(-1, SizeDictionary.find(" roja,s"));
+        write(header + "001,Gorra,Ajustable,s:1|:3\n");
+        assertThrows(IOException.class, () -> CsvParser.parse(csv));
+        assertEquals(-1, SizeDictionary.find(""));
+        write(header + "001,Gorra,Ajustable,\"s:1|x\"\"l:3\"\n");
+        assertThrows(IOException.class, () -> CsvParser.parse(csv));
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(csv, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,182 @@
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Índice inmutable de solo lectura con claves de texto, dispuesto en orden de
+ * Eytzinger: el árbol binario balanceado se guarda por niveles en arreglos contiguos,
+ * con los hijos de la posición {@code k} en {@code 2k} y {@code 2k + 1}. No hay nodos
+ * ni referencias que seguir; los primeros niveles, que toda búsqueda visita, comparten
+ * unas pocas líneas de caché.
+ * <p>
+ * Para no leer una cadena en cada nivel, junto a cada clave se guarda un prefijo de
+ * 64 bits que conserva el orden: los caracteres que siguen al prefijo común de todas
+ * las claves, 8 por prefijo si caben en un byte o 4 si no. Cada nivel compara primero
+ * los prefijos, que están contiguos en un {@code long[]}, y solo ante un empate compara
+ * la cadena completa. Con SKU de largo fijo el prefijo suele decidir sola la búsqueda
+ * y la cadena se lee una vez, al encontrarla.
+ * <p>
+ * Se construye en tiempo lineal a partir de entradas ordenadas, por ejemplo un
+ * {@link BinarySearchTree} o un {@link PersistentTree}, y no cambia después: ante
+ * escrituras se construye uno nuevo.
+ * 
+ * @param <V> Tipo de valor asociado a cada clave.
+ */
+public final class EytzingerIndex<V> {
+    private final int size;
+    private final long[] prefixes;
+    private final String[] keys;
+    private final Object[] values;
+    private final String common;
+    private final boolean bytes;
+
+    private EytzingerIndex(int size, String common, boolean bytes) {
+        this.size = size;
+        this.prefixes = new long[size + 1];
+        this.keys = new String[size + 1];
+        this.values = new Object[size + 1];
+        this.common = common;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Construye el índice a partir de entradas en orden ascendente de clave, sin
+     * claves repetidas.
+     * 
+     * @param entries Entradas ordenadas.
+     * @param size    Cantidad de entradas.
+     * @param <V>     Tipo de valor.
+     * @return Índice con las entradas.
+     * @throws IllegalArgumentException Si las entradas no están ordenadas, tienen
+     *                                  claves repetidas o no son {@code size}.
+     */
+    public static <V> EytzingerIndex<V> fromSorted(Iterable<? extends Map.Entry<String, V>> entries, int size) {
+        // Una primera pasada valida el orden y guarda la primera y la última clave
+        String first = null;
+        String previous = null;
+        int count = 0;
+        for (Map.Entry<String, V> entry : entries) {
+            String key = entry.getKey();
+            if (previous != null && previous.compareTo(key) >= 0) {
+                throw new IllegalArgumentException("Las claves no están en orden ascendente: " + previous + ", " + key);
+            }
+            if (first == null) {
+                first = key;
+            }
+            previous = key;
+            count++;
+        }
+        if (count != size) {
+            throw new IllegalArgumentException("Se esperaban " + size + " entradas y hay " + count);
+        }
+        // Las claves ordenadas comparten con la primera y la última el prefijo común de todas
+        String prefix = "";
+        if (size > 0) {
+            int common = 0;
+            while (common < first.length() && common < previous.length()
+                    && first.charAt(common) == previous.charAt(common)) {
+                common++;
+            }
+            prefix = first.substring(0, common);
+        }
+        boolean bytes = true;
+        for (Map.Entry<String, V> entry : entries) {
+            String key = entry.getKey();
+            for (int i = prefix.length(); i < Math.min(key.length(), prefix.length() + Long.BYTES); i++) {
+                if (key.charAt(i) > 0xFF) {
+                    bytes = false;
+                }
+            }
+        }
+
+        EytzingerIndex<V> index = new EytzingerIndex<>(size, prefix, bytes);
+        Iterator<? extends Map.Entry<String, V>> sorted = entries.iterator();
+        index.fill(1, sorted);
+        return index;
+    }
+
+    /**
+     * Coloca las entradas en las posiciones del subárbol de {@code k} en orden simétrico,
+     * que es el orden ascendente de las claves.
+     */
+    private void fill(int k, Iterator<? extends Map.Entry<String, V>> sorted) {
+        if (k > size) {
+            return;
+        }
+        fill(2 * k, sorted);
+        Map.Entry<String, V> entry = sorted.next();
+        keys[k] = entry.getKey();
+        values[k] = entry.getValue();
+        prefixes[k] = prefix(entry.getKey());
+        fill(2 * k + 1, sorted);
+    }
+
+    /**
+     * Busca el valor asociado a una clave.
+     * 
+     * @param key Clave a buscar.
+     * @return El valor, o null si la clave no está.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(String key) {
+        if (!key.startsWith(common)) {
+            return null;
+        }
+        long wanted = prefix(key);
+        int k = 1;
+        while (k <= size) {
+            long prefix = prefixes[k];
+            int cmp;
+            if (prefix == wanted) {
+                cmp = keys[k].compareTo(key);
+                if (cmp == 0) {
+                    return (V) values[k];
+                }
+            } else {
+                cmp = Long.compareUnsigned(prefix, wanted);
+            }
+            k = 2 * k + (cmp < 0 ? 1 : 0);
+        }
+        return null;
+    }
+
+    /**
+     * Indica si una clave está en el índice.
+     * 
+     * @param key Clave a buscar.
+     * @return true si la clave está.
+     */
+    public boolean containsKey(String key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Obtiene la cantidad de claves.
+     * 
+     * @return Número de entradas del índice.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calcula el prefijo de 64 bits de una clave que empieza con el prefijo común.
+     * Los caracteres se alinean a la izquierda y los que faltan valen 0, así que si
+     * {@code a < b} entonces {@code prefix(a) <= prefix(b)} sin signo. En modo de bytes
+     * un carácter mayor que 0xFF de una clave buscada se satura a 0xFF, lo que también
+     * conserva el orden.
+     */
+    private long prefix(String key) {
+        long prefix = 0;
+        int start = common.length();
+        int width = bytes ? Long.BYTES : Long.BYTES / Character.BYTES;
+        int bits = Long.SIZE / width;
+        for (int i = 0; i < width; i++) {
+            int c = start + i < key.length() ? key.charAt(start + i) : 0;
+            if (bytes) {
+                c = Math.min(c, 0xFF);
+            }
+            prefix = (prefix << bits) | c;
+        }
+        return prefix;
+    }
+}
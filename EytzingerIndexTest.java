@@ -0,0 +1,54 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class EytzingerIndexTest {
+    /**
+     * Prueba de que encuentra las mismas claves que un mapa ordenado, con claves de
+     * largo variable, prefijo común y caracteres fuera de un byte.
+     */
+    @Test
+    void testMatchesSortedMap() {
+        Random random = new Random(22);
+        String[] alphabets = {"0123456789", "abcXYZ-", "añüé€漢"};
+        for (String alphabet : alphabets) {
+            for (int size : new int[] {0, 1, 2, 7, 1_000, 4_097}) {
+                TreeMap<String, Integer> expected = new TreeMap<>();
+                while (expected.size() < size) {
+                    expected.put("SKU-" + word(random, alphabet), expected.size());
+                }
+                EytzingerIndex<Integer> index = EytzingerIndex.fromSorted(expected.entrySet(), expected.size());
+                assertEquals(size, index.size());
+                for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+                    assertEquals(entry.getValue(), index.get(entry.getKey()));
+                }
+                for (int i = 0; i < 2_000; i++) {
+                    String probe = (random.nextInt(4) == 0 ? "OTRO-" : "SKU-") + word(random, alphabets[random.nextInt(3)]);
+                    assertEquals(expected.get(probe), index.get(probe), probe);
+                }
+            }
+        }
+    }
+
+    /**
+     * Prueba de que rechaza entradas desordenadas o repetidas.
+     */
+    @Test
+    void testRejectsUnsortedEntries() {
+        List<Map.Entry<String, Integer>> unsorted = List.of(Map.entry("b", 1), Map.entry("a", 2));
+        assertThrows(IllegalArgumentException.class, () -> EytzingerIndex.fromSorted(unsorted, 2));
+        List<Map.Entry<String, Integer>> repeated = List.of(Map.entry("a", 1), Map.entry("a", 2));
+        assertThrows(IllegalArgumentException.class, () -> EytzingerIndex.fromSorted(repeated, 2));
+    }
+
+    private static String word(Random random, String alphabet) {
+        StringBuilder word = new StringBuilder();
+        for (int i = random.nextInt(12); i >= 0; i--) {
+            word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,298 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ejecuta comandos sobre el inventario sin el menú interactivo, por ejemplo los
+ * ajustes de existencias de un proceso nocturno. Lee un comando por línea, con los
+ * campos separados por comas y las mismas comillas que el CSV del inventario:
+ * <ul>
+ *   <li>{@code agregar,SKU,Nombre,Descripción,s:10|m:25}</li>
+ *   <li>{@code descripcion,SKU,Descripción}</li>
+ *   <li>{@code talla,SKU,talla,cantidad}</li>
+ *   <li>{@code buscar,SKU}</li>
+ *   <li>{@code listar}</li>
+ * </ul>
+ * Las líneas vacías y las que empiezan con {@code #} se ignoran.
+ * <p>
+ * Los comandos se leen de a uno, sin cargar la entrada completa. Las altas seguidas se
+ * acumulan y se aplican juntas con {@link InventoryManager#addProducts}, y los cambios
+ * de talla seguidos con {@link InventoryManager#setStock(StockBatch)}, en lotes de
+ * hasta el tamaño indicado. Antes de cualquier otro comando se aplica el lote
+ * pendiente, así que el resultado es el mismo que ejecutarlos uno por uno.
+ * <p>
+ * La salida es JSON Lines: {@code buscar} y {@code listar} escriben los productos con
+ * {@link InventoryExporter}, cada comando que falla escribe
+ * {@code {"line":N,"error":"..."}} y al final se escribe
+ * {@code {"commands":N,"errors":M}}. No es seguro para varios hilos.
+ */
+public final class InventoryBatchRunner {
+    /**
+     * Cantidad de comandos por lote si no se indica otra.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100_000;
+
+    private static final int OUTPUT_BUFFER = 1 << 16;
+
+    private final InventoryManager inventory;
+    private final int batchSize;
+    private final List<Product> pendingAdds = new ArrayList<>();
+    private final StockBatch pendingStock = new StockBatch();
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private int[] pendingLines = new int[16];
+    private int pending;
+    private OutputStream out;
+    private InventoryExporter exporter;
+    private long commands;
+    private long errors;
+
+    /**
+     * Crea un ejecutor con lotes de {@link #DEFAULT_BATCH_SIZE} comandos.
+     * 
+     * @param inventory Inventario sobre el que se ejecutan los comandos.
+     */
+    public InventoryBatchRunner(InventoryManager inventory) {
+        this(inventory, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Crea un ejecutor con otro tamaño de lote.
+     * 
+     * @param inventory Inventario sobre el que se ejecutan los comandos.
+     * @param batchSize Cantidad máxima de comandos por lote; 1 los aplica uno por uno.
+     */
+    public InventoryBatchRunner(InventoryManager inventory, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser positivo: " + batchSize);
+        }
+        this.inventory = inventory;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Ejecuta todos los comandos de una entrada y escribe los resultados. La salida
+     * queda abierta.
+     * 
+     * @param in     Comandos, uno por línea.
+     * @param output Destino de los resultados.
+     * @return Cantidad de comandos que fallaron.
+     * @throws IOException Si falla la lectura o la escritura.
+     */
+    public long run(BufferedReader in, OutputStream output) throws IOException {
+        out = new BufferedOutputStream(output, OUTPUT_BUFFER);
+        exporter = new InventoryExporter(out, InventoryExporter.Format.JSON_LINES, OUTPUT_BUFFER);
+        commands = 0;
+        errors = 0;
+        int lineNumber = 0;
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            commands++;
+            try {
+                execute(split(line), lineNumber);
+            } catch (IllegalArgumentException e) {
+                flushPending();
+                error(lineNumber, e.getMessage());
+            }
+        }
+        flushPending();
+        exporter.flush();
+        write("{\"commands\":" + commands + ",\"errors\":" + errors + "}\n");
+        out.flush();
+        return errors;
+    }
+
+    private void execute(List<String> command, int line) throws IOException {
+        String name = command.get(0);
+        switch (name) {
+            case "agregar":
+                expectFields(command, 5);
+                if (pendingStock.size() > 0) {
+                    flushPending();
+                }
+                pendingAdds.add(new Product(command.get(1), command.get(2), command.get(3), sizes(command.get(4))));
+                enqueue(line, pendingAdds.size());
+                break;
+            case "talla":
+                expectFields(command, 4);
+                if (!pendingAdds.isEmpty()) {
+                    flushPending();
+                }
+                pendingStock.add(command.get(1), command.get(2), quantity(command.get(3)));
+                enqueue(line, pendingStock.size());
+                break;
+            case "descripcion":
+                expectFields(command, 3);
+                flushPending();
+                if (!inventory.updateDescription(command.get(1), command.get(2))) {
+                    error(line, "Producto no encontrado: " + command.get(1));
+                }
+                break;
+            case "buscar":
+                expectFields(command, 2);
+                flushPending();
+                Product product = inventory.searchBySku(command.get(1));
+                if (product == null) {
+                    error(line, "Producto no encontrado: " + command.get(1));
+                } else {
+                    exporter.write(product);
+                }
+                break;
+            case "listar":
+                expectFields(command, 1);
+                flushPending();
+                exporter.flush();
+                inventory.export(out, InventoryExporter.Format.JSON_LINES);
+                break;
+            default:
+                throw new IllegalArgumentException("Comando desconocido: " + name);
+        }
+    }
+
+    /**
+     * Anota la línea del comando recién agregado al lote y lo aplica si se llenó.
+     */
+    private void enqueue(int line, int size) throws IOException {
+        if (pending == pendingLines.length) {
+            pendingLines = Arrays.copyOf(pendingLines, pending * 2);
+        }
+        pendingLines[pending++] = line;
+        if (size >= batchSize) {
+            flushPending();
+        }
+    }
+
+    /**
+     * Aplica el lote pendiente y reporta los comandos que no se pudieron aplicar.
+     */
+    private void flushPending() throws IOException {
+        if (!pendingAdds.isEmpty()) {
+            boolean[] added = inventory.addProducts(pendingAdds);
+            for (int i = 0; i < added.length; i++) {
+                if (!added[i]) {
+                    error(pendingLines[i], "Ya existe un producto con SKU " + pendingAdds.get(i).getSku());
+                }
+            }
+            pendingAdds.clear();
+        } else if (pendingStock.size() > 0) {
+            inventory.setStock(pendingStock);
+            for (int i = 0; i < pendingStock.size(); i++) {
+                if (!pendingStock.isApplied(i)) {
+                    error(pendingLines[i], "Producto no encontrado: " + pendingStock.sku(i));
+                }
+            }
+            pendingStock.clear();
+        }
+        pending = 0;
+    }
+
+    private void error(int line, String message) throws IOException {
+        errors++;
+        StringBuilder json = new StringBuilder("{\"line\":").append(line).append(",\"error\":\"");
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else {
+                json.append(c < 0x20 ? ' ' : c);
+            }
+        }
+        exporter.flush();
+        write(json.append("\"}\n").toString());
+    }
+
+    private void write(String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Separa una línea en campos, con comillas dobles para los campos que llevan comas
+     * y dos comillas seguidas para una comilla dentro de ellos.
+     */
+    private List<String> split(String line) {
+        fields.clear();
+        int i = 0;
+        while (true) {
+            field.setLength(0);
+            if (i < line.length() && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= line.length()) {
+                        throw new IllegalArgumentException("Comillas sin cerrar");
+                    }
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < line.length() && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (i < line.length() && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Texto después de las comillas de cierre");
+                }
+            } else {
+                int comma = line.indexOf(',', i);
+                int end = comma < 0 ? line.length() : comma;
+                field.append(line, i, end);
+                i = end;
+            }
+            fields.add(field.toString().trim());
+            if (i >= line.length()) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    private static void expectFields(List<String> command, int count) {
+        if (command.size() != count) {
+            throw new IllegalArgumentException("El comando " + command.get(0) + " lleva " + (count - 1)
+                    + " campos y tiene " + (command.size() - 1));
+        }
+    }
+
+    private static int quantity(String text) {
+        try {
+            int quantity = Integer.parseInt(text);
+            if (quantity < 0) {
+                throw new IllegalArgumentException("La cantidad no puede ser negativa: " + text);
+            }
+            return quantity;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cantidad no válida: " + text);
+        }
+    }
+
+    /**
+     * Lee las tallas en el formato del CSV, {@code talla:cantidad} separadas por {@code |}.
+     */
+    private static Map<String, Integer> sizes(String text) {
+        Map<String, Integer> sizes = new HashMap<>();
+        if (text.isEmpty()) {
+            return sizes;
+        }
+        for (String pair : text.split("\\|")) {
+            int colon = pair.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Talla no válida: " + pair);
+            }
+            sizes.put(pair.substring(0, colon).trim(), quantity(pair.substring(colon + 1).trim()));
+        }
+        return sizes;
+    }
+}
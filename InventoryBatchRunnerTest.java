@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class InventoryBatchRunnerTest {
+    /**
+     * Prueba de cada comando, de los errores y de que los resultados salen en orden.
+     */
+    @Test
+    void testCommandsAndErrors() throws IOException {
+        InventoryManager inventory = new InventoryManager();
+        String commands = String.join("\n",
+                "# Altas",
+                "agregar,001,Gorra,\"Gorra, ajustable\",u:3",
+                "agregar,002,Media,Media \"\"larga\"\",s:1|m:2",
+                "agregar,001,Repetida,Otra,",
+                "",
+                "talla,001,u,7",
+                "talla,999,m,1",
+                "talla,002,m,-1",
+                "buscar,001",
+                "descripcion,002,Media corta",
+                "descripcion,999,Nada",
+                "borrar,001",
+                "buscar,002,extra",
+                "listar");
+        String output = run(inventory, commands, InventoryBatchRunner.DEFAULT_BATCH_SIZE);
+        assertEquals(String.join("\n",
+                "{\"line\":4,\"error\":\"Ya existe un producto con SKU 001\"}",
+                "{\"line\":7,\"error\":\"Producto no encontrado: 999\"}",
+                "{\"line\":8,\"error\":\"La cantidad no puede ser negativa: -1\"}",
+                "{\"sku\":\"001\",\"name\":\"Gorra\",\"description\":\"Gorra, ajustable\",\"sizes\":{\"u\":7}}",
+                "{\"line\":11,\"error\":\"Producto no encontrado: 999\"}",
+                "{\"line\":12,\"error\":\"Comando desconocido: borrar\"}",
+                "{\"line\":13,\"error\":\"El comando buscar lleva 1 campos y tiene 2\"}",
+                "{\"sku\":\"001\",\"name\":\"Gorra\",\"description\":\"Gorra, ajustable\",\"sizes\":{\"u\":7}}",
+                "{\"sku\":\"002\",\"name\":\"Media\",\"description\":\"Media corta\",\"sizes\":{\"s\":1,\"m\":2}}",
+                "{\"commands\":12,\"errors\":6}", ""), output);
+        assertEquals(7, (int) inventory.searchBySku("001").getSizes().get("u"));
+    }
+
+    /**
+     * Prueba de que aplicar los comandos en lotes deja el mismo inventario y la misma
+     * salida que aplicarlos uno por uno.
+     */
+    @Test
+    void testBatchesMatchOneByOne() throws IOException {
+        Random random = new Random(25);
+        StringBuilder commands = new StringBuilder();
+        String[] sizes = {"s", "m", "l"};
+        for (int i = 0; i < 20_000; i++) {
+            String sku = String.format("%04d", random.nextInt(3_000));
+            int op = random.nextInt(10);
+            if (op < 3) {
+                commands.append("agregar,").append(sku).append(",Producto ").append(random.nextInt(50))
+                        .append(",Tela,m:").append(random.nextInt(5)).append('\n');
+            } else if (op < 9) {
+                commands.append("talla,").append(sku).append(',').append(sizes[random.nextInt(3)]).append(',')
+                        .append(random.nextInt(20)).append('\n');
+            } else {
+                commands.append("buscar,").append(sku).append('\n');
+            }
+        }
+        commands.append("listar\n");
+        InventoryManager expected = new InventoryManager();
+        InventoryManager batched = new InventoryManager();
+        assertEquals(run(expected, commands.toString(), 1), run(batched, commands.toString(), 97));
+        for (String size : sizes) {
+            assertEquals(expected.countLowStock(size, 10), batched.countLowStock(size, 10));
+        }
+    }
+
+    private static String run(InventoryManager inventory, String commands, int batchSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new InventoryBatchRunner(inventory, batchSize).run(new BufferedReader(new StringReader(commands)), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,374 @@
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escritor de productos a CSV o JSON Lines sobre cualquier {@link OutputStream} o
+ * {@link WritableByteChannel}. Cada producto se codifica a UTF-8 directamente en un
+ * búfer de bytes reutilizable, sin armar cadenas intermedias, y el búfer se vacía
+ * al destino solo cuando se llena; por eso exportar el catálogo completo no queda
+ * limitado por {@code System.out.println} ni por la concatenación de cadenas.
+ * <p>
+ * El CSV usa el mismo formato que lee {@link CsvParser}: los campos con comas o
+ * comillas van entre comillas dobles. Como el lector no admite saltos de línea
+ * dentro de un campo, estos se escriben como espacios. Las tallas se escriben tal
+ * cual; {@link SizeDictionary} no registra etiquetas que romperían esa columna.
+ * <p>
+ * El exportador no cierra el destino; {@link #flush()} escribe lo pendiente y
+ * {@link #finish()} además termina la salida. No es seguro para varios hilos.
+ */
+public final class InventoryExporter implements Flushable {
+    /**
+     * Formatos de salida.
+     */
+    public enum Format {
+        /**
+         * CSV con encabezado, compatible con {@link InventoryManager#loadFromCSV}.
+         */
+        CSV,
+        /**
+         * Un objeto JSON por línea: {@code {"sku":..,"name":..,"description":..,"sizes":{..}}}.
+         */
+        JSON_LINES,
+        /**
+         * Un arreglo JSON con un objeto por producto, que se cierra con {@link #finish()}.
+         */
+        JSON
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MIN_BUFFER_SIZE = 64;
+    private static final byte[] CSV_HEADER = "SKU,Nombre,Descripción,Cantidad por talla\n"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream stream;
+    private final WritableByteChannel channel;
+    private final Format format;
+    private final byte[] buffer;
+    private final ByteBuffer view;
+    private int[] levels = new int[16];
+    private int pos;
+    private long written;
+    private boolean finished;
+
+    /**
+     * Crea un exportador sobre un flujo de salida. En CSV escribe el encabezado.
+     * 
+     * @param stream Destino.
+     * @param format Formato de salida.
+     */
+    public InventoryExporter(OutputStream stream, Format format) {
+        this(stream, null, format, BUFFER_SIZE);
+    }
+
+    /**
+     * Crea un exportador sobre un flujo de salida con un búfer de otro tamaño, por
+     * ejemplo uno pequeño para respuestas cortas.
+     * 
+     * @param stream     Destino.
+     * @param format     Formato de salida.
+     * @param bufferSize Tamaño del búfer en bytes, al menos 64.
+     */
+    public InventoryExporter(OutputStream stream, Format format, int bufferSize) {
+        this(stream, null, format, bufferSize);
+    }
+
+    /**
+     * Crea un exportador sobre un canal. En CSV escribe el encabezado.
+     * 
+     * @param channel Destino.
+     * @param format  Formato de salida.
+     */
+    public InventoryExporter(WritableByteChannel channel, Format format) {
+        this(null, channel, format, BUFFER_SIZE);
+    }
+
+    private InventoryExporter(OutputStream stream, WritableByteChannel channel, Format format, int bufferSize) {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("El búfer debe tener al menos " + MIN_BUFFER_SIZE + " bytes: " + bufferSize);
+        }
+        this.stream = stream;
+        this.channel = channel;
+        this.format = format;
+        this.buffer = new byte[bufferSize];
+        this.view = ByteBuffer.wrap(buffer);
+        if (format == Format.CSV) {
+            System.arraycopy(CSV_HEADER, 0, buffer, 0, CSV_HEADER.length);
+            pos = CSV_HEADER.length;
+        } else if (format == Format.JSON) {
+            buffer[pos++] = '[';
+        }
+    }
+
+    /**
+     * Escribe un producto.
+     * 
+     * @param product Producto a escribir.
+     * @throws IOException Si el destino falla al vaciar el búfer.
+     */
+    public void write(Product product) throws IOException {
+        int count;
+        // Otro hilo puede agregar tallas entre dos copias; se repite hasta que alcance
+        while ((count = product.copyStockLevels(levels)) > levels.length) {
+            levels = new int[count];
+        }
+        if (format == Format.CSV) {
+            writeCsv(product, count);
+        } else {
+            if (format == Format.JSON && written > 0) {
+                put((byte) ',');
+            }
+            writeJson(product, count);
+        }
+        written++;
+    }
+
+    /**
+     * Obtiene la cantidad de productos escritos.
+     * 
+     * @return Productos escritos hasta ahora.
+     */
+    public long written() {
+        return written;
+    }
+
+    /**
+     * Escribe en el destino todo lo que queda en el búfer.
+     * 
+     * @throws IOException Si el destino falla.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        if (stream != null) {
+            stream.flush();
+        }
+    }
+
+    /**
+     * Termina la salida y escribe lo pendiente: en JSON cierra el arreglo. Después no
+     * se deben escribir más productos.
+     * 
+     * @throws IOException Si el destino falla.
+     */
+    public void finish() throws IOException {
+        if (format == Format.JSON && !finished) {
+            put((byte) ']');
+        }
+        finished = true;
+        flush();
+    }
+
+    private void writeCsv(Product product, int count) throws IOException {
+        csvField(product.getSku());
+        put((byte) ',');
+        csvField(product.getName());
+        put((byte) ',');
+        csvField(product.getDescription());
+        put((byte) ',');
+        boolean first = true;
+        for (int id = 0; id < count; id++) {
+            if (levels[id] != Product.ABSENT) {
+                if (!first) {
+                    put((byte) '|');
+                }
+                first = false;
+                putBytes(SizeDictionary.encodedLabelOf(id));
+                put((byte) ':');
+                putInt(levels[id]);
+            }
+        }
+        put((byte) '\n');
+    }
+
+    private void csvField(String text) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"') {
+                quote = true;
+                break;
+            }
+        }
+        if (quote) {
+            put((byte) '"');
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                put((byte) '"');
+                put((byte) '"');
+            } else if (c == '\n' || c == '\r') {
+                put((byte) ' ');
+            } else {
+                i += putChar(text, i) - 1;
+            }
+        }
+        if (quote) {
+            put((byte) '"');
+        }
+    }
+
+    private void writeJson(Product product, int count) throws IOException {
+        putAscii("{\"sku\":");
+        jsonString(product.getSku());
+        putAscii(",\"name\":");
+        jsonString(product.getName());
+        putAscii(",\"description\":");
+        jsonString(product.getDescription());
+        putAscii(",\"sizes\":{");
+        boolean first = true;
+        for (int id = 0; id < count; id++) {
+            if (levels[id] != Product.ABSENT) {
+                if (!first) {
+                    put((byte) ',');
+                }
+                first = false;
+                jsonString(SizeDictionary.labelOf(id));
+                put((byte) ':');
+                putInt(levels[id]);
+            }
+        }
+        putAscii(format == Format.JSON ? "}}" : "}}\n");
+    }
+
+    private void jsonString(String text) throws IOException {
+        put((byte) '"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                put((byte) '\\');
+                put((byte) c);
+            } else if (c == '\n') {
+                putAscii("\\n");
+            } else if (c == '\r') {
+                putAscii("\\r");
+            } else if (c == '\t') {
+                putAscii("\\t");
+            } else if (c < 0x20) {
+                putAscii("\\u00");
+                put(HEX[c >> 4]);
+                put(HEX[c & 0xF]);
+            } else {
+                i += putChar(text, i) - 1;
+            }
+        }
+        put((byte) '"');
+    }
+
+    /**
+     * Codifica a UTF-8 el carácter en una posición; si es el inicio de un par
+     * sustituto, codifica el par completo.
+     * 
+     * @return Cantidad de caracteres consumidos (2 para un par sustituto).
+     */
+    private int putChar(String text, int i) throws IOException {
+        char c = text.charAt(i);
+        if (c < 0x80) {
+            put((byte) c);
+            return 1;
+        }
+        if (pos + 4 > buffer.length) {
+            drain();
+        }
+        if (c < 0x800) {
+            buffer[pos++] = (byte) (0xC0 | (c >> 6));
+            buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, text.charAt(i + 1));
+            buffer[pos++] = (byte) (0xF0 | (cp >> 18));
+            buffer[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | (cp & 0x3F));
+            return 2;
+        } else if (Character.isSurrogate(c)) {
+            // Mitad de un par sin su pareja: se escribe '?', igual que String.getBytes
+            buffer[pos++] = '?';
+        } else {
+            buffer[pos++] = (byte) (0xE0 | (c >> 12));
+            buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return 1;
+    }
+
+    private void putInt(int value) throws IOException {
+        if (pos + 11 > buffer.length) {
+            drain();
+        }
+        if (value == 0) {
+            buffer[pos++] = '0';
+            return;
+        }
+        long v = value;
+        if (v < 0) {
+            buffer[pos++] = '-';
+            v = -v;
+        }
+        int end = pos + digits(v);
+        for (int i = end - 1; i >= pos; i--) {
+            buffer[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        pos = end;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private void putAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            put((byte) text.charAt(i));
+        }
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        if (pos + bytes.length > buffer.length) {
+            drain();
+            if (bytes.length > buffer.length) {
+                write(bytes, bytes.length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void put(byte b) throws IOException {
+        if (pos == buffer.length) {
+            drain();
+        }
+        buffer[pos++] = b;
+    }
+
+    private void drain() throws IOException {
+        write(buffer, pos);
+        pos = 0;
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        if (stream != null) {
+            stream.write(bytes, 0, length);
+            return;
+        }
+        ByteBuffer out = bytes == buffer ? view : ByteBuffer.wrap(bytes);
+        out.clear().limit(length);
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class InventoryExporterTest {
+
+    /**
+     * Prueba de que el CSV exportado se vuelve a leer igual, con comillas, comas y acentos.
+     */
+    @Test
+    void testCsvRoundTrip() throws IOException {
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("s", 10);
+        sizes.put("xl", 0);
+        List<Product> products = List.of(
+                new Product("001", "Camiseta, \"Pro\"", "Algodón 100% 🏃", sizes),
+                new Product("002", "Short", "Sin tallas", new HashMap<>()),
+                new Product("003", "Gorra", "Línea 1\nLínea 2", Map.of("m", 123456)));
+
+        Path file = Files.createTempFile("exportacion", ".csv");
+        try {
+            try (var channel = Files.newByteChannel(file, java.nio.file.StandardOpenOption.WRITE)) {
+                InventoryExporter exporter = new InventoryExporter(channel, InventoryExporter.Format.CSV);
+                for (Product product : products) {
+                    exporter.write(product);
+                }
+                exporter.flush();
+                assertEquals(3, exporter.written());
+            }
+            List<Product> parsed = CsvParser.parse(file);
+            assertEquals(3, parsed.size());
+            for (int i = 0; i < 2; i++) {
+                assertEquals(products.get(i).getSku(), parsed.get(i).getSku());
+                assertEquals(products.get(i).contentHash(), parsed.get(i).contentHash());
+            }
+            // Los saltos de línea dentro de un campo se escriben como espacios
+            assertEquals("Línea 1 Línea 2", parsed.get(2).getDescription());
+            assertEquals(123456, parsed.get(2).getStock("m"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Prueba de que las tallas con espacios, guiones o acentos vuelven a leerse iguales,
+     * y de que las que romperían la columna de tallas ni siquiera se registran.
+     */
+    @Test
+    void testSizeLabelsRoundTrip() throws IOException {
+        Product product = new Product("010", "Sudadera", "Felpa", Map.of("talla única", 3, "2-4 años", 7));
+        for (String label : List.of("s|m", "a,b", "x:l", "\"m\"", "")) {
+            assertThrows(IllegalArgumentException.class, () -> product.setStock(label, 1), label);
+            assertEquals(-1, SizeDictionary.find(label), label);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InventoryExporter exporter = new InventoryExporter(out, InventoryExporter.Format.CSV);
+        exporter.write(product);
+        exporter.flush();
+        Path file = Files.createTempFile("exportacion", ".csv");
+        try {
+            Files.write(file, out.toByteArray());
+            Product parsed = CsvParser.parse(file).get(0);
+            assertEquals(product.getSizes(), parsed.getSizes());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Prueba del formato JSON Lines y de que el búfer se vacía al llenarse.
+     */
+    @Test
+    void testJsonLines() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InventoryExporter exporter = new InventoryExporter(Channels.newChannel(out), InventoryExporter.Format.JSON_LINES);
+        exporter.write(new Product("A\"1", "Tab\there", "barra \\ y \u0001", Map.of("m", 5)));
+        exporter.flush();
+        assertEquals("{\"sku\":\"A\\\"1\",\"name\":\"Tab\\there\",\"description\":\"barra \\\\ y \\u0001\","
+                + "\"sizes\":{\"m\":5}}\n", out.toString(StandardCharsets.UTF_8));
+
+        out.reset();
+        exporter = new InventoryExporter(out, InventoryExporter.Format.JSON_LINES);
+        String description = "ñ".repeat(50_000);
+        for (int i = 0; i < 10; i++) {
+            exporter.write(new Product(String.valueOf(i), "Nombre", description, new HashMap<>()));
+        }
+        exporter.flush();
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(10, lines.length);
+        assertTrue(lines[9].startsWith("{\"sku\":\"9\""));
+        assertTrue(lines[9].contains(description));
+    }
+
+    /**
+     * Prueba del arreglo JSON con un búfer pequeño, vacío y con varios productos.
+     */
+    @Test
+    void testJsonArray() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InventoryExporter exporter = new InventoryExporter(out, InventoryExporter.Format.JSON, 64);
+        exporter.finish();
+        assertEquals("[]", out.toString(StandardCharsets.UTF_8));
+
+        out.reset();
+        exporter = new InventoryExporter(out, InventoryExporter.Format.JSON, 64);
+        exporter.write(new Product("001", "Gorra", "Gorra ajustable con visera curva", Map.of("m", 5)));
+        exporter.write(new Product("002", "Media", "", new HashMap<>()));
+        exporter.finish();
+        exporter.finish();
+        assertEquals("[{\"sku\":\"001\",\"name\":\"Gorra\",\"description\":\"Gorra ajustable con visera curva\","
+                + "\"sizes\":{\"m\":5}},{\"sku\":\"002\",\"name\":\"Media\",\"description\":\"\",\"sizes\":{}}]",
+                out.toString(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> new InventoryExporter(out, InventoryExporter.Format.JSON, 8));
+    }
+}
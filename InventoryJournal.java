@@ -0,0 +1,669 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Bitácora de solo anexado (write-ahead log) con los cambios hechos al inventario
+ * después de la última carga: productos agregados, reemplazados y eliminados,
+ * descripciones y cantidades por talla.
+ * <p>
+ * Cada método que registra un cambio vuelve solo cuando su registro ya está en disco;
+ * los lotes ({@link #logAdds}, {@link #logStock(StockBatch)} y {@link #logBatch})
+ * esperan una sola vez por todos sus registros.
+ * Los registros de varios hilos se escriben con un solo {@code fsync} por grupo: el
+ * primer hilo que encuentra la bitácora libre escribe todo lo pendiente, y los que
+ * llegan mientras tanto esperan y forman el grupo siguiente. Si en un grupo ya hay
+ * registros de otros hilos, quien lo escribe espera hasta {@code groupCommitMillis}
+ * milisegundos a que se junten {@code groupCommitSize}; un hilo solo nunca espera.
+ * Al arrancar, la bitácora se vuelve a aplicar sobre el inventario cargado; cuando
+ * crece más allá de {@code compactionBytes} se compacta escribiendo un snapshot y
+ * vaciando el archivo.
+ * <p>
+ * Cada registro es {@code int longitud, int CRC32, byte tipo, datos}. Todos los
+ * registros fijan valores absolutos, así que aplicarlos más de una vez es inofensivo.
+ * Un registro incompleto al final (por una caída a mitad de escritura) se descarta.
+ */
+public class InventoryJournal implements Closeable {
+    private static final byte ADD = 1;
+    private static final byte DESCRIPTION = 2;
+    private static final byte STOCK = 3;
+    private static final byte REMOVE = 4;
+    private static final byte SIZES = 5;
+    private static final byte REPLACE = 6;
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    /**
+     * Cantidad de registros por grupo cuando no se indica otra.
+     */
+    public static final int DEFAULT_GROUP_COMMIT_SIZE = 64;
+
+    /**
+     * Espera máxima en milisegundos a que se complete un grupo con registros de varios hilos.
+     */
+    public static final long DEFAULT_GROUP_COMMIT_MILLIS = 10;
+
+    /**
+     * Tamaño de la bitácora a partir del cual se compacta.
+     */
+    public static final long DEFAULT_COMPACTION_BYTES = 64L << 20;
+
+    private final Path file;
+    private final Path snapshotFile;
+    private final int groupCommitSize;
+    private final long groupCommitNanos;
+    private final long compactionBytes;
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer record = ByteBuffer.allocate(1024);
+    private int pendingRecords;
+    private long fileSize;
+
+    /**
+     * Número del último registro agregado y del último que ya está en disco. Los
+     * registros entre {@code failedFrom} (sin incluirlo) y {@code failed} son los del
+     * último grupo cuya escritura falló.
+     */
+    private long appended;
+    private long durable;
+    private long failedFrom;
+    private long failed;
+    private IOException failure;
+
+    /**
+     * Indica si un hilo está escribiendo un grupo; mientras tanto los demás esperan.
+     */
+    private boolean writing;
+    private int groups;
+
+    /**
+     * Último registro agregado por cada hilo dentro de {@link #logBatch}, o null si el
+     * hilo no está en un lote.
+     */
+    private final ThreadLocal<long[]> batch = new ThreadLocal<>();
+
+    /**
+     * Abre (o crea) una bitácora con la configuración por defecto.
+     * 
+     * @param file         Ruta del archivo de bitácora.
+     * @param snapshotFile Ruta del snapshot donde se compacta la bitácora.
+     * @throws IOException Si no se puede abrir el archivo.
+     */
+    public InventoryJournal(Path file, Path snapshotFile) throws IOException {
+        this(file, snapshotFile, DEFAULT_GROUP_COMMIT_SIZE, DEFAULT_GROUP_COMMIT_MILLIS, DEFAULT_COMPACTION_BYTES);
+    }
+
+    /**
+     * Abre (o crea) una bitácora.
+     * 
+     * @param file              Ruta del archivo de bitácora.
+     * @param snapshotFile      Ruta del snapshot donde se compacta la bitácora.
+     * @param groupCommitSize   Registros a partir de los cuales un grupo se escribe sin
+     *                          esperar a más.
+     * @param groupCommitMillis Espera máxima a que se complete un grupo con registros
+     *                          de varios hilos; 0 nunca espera.
+     * @param compactionBytes   Tamaño de la bitácora a partir del cual se compacta.
+     * @throws IOException Si no se puede abrir el archivo.
+     */
+    public InventoryJournal(Path file, Path snapshotFile, int groupCommitSize, long groupCommitMillis,
+                            long compactionBytes) throws IOException {
+        this.file = file;
+        this.snapshotFile = snapshotFile;
+        this.groupCommitSize = Math.max(1, groupCommitSize);
+        this.groupCommitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, groupCommitMillis));
+        this.compactionBytes = compactionBytes;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.fileSize = channel.size();
+    }
+
+    /**
+     * Registra un producto agregado.
+     * 
+     * @param product Producto agregado.
+     * @throws IOException Si no se pudo escribir en disco el grupo del registro.
+     */
+    public void logAdd(Product product) throws IOException {
+        long sequence;
+        synchronized (this) {
+            sequence = putProduct(ADD, product);
+        }
+        logged(sequence);
+    }
+
+    /**
+     * Registra el reemplazo de un producto por otro con el mismo SKU, en un solo
+     * registro: al reaplicarlo el producto nuevo queda en el inventario aunque el
+     * anterior ya no esté.
+     * 
+     * @param product Producto nuevo.
+     * @throws IOException Si no se pudo escribir en disco el grupo del registro.
+     */
+    public void logReplace(Product product) throws IOException {
+        long sequence;
+        synchronized (this) {
+            sequence = putProduct(REPLACE, product);
+        }
+        logged(sequence);
+    }
+
+    /**
+     * Registra un lote de productos agregados y espera una sola vez a que todos sus
+     * registros estén en disco.
+     * 
+     * @param products Productos agregados, en orden.
+     * @throws IOException Si no se pudo escribir en disco algún grupo del lote.
+     */
+    public void logAdds(List<Product> products) throws IOException {
+        long sequence = 0;
+        synchronized (this) {
+            for (Product product : products) {
+                sequence = putProduct(ADD, product);
+            }
+        }
+        logged(sequence);
+    }
+
+    /**
+     * Registra un producto eliminado.
+     * 
+     * @param sku SKU del producto eliminado.
+     * @throws IOException Si no se pudo escribir en disco el grupo del registro.
+     */
+    public void logRemove(String sku) throws IOException {
+        long sequence;
+        synchronized (this) {
+            beginRecord(REMOVE);
+            putString(sku);
+            sequence = endRecord();
+        }
+        logged(sequence);
+    }
+
+    /**
+     * Registra el cambio de descripción de un producto.
+     * 
+     * @param sku         SKU del producto.
+     * @param description Nueva descripción.
+     * @throws IOException Si no se pudo escribir en disco el grupo del registro.
+     */
+    public void logDescription(String sku, String description) throws IOException {
+        long sequence;
+        synchronized (this) {
+            beginRecord(DESCRIPTION);
+            putString(sku);
+            putString(description);
+            sequence = endRecord();
+        }
+        logged(sequence);
+    }
+
+    /**
+     * Registra la nueva cantidad disponible de una talla de un producto.
+     * 
+     * @param sku      SKU del producto.
+     * @param size     Etiqueta de la talla.
+     * @param quantity Nueva cantidad disponible.
+     * @throws IOException Si no se pudo escribir en disco el grupo del registro.
+     */
+    public void logStock(String sku, String size, int quantity) throws IOException {
+        long sequence;
+        synchronized (this) {
+            beginRecord(STOCK);
+            putString(sku);
+            putString(size);
+            putInt(quantity);
+            sequence = endRecord();
+        }
+        logged(sequence);
+    }
+
+    /**
+     * Registra los cambios aplicados de un lote de existencias, en orden, y espera una
+     * sola vez a que todos estén en disco. Los cambios no aplicados se omiten.
+     * 
+     * @param batch Lote ya aplicado.
+     * @throws IOException Si no se pudo escribir en disco algún grupo del lote.
+     */
+    public void logStock(StockBatch batch) throws IOException {
+        long sequence = 0;
+        synchronized (this) {
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.isApplied(i)) {
+                    beginRecord(STOCK);
+                    putString(batch.sku(i));
+                    putString(batch.label(i));
+                    putInt(batch.quantity(i));
+                    sequence = endRecord();
+                }
+            }
+        }
+        logged(sequence);
+    }
+
+    /**
+     * Agrupa los registros que se hagan dentro de una acción: mientras corre, los
+     * métodos que registran cambios desde este hilo vuelven sin esperar al disco, y al
+     * terminar se espera una sola vez a que estén todos. Sirve para operaciones que
+     * mezclan varios tipos de registro, como una recarga del CSV. Si la acción está
+     * dentro de otra, sus registros se esperan al terminar la de afuera.
+     * 
+     * @param records Acción que registra los cambios.
+     * @throws IOException Si falló la escritura de algún grupo mientras duraba la acción.
+     */
+    public void logBatch(Runnable records) throws IOException {
+        if (batch.get() != null) {
+            records.run();
+            return;
+        }
+        long start;
+        synchronized (this) {
+            start = appended;
+        }
+        long[] last = new long[1];
+        batch.set(last);
+        try {
+            records.run();
+        } finally {
+            batch.remove();
+        }
+        commit(last[0]);
+        synchronized (this) {
+            // Un grupo anterior al último del lote pudo fallar aunque el último llegara a disco
+            if (last[0] > start && failed > start) {
+                throw new IOException("No se pudo escribir la bitácora " + file, failure);
+            }
+        }
+    }
+
+    /**
+     * Espera a que un registro recién agregado esté en disco, salvo que el hilo esté
+     * dentro de {@link #logBatch}; en ese caso solo lo anota para esperarlo al final.
+     * 
+     * @param sequence Número del registro.
+     * @throws IOException Si no se pudo escribir el grupo del registro.
+     */
+    private void logged(long sequence) throws IOException {
+        long[] last = batch.get();
+        if (last != null) {
+            last[0] = Math.max(last[0], sequence);
+        } else {
+            commit(sequence);
+        }
+    }
+
+    /**
+     * Registra el reemplazo de todas las tallas y cantidades de un producto.
+     * 
+     * @param sku   SKU del producto.
+     * @param sizes Nuevas tallas con sus cantidades.
+     * @throws IOException Si no se pudo escribir en disco el grupo del registro.
+     */
+    public void logSizes(String sku, Map<String, Integer> sizes) throws IOException {
+        long sequence;
+        synchronized (this) {
+            beginRecord(SIZES);
+            putString(sku);
+            putSizes(sizes);
+            sequence = endRecord();
+        }
+        logged(sequence);
+    }
+
+    private long putProduct(byte type, Product product) {
+        beginRecord(type);
+        putString(product.getSku());
+        putString(product.getName());
+        putString(product.getDescription());
+        putSizes(product.getSizes());
+        return endRecord();
+    }
+
+    private void putSizes(Map<String, Integer> sizes) {
+        putInt(sizes.size());
+        for (Map.Entry<String, Integer> size : sizes.entrySet()) {
+            putString(size.getKey());
+            putInt(size.getValue());
+        }
+    }
+
+    private void beginRecord(byte type) {
+        record.clear();
+        record.position(RECORD_HEADER_BYTES);
+        record.put(type);
+    }
+
+    private void putInt(int value) {
+        ensureRecord(4);
+        record.putInt(value);
+    }
+
+    private void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensureRecord(bytes.length);
+        record.put(bytes);
+    }
+
+    private void ensureRecord(int bytes) {
+        if (record.remaining() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + bytes));
+            record.flip();
+            bigger.put(record);
+            record = bigger;
+        }
+    }
+
+    /**
+     * Cierra el registro en curso y lo agrega a los pendientes.
+     * 
+     * @return Número del registro, para esperar a que llegue a disco.
+     */
+    private long endRecord() {
+        int length = record.position() - RECORD_HEADER_BYTES;
+        crc.reset();
+        crc.update(record.array(), RECORD_HEADER_BYTES, length);
+        record.putInt(0, length);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+
+        if (pending.remaining() < record.remaining()) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2,
+                    pending.position() + record.remaining()));
+            pending.flip();
+            bigger.put(pending);
+            pending = bigger;
+        }
+        pending.put(record);
+        pendingRecords++;
+        if (pendingRecords >= groupCommitSize) {
+            notifyAll();
+        }
+        return ++appended;
+    }
+
+    /**
+     * Espera a que el registro indicado esté en disco. Si ningún hilo está escribiendo,
+     * este escribe el grupo pendiente con un solo {@code fsync}, fuera del candado para
+     * que los demás puedan ir formando el grupo siguiente.
+     * 
+     * @param sequence Número del registro.
+     * @throws IOException Si no se pudo escribir el grupo del registro.
+     */
+    private void commit(long sequence) throws IOException {
+        ByteBuffer group;
+        long groupStart;
+        long groupEnd;
+        long offset;
+        synchronized (this) {
+            while (true) {
+                if (sequence > failedFrom && sequence <= failed) {
+                    throw new IOException("No se pudo escribir la bitácora " + file, failure);
+                }
+                if (sequence <= durable) {
+                    return;
+                }
+                if (!writing) {
+                    break;
+                }
+                await(0);
+            }
+            writing = true;
+            long deadline = System.nanoTime() + groupCommitNanos;
+            while (pendingRecords > 1 && pendingRecords < groupCommitSize) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                await(remaining);
+            }
+            group = pending;
+            pending = spare;
+            groupStart = appended - pendingRecords;
+            groupEnd = appended;
+            pendingRecords = 0;
+            offset = fileSize;
+        }
+
+        IOException error = null;
+        group.flip();
+        try {
+            long position = offset;
+            while (group.hasRemaining()) {
+                position += channel.write(group, position);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+            try {
+                channel.truncate(offset);
+            } catch (IOException ignored) {
+                // Si tampoco se puede recortar, la verificación de CRC descarta lo escrito a medias
+            }
+        }
+
+        synchronized (this) {
+            if (error == null) {
+                fileSize += group.limit();
+                durable = groupEnd;
+                groups++;
+            } else {
+                failedFrom = groupStart;
+                failed = groupEnd;
+                failure = error;
+            }
+            group.clear();
+            spare = group;
+            writing = false;
+            notifyAll();
+        }
+        if (error != null) {
+            throw new IOException("No se pudo escribir la bitácora " + file, error);
+        }
+    }
+
+    /**
+     * Espera un aviso de otro hilo sin dejar que una interrupción corte la espera de un
+     * registro que quizá ya se está escribiendo; la interrupción se conserva.
+     * 
+     * @param nanos Espera máxima, o 0 para esperar sin límite.
+     */
+    private void await(long nanos) {
+        try {
+            if (nanos == 0) {
+                wait();
+            } else {
+                TimeUnit.NANOSECONDS.timedWait(this, nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Escribe en disco todos los registros pendientes y espera a que terminen los
+     * grupos que otros hilos están escribiendo.
+     * 
+     * @throws IOException Si no se puede escribir.
+     */
+    public void flush() throws IOException {
+        long sequence;
+        synchronized (this) {
+            sequence = appended;
+        }
+        commit(sequence);
+    }
+
+    /**
+     * Obtiene la cantidad de grupos escritos en disco desde que se abrió la bitácora.
+     * 
+     * @return Número de grupos, cada uno con un solo {@code fsync}.
+     */
+    synchronized int groupCount() {
+        return groups;
+    }
+
+    /**
+     * Escribe lo pendiente y espera a que ningún hilo esté escribiendo un grupo. Quien
+     * la llama debe tener el candado, así al volver nadie empieza otro grupo hasta que
+     * lo suelte.
+     */
+    private void drain() throws IOException {
+        flush();
+        while (writing) {
+            await(0);
+        }
+    }
+
+    /**
+     * Indica si la bitácora creció lo suficiente como para compactarla.
+     * 
+     * @return true si el archivo supera el tamaño de compactación.
+     */
+    public synchronized boolean needsCompaction() {
+        return fileSize + pending.position() >= compactionBytes;
+    }
+
+    /**
+     * Compacta la bitácora: guarda un snapshot del inventario y vacía el archivo.
+     * Mientras dura no se aceptan registros nuevos, así ningún cambio queda fuera
+     * del snapshot y de la bitácora a la vez.
+     * 
+     * @param manager Inventario cuyo estado se guarda.
+     * @throws IOException Si no se puede escribir el snapshot o vaciar la bitácora.
+     */
+    public synchronized void compact(InventoryManager manager) throws IOException {
+        drain();
+        manager.saveSnapshot(snapshotFile.toString());
+        channel.truncate(0);
+        channel.force(true);
+        fileSize = 0;
+    }
+
+    /**
+     * Vuelve a aplicar sobre el inventario todos los registros válidos de la bitácora.
+     * Si al final hay un registro incompleto o dañado, se descarta y el archivo se
+     * recorta para que los registros nuevos queden a continuación de los válidos.
+     * 
+     * @param manager Inventario sobre el que se aplican los cambios; no debe tener la
+     *                bitácora conectada mientras tanto.
+     * @return Cantidad de registros aplicados.
+     * @throws IOException Si no se puede leer el archivo.
+     */
+    public synchronized int replay(InventoryManager manager) throws IOException {
+        drain();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        long position = 0;
+        int applied = 0;
+        while (position + RECORD_HEADER_BYTES <= fileSize) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            int checksum = header.getInt(4);
+            if (length <= 0 || position + RECORD_HEADER_BYTES + length > fileSize) {
+                break;
+            }
+            ByteBuffer data = ByteBuffer.allocate(length);
+            readFully(data, position + RECORD_HEADER_BYTES);
+            crc.reset();
+            crc.update(data.array(), 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            data.flip();
+            apply(manager, data);
+            applied++;
+            position += RECORD_HEADER_BYTES + length;
+        }
+        if (position < fileSize) {
+            System.out.println("Bitácora " + file + ": se descartaron " + (fileSize - position)
+                    + " bytes incompletos al final.");
+            channel.truncate(position);
+            fileSize = position;
+        }
+        return applied;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Fin inesperado de la bitácora " + file);
+            }
+        }
+    }
+
+    private static void apply(InventoryManager manager, ByteBuffer data) {
+        byte type = data.get();
+        switch (type) {
+            case ADD:
+                manager.addProduct(getProduct(data));
+                break;
+            case REPLACE: {
+                Product product = getProduct(data);
+                if (!manager.replaceProduct(product)) {
+                    manager.addProduct(product);
+                }
+                break;
+            }
+            case DESCRIPTION:
+                manager.updateDescription(getString(data), getString(data));
+                break;
+            case STOCK:
+                manager.setStock(getString(data), getString(data), data.getInt());
+                break;
+            case REMOVE:
+                manager.removeProduct(getString(data));
+                break;
+            case SIZES:
+                manager.setSizes(getString(data), getSizes(data));
+                break;
+            default:
+                throw new IllegalStateException("Tipo de registro desconocido en la bitácora: " + type);
+        }
+    }
+
+    private static Product getProduct(ByteBuffer data) {
+        String sku = getString(data);
+        String name = getString(data);
+        String description = getString(data);
+        return new Product(sku, name, description, getSizes(data));
+    }
+
+    private static Map<String, Integer> getSizes(ByteBuffer data) {
+        int count = data.getInt();
+        Map<String, Integer> sizes = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            sizes.put(getString(data), data.getInt());
+        }
+        return sizes;
+    }
+
+    private static String getString(ByteBuffer data) {
+        int length = data.getInt();
+        String value = new String(data.array(), data.position(), length, StandardCharsets.UTF_8);
+        data.position(data.position() + length);
+        return value;
+    }
+
+    /**
+     * Escribe los registros pendientes y cierra el archivo.
+     * 
+     * @throws IOException Si no se puede escribir o cerrar.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        drain();
+        channel.close();
+    }
+}
@@ -0,0 +1,292 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Pruebas unitarias para la clase InventoryJournal.
+ */
+class InventoryJournalTest {
+    private Path directory;
+    private Path journalFile;
+    private Path snapshotFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("bitacora");
+        journalFile = directory.resolve("inventario.journal");
+        snapshotFile = directory.resolve("inventario.snapshot");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(snapshotFile);
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Prueba de que los cambios registrados se recuperan en un inventario nuevo.
+     */
+    @Test
+    void testReplayRestoresChanges() throws IOException {
+        InventoryManager inventory = new InventoryManager();
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile, 4, 5, Long.MAX_VALUE)) {
+            inventory.attachJournal(journal);
+            Map<String, Integer> sizes = new HashMap<>();
+            sizes.put("m", 5);
+            inventory.addProduct(new Product("001", "Camiseta Running", "Camiseta ligera", sizes));
+            inventory.updateDescription("001", "Camiseta ultraligera");
+            inventory.setStock("001", "m", 7);
+            inventory.setStock("001", "l", 2);
+        }
+
+        InventoryManager restored = new InventoryManager();
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile)) {
+            assertEquals(4, restored.attachJournal(journal));
+        }
+        Product product = restored.searchBySku("001");
+        assertEquals("Camiseta ultraligera", product.getDescription());
+        assertEquals(7, product.getStock("m"));
+        assertEquals(2, product.getStock("l"));
+        assertEquals(product, restored.searchByName("Camiseta Running"));
+    }
+
+    /**
+     * Prueba de que un registro incompleto al final se descarta sin perder los anteriores.
+     */
+    @Test
+    void testReplayDiscardsTornTail() throws IOException {
+        InventoryManager inventory = new InventoryManager();
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile, 1, 0, Long.MAX_VALUE)) {
+            inventory.attachJournal(journal);
+            inventory.addProduct(new Product("001", "Gorra", "Gorra ajustable", new HashMap<>()));
+            inventory.addProduct(new Product("002", "Visera", "Visera ligera", new HashMap<>()));
+        }
+        long size = Files.size(journalFile);
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        InventoryManager restored = new InventoryManager();
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile, 1, 0, Long.MAX_VALUE)) {
+            assertEquals(1, restored.attachJournal(journal));
+            restored.addProduct(new Product("003", "Calcetas", "Calcetas largas", new HashMap<>()));
+        }
+        assertNotNull(restored.searchBySku("001"));
+        assertNull(restored.searchBySku("002"));
+
+        InventoryManager again = new InventoryManager();
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile)) {
+            assertEquals(2, again.attachJournal(journal));
+        }
+        assertNotNull(again.searchBySku("003"));
+    }
+
+    /**
+     * Prueba de que la compactación guarda un snapshot y vacía la bitácora.
+     */
+    @Test
+    void testCompaction() throws IOException {
+        InventoryManager inventory = new InventoryManager();
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile, 1, 0, 200)) {
+            inventory.attachJournal(journal);
+            for (int i = 0; i < 20; i++) {
+                inventory.addProduct(new Product(String.format("%03d", i), "Producto " + i, "", new HashMap<>()));
+            }
+        }
+        assertTrue(Files.size(journalFile) < 200);
+        assertTrue(Files.exists(snapshotFile));
+
+        InventoryManager restored = new InventoryManager();
+        assertTrue(restored.loadFromSnapshot(snapshotFile.toString()));
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile)) {
+            restored.attachJournal(journal);
+        }
+        assertEquals(20, restored.size());
+    }
+
+    /**
+     * Prueba de que cada registro ya está en disco cuando el método vuelve, aunque el
+     * grupo no se haya completado.
+     */
+    @Test
+    void testRecordIsDurableOnReturn() throws IOException {
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile, 1_000, 60_000, Long.MAX_VALUE)) {
+            journal.logStock("001", "m", 3);
+            long size = Files.size(journalFile);
+            assertTrue(size > 0);
+            journal.logStock("001", "m", 4);
+            assertTrue(Files.size(journalFile) > size);
+            assertEquals(2, journal.groupCount());
+        }
+    }
+
+    /**
+     * Prueba de que con varios hilos ningún registro se pierde y los que llegan juntos
+     * comparten la escritura.
+     */
+    @Test
+    void testConcurrentWritersShareGroups() throws Exception {
+        int threads = 4;
+        int perThread = 50;
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile, threads, 5, Long.MAX_VALUE)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String sku = "00" + t;
+                tasks.add(pool.submit(() -> {
+                    journal.logAdd(new Product(sku, "Producto " + sku, "", new HashMap<>()));
+                    for (int i = 1; i < perThread; i++) {
+                        journal.logStock(sku, "m", i);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            pool.shutdown();
+            assertTrue(journal.groupCount() <= threads * perThread);
+
+            InventoryManager restored = new InventoryManager();
+            try (InventoryJournal reader = new InventoryJournal(journalFile, snapshotFile)) {
+                assertEquals(threads * perThread, restored.attachJournal(reader));
+            }
+            for (int t = 0; t < threads; t++) {
+                assertEquals(perThread - 1, restored.searchBySku("00" + t).getStock("m"));
+            }
+        }
+    }
+
+    /**
+     * Prueba de que las bajas y los reemplazos de tallas se recuperan de la bitácora.
+     */
+    @Test
+    void testReplayRemoveAndSizes() throws IOException {
+        InventoryManager inventory = new InventoryManager();
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile)) {
+            inventory.attachJournal(journal);
+            inventory.addProduct(new Product("001", "Gorra", "Gorra ajustable", new HashMap<>()));
+            inventory.addProduct(new Product("002", "Visera", "Visera ligera", new HashMap<>()));
+            inventory.setSizes("001", Map.of("s", 3, "xl", 1));
+            inventory.removeProduct("002");
+        }
+
+        InventoryManager restored = new InventoryManager();
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile)) {
+            assertEquals(4, restored.attachJournal(journal));
+        }
+        assertEquals(Map.of("s", 3, "xl", 1), restored.searchBySku("001").getSizes());
+        assertNull(restored.searchBySku("002"));
+        assertNull(restored.searchByName("Visera"));
+    }
+
+    /**
+     * Prueba de que un reemplazo cuenta como una sola edición y queda en la bitácora
+     * como un solo registro, en los tres inventarios, y de que al reaplicarlo el
+     * producto nuevo queda aunque el anterior ya no esté.
+     */
+    @Test
+    void testReplaceIsOneRecord() throws IOException {
+        for (InventoryManager inventory : List.of(new InventoryManager(), new ConcurrentInventoryManager(),
+                new OffHeapInventoryManager())) {
+            inventory.getMetrics().setEnabled(true);
+            try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile, 1, 0, Long.MAX_VALUE)) {
+                inventory.attachJournal(journal);
+                inventory.addProduct(new Product("001", "Gorra", "Gorra ajustable", Map.of("m", 2)));
+                assertTrue(inventory.replaceProduct(new Product("001", "Visera", "Visera ligera", Map.of("s", 1))));
+                assertEquals(2, journal.groupCount());
+            }
+            InventoryMetrics metrics = inventory.getMetrics();
+            assertEquals(1, metrics.latency(InventoryMetrics.Operation.INSERT).count());
+            assertEquals(0, metrics.latency(InventoryMetrics.Operation.REMOVE).count());
+            assertEquals(1, metrics.latency(InventoryMetrics.Operation.EDIT).count());
+            assertNull(inventory.searchByName("Gorra"));
+            assertEquals(1, inventory.searchByName("Visera").getStock("s"));
+
+            InventoryManager restored = new InventoryManager();
+            try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile)) {
+                assertEquals(2, restored.attachJournal(journal));
+            }
+            assertNull(restored.searchByName("Gorra"));
+            assertEquals(Map.of("s", 1), restored.searchBySku("001").getSizes());
+            assertEquals("Visera ligera", restored.searchByName("Visera").getDescription());
+            Files.delete(journalFile);
+        }
+
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile)) {
+            journal.logReplace(new Product("002", "Short", "", Map.of("l", 3)));
+        }
+        InventoryManager restored = new InventoryManager();
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile)) {
+            assertEquals(1, restored.attachJournal(journal));
+        }
+        assertEquals(3, restored.searchBySku("002").getStock("l"));
+    }
+
+    /**
+     * Prueba de que los lotes de altas, de existencias y una recarga del CSV esperan un
+     * solo grupo cada uno con la bitácora conectada, y que todo se recupera.
+     */
+    @Test
+    void testBatchesWaitForOneGroup() throws IOException {
+        int count = 200;
+        Path csv = directory.resolve("recarga.csv");
+        InventoryManager inventory = new InventoryManager();
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile, 1, 0, Long.MAX_VALUE)) {
+            inventory.attachJournal(journal);
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                products.add(new Product(String.format("%03d", i), "Producto " + i, "", Map.of("m", 1)));
+            }
+            inventory.addProducts(products);
+            assertEquals(1, journal.groupCount());
+
+            StockBatch batch = new StockBatch();
+            for (int i = 0; i < count; i++) {
+                batch.add(String.format("%03d", i), "m", i);
+            }
+            batch.add("999", "m", 1);
+            assertEquals(count, inventory.setStock(batch));
+            assertEquals(2, journal.groupCount());
+
+            StringBuilder rows = new StringBuilder("SKU,Nombre,Descripción,Cantidad por talla\n");
+            for (int i = 1; i < count; i++) {
+                rows.append(String.format("%03d", i)).append(",Producto ").append(i).append(",,m:")
+                        .append(i % 2 == 0 ? i : 0).append('\n');
+            }
+            rows.append("500,Producto nuevo,,s:4\n");
+            Files.writeString(csv, rows);
+            ReloadReport report = inventory.reloadFromCSV(csv.toString());
+            assertEquals(1, report.inserted.size());
+            assertEquals(count / 2, report.updated.size());
+            assertEquals(1, report.deleted.size());
+            assertEquals(3, journal.groupCount());
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+
+        InventoryManager restored = new InventoryManager();
+        try (InventoryJournal journal = new InventoryJournal(journalFile, snapshotFile)) {
+            restored.attachJournal(journal);
+        }
+        assertEquals(count, restored.size());
+        assertNull(restored.searchBySku("000"));
+        assertEquals(0, restored.searchBySku("001").getStock("m"));
+        assertEquals(2, restored.searchBySku("002").getStock("m"));
+        assertEquals(4, restored.searchBySku("500").getStock("s"));
+    }
+}
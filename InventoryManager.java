@@ -1,8 +1,17 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Clase que gestiona el inventario de productos de ropa deportiva.
@@ -10,46 +19,114 @@ import java.util.Map;
  * y listarlos en orden.
  */
 public class InventoryManager {
+    /**
+     * Un lote se mezcla en bloque con los árboles si tiene al menos un producto por
+     * cada tantos que ya hay; si no, se inserta producto por producto.
+     */
+    private static final int BULK_RATIO = 16;
+
     /**
      * Árbol binario de búsqueda que almacena los productos ordenados por SKU.
      */
-    public BinarySearchTree<String, Product> skuTree;
+    private final BinarySearchTree<String, Product> skuTree;
 
     /**
      * Árbol binario de búsqueda que almacena los productos ordenados por nombre.
      */
-    public BinarySearchTree<String, Product> nameTree;
+    private final BinarySearchTree<String, Product> nameTree;
+
+    /**
+     * Índice hash por SKU para las búsquedas exactas; el árbol se usa para los recorridos
+     * ordenados y los rangos. Todas las altas y bajas pasan por esta clase y actualizan
+     * ambos, así que el hash tiene siempre los mismos SKU que el árbol y una búsqueda
+     * que no lo encuentra no necesita confirmarse en el árbol.
+     */
+    private final SkuHashIndex skuHash = new SkuHashIndex();
+
+    /**
+     * Índice hash por código de SKU, o null si la codificación no está activa. Con ella
+     * activa, los productos cuyo SKU se puede codificar con {@link SkuCodec} están aquí y
+     * no en el índice hash por cadena, que queda solo para los demás.
+     */
+    private SkuCodeIndex skuCodes;
+
+    /**
+     * Índices secundarios: todos los productos por nombre y búsqueda por palabras.
+     */
+    protected final ProductSearchIndex searchIndex = new ProductSearchIndex();
+
+    /**
+     * Índice de existencias por talla para las consultas de reabastecimiento.
+     */
+    protected final StockIndex stockIndex = new StockIndex();
+
+    /**
+     * Bitácora donde se registran los cambios, o null si no se registran.
+     */
+    private InventoryJournal journal;
+
+    /**
+     * Métricas de las operaciones, desactivadas por defecto.
+     */
+    protected final InventoryMetrics metrics = new InventoryMetrics();
+
+    /**
+     * Escritura de un registro en la bitácora.
+     */
+    @FunctionalInterface
+    protected interface JournalEntry {
+        /**
+         * Escribe el registro.
+         * 
+         * @param journal Bitácora conectada.
+         * @throws IOException Si no se puede escribir.
+         */
+        void writeTo(InventoryJournal journal) throws IOException;
+    }
 
     /**
-     * Constructor que inicializa los árboles binarios de búsqueda.
+     * Constructor que inicializa los árboles binarios de búsqueda en modo balanceado,
+     * de modo que los archivos ordenados por SKU no degeneren el árbol en una lista.
      */
     public InventoryManager() {
-        skuTree = new BinarySearchTree<>();
-        nameTree = new BinarySearchTree<>();
+        skuTree = new BinarySearchTree<>(true);
+        nameTree = new BinarySearchTree<>(true);
+        metrics.registerGauge("skuTree.size", () -> skuTree.size());
+        metrics.registerGauge("skuTree.height", () -> skuTree.height());
+        metrics.registerGauge("skuTree.averageDepth", () -> skuTree.averageDepth());
+        metrics.registerGauge("nameTree.size", () -> nameTree.size());
+        metrics.registerGauge("nameTree.height", () -> nameTree.height());
+        metrics.registerGauge("nameTree.averageDepth", () -> nameTree.averageDepth());
+        metrics.registerGauge("skuCodes.size", () -> skuCodes == null ? 0 : skuCodes.size());
+    }
+
+    /**
+     * Obtiene las métricas del inventario, para activarlas o consultarlas.
+     * 
+     * @return Métricas del inventario.
+     */
+    public InventoryMetrics getMetrics() {
+        return metrics;
     }
 
     /**
-     * Carga los productos desde un archivo CSV y los inserta en los árboles de búsqueda.
+     * Carga los productos desde un archivo CSV y construye los árboles de búsqueda
+     * en bloque, en tiempo lineal si el archivo ya viene ordenado.
+     * El archivo se lee con {@link CsvParser}, que lo procesa en paralelo. Con las
+     * métricas activas se registra el tiempo de lectura, análisis e indexación.
      * 
      * @param filename Nombre del archivo CSV a cargar.
      */
     public void loadFromCSV(String filename) {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            // Ignorar la primera línea de encabezado
-            br.readLine();
-            
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] data = line.split(",");
-                
-                // Parsear las tallas
-                Map<String, Integer> sizes = parseSizes(data[3]);
-                
-                Product product = new Product(data[0], data[1], data[2], sizes);
-                
-                // Insertar en ambos árboles
-                skuTree.insert(product.getSku(), product);
-                nameTree.insert(product.getName(), product);
+        try {
+            if (metrics.isEnabled()) {
+                metrics.beginLoad();
+            }
+            List<Product> products = CsvParser.parse(Paths.get(filename), metrics);
+            long start = metrics.start();
+            indexProducts(products);
+            if (start != 0) {
+                metrics.recordLoadPhase(InventoryMetrics.LoadPhase.INDEX, System.nanoTime() - start);
             }
             System.out.println("Archivo cargado exitosamente.");
         } catch (IOException e) {
@@ -58,31 +135,771 @@ public class InventoryManager {
     }
 
     /**
-     * Convierte una cadena de tallas en un mapa de tallas y cantidades.
+     * Carga el inventario desde un snapshot binario escrito con {@link #saveSnapshot}.
+     * Los árboles se reconstruyen en tiempo lineal a partir de los órdenes guardados.
      * 
-     * @param sizesStr Cadena de tallas en formato "S:10|M:15|L:8".
-     * @return Mapa con tallas como claves y cantidades como valores.
+     * @param filename Nombre del archivo de snapshot.
+     * @return true si se cargó, false si no existe, es de otra versión o está corrupto.
      */
-    private Map<String, Integer> parseSizes(String sizesStr) {
-        Map<String, Integer> sizes = new HashMap<>();
-        String[] sizeEntries = sizesStr.split("\\|");
-        
-        for (String entry : sizeEntries) {
-            String[] parts = entry.split(":");
-            sizes.put(parts[0], Integer.parseInt(parts[1]));
+    public boolean loadFromSnapshot(String filename) {
+        Path file = Paths.get(filename);
+        try {
+            if (metrics.isEnabled()) {
+                metrics.beginLoad();
+            }
+            long start = metrics.start();
+            InventorySnapshotFile.Contents contents = InventorySnapshotFile.read(file);
+            if (start != 0) {
+                long read = System.nanoTime();
+                metrics.recordLoadPhase(InventoryMetrics.LoadPhase.READ, read - start);
+                metrics.recordLoadedRows(contents.bySku.size());
+                start = read;
+            }
+            restoreIndexes(contents.bySku, contents.byName);
+            if (start != 0) {
+                metrics.recordLoadPhase(InventoryMetrics.LoadPhase.INDEX, System.nanoTime() - start);
+            }
+            System.out.println("Snapshot cargado exitosamente.");
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error al cargar el snapshot: " + e.getMessage());
+            return false;
         }
-        
-        return sizes;
     }
 
     /**
-     * Busca un producto por su SKU.
+     * Guarda el inventario completo en un snapshot binario, de forma atómica. Ambos
+     * órdenes se toman de la misma {@link #snapshot() vista}, así que corresponden al
+     * mismo estado aunque otros hilos sigan escribiendo.
+     * 
+     * @param filename Nombre del archivo de snapshot.
+     * @throws IOException Si no se puede escribir el archivo.
+     */
+    public void saveSnapshot(String filename) throws IOException {
+        InventoryView view = snapshot();
+        List<Product> bySku = new ArrayList<>(view.size());
+        List<Product> byName = new ArrayList<>(view.byName.size());
+        view.forEachBySku(bySku::add);
+        view.forEachByName(byName::add);
+        InventorySnapshotFile.write(Paths.get(filename), bySku, byName);
+    }
+
+    /**
+     * Toma una vista inmutable de ambos índices para recorrerlos sin que cambien, por
+     * ejemplo en listados completos o exportaciones. Aquí se copian los árboles en
+     * tiempo lineal; {@link ConcurrentInventoryManager} la devuelve sin copiar.
+     * 
+     * @return Vista del inventario en este instante.
+     */
+    public InventoryView snapshot() {
+        return new InventoryView(PersistentTree.fromSorted(entries(skuTree)), PersistentTree.fromSorted(entries(nameTree)));
+    }
+
+    private static List<Map.Entry<String, Product>> entries(BinarySearchTree<String, Product> tree) {
+        List<Map.Entry<String, Product>> entries = new ArrayList<>(tree.size());
+        for (Map.Entry<String, Product> entry : tree) {
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Exporta todos los productos en orden de SKU a un archivo, reemplazándolo.
+     * 
+     * @param filename Nombre del archivo destino.
+     * @param format   Formato de salida; en CSV el archivo se puede volver a cargar.
+     * @return Cantidad de productos exportados.
+     * @throws IOException Si no se puede escribir el archivo.
+     */
+    public long export(String filename, InventoryExporter.Format format) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return export(new InventoryExporter(channel, format));
+        }
+    }
+
+    /**
+     * Exporta todos los productos en orden de SKU a un flujo de salida, que queda abierto.
+     * 
+     * @param out    Destino.
+     * @param format Formato de salida.
+     * @return Cantidad de productos exportados.
+     * @throws IOException Si el destino falla.
+     */
+    public long export(OutputStream out, InventoryExporter.Format format) throws IOException {
+        return export(new InventoryExporter(out, format));
+    }
+
+    /**
+     * Recorre el inventario por SKU entregando cada producto al exportador. Con
+     * {@link ConcurrentInventoryManager} el recorrido es sobre una sola vista, así que
+     * la exportación corresponde a un mismo estado aunque haya escrituras en curso.
+     */
+    private long export(InventoryExporter exporter) throws IOException {
+        try {
+            forEachBySku(product -> {
+                try {
+                    exporter.write(product);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        exporter.finish();
+        return exporter.written();
+    }
+
+    /**
+     * Reconstruye los índices a partir de listas ya ordenadas, sin volver a ordenar.
+     * 
+     * @param bySku  Productos en orden ascendente de SKU.
+     * @param byName Productos del índice por nombre, en orden ascendente de nombre.
+     */
+    protected void restoreIndexes(List<Product> bySku, List<Product> byName) {
+        List<Map.Entry<String, Product>> skuEntries = new ArrayList<>(bySku.size());
+        for (Product product : bySku) {
+            skuEntries.add(Map.entry(product.getSku(), product));
+        }
+        List<Map.Entry<String, Product>> nameEntries = new ArrayList<>(byName.size());
+        for (Product product : byName) {
+            nameEntries.add(Map.entry(product.getName(), product));
+        }
+        skuTree.bulkLoad(skuEntries);
+        nameTree.bulkLoad(nameEntries);
+        reserveSkus(bySku.size());
+        for (Product product : bySku) {
+            indexSku(product);
+        }
+        searchIndex.addAll(bySku);
+        stockIndex.addAll(bySku);
+    }
+
+    /**
+     * Inserta un lote de productos en los índices, sin registrarlos en la bitácora.
+     * Los productos cuyo SKU ya existe se ignoran. Un lote pequeño frente al inventario
+     * se inserta producto por producto, ya que mezclarlo en bloque recorrería los
+     * árboles completos.
+     * 
+     * @param products Productos a indexar, en cualquier orden.
+     */
+    protected void indexProducts(List<Product> products) {
+        if ((long) products.size() * BULK_RATIO < skuTree.size()) {
+            List<Product> indexed = new ArrayList<>(products.size());
+            for (Product product : products) {
+                if (findBySku(product.getSku()) == null && indexSku(product)) {
+                    skuTree.insert(product.getSku(), product);
+                    nameTree.insert(product.getName(), product);
+                    indexed.add(product);
+                }
+            }
+            searchIndex.addAll(indexed);
+            stockIndex.addAll(indexed);
+            return;
+        }
+        List<Map.Entry<String, Product>> skuEntries = new ArrayList<>(products.size());
+        for (Product product : products) {
+            skuEntries.add(Map.entry(product.getSku(), product));
+        }
+        skuTree.bulkLoad(skuEntries);
+
+        // Solo los productos que quedaron en el índice por SKU pasan a los demás índices;
+        // el árbol conserva el primero de cada SKU, igual que el índice hash
+        List<Product> indexed = new ArrayList<>(products.size());
+        List<Map.Entry<String, Product>> nameEntries = new ArrayList<>(products.size());
+        reserveSkus(products.size());
+        for (Product product : products) {
+            if (indexSku(product)) {
+                indexed.add(product);
+                nameEntries.add(Map.entry(product.getName(), product));
+            }
+        }
+        nameTree.bulkLoad(nameEntries);
+        searchIndex.addAll(indexed);
+        stockIndex.addAll(indexed);
+    }
+
+    /**
+     * Agrega un lote de productos de una sola vez: los índices se actualizan juntos,
+     * en bloque si el lote es grande frente al inventario, y los productos agregados se
+     * registran en la bitácora con {@link InventoryJournal#logAdds}, que espera un solo
+     * {@code fsync} por todo el lote. Igual que con {@link #addProduct}, los productos cuyo SKU
+     * ya existe, o se repite dentro del lote, no se agregan.
+     * 
+     * @param products Productos a agregar.
+     * @return Para cada producto, en el mismo orden, true si se agregó.
+     */
+    public boolean[] addProducts(List<Product> products) {
+        boolean[] added = new boolean[products.size()];
+        Set<String> skus = new HashSet<>(Math.max(16, products.size() * 4 / 3 + 1));
+        List<Product> fresh = new ArrayList<>(products.size());
+        for (int i = 0; i < added.length; i++) {
+            Product product = products.get(i);
+            if (skus.add(product.getSku()) && searchBySku(product.getSku()) == null) {
+                added[i] = true;
+                fresh.add(product);
+            }
+        }
+        indexProducts(fresh);
+        logChange(journal -> journal.logAdds(fresh));
+        return added;
+    }
+
+    /**
+     * Agrega un producto al índice hash y a ambos árboles.
+     * Si ya existe un producto con el mismo SKU no se modifica nada.
+     * 
+     * @param product Producto a agregar.
+     * @return true si el producto se agregó, false si el SKU ya existía.
+     */
+    public boolean addProduct(Product product) {
+        long start = metrics.start();
+        if (findBySku(product.getSku()) != null) {
+            return false;
+        }
+        index(product);
+        onProductAdded(product);
+        metrics.stop(InventoryMetrics.Operation.INSERT, start);
+        return true;
+    }
+
+    private void index(Product product) {
+        indexSku(product);
+        skuTree.insert(product.getSku(), product);
+        nameTree.insert(product.getName(), product);
+    }
+
+    /**
+     * Actualiza los índices secundarios y la bitácora después de agregar un producto
+     * a los índices principales.
+     * 
+     * @param product Producto agregado.
+     */
+    protected void onProductAdded(Product product) {
+        searchIndex.add(product);
+        stockIndex.add(product);
+        logChange(journal -> journal.logAdd(product));
+    }
+
+    /**
+     * Elimina un producto de todos los índices. Si el producto representaba a su nombre
+     * en el árbol por nombre, otro producto con el mismo nombre pasa a ocupar su lugar.
+     * 
+     * @param sku SKU del producto a eliminar.
+     * @return true si el producto existía y se eliminó, false si no existía.
+     */
+    public boolean removeProduct(String sku) {
+        long start = metrics.start();
+        Product product = findBySku(sku);
+        if (product == null) {
+            return false;
+        }
+        unindex(product);
+        onProductRemoved(product);
+        metrics.stop(InventoryMetrics.Operation.REMOVE, start);
+        return true;
+    }
+
+    private void unindex(Product product) {
+        unindexSku(product.getSku());
+        skuTree.remove(product.getSku());
+        String name = product.getName();
+        if (nameTree.search(name) == product) {
+            nameTree.remove(name);
+            Product next = nextWithName(product);
+            if (next != null) {
+                nameTree.insert(name, next);
+            }
+        }
+    }
+
+    /**
+     * Reemplaza un producto por otro con el mismo SKU, por ejemplo para cambiarle el
+     * nombre, que en {@link Product} es inmutable. El producto anterior sale de todos
+     * los índices y el nuevo entra en ellos, igual que al eliminarlo y agregarlo, pero
+     * cuenta como una sola edición y queda en la bitácora como un solo registro.
+     * 
+     * @param replacement Producto nuevo.
+     * @return true si había un producto con ese SKU y se reemplazó, false si no.
+     */
+    public boolean replaceProduct(Product replacement) {
+        long start = metrics.start();
+        Product product = findBySku(replacement.getSku());
+        if (product == null) {
+            return false;
+        }
+        unindex(product);
+        index(replacement);
+        onProductReplaced(product, replacement);
+        metrics.stop(InventoryMetrics.Operation.EDIT, start);
+        return true;
+    }
+
+    /**
+     * Busca otro producto con el mismo nombre que uno que se está eliminando.
+     * 
+     * @param removed Producto que se elimina.
+     * @return El primer otro producto con ese nombre que sigue en el índice por SKU,
+     *         o null si no hay.
+     */
+    protected Product nextWithName(Product removed) {
+        for (Product candidate : searchIndex.searchByName(removed.getName())) {
+            if (candidate != removed && searchBySku(candidate.getSku()) == candidate) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Actualiza los índices secundarios y la bitácora después de quitar un producto
+     * de los índices principales.
+     * 
+     * @param product Producto eliminado.
+     */
+    protected void onProductRemoved(Product product) {
+        searchIndex.remove(product);
+        stockIndex.remove(product);
+        logChange(journal -> journal.logRemove(product.getSku()));
+    }
+
+    /**
+     * Actualiza los índices secundarios y la bitácora después de reemplazar un producto
+     * en los índices principales.
+     * 
+     * @param product     Producto reemplazado.
+     * @param replacement Producto nuevo.
+     */
+    protected void onProductReplaced(Product product, Product replacement) {
+        searchIndex.remove(product);
+        stockIndex.remove(product);
+        searchIndex.add(replacement);
+        stockIndex.add(replacement);
+        logChange(journal -> journal.logReplace(replacement));
+    }
+
+    /**
+     * Actualiza el índice de palabras después de cambiar la descripción de un producto.
+     * 
+     * @param product        Producto ya modificado.
+     * @param oldDescription Descripción anterior.
+     */
+    protected void onDescriptionChanged(Product product, String oldDescription) {
+        searchIndex.update(product, product.getName(), oldDescription);
+    }
+
+    /**
+     * Actualiza el índice de existencias después de cambiar las tallas de un producto.
+     * 
+     * @param product Producto ya modificado.
+     */
+    protected void onStockChanged(Product product) {
+        stockIndex.update(product);
+    }
+
+    /**
+     * Actualiza el índice de existencias después de cambiar las tallas de un lote de
+     * productos.
+     * 
+     * @param products Productos ya modificados.
+     */
+    protected void onStockChanged(Collection<Product> products) {
+        stockIndex.updateAll(products);
+    }
+
+    /**
+     * Registra un cambio en la bitácora, si hay una conectada, y la compacta si creció
+     * demasiado. Vuelve cuando el registro ya está en disco.
+     * 
+     * @param entry Registro a escribir.
+     */
+    protected void logChange(JournalEntry entry) {
+        if (journal != null) {
+            try {
+                entry.writeTo(journal);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Aplica una serie de cambios y espera una sola vez a que todos sus registros estén
+     * en la bitácora, con {@link InventoryJournal#logBatch}, en vez de un {@code fsync}
+     * por cambio.
+     * 
+     * @param changes Cambios a aplicar.
+     */
+    protected void logBatch(Runnable changes) {
+        InventoryJournal current = journal;
+        if (current == null) {
+            changes.run();
+            return;
+        }
+        try {
+            current.logBatch(changes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Cambia la descripción de un producto y actualiza el índice de palabras.
+     * 
+     * @param sku         SKU del producto a modificar.
+     * @param description Nueva descripción.
+     * @return true si el producto existe y se modificó, false si no existe.
+     */
+    public boolean updateDescription(String sku, String description) {
+        long start = metrics.start();
+        Product product = searchBySku(sku);
+        if (product == null) {
+            return false;
+        }
+        String oldDescription = product.getDescription();
+        product.setDescription(description);
+        onDescriptionChanged(product, oldDescription);
+        logChange(journal -> journal.logDescription(sku, description));
+        metrics.stop(InventoryMetrics.Operation.EDIT, start);
+        return true;
+    }
+
+    /**
+     * Fija la cantidad disponible de una talla de un producto y registra el cambio.
+     * 
+     * @param sku      SKU del producto a modificar.
+     * @param size     Etiqueta de la talla.
+     * @param quantity Nueva cantidad disponible.
+     * @return true si el producto existe y se modificó, false si no existe.
+     */
+    public boolean setStock(String sku, String size, int quantity) {
+        long start = metrics.start();
+        Product product = searchBySku(sku);
+        if (product == null) {
+            return false;
+        }
+        product.setStock(size, quantity);
+        onStockChanged(product);
+        logChange(journal -> journal.logStock(sku, size, quantity));
+        metrics.stop(InventoryMetrics.Operation.EDIT, start);
+        return true;
+    }
+
+    /**
+     * Aumenta atómicamente la cantidad disponible de una talla de un producto con
+     * {@link Product#incrementStock} y registra la nueva cantidad.
+     * 
+     * @param sku    SKU del producto a modificar.
+     * @param size   Etiqueta de la talla.
+     * @param amount Unidades a agregar.
+     * @return true si el producto existe y se modificó, false si no existe.
+     */
+    public boolean incrementStock(String sku, String size, int amount) {
+        long start = metrics.start();
+        Product product = searchBySku(sku);
+        if (product == null) {
+            return false;
+        }
+        int quantity = product.incrementStock(size, amount);
+        onStockChanged(product);
+        logChange(journal -> journal.logStock(sku, size, quantity));
+        metrics.stop(InventoryMetrics.Operation.EDIT, start);
+        return true;
+    }
+
+    /**
+     * Disminuye atómicamente la cantidad disponible de una talla de un producto con
+     * {@link Product#decrementStock} y registra la nueva cantidad. Dos retiros a la vez
+     * nunca venden la misma unidad.
+     * 
+     * @param sku    SKU del producto a modificar.
+     * @param size   Etiqueta de la talla.
+     * @param amount Unidades a retirar.
+     * @return true si se retiraron las unidades, false si el producto no existe o no
+     *         tiene suficientes.
+     */
+    public boolean decrementStock(String sku, String size, int amount) {
+        long start = metrics.start();
+        Product product = searchBySku(sku);
+        if (product == null || !product.decrementStock(size, amount)) {
+            return false;
+        }
+        int quantity = product.getStock(size);
+        onStockChanged(product);
+        logChange(journal -> journal.logStock(sku, size, quantity));
+        metrics.stop(InventoryMetrics.Operation.EDIT, start);
+        return true;
+    }
+
+    /**
+     * Fija las existencias de un lote de tallas. Los cambios se aplican en orden; al
+     * final del lote el índice de existencias se actualiza una sola vez con
+     * {@link StockIndex#updateAll} y los cambios aplicados se registran juntos con
+     * {@link InventoryJournal#logStock(StockBatch)}, que espera un solo {@code fsync}.
+     * Los cambios de productos que no existen se marcan como no aplicados.
+     * 
+     * @param batch Cambios a aplicar; al terminar indica cuáles se aplicaron.
+     * @return Cantidad de cambios aplicados.
+     */
+    public int setStock(StockBatch batch) {
+        List<Product> changed = new ArrayList<>(batch.size());
+        int applied = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            String sku = batch.sku(i);
+            Product product = searchBySku(sku);
+            batch.setApplied(i, product != null);
+            if (product == null) {
+                continue;
+            }
+            product.setStock(batch.label(i), batch.quantity(i));
+            changed.add(product);
+            applied++;
+        }
+        onStockChanged(changed);
+        logChange(journal -> journal.logStock(batch));
+        return applied;
+    }
+
+    /**
+     * Reemplaza todas las tallas y cantidades de un producto y registra el cambio.
+     * 
+     * @param sku   SKU del producto a modificar.
+     * @param sizes Nuevas tallas con sus cantidades.
+     * @return true si el producto existe y se modificó, false si no existe.
+     */
+    public boolean setSizes(String sku, Map<String, Integer> sizes) {
+        long start = metrics.start();
+        Product product = searchBySku(sku);
+        if (product == null) {
+            return false;
+        }
+        product.setSizes(sizes);
+        onStockChanged(product);
+        logChange(journal -> journal.logSizes(sku, sizes));
+        metrics.stop(InventoryMetrics.Operation.EDIT, start);
+        return true;
+    }
+
+    /**
+     * Recarga el inventario desde una versión nueva del CSV aplicando solo las
+     * diferencias: agrega los SKU nuevos, actualiza los productos cuyo contenido cambió
+     * y elimina los que ya no aparecen. Las filas se comparan con el estado en memoria
+     * mediante un hash de 64 bits del contenido de cada producto.
+     * <p>
+     * El archivo se lee y se compara sin modificar el inventario, y después se aplican
+     * los cambios uno a uno; sus registros se esperan juntos con {@link #logBatch}.
+     * Con {@link ConcurrentInventoryManager} las búsquedas siguen respondiendo durante
+     * toda la recarga; esta clase base no admite lecturas concurrentes con escrituras.
+     * 
+     * @param filename Nombre del archivo CSV.
+     * @return Resumen de los cambios aplicados.
+     * @throws IOException Si el archivo no se puede leer o contiene filas inválidas.
+     */
+    public ReloadReport reloadFromCSV(String filename) throws IOException {
+        ReloadReport report = new ReloadReport();
+        long start = System.nanoTime();
+        List<Product> rows = CsvParser.parse(Paths.get(filename));
+
+        Set<String> seen = new HashSet<>(Math.max(16, rows.size() * 4 / 3 + 1));
+        List<Product> inserts = new ArrayList<>();
+        List<Product> updates = new ArrayList<>();
+        for (Product row : rows) {
+            if (!seen.add(row.getSku())) {
+                report.duplicates++;
+                continue;
+            }
+            Product current = searchBySku(row.getSku());
+            if (current == null) {
+                inserts.add(row);
+            } else if (current.contentHash() != row.contentHash()) {
+                updates.add(row);
+            } else {
+                report.unchanged++;
+            }
+        }
+        List<String> deletes = new ArrayList<>();
+        forEachBySku(product -> {
+            if (!seen.contains(product.getSku())) {
+                deletes.add(product.getSku());
+            }
+        });
+        long diffed = System.nanoTime();
+        report.diffNanos = diffed - start;
+
+        logBatch(() -> {
+            for (Product row : inserts) {
+                if (addProduct(row)) {
+                    report.inserted.add(row.getSku());
+                }
+            }
+            for (Product row : updates) {
+                if (applyUpdate(row)) {
+                    report.updated.add(row.getSku());
+                }
+            }
+            for (String sku : deletes) {
+                if (removeProduct(sku)) {
+                    report.deleted.add(sku);
+                }
+            }
+        });
+        report.applyNanos = System.nanoTime() - diffed;
+        return report;
+    }
+
+    /**
+     * Lleva un producto existente al contenido de una fila nueva. La descripción y las
+     * tallas se cambian sobre el mismo objeto; como el nombre es inmutable, un cambio
+     * de nombre reemplaza el producto completo con {@link #replaceProduct}.
+     */
+    private boolean applyUpdate(Product row) {
+        Product current = searchBySku(row.getSku());
+        if (current == null) {
+            return false;
+        }
+        if (!current.getName().equals(row.getName())) {
+            return replaceProduct(row);
+        }
+        if (!current.getDescription().equals(row.getDescription())) {
+            updateDescription(row.getSku(), row.getDescription());
+        }
+        Map<String, Integer> sizes = row.getSizes();
+        if (!current.getSizes().equals(sizes)) {
+            setSizes(row.getSku(), sizes);
+        }
+        return true;
+    }
+
+    /**
+     * Conecta una bitácora: primero aplica los cambios que ya tiene registrados y
+     * luego registra en ella cada producto agregado y cada edición.
+     * 
+     * @param journal Bitácora a conectar.
+     * @return Cantidad de registros aplicados.
+     * @throws IOException Si no se puede leer la bitácora.
+     */
+    public int attachJournal(InventoryJournal journal) throws IOException {
+        this.journal = null;
+        int applied = journal.replay(this);
+        this.journal = journal;
+        return applied;
+    }
+
+    private void compactIfNeeded() {
+        if (journal.needsCompaction()) {
+            try {
+                journal.compact(this);
+            } catch (IOException e) {
+                System.out.println("Error al compactar la bitácora: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de productos del inventario.
+     * 
+     * @return Número de SKU distintos.
+     */
+    public int size() {
+        return skuTree.size();
+    }
+
+    /**
+     * Busca un producto por su SKU en el índice hash, en tiempo constante.
      * 
      * @param sku SKU del producto a buscar.
      * @return El producto encontrado o null si no existe.
      */
     public Product searchBySku(String sku) {
-        return skuTree.search(sku);
+        long start = metrics.start();
+        Product product = findBySku(sku);
+        metrics.stop(InventoryMetrics.Operation.SEARCH_BY_SKU, start);
+        return product;
+    }
+
+    /**
+     * Activa o desactiva la codificación de los SKU. Con ella activa, los SKU numéricos
+     * o alfanuméricos cortos se convierten en un {@code long} con {@link SkuCodec} y se
+     * buscan en un {@link SkuCodeIndex}, que sigue siendo un hash de tiempo constante pero
+     * compara enteros en vez de cadenas; los que no se pueden codificar siguen en el
+     * índice hash por cadena. Las búsquedas por SKU eligen el índice solas, así que el
+     * cambio no se nota salvo en la memoria y el tiempo.
+     * <p>
+     * Al cambiar de modo los productos ya cargados se mueven de un índice al otro.
+     * 
+     * @param enabled true para codificar los SKU.
+     */
+    public void setSkuCodecEnabled(boolean enabled) {
+        if (enabled == (skuCodes != null)) {
+            return;
+        }
+        if (enabled) {
+            skuCodes = new SkuCodeIndex();
+            skuCodes.ensureCapacity(skuTree.size());
+            for (Map.Entry<String, Product> entry : skuTree) {
+                long code = SkuCodec.encode(entry.getKey());
+                if (code != SkuCodec.NOT_ENCODABLE) {
+                    skuHash.remove(entry.getKey());
+                    skuCodes.putIfAbsent(code, entry.getValue());
+                }
+            }
+        } else {
+            SkuCodeIndex codes = skuCodes;
+            skuCodes = null;
+            skuHash.ensureCapacity(skuHash.size() + codes.size());
+            codes.forEach(skuHash::putIfAbsent);
+        }
+    }
+
+    /**
+     * Indica si los SKU se codifican como {@code long}.
+     * 
+     * @return true si la codificación está activa.
+     */
+    public boolean isSkuCodecEnabled() {
+        return skuCodes != null;
+    }
+
+    private Product findBySku(String sku) {
+        if (skuCodes != null) {
+            long code = SkuCodec.encode(sku);
+            if (code != SkuCodec.NOT_ENCODABLE) {
+                return skuCodes.get(code);
+            }
+        }
+        return skuHash.get(sku);
+    }
+
+    private boolean indexSku(Product product) {
+        if (skuCodes != null) {
+            long code = SkuCodec.encode(product.getSku());
+            if (code != SkuCodec.NOT_ENCODABLE) {
+                return skuCodes.putIfAbsent(code, product);
+            }
+        }
+        return skuHash.putIfAbsent(product);
+    }
+
+    private void unindexSku(String sku) {
+        if (skuCodes != null) {
+            long code = SkuCodec.encode(sku);
+            if (code != SkuCodec.NOT_ENCODABLE) {
+                skuCodes.remove(code);
+                return;
+            }
+        }
+        skuHash.remove(sku);
+    }
+
+    private void reserveSkus(int added) {
+        if (skuCodes != null) {
+            skuCodes.ensureCapacity(skuCodes.size() + added);
+        } else {
+            skuHash.ensureCapacity(skuHash.size() + added);
+        }
     }
 
     /**
@@ -92,7 +909,115 @@ public class InventoryManager {
      * @return El producto encontrado o null si no existe.
      */
     public Product searchByName(String name) {
-        return nameTree.search(name);
+        long start = metrics.start();
+        Product product = nameTree.search(name);
+        metrics.stop(InventoryMetrics.Operation.SEARCH_BY_NAME, start);
+        return product;
+    }
+
+    /**
+     * Busca varios productos por SKU de una sola vez.
+     * 
+     * @param skus SKU a buscar.
+     * @return Lote con el producto de cada SKU, o null en los que no existen.
+     */
+    public BatchLookup<String, Product> searchBySkus(Collection<String> skus) {
+        return searchBySkus(skus, new BatchLookup<>());
+    }
+
+    /**
+     * Busca varios productos por SKU reutilizando un lote de resultados. Cada SKU se
+     * resuelve en el índice hash, que para búsquedas exactas es más rápido que un
+     * recorrido conjunto del árbol.
+     * 
+     * @param skus   SKU a buscar.
+     * @param result Lote donde dejar los resultados; se vacía antes de usarse.
+     * @return El lote recibido, con el producto de cada SKU o null.
+     */
+    public BatchLookup<String, Product> searchBySkus(Collection<String> skus, BatchLookup<String, Product> result) {
+        result.reset(skus);
+        for (int i = 0; i < result.size(); i++) {
+            result.set(i, findBySku(result.key(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Busca varios productos por nombre de una sola vez.
+     * 
+     * @param names Nombres a buscar.
+     * @return Lote con el producto de cada nombre, o null en los que no existen.
+     */
+    public BatchLookup<String, Product> searchByNames(Collection<String> names) {
+        return searchByNames(names, new BatchLookup<>());
+    }
+
+    /**
+     * Busca varios productos por nombre reutilizando un lote de resultados. Los nombres
+     * se resuelven en un solo recorrido del árbol por nombre.
+     * 
+     * @param names  Nombres a buscar.
+     * @param result Lote donde dejar los resultados; se vacía antes de usarse.
+     * @return El lote recibido, con el producto de cada nombre o null.
+     */
+    public BatchLookup<String, Product> searchByNames(Collection<String> names, BatchLookup<String, Product> result) {
+        return nameTree.searchAll(result.reset(names));
+    }
+
+    /**
+     * Busca todos los productos que tienen exactamente un nombre.
+     * A diferencia de {@link #searchByName}, incluye los productos con nombre repetido.
+     * 
+     * @param name Nombre de los productos a buscar.
+     * @return Productos con ese nombre, en el orden en que se agregaron.
+     */
+    public List<Product> searchAllByName(String name) {
+        return searchIndex.searchByName(name);
+    }
+
+    /**
+     * Busca productos por palabras del nombre o la descripción, completas o parciales,
+     * sin distinguir mayúsculas ni acentos.
+     * 
+     * @param query Palabras a buscar.
+     * @param limit Cantidad máxima de resultados.
+     * @return Productos que contienen todas las palabras, de mayor a menor relevancia.
+     */
+    public List<Product> searchText(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Cuenta los productos que manejan una talla y tienen menos unidades que un umbral.
+     * 
+     * @param size      Etiqueta de la talla.
+     * @param threshold Umbral, exclusivo.
+     * @return Cantidad de productos por debajo del umbral.
+     */
+    public int countLowStock(String size, int threshold) {
+        return stockIndex.countBelow(size, threshold);
+    }
+
+    /**
+     * Busca los productos que manejan una talla y tienen menos unidades que un umbral,
+     * por ejemplo "talla m con menos de 5 unidades".
+     * 
+     * @param size      Etiqueta de la talla.
+     * @param threshold Umbral, exclusivo.
+     * @param limit     Cantidad máxima de resultados.
+     * @return Productos de menor a mayor cantidad de esa talla.
+     */
+    public List<Product> searchLowStock(String size, int threshold, int limit) {
+        return stockIndex.searchBelow(size, threshold, limit);
+    }
+
+    /**
+     * Suma las unidades de cada talla en todo el inventario.
+     * 
+     * @return Total de unidades por talla.
+     */
+    public Map<String, Long> totalUnitsBySize() {
+        return stockIndex.totalUnitsBySize();
     }
 
     /**
@@ -110,4 +1035,107 @@ public class InventoryManager {
         System.out.println("Productos ordenados por Nombre:");
         nameTree.inOrderTraversal();
     }
+
+    /**
+     * Recorre los productos en orden ascendente por SKU.
+     * 
+     * @param action Acción a aplicar a cada producto.
+     */
+    public void forEachBySku(Consumer<? super Product> action) {
+        skuTree.inOrderTraversal(action);
+    }
+
+    /**
+     * Recorre los productos en orden ascendente por nombre.
+     * 
+     * @param action Acción a aplicar a cada producto.
+     */
+    public void forEachByName(Consumer<? super Product> action) {
+        nameTree.inOrderTraversal(action);
+    }
+
+    /**
+     * Obtiene una página del listado de productos por SKU sin recorrer los anteriores,
+     * en O(log n + limit).
+     * 
+     * @param offset Posición del primer producto, empezando en 0.
+     * @param limit  Cantidad máxima de productos.
+     * @return Productos de la página ordenados por SKU.
+     */
+    public List<Product> pageBySku(int offset, int limit) {
+        return values(skuTree.page(offset, limit));
+    }
+
+    /**
+     * Obtiene una página del listado de productos por nombre sin recorrer los
+     * anteriores, en O(log n + limit).
+     * 
+     * @param offset Posición del primer producto, empezando en 0.
+     * @param limit  Cantidad máxima de productos.
+     * @return Productos de la página ordenados por nombre.
+     */
+    public List<Product> pageByName(int offset, int limit) {
+        return values(nameTree.page(offset, limit));
+    }
+
+    /**
+     * Obtiene la posición que ocupa (u ocuparía) un SKU en el listado por SKU, para
+     * saber en qué página aparece.
+     * 
+     * @param sku SKU de referencia.
+     * @return Cantidad de productos con SKU menor.
+     */
+    public int rankBySku(String sku) {
+        return skuTree.rank(sku);
+    }
+
+    /**
+     * Obtiene la posición que ocupa (u ocuparía) un nombre en el listado por nombre.
+     * 
+     * @param name Nombre de referencia.
+     * @return Cantidad de nombres menores.
+     */
+    public int rankByName(String name) {
+        return nameTree.rank(name);
+    }
+
+    /**
+     * Busca los productos cuyo SKU está entre dos valores, ambos inclusive.
+     * 
+     * @param fromSku SKU inicial del rango.
+     * @param toSku   SKU final del rango.
+     * @return Productos del rango ordenados por SKU.
+     */
+    public List<Product> searchBySkuRange(String fromSku, String toSku) {
+        return values(skuTree.range(fromSku, true, toSku, true));
+    }
+
+    /**
+     * Busca los productos cuyo nombre empieza con un prefijo. Se acepta un asterisco
+     * final como comodín, por ejemplo "Camiseta*".
+     * 
+     * @param pattern Prefijo del nombre, con o sin asterisco final.
+     * @return Productos cuyo nombre empieza con el prefijo, ordenados por nombre.
+     */
+    public List<Product> searchByNamePrefix(String pattern) {
+        return values(nameTree.prefix(stripWildcard(pattern)));
+    }
+
+    /**
+     * Quita el asterisco final de un patrón de búsqueda por prefijo.
+     * 
+     * @param pattern Patrón con o sin asterisco final.
+     * @return Prefijo sin el comodín.
+     */
+    protected static String stripWildcard(String pattern) {
+        return pattern.endsWith("*") ? pattern.substring(0, pattern.length() - 1) : pattern;
+    }
+
+    private static List<Product> values(Iterable<Map.Entry<String, Product>> entries) {
+        List<Product> products = new ArrayList<>();
+        for (Map.Entry<String, Product> entry : entries) {
+            products.add(entry.getValue());
+        }
+        return products;
+    }
 }
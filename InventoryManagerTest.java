@@ -1,7 +1,12 @@
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class InventoryManagerTest {
@@ -19,11 +24,308 @@ public class InventoryManagerTest {
         sizes.put("L", 3);
         
         Product product = new Product("123", "Camisa", "Camisa de algodón", sizes);
-        inventory.skuTree.insert(product.getSku(), product);
-        inventory.nameTree.insert(product.getName(), product);
+        assertTrue(inventory.addProduct(product));
         
         assertEquals(product, inventory.searchBySku("123"));
         assertEquals(product, inventory.searchByName("Camisa"));
         assertNull(inventory.searchBySku("999"));
     }
+
+    @Test
+    void testLoadFromCSV() throws IOException {
+        Path csv = Files.createTempFile("inventario", ".csv");
+        Files.write(csv, List.of(
+                "SKU,Nombre,Descripción,Cantidad por talla",
+                "002,Short Deportivo,Short elástico,s:10|m:25",
+                "001,Camiseta Running,Camiseta ligera,xs:5|m:20",
+                "003,Short Deportivo,Otro short,l:3"), StandardCharsets.UTF_8);
+        try {
+            inventory.loadFromCSV(csv.toString());
+        } finally {
+            Files.delete(csv);
+        }
+
+        assertEquals(3, inventory.size());
+        assertEquals("Camiseta Running", inventory.searchBySku("001").getName());
+        assertEquals(20, inventory.searchBySku("001").getSizes().get("m"));
+        assertEquals("002", inventory.searchByName("Short Deportivo").getSku());
+    }
+
+    @Test
+    void testAddProductRejectsDuplicateSku() {
+        Product first = new Product("100", "Gorra", "Gorra ajustable", new HashMap<>());
+        Product duplicate = new Product("100", "Visera", "Otra prenda", new HashMap<>());
+
+        assertTrue(inventory.addProduct(first));
+        assertFalse(inventory.addProduct(duplicate));
+
+        assertEquals(first, inventory.searchBySku("100"));
+        assertNull(inventory.searchByName("Visera"));
+    }
+
+    @Test
+    void testRangeAndPrefixQueries() {
+        String[][] rows = {
+            {"001", "Camiseta Running"}, {"002", "Short Deportivo"}, {"003", "Camiseta Térmica"},
+            {"004", "Chamarra Cortaviento"}, {"005", "Calcetas Running"}
+        };
+        for (String[] row : rows) {
+            inventory.addProduct(new Product(row[0], row[1], "", new HashMap<>()));
+        }
+
+        List<Product> range = inventory.searchBySkuRange("002", "004");
+        assertEquals(3, range.size());
+        assertEquals("002", range.get(0).getSku());
+        assertEquals("004", range.get(2).getSku());
+
+        List<Product> camisetas = inventory.searchByNamePrefix("Camiseta*");
+        assertEquals(2, camisetas.size());
+        assertEquals("Camiseta Running", camisetas.get(0).getName());
+        assertEquals("Camiseta Térmica", camisetas.get(1).getName());
+
+        List<String> skus = new java.util.ArrayList<>();
+        inventory.forEachBySku(product -> skus.add(product.getSku()));
+        assertEquals(List.of("001", "002", "003", "004", "005"), skus);
+    }
+
+    @Test
+    void testDuplicateNamesAndTextSearch() {
+        inventory.addProduct(new Product("001", "Camiseta Running", "Color rojo", new HashMap<>()));
+        inventory.addProduct(new Product("002", "Camiseta Running", "Color azul", new HashMap<>()));
+
+        assertEquals(2, inventory.searchAllByName("Camiseta Running").size());
+        assertEquals("002", inventory.searchText("camiseta azul", 10).get(0).getSku());
+
+        assertTrue(inventory.updateDescription("002", "Color verde"));
+        assertTrue(inventory.searchText("azul", 10).isEmpty());
+        assertEquals("Color verde", inventory.searchText("verde", 10).get(0).getDescription());
+        assertFalse(inventory.updateDescription("999", "No existe"));
+    }
+
+    @Test
+    void testBatchLookups() {
+        inventory.addProduct(new Product("001", "Gorra", "Gorra ajustable", new HashMap<>()));
+        inventory.addProduct(new Product("002", "Visera", "Visera ligera", new HashMap<>()));
+        inventory.addProduct(new Product("003", "Calcetas", "Calcetas largas", new HashMap<>()));
+
+        BatchLookup<String, Product> batch = inventory.searchBySkus(List.of("003", "999", "001"));
+        assertEquals(3, batch.size());
+        assertEquals("Calcetas", batch.value(0).getName());
+        assertNull(batch.value(1));
+        assertEquals("Gorra", batch.value(2).getName());
+
+        assertSame(batch, inventory.searchByNames(List.of("Visera", "Gorra", "Sudadera"), batch));
+        assertEquals(2, batch.found());
+        assertEquals("002", batch.value(0).getSku());
+        assertEquals("001", batch.value(1).getSku());
+        assertNull(batch.value(2));
+    }
+
+    @Test
+    void testRemoveProductPromotesSameName() {
+        inventory.addProduct(new Product("001", "Camiseta Running", "Color rojo", new HashMap<>()));
+        inventory.addProduct(new Product("002", "Camiseta Running", "Color azul", new HashMap<>()));
+
+        assertTrue(inventory.removeProduct("001"));
+        assertFalse(inventory.removeProduct("001"));
+        assertNull(inventory.searchBySku("001"));
+        assertEquals("002", inventory.searchByName("Camiseta Running").getSku());
+        assertTrue(inventory.searchText("rojo", 10).isEmpty());
+
+        assertTrue(inventory.removeProduct("002"));
+        assertNull(inventory.searchByName("Camiseta Running"));
+        assertEquals(0, inventory.size());
+    }
+
+    @Test
+    void testReloadFromCSVAppliesOnlyChanges() throws IOException {
+        Path csv = Files.createTempFile("inventario", ".csv");
+        try {
+            Files.write(csv, List.of(
+                    "SKU,Nombre,Descripción,Cantidad por talla",
+                    "001,Camiseta Running,Camiseta ligera,s:10|m:20",
+                    "002,Short Deportivo,Short elástico,s:10|m:25",
+                    "003,Gorra,Gorra ajustable,m:5",
+                    "004,Calcetas,Calcetas largas,m:8"), StandardCharsets.UTF_8);
+            inventory.loadFromCSV(csv.toString());
+            Product camiseta = inventory.searchBySku("001");
+
+            Files.write(csv, List.of(
+                    "SKU,Nombre,Descripción,Cantidad por talla",
+                    "001,Camiseta Running,Camiseta ligera,s:7|m:20",
+                    "002,Short Deportivo,Short elástico,s:10|m:25",
+                    "003,Visera,Visera ligera,m:5",
+                    "005,Leggings,Leggings de compresión,m:12",
+                    "005,Leggings,Repetido,m:1"), StandardCharsets.UTF_8);
+            ReloadReport report = inventory.reloadFromCSV(csv.toString());
+
+            assertEquals(List.of("005"), report.inserted);
+            assertEquals(List.of("001", "003"), report.updated);
+            assertEquals(List.of("004"), report.deleted);
+            assertEquals(1, report.unchanged);
+            assertEquals(1, report.duplicates);
+
+            assertSame(camiseta, inventory.searchBySku("001"));
+            assertEquals(7, camiseta.getStock("s"));
+            assertEquals("Visera", inventory.searchBySku("003").getName());
+            assertNull(inventory.searchByName("Gorra"));
+            assertNull(inventory.searchBySku("004"));
+            assertEquals("Leggings de compresión", inventory.searchBySku("005").getDescription());
+            assertEquals(4, inventory.size());
+            assertEquals(4.0, inventory.getMetrics().gauges().get("nameTree.size"));
+
+            assertFalse(inventory.reloadFromCSV(csv.toString()).hasChanges());
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    @Test
+    void testReplaceProductAndSnapshot() {
+        inventory.addProduct(new Product("001", "Gorra", "Gorra ajustable", new HashMap<>()));
+        inventory.addProduct(new Product("002", "Short", "Short elástico", new HashMap<>()));
+        InventoryView before = inventory.snapshot();
+
+        assertTrue(inventory.replaceProduct(new Product("001", "Visera", "Visera ligera", new HashMap<>())));
+        assertFalse(inventory.replaceProduct(new Product("999", "Nada", "", new HashMap<>())));
+        assertNull(inventory.searchByName("Gorra"));
+        assertEquals("001", inventory.searchByName("Visera").getSku());
+        assertEquals(1, inventory.searchText("visera", 10).size());
+
+        // La vista tomada antes no cambia
+        assertEquals("Gorra", before.searchBySku("001").getName());
+        assertNull(before.searchByName("Visera"));
+        InventoryView after = inventory.snapshot();
+        assertEquals(2, after.size());
+        assertEquals("Visera", after.searchBySku("001").getName());
+        List<String> names = new java.util.ArrayList<>();
+        after.forEachByName(product -> names.add(product.getName()));
+        assertEquals(List.of("Short", "Visera"), names);
+    }
+
+    @Test
+    void testStockQueriesFollowEdits() {
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("m", 3);
+        inventory.addProduct(new Product("001", "Gorra", "", sizes));
+        sizes.put("m", 8);
+        inventory.addProduct(new Product("002", "Visera", "", sizes));
+
+        assertEquals(List.of("001"), List.of(inventory.searchLowStock("m", 5, 10).get(0).getSku()));
+        inventory.setStock("002", "m", 1);
+        assertEquals(2, inventory.countLowStock("m", 5));
+        assertEquals(4L, inventory.totalUnitsBySize().get("m"));
+
+        inventory.setSizes("001", Map.of("s", 2));
+        inventory.removeProduct("002");
+        assertEquals(0, inventory.countLowStock("m", 5));
+        assertEquals(Map.of("s", 2L), inventory.totalUnitsBySize());
+    }
+
+    @Test
+    void testIncrementAndDecrementStock() {
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("m", 3);
+        inventory.addProduct(new Product("001", "Gorra", "", sizes));
+
+        assertTrue(inventory.incrementStock("001", "m", 4));
+        assertTrue(inventory.decrementStock("001", "m", 6));
+        assertFalse(inventory.decrementStock("001", "m", 2));
+        assertFalse(inventory.decrementStock("001", "xl", 1));
+        assertFalse(inventory.incrementStock("999", "m", 1));
+        assertEquals(1, inventory.searchBySku("001").getStock("m"));
+        assertEquals(1, inventory.countLowStock("m", 2));
+        assertThrows(IllegalArgumentException.class, () -> inventory.incrementStock("001", "m", Integer.MAX_VALUE));
+        assertEquals(1, inventory.searchBySku("001").getStock("m"));
+    }
+
+    @Test
+    void testPagedListings() {
+        for (int i = 0; i < 500; i++) {
+            String sku = String.format("%04d", i);
+            inventory.addProduct(new Product(sku, "Producto " + String.format("%04d", 499 - i), "", new HashMap<>()));
+        }
+        List<Product> bySku = inventory.pageBySku(100, 3);
+        assertEquals(List.of("0100", "0101", "0102"), List.of(bySku.get(0).getSku(), bySku.get(1).getSku(), bySku.get(2).getSku()));
+        assertEquals("0499", inventory.pageByName(0, 1).get(0).getSku());
+        assertEquals(2, inventory.pageBySku(498, 10).size());
+        assertTrue(inventory.pageByName(500, 10).isEmpty());
+        assertEquals(250, inventory.rankBySku("0250"));
+        assertEquals(499, inventory.rankByName("Producto 0499"));
+
+        inventory.removeProduct("0000");
+        assertEquals("0101", inventory.pageBySku(100, 1).get(0).getSku());
+    }
+
+    @Test
+    void testExportReloadsToSameInventory() throws IOException {
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("m", 4);
+        inventory.addProduct(new Product("002", "Short, deportivo", "Short \"elástico\"", sizes));
+        inventory.addProduct(new Product("001", "Gorra", "Gorra ajustable", new HashMap<>()));
+
+        Path csv = Files.createTempFile("exportacion", ".csv");
+        try {
+            assertEquals(2, inventory.export(csv.toString(), InventoryExporter.Format.CSV));
+            InventoryManager reloaded = new InventoryManager();
+            reloaded.loadFromCSV(csv.toString());
+            assertEquals(List.of("001", "002"), List.of(reloaded.pageBySku(0, 2).get(0).getSku(),
+                    reloaded.pageBySku(0, 2).get(1).getSku()));
+            assertEquals("Short \"elástico\"", reloaded.searchByName("Short, deportivo").getDescription());
+            assertFalse(inventory.reloadFromCSV(csv.toString()).hasChanges());
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    @Test
+    void testSkuCodecKeepsLookups() {
+        inventory.addProduct(new Product("001", "Gorra", "Gorra ajustable", new HashMap<>()));
+        inventory.addProduct(new Product("SKU 2", "Media", "SKU con espacio", new HashMap<>()));
+        inventory.setSkuCodecEnabled(true);
+        assertTrue(inventory.isSkuCodecEnabled());
+
+        assertTrue(inventory.addProduct(new Product("A-030", "Short", "Short elástico", new HashMap<>())));
+        assertFalse(inventory.addProduct(new Product("001", "Otra", "Repetida", new HashMap<>())));
+        assertTrue(inventory.addProduct(new Product("1", "Visera", "Otro SKU que 001", new HashMap<>())));
+        assertEquals("Gorra", inventory.searchBySku("001").getName());
+        assertEquals("Visera", inventory.searchBySku("1").getName());
+        assertEquals("Media", inventory.searchBySku("SKU 2").getName());
+        assertEquals(1, inventory.searchBySkus(List.of("A-030", "999")).found());
+        assertEquals(3.0, inventory.getMetrics().gauges().get("skuCodes.size"));
+
+        assertTrue(inventory.removeProduct("001"));
+        assertNull(inventory.searchBySku("001"));
+        inventory.setSkuCodecEnabled(false);
+        assertEquals("Short", inventory.searchBySku("A-030").getName());
+        assertEquals("Media", inventory.searchBySku("SKU 2").getName());
+        assertNull(inventory.searchBySku("001"));
+        assertEquals(0.0, inventory.getMetrics().gauges().get("skuCodes.size"));
+    }
+
+    @Test
+    void testGroupedAddsAndStock() {
+        inventory.addProduct(new Product("001", "Gorra", "Gorra ajustable", new HashMap<>(Map.of("u", 3))));
+        boolean[] added = inventory.addProducts(List.of(
+                new Product("002", "Media", "Media larga", new HashMap<>(Map.of("m", 2))),
+                new Product("001", "Otra", "Ya existe", new HashMap<>()),
+                new Product("003", "Short", "Short elástico", new HashMap<>()),
+                new Product("002", "Repetida", "Repetida en el lote", new HashMap<>())));
+        assertArrayEquals(new boolean[] {true, false, true, false}, added);
+        assertEquals("Media", inventory.searchBySku("002").getName());
+        assertEquals("Gorra", inventory.searchBySku("001").getName());
+
+        StockBatch batch = new StockBatch();
+        batch.add("001", "u", 8);
+        batch.add("999", "u", 1);
+        batch.add("003", "m", 1);
+        batch.add("001", "u", 4);
+        assertEquals(3, inventory.setStock(batch));
+        assertTrue(batch.isApplied(0));
+        assertFalse(batch.isApplied(1));
+        assertEquals(4, (int) inventory.searchBySku("001").getSizes().get("u"));
+        assertEquals(2, inventory.countLowStock("m", 5));
+        assertEquals(1, inventory.countLowStock("u", 5));
+        assertThrows(IllegalArgumentException.class, () -> batch.add("001", "u", -1));
+    }
 }
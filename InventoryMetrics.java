@@ -0,0 +1,351 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Métricas de un inventario: latencias de las búsquedas, inserciones, ediciones y bajas,
+ * tiempos de la última carga separados por fase, e indicadores (gauges) como el
+ * tamaño, la altura y la profundidad promedio de los árboles.
+ * <p>
+ * Vienen desactivadas. Mientras lo están, medir una operación cuesta solo leer un
+ * campo {@code volatile}: {@link #start()} devuelve 0 sin consultar el reloj y
+ * {@link #stop} lo ignora. Los indicadores se calculan solo al pedir un reporte.
+ * <p>
+ * Uso típico:
+ * <pre>
+ *   long start = metrics.start();
+ *   ... operación ...
+ *   metrics.stop(InventoryMetrics.Operation.SEARCH_BY_SKU, start);
+ * </pre>
+ */
+public class InventoryMetrics {
+    /**
+     * Operaciones cuya latencia se mide.
+     */
+    public enum Operation {
+        SEARCH_BY_SKU("searchBySku"),
+        SEARCH_BY_NAME("searchByName"),
+        INSERT("insert"),
+        EDIT("edit"),
+        REMOVE("remove");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Obtiene el nombre con que aparece la operación en los reportes.
+         * 
+         * @return Nombre de la operación.
+         */
+        public String label() {
+            return label;
+        }
+    }
+
+    /**
+     * Fases de una carga completa del inventario.
+     */
+    public enum LoadPhase {
+        READ("read"),
+        PARSE("parse"),
+        INDEX("index");
+
+        private final String label;
+
+        LoadPhase(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Obtiene el nombre con que aparece la fase en los reportes.
+         * 
+         * @return Nombre de la fase.
+         */
+        public String label() {
+            return label;
+        }
+    }
+
+    private volatile boolean enabled;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final AtomicLongArray loadNanos = new AtomicLongArray(LoadPhase.values().length);
+    private volatile long loadedRows;
+    private final Map<String, DoubleSupplier> gauges = new LinkedHashMap<>();
+
+    /**
+     * Crea métricas desactivadas y sin indicadores.
+     */
+    public InventoryMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Activa o desactiva la medición. Los valores ya registrados se conservan.
+     * 
+     * @param enabled true para medir.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Indica si la medición está activa.
+     * 
+     * @return true si se están midiendo las operaciones.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Marca el inicio de una operación.
+     * 
+     * @return Instante actual en nanosegundos, o 0 si la medición está desactivada.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Registra la duración de una operación iniciada con {@link #start()}.
+     * 
+     * @param operation Operación medida.
+     * @param start     Valor devuelto por {@link #start()}; si es 0 no se registra nada.
+     */
+    public void stop(Operation operation, long start) {
+        if (start != 0) {
+            latencies[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Obtiene el histograma de latencias de una operación.
+     * 
+     * @param operation Operación.
+     * @return Histograma de la operación.
+     */
+    public LatencyHistogram latency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    /**
+     * Empieza a medir una carga nueva, borrando los tiempos de la anterior.
+     */
+    public void beginLoad() {
+        for (LoadPhase phase : LoadPhase.values()) {
+            loadNanos.set(phase.ordinal(), 0);
+        }
+        loadedRows = 0;
+    }
+
+    /**
+     * Suma tiempo a una fase de la carga en curso.
+     * 
+     * @param phase Fase de la carga.
+     * @param nanos Duración en nanosegundos.
+     */
+    public void recordLoadPhase(LoadPhase phase, long nanos) {
+        loadNanos.addAndGet(phase.ordinal(), nanos);
+    }
+
+    /**
+     * Registra la cantidad de filas leídas en la carga en curso.
+     * 
+     * @param rows Filas leídas.
+     */
+    public void recordLoadedRows(long rows) {
+        loadedRows = rows;
+    }
+
+    /**
+     * Obtiene el tiempo que tomó una fase de la última carga.
+     * 
+     * @param phase Fase de la carga.
+     * @return Duración en nanosegundos, o 0 si no se midió.
+     */
+    public long loadNanos(LoadPhase phase) {
+        return loadNanos.get(phase.ordinal());
+    }
+
+    /**
+     * Obtiene la cantidad de filas leídas en la última carga.
+     * 
+     * @return Filas leídas.
+     */
+    public long loadedRows() {
+        return loadedRows;
+    }
+
+    /**
+     * Registra (o reemplaza) un indicador que se calcula al momento de reportar.
+     * 
+     * @param name  Nombre del indicador.
+     * @param value Función que calcula el valor.
+     */
+    public synchronized void registerGauge(String name, DoubleSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Quita todos los indicadores registrados.
+     */
+    public synchronized void clearGauges() {
+        gauges.clear();
+    }
+
+    /**
+     * Calcula el valor actual de todos los indicadores.
+     * 
+     * @return Valores por nombre, en el orden en que se registraron.
+     */
+    public synchronized Map<String, Double> gauges() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Map.Entry<String, DoubleSupplier> gauge : gauges.entrySet()) {
+            values.put(gauge.getKey(), gauge.getValue().getAsDouble());
+        }
+        return values;
+    }
+
+    /**
+     * Borra las latencias y los tiempos de carga registrados.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+        beginLoad();
+    }
+
+    /**
+     * Genera un reporte legible con todas las métricas.
+     * 
+     * @return Reporte en texto.
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "Métricas (%s)%n", enabled ? "activas" : "desactivadas"));
+        text.append(String.format(Locale.ROOT, "%-14s %10s %10s %10s %10s %10s %10s%n",
+                "operación", "cantidad", "media µs", "p50 µs", "p99 µs", "p99.9 µs", "máx µs"));
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latency(operation);
+            text.append(String.format(Locale.ROOT, "%-14s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    operation.label(), histogram.count(), histogram.mean() / 1e3,
+                    histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3,
+                    histogram.percentile(99.9) / 1e3, histogram.max() / 1e3));
+        }
+        text.append(String.format(Locale.ROOT, "última carga: %d filas", loadedRows));
+        for (LoadPhase phase : LoadPhase.values()) {
+            text.append(String.format(Locale.ROOT, ", %s %.1f ms", phase.label(), loadNanos(phase) / 1e6));
+        }
+        text.append(System.lineSeparator());
+        for (Map.Entry<String, Double> gauge : gauges().entrySet()) {
+            text.append(gauge.getKey()).append(": ").append(formatNumber(gauge.getValue()))
+                    .append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Genera un reporte JSON con todas las métricas; las latencias van en nanosegundos.
+     * 
+     * @return Reporte en JSON.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"enabled\":").append(enabled).append(",\"operations\":{");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latency(operation);
+            if (operation.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append('"').append(operation.label()).append("\":{")
+                    .append("\"count\":").append(histogram.count())
+                    .append(",\"meanNanos\":").append(formatNumber(histogram.mean()))
+                    .append(",\"p50Nanos\":").append(histogram.percentile(50))
+                    .append(",\"p99Nanos\":").append(histogram.percentile(99))
+                    .append(",\"p999Nanos\":").append(histogram.percentile(99.9))
+                    .append(",\"maxNanos\":").append(histogram.max())
+                    .append('}');
+        }
+        json.append("},\"load\":{\"rows\":").append(loadedRows);
+        for (LoadPhase phase : LoadPhase.values()) {
+            json.append(",\"").append(phase.label()).append("Nanos\":").append(loadNanos(phase));
+        }
+        json.append("},\"gauges\":{");
+        boolean first = true;
+        for (Map.Entry<String, Double> gauge : gauges().entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append('"').append(gauge.getKey()).append("\":").append(formatNumber(gauge.getValue()));
+        }
+        return json.append("}}").toString();
+    }
+
+    private static String formatNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * Escribe un reporte periódicamente en un archivo, reemplazándolo cada vez de forma
+     * atómica, desde un hilo de fondo.
+     * 
+     * @param file         Archivo destino.
+     * @param periodMillis Milisegundos entre reportes.
+     * @param json         true para escribir JSON, false para texto.
+     * @return Objeto que detiene los reportes al cerrarse.
+     */
+    public Closeable startPeriodicDump(Path file, long periodMillis, boolean json) {
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> {
+            try {
+                dump(file, json);
+            } catch (IOException e) {
+                System.out.println("Error al escribir las métricas: " + e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return dumper::shutdown;
+    }
+
+    /**
+     * Escribe un reporte en un archivo, reemplazándolo de forma atómica.
+     * 
+     * @param file Archivo destino.
+     * @param json true para escribir JSON, false para texto.
+     * @throws IOException Si no se puede escribir el archivo.
+     */
+    public void dump(Path file, boolean json) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, (json ? toJson() + System.lineSeparator() : toText()).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pruebas unitarias para la clase InventoryMetrics.
+ */
+class InventoryMetricsTest {
+
+    /**
+     * Prueba de que con las métricas desactivadas no se registra nada.
+     */
+    @Test
+    void testDisabledRecordsNothing() {
+        InventoryManager inventory = new InventoryManager();
+        inventory.addProduct(new Product("001", "Gorra", "Gorra ajustable", new HashMap<>()));
+        inventory.searchBySku("001");
+
+        InventoryMetrics metrics = inventory.getMetrics();
+        assertFalse(metrics.isEnabled());
+        assertEquals(0, metrics.start());
+        for (InventoryMetrics.Operation operation : InventoryMetrics.Operation.values()) {
+            assertEquals(0, metrics.latency(operation).count());
+        }
+    }
+
+    /**
+     * Prueba de que se cuentan las operaciones y se calculan los indicadores de los árboles.
+     */
+    @Test
+    void testOperationsAndGauges() {
+        InventoryManager inventory = new InventoryManager();
+        InventoryMetrics metrics = inventory.getMetrics();
+        metrics.setEnabled(true);
+        for (int i = 0; i < 7; i++) {
+            inventory.addProduct(new Product("00" + i, "Producto " + i, "", new HashMap<>()));
+        }
+        inventory.searchBySku("003");
+        inventory.searchBySku("999");
+        inventory.searchByName("Producto 1");
+        inventory.setStock("001", "m", 4);
+        inventory.updateDescription("001", "Nueva");
+
+        assertEquals(7, metrics.latency(InventoryMetrics.Operation.INSERT).count());
+        assertTrue(metrics.latency(InventoryMetrics.Operation.SEARCH_BY_SKU).count() >= 2);
+        assertEquals(1, metrics.latency(InventoryMetrics.Operation.SEARCH_BY_NAME).count());
+        assertEquals(2, metrics.latency(InventoryMetrics.Operation.EDIT).count());
+
+        Map<String, Double> gauges = metrics.gauges();
+        assertEquals(7.0, gauges.get("skuTree.size"));
+        assertEquals(7, inventory.size());
+        assertTrue(gauges.get("skuTree.height") >= 3);
+        assertTrue(gauges.get("nameTree.averageDepth") >= 1);
+    }
+
+    /**
+     * Prueba de que la carga desde CSV registra las tres fases.
+     */
+    @Test
+    void testLoadPhases() throws IOException {
+        Path file = Files.createTempFile("metricas", ".csv");
+        try {
+            new CatalogGenerator(1_000).writeCatalog(file);
+            InventoryManager inventory = new InventoryManager();
+            inventory.getMetrics().setEnabled(true);
+            inventory.loadFromCSV(file.toString());
+
+            InventoryMetrics metrics = inventory.getMetrics();
+            assertEquals(1_000, metrics.loadedRows());
+            for (InventoryMetrics.LoadPhase phase : InventoryMetrics.LoadPhase.values()) {
+                assertTrue(metrics.loadNanos(phase) > 0, phase.label());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Prueba de los reportes en texto y JSON, y de la escritura periódica.
+     */
+    @Test
+    void testReports() throws IOException, InterruptedException {
+        ConcurrentInventoryManager inventory = new ConcurrentInventoryManager();
+        InventoryMetrics metrics = inventory.getMetrics();
+        metrics.setEnabled(true);
+        inventory.addProduct(new Product("001", "Gorra", "Gorra ajustable", new HashMap<>()));
+        inventory.searchBySku("001");
+
+        String json = metrics.toJson();
+        assertTrue(json.startsWith("{\"enabled\":true,\"operations\":{\"searchBySku\":{\"count\":1,"), json);
+        assertTrue(json.contains("\"insert\":{\"count\":1,"), json);
+        assertTrue(json.endsWith("\"gauges\":{\"skuIndex.size\":1,\"nameIndex.size\":1}}"), json);
+        assertTrue(metrics.toText().contains("skuIndex.size: 1"));
+
+        Path file = Files.createTempFile("metricas", ".json");
+        try {
+            Files.delete(file);
+            Closeable dump = metrics.startPeriodicDump(file, 10, true);
+            try {
+                for (int i = 0; i < 200 && !Files.exists(file); i++) {
+                    Thread.sleep(10);
+                }
+            } finally {
+                dump.close();
+            }
+            assertTrue(Files.readString(file).startsWith("{\"enabled\":true"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,511 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor HTTP con respuestas JSON sobre un {@link ConcurrentInventoryManager}, para
+ * que las cajas y la tienda en línea consulten el inventario sin el menú de consola.
+ * <ul>
+ *   <li>{@code GET /products?offset=0&limit=100}: página de productos en orden de SKU,
+ *   como arreglo; el límite máximo es {@value #MAX_PAGE}.</li>
+ *   <li>{@code GET /products/{sku}}: un producto.</li>
+ *   <li>{@code GET /names/{nombre}}: el producto que representa a un nombre.</li>
+ *   <li>{@code POST /products}: agrega el producto del cuerpo, con el mismo formato de
+ *   las respuestas; responde 201, o 409 si el SKU ya existe.</li>
+ *   <li>{@code POST /products/{sku}/stock}: ajusta una talla con
+ *   {@code {"size":"m","delta":-2}} o la fija con {@code {"size":"m","quantity":5}};
+ *   responde el producto, o 409 si no hay unidades suficientes.</li>
+ * </ul>
+ * Los errores responden {@code {"error":"..."}} con el código que corresponda.
+ * <p>
+ * Las tallas nuevas quedan registradas para siempre en el {@link SizeDictionary}
+ * global, así que el servidor solo acepta una talla que no esté registrada si su
+ * etiqueta mide a lo sumo {@value #MAX_SIZE_LABEL} caracteres y el diccionario tiene
+ * menos de {@value #MAX_SIZES} tallas; si no, responde 400.
+ * <p>
+ * Usa el {@link HttpServer} del JDK, que mantiene abiertas las conexiones HTTP/1.1 y
+ * atiende en orden las solicitudes encadenadas en una misma conexión. Cada solicitud
+ * corre en un hilo virtual si la JVM los tiene (Java 21 o posterior) y si no en un
+ * grupo de hilos de plataforma. Las respuestas se codifican con {@link InventoryExporter}
+ * directo a bytes, sin reflexión, y se envían con su largo para que la conexión
+ * siga abierta.
+ * <p>
+ * Las lecturas van directo a la vista del inventario, sin candados. Las escrituras
+ * usan las operaciones del inventario, que ya son seguras para varios hilos; los
+ * ajustes con {@code delta} suman o retiran unidades de forma atómica, así dos ventas
+ * simultáneas no se pisan.
+ */
+public final class InventoryServer {
+    /**
+     * Cantidad máxima de productos por página.
+     */
+    public static final int MAX_PAGE = 1_000;
+
+    /**
+     * Cantidad de tallas registradas a partir de la cual no se aceptan tallas nuevas.
+     */
+    public static final int MAX_SIZES = 256;
+
+    /**
+     * Longitud máxima de la etiqueta de una talla nueva.
+     */
+    public static final int MAX_SIZE_LABEL = 32;
+
+    private static final int DEFAULT_PAGE = 100;
+    private static final int BACKLOG = 1_024;
+    private static final int MAX_BODY = 1 << 16;
+    private static final int RESPONSE_BUFFER = 512;
+    private static final String PRODUCTS = "/products";
+    private static final String NAMES = "/names/";
+    private static final String STOCK = "/stock";
+
+    private final ConcurrentInventoryManager inventory;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Crea el servidor y reserva el puerto, sin empezar a atender.
+     * 
+     * @param inventory Inventario a publicar.
+     * @param port      Puerto TCP, o 0 para elegir uno libre.
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    public InventoryServer(ConcurrentInventoryManager inventory, int port) throws IOException {
+        this.inventory = inventory;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * Empieza a atender solicitudes.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Deja de aceptar conexiones y espera a que terminen las solicitudes en curso.
+     * 
+     * @param delaySeconds Segundos máximos de espera.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Obtiene el puerto en el que escucha el servidor.
+     * 
+     * @return Puerto TCP.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Crea el ejecutor de las solicitudes: uno de hilos virtuales si la JVM lo ofrece,
+     * que se busca una sola vez al crear el servidor, o un grupo fijo de hilos.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(4 * Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "inventory-http-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals(PRODUCTS)) {
+                if (method.equals("GET")) {
+                    listProducts(exchange);
+                } else if (method.equals("POST")) {
+                    addProduct(exchange);
+                } else {
+                    sendError(exchange, 405, "Método no permitido: " + method);
+                }
+            } else if (path.startsWith(PRODUCTS + "/") && path.endsWith(STOCK) && method.equals("POST")) {
+                adjustStock(exchange, path.substring(PRODUCTS.length() + 1, path.length() - STOCK.length()));
+            } else if (path.startsWith(PRODUCTS + "/") && method.equals("GET")) {
+                sendProduct(exchange, 200, inventory.searchBySku(path.substring(PRODUCTS.length() + 1)));
+            } else if (path.startsWith(NAMES) && method.equals("GET")) {
+                sendProduct(exchange, 200, inventory.searchByName(path.substring(NAMES.length())));
+            } else {
+                sendError(exchange, 404, "Ruta desconocida: " + method + " " + path);
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Error al atender " + exchange.getRequestURI() + ": " + e);
+            sendError(exchange, 500, "Error interno del servidor");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void listProducts(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange);
+        int offset = intParameter(query, "offset", 0);
+        int limit = intParameter(query, "limit", DEFAULT_PAGE);
+        if (offset < 0 || limit < 0 || limit > MAX_PAGE) {
+            throw new IllegalArgumentException("Página no válida: offset=" + offset + ", limit=" + limit);
+        }
+        List<Product> page = inventory.pageBySku(offset, limit);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(RESPONSE_BUFFER);
+        InventoryExporter exporter = new InventoryExporter(out, InventoryExporter.Format.JSON, RESPONSE_BUFFER);
+        for (Product product : page) {
+            exporter.write(product);
+        }
+        exporter.finish();
+        send(exchange, 200, out.toByteArray());
+    }
+
+    private void addProduct(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = readBody(exchange);
+        String sku = stringField(body, "sku", true);
+        String name = stringField(body, "name", true);
+        String description = stringField(body, "description", false);
+        Map<String, Integer> sizes = new HashMap<>();
+        Object stock = body.get("sizes");
+        if (stock != null) {
+            if (!(stock instanceof Map)) {
+                throw new IllegalArgumentException("El campo sizes debe ser un objeto");
+            }
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) stock).entrySet()) {
+                if (!(entry.getValue() instanceof Integer) || (Integer) entry.getValue() < 0) {
+                    throw new IllegalArgumentException("Cantidad no válida para la talla " + entry.getKey());
+                }
+                sizes.put(checkSize((String) entry.getKey()), (Integer) entry.getValue());
+            }
+        }
+        Product product = new Product(sku, name, description == null ? "" : description, sizes);
+        if (inventory.addProduct(product)) {
+            sendProduct(exchange, 201, product);
+        } else {
+            sendError(exchange, 409, "Ya existe un producto con SKU " + sku);
+        }
+    }
+
+    private void adjustStock(HttpExchange exchange, String sku) throws IOException {
+        Map<String, Object> body = readBody(exchange);
+        String size = checkSize(stringField(body, "size", true));
+        Object delta = body.get("delta");
+        Object quantity = body.get("quantity");
+        if ((delta == null) == (quantity == null)) {
+            throw new IllegalArgumentException("Se espera exactamente uno de los campos delta o quantity");
+        }
+        if (!((delta == null ? quantity : delta) instanceof Integer)) {
+            throw new IllegalArgumentException("La cantidad debe ser un entero");
+        }
+        if (quantity != null && (Integer) quantity < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa: " + quantity);
+        }
+        boolean applied;
+        if (quantity != null) {
+            applied = inventory.setStock(sku, size, (Integer) quantity);
+        } else if ((Integer) delta >= 0) {
+            applied = inventory.incrementStock(sku, size, (Integer) delta);
+        } else {
+            applied = inventory.decrementStock(sku, size, -(Integer) delta);
+        }
+        Product product = inventory.searchBySku(sku);
+        if (product == null) {
+            sendProduct(exchange, 404, null);
+        } else if (!applied) {
+            sendError(exchange, 409, "No hay unidades suficientes de la talla " + size);
+        } else {
+            sendProduct(exchange, 200, product);
+        }
+    }
+
+    /**
+     * Revisa que una talla esté registrada o que se pueda registrar sin pasar los límites
+     * del servidor.
+     * 
+     * @return La misma etiqueta.
+     */
+    private static String checkSize(String label) {
+        if (SizeDictionary.find(label) < 0) {
+            if (label.length() > MAX_SIZE_LABEL) {
+                throw new IllegalArgumentException("La talla supera los " + MAX_SIZE_LABEL + " caracteres");
+            }
+            if (SizeDictionary.size() >= MAX_SIZES) {
+                throw new IllegalArgumentException("Talla desconocida: " + label);
+            }
+        }
+        return label;
+    }
+
+    private static void sendProduct(HttpExchange exchange, int status, Product product) throws IOException {
+        if (product == null) {
+            sendError(exchange, 404, "Producto no encontrado");
+            return;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(RESPONSE_BUFFER);
+        InventoryExporter exporter = new InventoryExporter(out, InventoryExporter.Format.JSON_LINES, RESPONSE_BUFFER);
+        exporter.write(product);
+        exporter.finish();
+        send(exchange, status, out.toByteArray());
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":\"");
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else {
+                json.append(c < 0x20 ? ' ' : c);
+            }
+        }
+        json.append("\"}\n");
+        send(exchange, status, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) {
+                throw new IllegalArgumentException("El cuerpo supera los " + MAX_BODY + " bytes");
+            }
+            return new JsonReader(new String(body, StandardCharsets.UTF_8)).readDocument();
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El parámetro " + name + " debe ser un entero: " + value);
+        }
+    }
+
+    private static String stringField(Map<String, Object> body, String name, boolean required) {
+        Object value = body.get(name);
+        if (value == null && !required) {
+            return null;
+        }
+        if (!(value instanceof String) || ((String) value).isEmpty() && required) {
+            throw new IllegalArgumentException("El campo " + name + " debe ser un texto no vacío");
+        }
+        return (String) value;
+    }
+
+    /**
+     * Lector de los cuerpos de las solicitudes: un objeto JSON cuyos valores son textos,
+     * enteros u otros objetos del mismo tipo. Rechaza cualquier otra cosa con
+     * {@link IllegalArgumentException}.
+     */
+    private static final class JsonReader {
+        private final String text;
+        private int pos;
+
+        JsonReader(String text) {
+            this.text = text;
+        }
+
+        Map<String, Object> readDocument() {
+            skipWhitespace();
+            Map<String, Object> object = readObject();
+            skipWhitespace();
+            if (pos != text.length()) {
+                throw error("contenido después del objeto");
+            }
+            return object;
+        }
+
+        private Map<String, Object> readObject() {
+            expect('{');
+            Map<String, Object> object = new HashMap<>();
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = readString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                if (object.put(key, readValue()) != null) {
+                    throw error("clave repetida " + key);
+                }
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    return object;
+                }
+                if (c != ',') {
+                    throw error("se esperaba ',' o '}'");
+                }
+            }
+        }
+
+        private Object readValue() {
+            char c = peek();
+            if (c == '{') {
+                return readObject();
+            }
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                return readInt();
+            }
+            throw error("valor no admitido");
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c < 0x20) {
+                    throw error("carácter de control en un texto");
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                c = next();
+                switch (c) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        value.append(c);
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("escape \\u incompleto");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("escape \\u no válido");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw error("escape no válido \\" + c);
+                }
+            }
+        }
+
+        private Integer readInt() {
+            int start = pos;
+            if (peek() == '-') {
+                pos++;
+            }
+            while (pos < text.length() && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') {
+                pos++;
+            }
+            try {
+                return Integer.parseInt(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("se esperaba un entero");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private char peek() {
+            if (pos == text.length()) {
+                throw error("fin inesperado");
+            }
+            return text.charAt(pos);
+        }
+
+        private char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void expect(char c) {
+            if (next() != c) {
+                throw error("se esperaba '" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("JSON no válido en la posición " + pos + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class InventoryServerTest {
+    private ConcurrentInventoryManager inventory;
+    private InventoryServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        inventory = new ConcurrentInventoryManager();
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("m", 5);
+        inventory.addProduct(new Product("001", "Camiseta Running", "Camiseta ligera", sizes));
+        inventory.addProduct(new Product("002", "Short Deportivo", "Short \"elástico\"", new HashMap<>()));
+        server = new InventoryServer(inventory, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Prueba de las búsquedas, el listado y los errores de las rutas de lectura.
+     */
+    @Test
+    void testLookupsAndListing() throws IOException {
+        assertEquals("200 {\"sku\":\"001\",\"name\":\"Camiseta Running\",\"description\":\"Camiseta ligera\","
+                + "\"sizes\":{\"m\":5}}\n", request("GET", "/products/001", null));
+        assertEquals("200 {\"sku\":\"002\",\"name\":\"Short Deportivo\",\"description\":\"Short \\\"elástico\\\"\","
+                + "\"sizes\":{}}\n", request("GET", "/names/Short%20Deportivo", null));
+        assertTrue(request("GET", "/products/999", null).startsWith("404 {\"error\":"));
+        assertTrue(request("GET", "/products?offset=1&limit=5", null).startsWith("200 [{\"sku\":\"002\""));
+        assertEquals("200 []", request("GET", "/products?offset=2", null));
+        assertTrue(request("GET", "/products?limit=abc", null).startsWith("400 "));
+        assertTrue(request("DELETE", "/products", null).startsWith("405 "));
+        assertTrue(request("GET", "/otra", null).startsWith("404 "));
+    }
+
+    /**
+     * Prueba de agregar productos y ajustar existencias.
+     */
+    @Test
+    void testAddProductAndAdjustStock() throws IOException {
+        String body = "{\"sku\":\"003\",\"name\":\"Gorra\",\"sizes\":{\"u\":2},\"description\":\"Con \\u00f1 y \\\\\"}";
+        assertTrue(request("POST", "/products", body).startsWith("201 {\"sku\":\"003\""));
+        assertEquals("Con ñ y \\", inventory.searchBySku("003").getDescription());
+        assertTrue(request("POST", "/products", body).startsWith("409 "));
+        assertTrue(request("POST", "/products", "{\"sku\":\"004\"}").startsWith("400 "));
+        assertTrue(request("POST", "/products", "{\"sku\":\"004\",\"name\":\"X\",\"sizes\":{\"m\":1.5}}").startsWith("400 "));
+
+        assertTrue(request("POST", "/products/001/stock", "{\"size\":\"m\",\"delta\":-2}").contains("\"m\":3"));
+        assertTrue(request("POST", "/products/001/stock", "{\"size\":\"m\",\"delta\":-4}").startsWith("409 "));
+        assertTrue(request("POST", "/products/001/stock", "{\"size\":\"l\",\"quantity\":7}").contains("\"l\":7"));
+        assertTrue(request("POST", "/products/001/stock", "{\"size\":\"l\",\"delta\":1,\"quantity\":7}").startsWith("400 "));
+        assertTrue(request("POST", "/products/999/stock", "{\"size\":\"l\",\"delta\":1}").startsWith("404 "));
+        assertTrue(request("POST", "/products/001/stock", "{\"size\":\"l\",\"delta\":2147483647}").startsWith("400 "));
+        assertEquals(3, inventory.searchBySku("001").getStock("m"));
+        assertEquals(7, inventory.searchBySku("001").getStock("l"));
+
+        String label = "x".repeat(InventoryServer.MAX_SIZE_LABEL + 1);
+        assertTrue(request("POST", "/products/001/stock", "{\"size\":\"" + label + "\",\"quantity\":1}").startsWith("400 "));
+        assertTrue(request("POST", "/products", "{\"sku\":\"005\",\"name\":\"Y\",\"sizes\":{\"" + label + "\":1}}")
+                .startsWith("400 "));
+        assertEquals(-1, SizeDictionary.find(label));
+        assertNull(inventory.searchBySku("005"));
+    }
+
+    /**
+     * Prueba de que las ventas simultáneas de la misma talla no venden más unidades de
+     * las que hay.
+     */
+    @Test
+    void testConcurrentSalesNeverOversell() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<String>> sales = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            sales.add(pool.submit(() -> request("POST", "/products/001/stock", "{\"size\":\"m\",\"delta\":-1}")));
+        }
+        int sold = 0;
+        for (Future<String> sale : sales) {
+            String response = sale.get();
+            if (response.startsWith("200 ")) {
+                sold++;
+            } else {
+                assertTrue(response.startsWith("409 "), response);
+            }
+        }
+        pool.shutdown();
+        assertEquals(5, sold);
+        assertEquals(0, inventory.searchBySku("001").getStock("m"));
+    }
+
+    /**
+     * Prueba de que varias solicitudes enviadas juntas por una misma conexión reciben
+     * sus respuestas en orden, sin cerrar la conexión.
+     */
+    @Test
+    void testPipelinedRequestsOnOneConnection() throws IOException {
+        try (Socket socket = new Socket("localhost", server.port())) {
+            StringBuilder requests = new StringBuilder();
+            for (String sku : new String[] {"002", "999", "001"}) {
+                requests.append("GET /products/").append(sku).append(" HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            }
+            OutputStream out = socket.getOutputStream();
+            out.write(requests.toString().getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            assertTrue(readResponse(in).contains("\"sku\":\"002\""));
+            assertTrue(readResponse(in).contains("\"error\""));
+            assertTrue(readResponse(in).contains("\"sku\":\"001\""));
+
+            out.write("GET /products/001 HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertTrue(readResponse(in).contains("\"sku\":\"001\""));
+        }
+    }
+
+    private String request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.port() + path)
+                .openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        try (in) {
+            return status + " " + new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Lee una respuesta con Content-Length y devuelve su cuerpo.
+     */
+    private static String readResponse(InputStream in) throws IOException {
+        ByteArrayOutputStream headers = new ByteArrayOutputStream();
+        while (!headers.toString(StandardCharsets.US_ASCII).endsWith("\r\n\r\n")) {
+            int b = in.read();
+            assertTrue(b != -1, "La conexión se cerró");
+            headers.write(b);
+        }
+        int length = 0;
+        for (String line : headers.toString(StandardCharsets.US_ASCII).split("\r\n")) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                length = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
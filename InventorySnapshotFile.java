@@ -0,0 +1,348 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Archivo binario con una copia completa del inventario para arrancar sin volver a
+ * leer el CSV.
+ * <p>
+ * Formato (enteros en big-endian):
+ * <pre>
+ * Encabezado (32 bytes):
+ *   int  MAGIC ("HDTS")
+ *   int  versión del formato
+ *   int  cantidad de productos
+ *   int  cantidad de tallas
+ *   long longitud de la sección de datos
+ *   int  CRC32 de la sección de datos
+ *   int  CRC32 de los 28 bytes anteriores del encabezado
+ * Datos:
+ *   tallas:    por cada una, etiqueta (short longitud + UTF-8)
+ *   productos: ordenados por SKU; sku y nombre (short longitud + UTF-8),
+ *              descripción (int longitud + UTF-8), cantidad de tallas (short)
+ *              y pares (short id de talla local, int cantidad)
+ *   nombres:   int cantidad + posiciones de los productos del índice por nombre,
+ *              en orden de nombre
+ * </pre>
+ * Como ambos órdenes ya vienen guardados, los árboles se reconstruyen en tiempo
+ * lineal sin ordenar. El archivo se escribe en uno temporal que luego reemplaza al
+ * original de forma atómica, y se lee mapeándolo en memoria (hasta 2 GB).
+ */
+public final class InventorySnapshotFile {
+    private static final int MAGIC = 0x48445453;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private InventorySnapshotFile() {
+    }
+
+    /**
+     * Contenido leído de un archivo de snapshot.
+     */
+    public static final class Contents {
+        /**
+         * Productos en orden ascendente de SKU.
+         */
+        public final List<Product> bySku;
+
+        /**
+         * Productos del índice por nombre, en orden ascendente de nombre.
+         */
+        public final List<Product> byName;
+
+        Contents(List<Product> bySku, List<Product> byName) {
+            this.bySku = bySku;
+            this.byName = byName;
+        }
+    }
+
+    /**
+     * Escribe un snapshot de forma atómica: el archivo destino queda con el contenido
+     * anterior o con el nuevo completo, nunca a medias.
+     * 
+     * @param file   Ruta del snapshot.
+     * @param bySku  Productos en orden ascendente de SKU.
+     * @param byName Productos del índice por nombre, en orden ascendente de nombre.
+     * @throws IOException Si no se puede escribir el archivo.
+     */
+    public static void write(Path file, List<Product> bySku, List<Product> byName) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                writeTo(channel, bySku, byName);
+                channel.force(true);
+            }
+            Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeTo(FileChannel channel, List<Product> bySku, List<Product> byName) throws IOException {
+        // Diccionario local: solo las tallas que aparecen, en orden de primera aparición
+        int[] localIds = new int[SizeDictionary.size()];
+        Arrays.fill(localIds, -1);
+        List<String> labels = new ArrayList<>();
+        List<int[]> levels = new ArrayList<>(bySku.size());
+        for (Product product : bySku) {
+            int[] stock = product.stockLevels();
+            levels.add(stock);
+            if (stock.length > localIds.length) {
+                int previous = localIds.length;
+                localIds = Arrays.copyOf(localIds, stock.length);
+                Arrays.fill(localIds, previous, stock.length, -1);
+            }
+            for (int id = 0; id < stock.length; id++) {
+                if (stock[id] != Product.ABSENT && localIds[id] < 0) {
+                    localIds[id] = labels.size();
+                    labels.add(SizeDictionary.labelOf(id));
+                }
+            }
+        }
+
+        Map<Product, Integer> positions = new IdentityHashMap<>(bySku.size());
+        for (int i = 0; i < bySku.size(); i++) {
+            positions.put(bySku.get(i), i);
+        }
+
+        Output out = new Output(channel, HEADER_BYTES);
+        for (String label : labels) {
+            out.shortString(label);
+        }
+        for (int i = 0; i < bySku.size(); i++) {
+            Product product = bySku.get(i);
+            int[] stock = levels.get(i);
+            out.shortString(product.getSku());
+            out.shortString(product.getName());
+            out.intString(product.getDescription());
+            int sizes = 0;
+            for (int quantity : stock) {
+                if (quantity != Product.ABSENT) {
+                    sizes++;
+                }
+            }
+            out.putShort(sizes);
+            for (int id = 0; id < stock.length; id++) {
+                if (stock[id] != Product.ABSENT) {
+                    out.putShort(localIds[id]);
+                    out.putInt(stock[id]);
+                }
+            }
+        }
+        out.putInt(byName.size());
+        for (Product product : byName) {
+            Integer position = positions.get(product);
+            if (position == null) {
+                throw new IllegalArgumentException("Producto del índice por nombre ausente del índice por SKU: "
+                        + product.getSku());
+            }
+            out.putInt(position);
+        }
+        out.flush();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(bySku.size()).putInt(labels.size())
+                .putLong(out.written).putInt((int) out.crc.getValue());
+        CRC32 headerCrc = new CRC32();
+        headerCrc.update(header.array(), 0, HEADER_BYTES - 4);
+        header.putInt((int) headerCrc.getValue());
+        header.flip();
+        channel.write(header, 0);
+    }
+
+    /**
+     * Lee un snapshot completo, verificando el encabezado y las sumas de control.
+     * 
+     * @param file Ruta del snapshot.
+     * @return Productos en orden de SKU y de nombre.
+     * @throws IOException Si el archivo no se puede leer, es de otra versión o está corrupto.
+     */
+    public static Contents read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw corrupt(file, "archivo truncado");
+            }
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot demasiado grande para mapearse en memoria: " + file);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+
+            CRC32 headerCrc = new CRC32();
+            headerCrc.update(map.slice(0, HEADER_BYTES - 4));
+            if (map.getInt(0) != MAGIC) {
+                throw corrupt(file, "no es un snapshot de inventario");
+            }
+            if ((int) headerCrc.getValue() != map.getInt(HEADER_BYTES - 4)) {
+                throw corrupt(file, "encabezado dañado");
+            }
+            int version = map.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Versión de snapshot no soportada: " + version);
+            }
+            int productCount = map.getInt(8);
+            int sizeCount = map.getInt(12);
+            long dataLength = map.getLong(16);
+            if (dataLength != fileSize - HEADER_BYTES) {
+                throw corrupt(file, "longitud de datos incorrecta");
+            }
+            CRC32 dataCrc = new CRC32();
+            dataCrc.update(map.slice(HEADER_BYTES, (int) dataLength));
+            if ((int) dataCrc.getValue() != map.getInt(24)) {
+                throw corrupt(file, "suma de control de datos incorrecta");
+            }
+
+            return decode(map.slice(HEADER_BYTES, (int) dataLength), productCount, sizeCount);
+        }
+    }
+
+    private static Contents decode(ByteBuffer data, int productCount, int sizeCount) {
+        Input in = new Input(data);
+        int[] globalIds = new int[sizeCount];
+        for (int i = 0; i < sizeCount; i++) {
+            globalIds[i] = SizeDictionary.idOf(in.shortString());
+        }
+
+        List<Product> bySku = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            String sku = in.shortString();
+            String name = in.shortString();
+            String description = in.intString();
+            int sizes = data.getShort() & 0xFFFF;
+            int[] ids = new int[sizes];
+            int[] quantities = new int[sizes];
+            int maxId = -1;
+            for (int s = 0; s < sizes; s++) {
+                ids[s] = globalIds[data.getShort() & 0xFFFF];
+                quantities[s] = data.getInt();
+                maxId = Math.max(maxId, ids[s]);
+            }
+            int[] stock = new int[maxId + 1];
+            Arrays.fill(stock, Product.ABSENT);
+            for (int s = 0; s < sizes; s++) {
+                stock[ids[s]] = quantities[s];
+            }
+            bySku.add(new Product(sku, name, description, stock));
+        }
+
+        int nameCount = data.getInt();
+        List<Product> byName = new ArrayList<>(nameCount);
+        for (int i = 0; i < nameCount; i++) {
+            byName.add(bySku.get(data.getInt()));
+        }
+        return new Contents(bySku, byName);
+    }
+
+    private static IOException corrupt(Path file, String reason) {
+        return new IOException("Snapshot corrupto (" + reason + "): " + file);
+    }
+
+    /**
+     * Escritura secuencial con un búfer reutilizable que calcula el CRC32 al vaciarse.
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final CRC32 crc = new CRC32();
+        private long position;
+        private long written;
+
+        Output(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        void putShort(int value) throws IOException {
+            ensure(2);
+            buffer.putShort((short) value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void shortString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("Texto demasiado largo para el snapshot: " + bytes.length + " bytes");
+            }
+            putShort(bytes.length);
+            putBytes(bytes);
+        }
+
+        void intString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes);
+        }
+
+        private void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            written += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Lectura secuencial de cadenas sobre el búfer mapeado.
+     */
+    private static final class Input {
+        private final ByteBuffer data;
+        private byte[] scratch = new byte[256];
+
+        Input(ByteBuffer data) {
+            this.data = data;
+        }
+
+        String shortString() {
+            return string(data.getShort() & 0xFFFF);
+        }
+
+        String intString() {
+            return string(data.getInt());
+        }
+
+        private String string(int length) {
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            data.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pruebas unitarias para la clase InventorySnapshotFile.
+ */
+class InventorySnapshotFileTest {
+    private Path snapshot;
+    private InventoryManager inventory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        snapshot = Files.createTempFile("inventario", ".snapshot");
+        inventory = new InventoryManager();
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("s", 10);
+        sizes.put("m", 20);
+        inventory.addProduct(new Product("002", "Short Deportivo", "Short, con bolsillos", sizes));
+        inventory.addProduct(new Product("001", "Camiseta Running", "Camiseta ligera", new HashMap<>()));
+        inventory.addProduct(new Product("003", "Camiseta Running", "Otra camiseta", Map.of("xl", 4)));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+
+    /**
+     * Prueba de que un snapshot guardado se vuelve a cargar con el mismo contenido.
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        inventory.saveSnapshot(snapshot.toString());
+
+        InventoryManager restored = new InventoryManager();
+        assertTrue(restored.loadFromSnapshot(snapshot.toString()));
+
+        assertEquals(3, restored.size());
+        assertEquals(2.0, restored.getMetrics().gauges().get("nameTree.size"));
+        Product shortDeportivo = restored.searchBySku("002");
+        assertEquals("Short, con bolsillos", shortDeportivo.getDescription());
+        assertEquals(inventory.searchBySku("002").getSizes(), shortDeportivo.getSizes());
+        assertEquals("001", restored.searchByName("Camiseta Running").getSku());
+        assertEquals(4, restored.searchBySku("003").getStock("xl"));
+        assertEquals(2, restored.searchAllByName("Camiseta Running").size());
+    }
+
+    /**
+     * Prueba de que se detecta un snapshot con datos alterados.
+     */
+    @Test
+    void testDetectsCorruptedData() throws IOException {
+        inventory.saveSnapshot(snapshot.toString());
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x7F}), channel.size() - 3);
+        }
+
+        IOException error = assertThrows(IOException.class, () -> InventorySnapshotFile.read(snapshot));
+        assertTrue(error.getMessage().contains("corrupto"));
+        assertFalse(new InventoryManager().loadFromSnapshot(snapshot.toString()));
+    }
+
+    /**
+     * Prueba de que se rechaza un archivo que no es un snapshot.
+     */
+    @Test
+    void testRejectsForeignFile() throws IOException {
+        Files.write(snapshot, List.of("SKU,Nombre,Descripción,Cantidad por talla", "001,a,b,m:1"));
+
+        assertThrows(IOException.class, () -> InventorySnapshotFile.read(snapshot));
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Vista inmutable del inventario en un instante: los índices por SKU y por nombre
+ * tal como estaban al tomarla. Ambos índices son {@link PersistentTree}, así que la
+ * vista no copia los productos ni cambia aunque el inventario siga modificándose, y
+ * los dos índices siempre corresponden al mismo estado (nunca se ve un producto en
+ * uno y no en el otro).
+ * <p>
+ * Sirve para listados completos y exportaciones largas, que así no recorren una
+ * estructura que otros hilos están modificando. Los productos en sí no se copian:
+ * los cambios de descripción o existencias posteriores se ven en la vista.
+ */
+public final class InventoryView {
+    private static final InventoryView EMPTY = new InventoryView(PersistentTree.empty(), PersistentTree.empty());
+
+    /**
+     * Productos ordenados por SKU.
+     */
+    public final PersistentTree<String, Product> bySku;
+
+    /**
+     * Producto que representa a cada nombre, ordenados por nombre.
+     */
+    public final PersistentTree<String, Product> byName;
+
+    /**
+     * Crea una vista a partir de sus dos índices.
+     * 
+     * @param bySku  Productos ordenados por SKU.
+     * @param byName Producto que representa a cada nombre, ordenados por nombre.
+     */
+    public InventoryView(PersistentTree<String, Product> bySku, PersistentTree<String, Product> byName) {
+        this.bySku = bySku;
+        this.byName = byName;
+    }
+
+    /**
+     * Obtiene la vista de un inventario vacío.
+     * 
+     * @return Vista sin productos.
+     */
+    public static InventoryView empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Obtiene la cantidad de productos de la vista.
+     * 
+     * @return Número de productos.
+     */
+    public int size() {
+        return bySku.size();
+    }
+
+    /**
+     * Busca un producto por su SKU.
+     * 
+     * @param sku SKU del producto a buscar.
+     * @return El producto encontrado o null si no existe.
+     */
+    public Product searchBySku(String sku) {
+        return bySku.get(sku);
+    }
+
+    /**
+     * Busca un producto por su nombre.
+     * 
+     * @param name Nombre del producto a buscar.
+     * @return El producto encontrado o null si no existe.
+     */
+    public Product searchByName(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Recorre los productos en orden ascendente por SKU.
+     * 
+     * @param action Acción a aplicar a cada producto.
+     */
+    public void forEachBySku(Consumer<? super Product> action) {
+        bySku.forEachValue(action);
+    }
+
+    /**
+     * Recorre los productos en orden ascendente por nombre.
+     * 
+     * @param action Acción a aplicar a cada producto.
+     */
+    public void forEachByName(Consumer<? super Product> action) {
+        byName.forEachValue(action);
+    }
+
+    /**
+     * Obtiene una página del listado por SKU, en O(log n + limit).
+     * 
+     * @param offset Posición del primer producto, empezando en 0.
+     * @param limit  Cantidad máxima de productos.
+     * @return Productos de la página ordenados por SKU.
+     */
+    public List<Product> pageBySku(int offset, int limit) {
+        return PersistentTree.values(bySku.page(offset, limit));
+    }
+
+    /**
+     * Obtiene una página del listado por nombre, en O(log n + limit).
+     * 
+     * @param offset Posición del primer producto, empezando en 0.
+     * @param limit  Cantidad máxima de productos.
+     * @return Productos de la página ordenados por nombre.
+     */
+    public List<Product> pageByName(int offset, int limit) {
+        return PersistentTree.values(byName.page(offset, limit));
+    }
+
+    /**
+     * Busca los productos cuyo SKU está entre dos valores, ambos inclusive.
+     * 
+     * @param fromSku SKU inicial del rango.
+     * @param toSku   SKU final del rango.
+     * @return Productos del rango ordenados por SKU.
+     */
+    public List<Product> searchBySkuRange(String fromSku, String toSku) {
+        if (fromSku.compareTo(toSku) > 0) {
+            return new ArrayList<>();
+        }
+        return PersistentTree.values(bySku.range(fromSku, true, toSku, true));
+    }
+
+    /**
+     * Busca los productos cuyo nombre empieza con un prefijo.
+     * 
+     * @param prefix Prefijo del nombre, sin comodín.
+     * @return Productos cuyo nombre empieza con el prefijo, ordenados por nombre.
+     */
+    public List<Product> searchByNamePrefix(String prefix) {
+        return PersistentTree.values(byName.prefix(prefix));
+    }
+}
@@ -0,0 +1,130 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en nanosegundos con cubetas log-lineales, al estilo de
+ * HdrHistogram: cada potencia de dos se divide en 32 cubetas iguales, así que
+ * cualquier valor se guarda con un error relativo menor al 3,2% y el histograma
+ * ocupa siempre lo mismo (unos 15 KB), sin importar cuántos valores registre.
+ * <p>
+ * Registrar un valor no bloquea ni reserva memoria, y se puede hacer desde varios
+ * hilos a la vez. Las lecturas (percentiles, promedio) no son atómicas respecto a
+ * los registros concurrentes, lo cual es suficiente para estadísticas.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Registra un valor.
+     * 
+     * @param nanos Latencia en nanosegundos; los valores negativos cuentan como 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Obtiene la cantidad de valores registrados.
+     * 
+     * @return Cantidad de valores.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Obtiene el promedio exacto de los valores registrados.
+     * 
+     * @return Promedio en nanosegundos, o 0 si no hay valores.
+     */
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Obtiene el mayor valor registrado.
+     * 
+     * @return Máximo exacto en nanosegundos, o 0 si no hay valores.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Obtiene el valor por debajo del cual queda un porcentaje de los registros. Se
+     * devuelve el límite superior de la cubeta correspondiente, nunca mayor al máximo.
+     * 
+     * @param percentile Porcentaje entre 0 y 100.
+     * @return Latencia en nanosegundos, o 0 si no hay valores.
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(upperBound(i), max());
+            }
+        }
+        return max();
+    }
+
+    /**
+     * Borra todos los valores registrados.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Cubeta de un valor: los menores a 32 tienen una cubeta cada uno; los demás se
+     * ubican por su potencia de dos y por los 5 bits siguientes al bit más alto.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Mayor valor que cae en una cubeta.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
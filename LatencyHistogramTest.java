@@ -0,0 +1,64 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias para la clase LatencyHistogram.
+ */
+class LatencyHistogramTest {
+
+    /**
+     * Prueba de que cada valor cae en una cubeta cuyo límite superior está a menos del 3,2%.
+     */
+    @Test
+    void testBucketPrecision() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1_000, 123_456, 1L << 40, Long.MAX_VALUE};
+        for (long value : values) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.bucketOf(value));
+            assertTrue(upper >= value, "límite " + upper + " menor a " + value);
+            assertTrue(upper - value <= value / 31, "límite " + upper + " lejos de " + value);
+        }
+    }
+
+    /**
+     * Prueba de los percentiles sobre una distribución uniforme.
+     */
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100_000, histogram.count());
+        assertEquals(50_000.5, histogram.mean(), 1e-6);
+        assertEquals(100_000, histogram.max());
+        assertEquals(50_000, histogram.percentile(50), 50_000 * 0.032);
+        assertEquals(99_000, histogram.percentile(99), 99_000 * 0.032);
+        assertEquals(100_000, histogram.percentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(50));
+    }
+
+    /**
+     * Prueba de registros concurrentes desde varios hilos.
+     */
+    @Test
+    void testConcurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i % 1_000);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.count());
+        assertEquals(999, histogram.max());
+    }
+}
@@ -0,0 +1,463 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Índice ordenado de los productos de un {@link OffHeapProductStore}, por SKU o por
+ * nombre, cuyos nodos viven en bloques de {@link ByteBuffer} directos. Es un árbol AVL
+ * en el que cada nodo ocupa 24 bytes y se identifica por su posición en los bloques;
+ * en lugar de la clave guarda el identificador del producto, y las comparaciones se
+ * hacen contra los caracteres del registro sin decodificarlos.
+ * <p>
+ * Los nodos se ordenan por (clave, identificador de producto) y admiten claves
+ * repetidas. Como los identificadores se asignan en orden de llegada, el primer nodo
+ * de cada clave es el producto más antiguo con ella, que es el que la representa igual
+ * que en los árboles de {@link InventoryManager}. Cada nodo indica si es el primero
+ * de su clave y lleva la cantidad de claves distintas de su subárbol, de modo que los
+ * listados, las páginas y las posiciones cuentan cada clave una sola vez. Al eliminar
+ * al representante de una clave, el siguiente producto con ella pasa a representarla.
+ * <p>
+ * No es seguro para varios hilos.
+ */
+public final class OffHeapIndex {
+    /**
+     * Campo por el que se ordena el índice.
+     */
+    public enum Key {
+        /**
+         * Ordena por SKU.
+         */
+        SKU,
+        /**
+         * Ordena por nombre.
+         */
+        NAME
+    }
+
+    private static final int PRODUCT = 0;
+    private static final int LEFT = 4;
+    private static final int RIGHT = 8;
+    private static final int HEIGHT = 12;
+    private static final int DISTINCT = 16;
+    private static final int FIRST = 20;
+    private static final int NODE_BYTES = 24;
+
+    private static final int BLOCK_SHIFT = 14;
+    private static final int BLOCK_NODES = 1 << BLOCK_SHIFT;
+
+    /**
+     * Nodo vacío; los nodos reales empiezan en 1.
+     */
+    private static final int NIL = 0;
+
+    private final OffHeapProductStore store;
+    private final boolean byName;
+    private ByteBuffer[] blocks = new ByteBuffer[0];
+    private int root = NIL;
+    private int nextNode = 1;
+    private int freeList = NIL;
+    private int nodes;
+    private boolean removedFirst;
+
+    /**
+     * Crea un índice vacío.
+     * 
+     * @param store Almacén de los productos indexados.
+     * @param key   Campo por el que se ordena.
+     */
+    public OffHeapIndex(OffHeapProductStore store, Key key) {
+        this.store = store;
+        this.byName = key == Key.NAME;
+    }
+
+    /**
+     * Agrega un producto del almacén.
+     * 
+     * @param product Identificador del producto; debe ser mayor que el de todos los
+     *                productos ya indexados con la misma clave.
+     */
+    public void insert(int product) {
+        String key = key(product);
+        boolean first = find(key) < 0;
+        root = insert(root, key, product, first);
+        nodes++;
+    }
+
+    /**
+     * Quita un producto del índice.
+     * 
+     * @param product Identificador del producto.
+     * @return true si el producto estaba en el índice.
+     */
+    public boolean remove(int product) {
+        String key = key(product);
+        int before = nodes;
+        removedFirst = false;
+        root = delete(root, key, product);
+        if (nodes == before) {
+            return false;
+        }
+        if (removedFirst) {
+            int next = find(key);
+            if (next >= 0) {
+                markFirst(root, key, next);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Busca el producto que representa a una clave.
+     * 
+     * @param key Clave a buscar.
+     * @return Identificador del producto más antiguo con esa clave, o -1 si no hay.
+     */
+    public int find(String key) {
+        int found = -1;
+        int node = root;
+        while (node != NIL) {
+            int cmp = compare(product(node), key);
+            if (cmp < 0) {
+                node = get(node, RIGHT);
+            } else {
+                if (cmp == 0) {
+                    found = product(node);
+                }
+                node = get(node, LEFT);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Recorre en orden los productos a partir de una clave.
+     * 
+     * @param fromKey   Clave inicial, inclusive, o null para empezar por la menor.
+     * @param firstOnly true para visitar solo al representante de cada clave.
+     * @return Iterador de identificadores de producto; deja de ser válido si el índice
+     *         se modifica.
+     */
+    public PrimitiveIterator.OfInt iterator(String fromKey, boolean firstOnly) {
+        return new Cursor(fromKey, firstOnly);
+    }
+
+    /**
+     * Recorrido en orden con una pila explícita de a lo sumo la altura del árbol.
+     */
+    private final class Cursor implements PrimitiveIterator.OfInt {
+        private final int[] stack = new int[get(root, HEIGHT) + 1];
+        private final boolean firstOnly;
+        private int depth;
+
+        Cursor(String fromKey, boolean firstOnly) {
+            this.firstOnly = firstOnly;
+            int node = root;
+            while (node != NIL) {
+                if (fromKey == null || compare(product(node), fromKey) >= 0) {
+                    stack[depth++] = node;
+                    node = get(node, LEFT);
+                } else {
+                    node = get(node, RIGHT);
+                }
+            }
+            skip();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+            int product = product(advance());
+            skip();
+            return product;
+        }
+
+        /**
+         * Saca el nodo de la cima y apila el camino izquierdo de su subárbol derecho.
+         */
+        private int advance() {
+            int top = stack[--depth];
+            int node = get(top, RIGHT);
+            while (node != NIL) {
+                stack[depth++] = node;
+                node = get(node, LEFT);
+            }
+            return top;
+        }
+
+        /**
+         * Descarta los nodos que no representan a su clave, si solo se piden representantes.
+         */
+        private void skip() {
+            while (firstOnly && depth > 0 && get(stack[depth - 1], FIRST) == 0) {
+                advance();
+            }
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de claves distintas menores que una clave.
+     * 
+     * @param key Clave de referencia.
+     * @return Posición que ocupa (u ocuparía) la clave en el listado.
+     */
+    public int rank(String key) {
+        int rank = 0;
+        int node = root;
+        while (node != NIL) {
+            if (compare(product(node), key) < 0) {
+                rank += get(get(node, LEFT), DISTINCT) + get(node, FIRST);
+                node = get(node, RIGHT);
+            } else {
+                node = get(node, LEFT);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Obtiene el representante de la clave que ocupa una posición en el listado.
+     * 
+     * @param index Posición, empezando en 0.
+     * @return Identificador del producto.
+     * @throws IndexOutOfBoundsException Si la posición no existe.
+     */
+    public int select(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Posición fuera del índice: " + index);
+        }
+        int node = root;
+        while (true) {
+            int left = get(get(node, LEFT), DISTINCT);
+            if (index < left) {
+                node = get(node, LEFT);
+            } else if (index == left && get(node, FIRST) == 1) {
+                return product(node);
+            } else {
+                index -= left + get(node, FIRST);
+                node = get(node, RIGHT);
+            }
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de claves distintas.
+     * 
+     * @return Claves indexadas.
+     */
+    public int size() {
+        return get(root, DISTINCT);
+    }
+
+    /**
+     * Obtiene la cantidad de productos indexados, contando las claves repetidas.
+     * 
+     * @return Nodos del índice.
+     */
+    public int nodes() {
+        return nodes;
+    }
+
+    /**
+     * Obtiene la altura del árbol.
+     * 
+     * @return Altura, 0 si está vacío.
+     */
+    public int height() {
+        return get(root, HEIGHT);
+    }
+
+    /**
+     * Obtiene la memoria fuera del heap reservada por los nodos.
+     * 
+     * @return Bytes reservados.
+     */
+    public long reservedBytes() {
+        return (long) blocks.length * BLOCK_NODES * NODE_BYTES;
+    }
+
+    private String key(int product) {
+        return byName ? store.name(product) : store.sku(product);
+    }
+
+    private int compare(int product, String key) {
+        return byName ? store.compareName(product, key) : store.compareSku(product, key);
+    }
+
+    /**
+     * Compara el nodo con el par (clave, producto) que se busca.
+     */
+    private int compare(int node, String key, int product) {
+        int cmp = compare(product(node), key);
+        return cmp != 0 ? cmp : Integer.compare(product(node), product);
+    }
+
+    private int insert(int node, String key, int product, boolean first) {
+        if (node == NIL) {
+            return allocate(product, first);
+        }
+        if (compare(node, key, product) > 0) {
+            set(node, LEFT, insert(get(node, LEFT), key, product, first));
+        } else {
+            set(node, RIGHT, insert(get(node, RIGHT), key, product, first));
+        }
+        return balance(node);
+    }
+
+    private int delete(int node, String key, int product) {
+        if (node == NIL) {
+            return NIL;
+        }
+        int cmp = compare(node, key, product);
+        if (cmp > 0) {
+            set(node, LEFT, delete(get(node, LEFT), key, product));
+        } else if (cmp < 0) {
+            set(node, RIGHT, delete(get(node, RIGHT), key, product));
+        } else {
+            int left = get(node, LEFT);
+            int right = get(node, RIGHT);
+            removedFirst = get(node, FIRST) == 1;
+            free(node);
+            if (left == NIL) {
+                return right;
+            }
+            if (right == NIL) {
+                return left;
+            }
+            // El sucesor toma el lugar del nodo eliminado
+            int successor = right;
+            while (get(successor, LEFT) != NIL) {
+                successor = get(successor, LEFT);
+            }
+            set(successor, RIGHT, deleteFirst(right));
+            set(successor, LEFT, left);
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private int deleteFirst(int node) {
+        if (get(node, LEFT) == NIL) {
+            return get(node, RIGHT);
+        }
+        set(node, LEFT, deleteFirst(get(node, LEFT)));
+        return balance(node);
+    }
+
+    /**
+     * Marca un nodo como representante de su clave y actualiza los conteos del camino.
+     */
+    private void markFirst(int node, String key, int product) {
+        int cmp = compare(node, key, product);
+        if (cmp > 0) {
+            markFirst(get(node, LEFT), key, product);
+        } else if (cmp < 0) {
+            markFirst(get(node, RIGHT), key, product);
+        } else {
+            set(node, FIRST, 1);
+        }
+        refresh(node);
+    }
+
+    /**
+     * Recalcula los agregados de un nodo y lo rota si sus hijos difieren en altura en dos.
+     */
+    private int balance(int node) {
+        int diff = get(get(node, LEFT), HEIGHT) - get(get(node, RIGHT), HEIGHT);
+        if (diff > 1) {
+            int left = get(node, LEFT);
+            if (get(get(left, LEFT), HEIGHT) < get(get(left, RIGHT), HEIGHT)) {
+                set(node, LEFT, rotateLeft(left));
+            }
+            return rotateRight(node);
+        }
+        if (diff < -1) {
+            int right = get(node, RIGHT);
+            if (get(get(right, RIGHT), HEIGHT) < get(get(right, LEFT), HEIGHT)) {
+                set(node, RIGHT, rotateRight(right));
+            }
+            return rotateLeft(node);
+        }
+        refresh(node);
+        return node;
+    }
+
+    private int rotateLeft(int node) {
+        int right = get(node, RIGHT);
+        set(node, RIGHT, get(right, LEFT));
+        set(right, LEFT, node);
+        refresh(node);
+        refresh(right);
+        return right;
+    }
+
+    private int rotateRight(int node) {
+        int left = get(node, LEFT);
+        set(node, LEFT, get(left, RIGHT));
+        set(left, RIGHT, node);
+        refresh(node);
+        refresh(left);
+        return left;
+    }
+
+    private void refresh(int node) {
+        int left = get(node, LEFT);
+        int right = get(node, RIGHT);
+        set(node, HEIGHT, Math.max(get(left, HEIGHT), get(right, HEIGHT)) + 1);
+        set(node, DISTINCT, get(left, DISTINCT) + get(right, DISTINCT) + get(node, FIRST));
+    }
+
+    private int allocate(int product, boolean first) {
+        int node;
+        if (freeList != NIL) {
+            node = freeList;
+            freeList = get(node, LEFT);
+        } else {
+            node = nextNode++;
+            if ((node >>> BLOCK_SHIFT) == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blocks.length + 1);
+                blocks[blocks.length - 1] = ByteBuffer.allocateDirect(BLOCK_NODES * NODE_BYTES)
+                        .order(ByteOrder.nativeOrder());
+            }
+        }
+        set(node, PRODUCT, product);
+        set(node, LEFT, NIL);
+        set(node, RIGHT, NIL);
+        set(node, HEIGHT, 1);
+        set(node, FIRST, first ? 1 : 0);
+        set(node, DISTINCT, first ? 1 : 0);
+        return node;
+    }
+
+    private void free(int node) {
+        set(node, LEFT, freeList);
+        freeList = node;
+        nodes--;
+    }
+
+    private int product(int node) {
+        return get(node, PRODUCT);
+    }
+
+    /**
+     * Lee un campo de un nodo; el nodo vacío tiene todos sus campos en 0.
+     */
+    private int get(int node, int field) {
+        if (node == NIL) {
+            return 0;
+        }
+        return blocks[node >>> BLOCK_SHIFT].getInt((node & (BLOCK_NODES - 1)) * NODE_BYTES + field);
+    }
+
+    private void set(int node, int field, int value) {
+        blocks[node >>> BLOCK_SHIFT].putInt((node & (BLOCK_NODES - 1)) * NODE_BYTES + field, value);
+    }
+}
@@ -0,0 +1,661 @@
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Variante de {@link InventoryManager} para catálogos de decenas de millones de SKU,
+ * que guarda los productos y los nodos de sus índices fuera del heap de Java. Los
+ * registros viven en un {@link OffHeapProductStore} y los índices por SKU y por nombre
+ * son {@link OffHeapIndex}; en el heap no queda ningún objeto por producto, así que
+ * su uso se mantiene constante aunque el catálogo crezca y las pausas del recolector
+ * no dependen del tamaño del inventario.
+ * <p>
+ * Las búsquedas devuelven {@link OffHeapProduct}, vistas que decodifican cada campo
+ * al consultarlo y escriben los cambios directamente en el almacén. Los productos
+ * que se agregan se copian al almacén: modificar después el objeto original no
+ * cambia el inventario.
+ * <p>
+ * Los índices secundarios en el heap (palabras, todos los productos por nombre y
+ * existencias por talla) retendrían un objeto por producto, así que aquí no se
+ * mantienen: {@link #searchText}, {@link #countLowStock}, {@link #searchLowStock} y
+ * {@link #totalUnitsBySize} recorren el almacén en tiempo lineal con memoria
+ * constante, y {@link #searchAllByName} usa el índice por nombre, que conserva las
+ * claves repetidas. {@link #snapshot()} sí materializa una vista en el heap.
+ * <p>
+ * Igual que {@link InventoryManager}, no admite lecturas concurrentes con escrituras;
+ * las existencias de cada producto sí se modifican de forma atómica.
+ * En este modo los árboles heredados {@code skuTree} y {@code nameTree} no se usan.
+ */
+public class OffHeapInventoryManager extends InventoryManager {
+    private final OffHeapProductStore store;
+    private final OffHeapIndex bySku;
+    private final OffHeapIndex byName;
+
+    /**
+     * Constructor que usa bloques de registros de {@link OffHeapProductStore#DEFAULT_CHUNK_SIZE} bytes.
+     */
+    public OffHeapInventoryManager() {
+        this(OffHeapProductStore.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor que indica el tamaño de los bloques de registros.
+     * 
+     * @param chunkSize Tamaño en bytes de cada bloque de memoria directa.
+     */
+    public OffHeapInventoryManager(int chunkSize) {
+        store = new OffHeapProductStore(chunkSize);
+        bySku = new OffHeapIndex(store, OffHeapIndex.Key.SKU);
+        byName = new OffHeapIndex(store, OffHeapIndex.Key.NAME);
+        // Los árboles heredados no se usan; se reportan los índices y la memoria directa
+        metrics.clearGauges();
+        metrics.registerGauge("skuIndex.size", () -> bySku.size());
+        metrics.registerGauge("skuIndex.height", () -> bySku.height());
+        metrics.registerGauge("nameIndex.size", () -> byName.size());
+        metrics.registerGauge("nameIndex.height", () -> byName.height());
+        metrics.registerGauge("offHeap.reservedBytes",
+                () -> store.reservedBytes() + bySku.reservedBytes() + byName.reservedBytes());
+        metrics.registerGauge("offHeap.usedBytes", () -> store.usedBytes());
+        metrics.registerGauge("offHeap.obsoleteBytes", () -> store.obsoleteBytes());
+    }
+
+    /**
+     * Obtiene el almacén de registros, para consultar su uso de memoria.
+     * 
+     * @return Almacén de productos.
+     */
+    public OffHeapProductStore store() {
+        return store;
+    }
+
+    /**
+     * Recupera la memoria directa de los registros reemplazados y de los productos
+     * eliminados con {@link OffHeapProductStore#compact()}. No admite lecturas ni
+     * escrituras concurrentes, igual que las demás escrituras.
+     * 
+     * @return Bytes recuperados.
+     */
+    public long compact() {
+        return store.compact();
+    }
+
+    /**
+     * Recarga el inventario como {@link InventoryManager#reloadFromCSV} y, si más de la
+     * mitad de los bytes escritos en el almacén quedaron obsoletos, lo compacta.
+     * 
+     * @param filename Nombre del archivo CSV.
+     * @return Resumen de los cambios aplicados.
+     * @throws IOException Si el archivo no se puede leer o contiene filas inválidas.
+     */
+    @Override
+    public ReloadReport reloadFromCSV(String filename) throws IOException {
+        ReloadReport report = super.reloadFromCSV(filename);
+        if (2 * store.obsoleteBytes() > store.usedBytes()) {
+            store.compact();
+        }
+        return report;
+    }
+
+    /**
+     * Copia ambos índices a una vista inmutable en el heap, en tiempo lineal.
+     * 
+     * @return Vista del inventario en este instante.
+     */
+    @Override
+    public InventoryView snapshot() {
+        return new InventoryView(PersistentTree.fromSorted(entries(bySku)), PersistentTree.fromSorted(entries(byName)));
+    }
+
+    private List<Map.Entry<String, Product>> entries(OffHeapIndex index) {
+        List<Map.Entry<String, Product>> entries = new ArrayList<>(index.size());
+        for (PrimitiveIterator.OfInt ids = index.iterator(null, true); ids.hasNext();) {
+            int id = ids.nextInt();
+            String key = index == bySku ? store.sku(id) : store.name(id);
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(key, store.product(id)));
+        }
+        return entries;
+    }
+
+    /**
+     * Copia un lote de productos al almacén y los indexa. Los productos cuyo SKU ya
+     * existe se ignoran.
+     * 
+     * @param products Productos a indexar, en cualquier orden.
+     */
+    @Override
+    protected void indexProducts(List<Product> products) {
+        for (Product product : products) {
+            if (bySku.find(product.getSku()) < 0) {
+                index(store.add(product));
+            }
+        }
+    }
+
+    /**
+     * Reconstruye los índices desde un snapshot. Los productos del índice por nombre
+     * se copian primero para que sigan representando a su nombre.
+     * 
+     * @param bySku  Productos en orden ascendente de SKU.
+     * @param byName Productos del índice por nombre, en orden ascendente de nombre.
+     */
+    @Override
+    protected void restoreIndexes(List<Product> bySku, List<Product> byName) {
+        indexProducts(byName);
+        indexProducts(bySku);
+    }
+
+    private void index(int id) {
+        bySku.insert(id);
+        byName.insert(id);
+    }
+
+    /**
+     * Copia un producto al almacén y lo agrega a ambos índices.
+     * 
+     * @param product Producto a agregar.
+     * @return true si el producto se agregó, false si el SKU ya existía.
+     */
+    @Override
+    public boolean addProduct(Product product) {
+        long start = metrics.start();
+        if (bySku.find(product.getSku()) >= 0) {
+            return false;
+        }
+        int id = store.add(product);
+        index(id);
+        onProductAdded(store.product(id));
+        metrics.stop(InventoryMetrics.Operation.INSERT, start);
+        return true;
+    }
+
+    /**
+     * Elimina un producto de ambos índices. Si representaba a su nombre, el siguiente
+     * producto con ese nombre pasa a representarlo.
+     * 
+     * @param sku SKU del producto a eliminar.
+     * @return true si el producto existía y se eliminó, false si no existía.
+     */
+    @Override
+    public boolean removeProduct(String sku) {
+        long start = metrics.start();
+        int id = bySku.find(sku);
+        if (id < 0) {
+            return false;
+        }
+        bySku.remove(id);
+        byName.remove(id);
+        store.release(id);
+        onProductRemoved(store.product(id));
+        metrics.stop(InventoryMetrics.Operation.REMOVE, start);
+        return true;
+    }
+
+    /**
+     * Reemplaza un producto por otro con el mismo SKU. El nuevo se copia al almacén
+     * antes de liberar el anterior, así que no ocupa su lugar.
+     * 
+     * @param replacement Producto nuevo.
+     * @return true si había un producto con ese SKU y se reemplazó, false si no.
+     */
+    @Override
+    public boolean replaceProduct(Product replacement) {
+        long start = metrics.start();
+        int id = bySku.find(replacement.getSku());
+        if (id < 0) {
+            return false;
+        }
+        bySku.remove(id);
+        byName.remove(id);
+        int replacementId = store.add(replacement);
+        index(replacementId);
+        store.release(id);
+        onProductReplaced(store.product(id), store.product(replacementId));
+        metrics.stop(InventoryMetrics.Operation.EDIT, start);
+        return true;
+    }
+
+    /**
+     * Registra en la bitácora el producto agregado.
+     * 
+     * @param product Producto agregado.
+     */
+    @Override
+    protected void onProductAdded(Product product) {
+        logChange(journal -> journal.logAdd(product));
+    }
+
+    /**
+     * Registra en la bitácora el producto eliminado.
+     * 
+     * @param product Producto eliminado.
+     */
+    @Override
+    protected void onProductRemoved(Product product) {
+        logChange(journal -> journal.logRemove(product.getSku()));
+    }
+
+    /**
+     * Registra en la bitácora el producto nuevo.
+     * 
+     * @param product     Producto reemplazado.
+     * @param replacement Producto nuevo.
+     */
+    @Override
+    protected void onProductReplaced(Product product, Product replacement) {
+        logChange(journal -> journal.logReplace(replacement));
+    }
+
+    /**
+     * No hace nada: no hay índice de palabras que actualizar.
+     * 
+     * @param product        Producto ya modificado.
+     * @param oldDescription Descripción anterior.
+     */
+    @Override
+    protected void onDescriptionChanged(Product product, String oldDescription) {
+    }
+
+    /**
+     * No hace nada: no hay índice de existencias que actualizar.
+     * 
+     * @param product Producto ya modificado.
+     */
+    @Override
+    protected void onStockChanged(Product product) {
+    }
+
+    /**
+     * No hace nada: no hay índice de existencias que actualizar.
+     * 
+     * @param products Productos ya modificados.
+     */
+    @Override
+    protected void onStockChanged(Collection<Product> products) {
+    }
+
+    /**
+     * Obtiene la cantidad de productos del índice fuera del heap.
+     * 
+     * @return Número de SKU distintos.
+     */
+    @Override
+    public int size() {
+        return bySku.size();
+    }
+
+    /**
+     * Busca un producto por su SKU en el índice fuera del heap.
+     * 
+     * @param sku SKU del producto a buscar.
+     * @return El producto encontrado o null si no existe.
+     */
+    @Override
+    public Product searchBySku(String sku) {
+        long start = metrics.start();
+        Product product = product(bySku.find(sku));
+        metrics.stop(InventoryMetrics.Operation.SEARCH_BY_SKU, start);
+        return product;
+    }
+
+    /**
+     * Busca el producto que representa a un nombre.
+     * 
+     * @param name Nombre del producto a buscar.
+     * @return El producto encontrado o null si no existe.
+     */
+    @Override
+    public Product searchByName(String name) {
+        long start = metrics.start();
+        Product product = product(byName.find(name));
+        metrics.stop(InventoryMetrics.Operation.SEARCH_BY_NAME, start);
+        return product;
+    }
+
+    private Product product(int id) {
+        return id < 0 ? null : store.product(id);
+    }
+
+    /**
+     * Busca varios productos por SKU reutilizando un lote de resultados.
+     * 
+     * @param skus   SKU a buscar.
+     * @param result Lote donde dejar los resultados; se vacía antes de usarse.
+     * @return El lote recibido, con el producto de cada SKU o null.
+     */
+    @Override
+    public BatchLookup<String, Product> searchBySkus(Collection<String> skus, BatchLookup<String, Product> result) {
+        result.reset(skus);
+        for (int i = 0; i < result.size(); i++) {
+            result.set(i, product(bySku.find(result.key(i))));
+        }
+        return result;
+    }
+
+    /**
+     * Busca varios productos por nombre reutilizando un lote de resultados.
+     * 
+     * @param names  Nombres a buscar.
+     * @param result Lote donde dejar los resultados; se vacía antes de usarse.
+     * @return El lote recibido, con el producto de cada nombre o null.
+     */
+    @Override
+    public BatchLookup<String, Product> searchByNames(Collection<String> names, BatchLookup<String, Product> result) {
+        result.reset(names);
+        for (int i = 0; i < result.size(); i++) {
+            result.set(i, product(byName.find(result.key(i))));
+        }
+        return result;
+    }
+
+    /**
+     * Busca todos los productos que tienen exactamente un nombre.
+     * 
+     * @param name Nombre de los productos a buscar.
+     * @return Productos con ese nombre, en el orden en que se agregaron.
+     */
+    @Override
+    public List<Product> searchAllByName(String name) {
+        List<Product> products = new ArrayList<>();
+        for (PrimitiveIterator.OfInt ids = byName.iterator(name, false); ids.hasNext();) {
+            int id = ids.nextInt();
+            if (store.compareName(id, name) != 0) {
+                break;
+            }
+            products.add(store.product(id));
+        }
+        return products;
+    }
+
+    /**
+     * Busca productos por palabras del nombre o la descripción recorriendo el almacén,
+     * con la misma relevancia que {@link ProductSearchIndex}.
+     * 
+     * @param query Palabras a buscar.
+     * @param limit Cantidad máxima de resultados.
+     * @return Productos que contienen todas las palabras, de mayor a menor relevancia.
+     */
+    @Override
+    public List<Product> searchText(String query, int limit) {
+        List<String> terms = ProductSearchIndex.tokenize(query);
+        List<Product> results = new ArrayList<>();
+        if (terms.isEmpty() || limit <= 0) {
+            return results;
+        }
+        // Montículo con el peor de los mejores resultados en la cima
+        Comparator<Map.Entry<Product, Integer>> order = Comparator
+                .comparing((Map.Entry<Product, Integer> entry) -> entry.getValue())
+                .reversed()
+                .thenComparing(entry -> entry.getKey().getSku());
+        PriorityQueue<Map.Entry<Product, Integer>> best = new PriorityQueue<>(order.reversed());
+        for (PrimitiveIterator.OfInt ids = bySku.iterator(null, true); ids.hasNext();) {
+            int id = ids.nextInt();
+            int score = ProductSearchIndex.score(terms, store.name(id), store.description(id));
+            if (score > 0) {
+                best.add(new AbstractMap.SimpleImmutableEntry<>(store.product(id), score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<Map.Entry<Product, Integer>> ranked = new ArrayList<>(best);
+        ranked.sort(order);
+        for (Map.Entry<Product, Integer> entry : ranked) {
+            results.add(entry.getKey());
+        }
+        return results;
+    }
+
+    /**
+     * Cuenta los productos que manejan una talla y tienen menos unidades que un umbral,
+     * recorriendo el almacén.
+     * 
+     * @param size      Etiqueta de la talla.
+     * @param threshold Umbral, exclusivo.
+     * @return Cantidad de productos por debajo del umbral.
+     */
+    @Override
+    public int countLowStock(String size, int threshold) {
+        int sizeId = SizeDictionary.find(size);
+        int count = 0;
+        if (sizeId < 0) {
+            return count;
+        }
+        for (PrimitiveIterator.OfInt ids = bySku.iterator(null, true); ids.hasNext();) {
+            int quantity = store.stock(ids.nextInt(), sizeId);
+            if (quantity != Product.ABSENT && quantity < threshold) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Busca los productos que manejan una talla y tienen menos unidades que un umbral,
+     * recorriendo el almacén y conservando solo los {@code limit} de menor cantidad.
+     * 
+     * @param size      Etiqueta de la talla.
+     * @param threshold Umbral, exclusivo.
+     * @param limit     Cantidad máxima de resultados.
+     * @return Productos de menor a mayor cantidad de esa talla; a igual cantidad, por SKU.
+     */
+    @Override
+    public List<Product> searchLowStock(String size, int threshold, int limit) {
+        int sizeId = SizeDictionary.find(size);
+        List<Product> results = new ArrayList<>();
+        if (sizeId < 0 || limit <= 0) {
+            return results;
+        }
+        // Cada candidato es {cantidad, posición por SKU, producto}; como el recorrido es
+        // por SKU, desempatar por posición equivale a desempatar por SKU
+        Comparator<long[]> order = Comparator.<long[]>comparingLong(entry -> entry[0])
+                .thenComparingLong(entry -> entry[1]);
+        PriorityQueue<long[]> best = new PriorityQueue<>(order.reversed());
+        long position = 0;
+        for (PrimitiveIterator.OfInt ids = bySku.iterator(null, true); ids.hasNext(); position++) {
+            int id = ids.nextInt();
+            int quantity = store.stock(id, sizeId);
+            if (quantity != Product.ABSENT && quantity < threshold) {
+                best.add(new long[] {quantity, position, id});
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<long[]> ranked = new ArrayList<>(best);
+        ranked.sort(order);
+        for (long[] entry : ranked) {
+            results.add(store.product((int) entry[2]));
+        }
+        return results;
+    }
+
+    /**
+     * Suma las unidades de cada talla recorriendo el almacén.
+     * 
+     * @return Total de unidades por talla, en el orden de los identificadores de talla.
+     */
+    @Override
+    public Map<String, Long> totalUnitsBySize() {
+        long[] totals = new long[SizeDictionary.size()];
+        boolean[] managed = new boolean[totals.length];
+        int[] levels = new int[totals.length];
+        for (PrimitiveIterator.OfInt ids = bySku.iterator(null, true); ids.hasNext();) {
+            int id = ids.nextInt();
+            int length = store.copyStockLevels(id, levels);
+            if (length > levels.length) {
+                levels = new int[length];
+                length = store.copyStockLevels(id, levels);
+            }
+            if (length > totals.length) {
+                totals = Arrays.copyOf(totals, length);
+                managed = Arrays.copyOf(managed, length);
+            }
+            for (int sizeId = 0; sizeId < length; sizeId++) {
+                if (levels[sizeId] != Product.ABSENT) {
+                    totals[sizeId] += levels[sizeId];
+                    managed[sizeId] = true;
+                }
+            }
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int sizeId = 0; sizeId < totals.length; sizeId++) {
+            if (managed[sizeId]) {
+                result.put(SizeDictionary.labelOf(sizeId), totals[sizeId]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Muestra los productos en orden ascendente por SKU.
+     */
+    @Override
+    public void listProductsBySku() {
+        System.out.println("Productos ordenados por SKU:");
+        forEachBySku(System.out::println);
+    }
+
+    /**
+     * Muestra los productos en orden ascendente por nombre.
+     */
+    @Override
+    public void listProductsByName() {
+        System.out.println("Productos ordenados por Nombre:");
+        forEachByName(System.out::println);
+    }
+
+    /**
+     * Recorre los productos en orden ascendente por SKU.
+     * 
+     * @param action Acción a aplicar a cada producto.
+     */
+    @Override
+    public void forEachBySku(Consumer<? super Product> action) {
+        for (PrimitiveIterator.OfInt ids = bySku.iterator(null, true); ids.hasNext();) {
+            action.accept(store.product(ids.nextInt()));
+        }
+    }
+
+    /**
+     * Recorre los productos que representan a cada nombre, en orden ascendente.
+     * 
+     * @param action Acción a aplicar a cada producto.
+     */
+    @Override
+    public void forEachByName(Consumer<? super Product> action) {
+        for (PrimitiveIterator.OfInt ids = byName.iterator(null, true); ids.hasNext();) {
+            action.accept(store.product(ids.nextInt()));
+        }
+    }
+
+    /**
+     * Obtiene una página del listado por SKU, en O(log n + limit).
+     * 
+     * @param offset Posición del primer producto, empezando en 0.
+     * @param limit  Cantidad máxima de productos.
+     * @return Productos de la página ordenados por SKU.
+     */
+    @Override
+    public List<Product> pageBySku(int offset, int limit) {
+        return page(bySku, offset, limit);
+    }
+
+    /**
+     * Obtiene una página del listado por nombre, en O(log n + limit).
+     * 
+     * @param offset Posición del primer producto, empezando en 0.
+     * @param limit  Cantidad máxima de productos.
+     * @return Productos de la página ordenados por nombre.
+     */
+    @Override
+    public List<Product> pageByName(int offset, int limit) {
+        return page(byName, offset, limit);
+    }
+
+    private List<Product> page(OffHeapIndex index, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Posición y cantidad deben ser no negativas: " + offset + ", " + limit);
+        }
+        List<Product> products = new ArrayList<>(Math.min(limit, Math.max(0, index.size() - offset)));
+        if (offset >= index.size() || limit == 0) {
+            return products;
+        }
+        int first = index.select(offset);
+        String fromKey = index == bySku ? store.sku(first) : store.name(first);
+        for (PrimitiveIterator.OfInt ids = index.iterator(fromKey, true); ids.hasNext() && products.size() < limit;) {
+            products.add(store.product(ids.nextInt()));
+        }
+        return products;
+    }
+
+    /**
+     * Obtiene la posición que ocupa (u ocuparía) un SKU en el listado por SKU.
+     * 
+     * @param sku SKU de referencia.
+     * @return Cantidad de productos con SKU menor.
+     */
+    @Override
+    public int rankBySku(String sku) {
+        return bySku.rank(sku);
+    }
+
+    /**
+     * Obtiene la posición que ocupa (u ocuparía) un nombre en el listado por nombre.
+     * 
+     * @param name Nombre de referencia.
+     * @return Cantidad de nombres menores.
+     */
+    @Override
+    public int rankByName(String name) {
+        return byName.rank(name);
+    }
+
+    /**
+     * Busca los productos cuyo SKU está entre dos valores, ambos inclusive.
+     * 
+     * @param fromSku SKU inicial del rango.
+     * @param toSku   SKU final del rango.
+     * @return Productos del rango ordenados por SKU.
+     */
+    @Override
+    public List<Product> searchBySkuRange(String fromSku, String toSku) {
+        List<Product> products = new ArrayList<>();
+        for (PrimitiveIterator.OfInt ids = bySku.iterator(fromSku, true); ids.hasNext();) {
+            int id = ids.nextInt();
+            if (store.compareSku(id, toSku) > 0) {
+                break;
+            }
+            products.add(store.product(id));
+        }
+        return products;
+    }
+
+    /**
+     * Busca los productos cuyo nombre empieza con un prefijo, con asterisco final opcional.
+     * 
+     * @param pattern Prefijo del nombre, con o sin asterisco final.
+     * @return Productos cuyo nombre empieza con el prefijo, ordenados por nombre.
+     */
+    @Override
+    public List<Product> searchByNamePrefix(String pattern) {
+        String prefix = stripWildcard(pattern);
+        List<Product> products = new ArrayList<>();
+        for (PrimitiveIterator.OfInt ids = byName.iterator(prefix, true); ids.hasNext();) {
+            int id = ids.nextInt();
+            if (!store.nameStartsWith(id, prefix)) {
+                break;
+            }
+            products.add(store.product(id));
+        }
+        return products;
+    }
+}
@@ -0,0 +1,207 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class OffHeapInventoryManagerTest {
+    private OffHeapInventoryManager inventory;
+
+    @BeforeEach
+    void setUp() {
+        // Bloques pequeños para que los registros ocupen varios
+        inventory = new OffHeapInventoryManager(4096);
+    }
+
+    /**
+     * Prueba de que la vista del producto lee y escribe sobre el almacén.
+     */
+    @Test
+    void testProductViewWritesThrough() {
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("m", 5);
+        Product original = new Product("123", "Camisa", "Camisa de algodón", sizes);
+        assertTrue(inventory.addProduct(original));
+        assertFalse(inventory.addProduct(new Product("123", "Otra", "Repetida", sizes)));
+
+        Product product = inventory.searchBySku("123");
+        assertEquals(product, inventory.searchByName("Camisa"));
+        assertEquals("Camisa de algodón", product.getDescription());
+        assertEquals(original.toString(), product.toString());
+        assertEquals(original.contentHash(), product.contentHash());
+
+        // Agregar una talla sin espacio en el registro lo mueve a uno nuevo
+        product.setStock("talla-nueva-off-heap", 4);
+        assertEquals(6, product.incrementStock("m", 1));
+        assertTrue(product.decrementStock("talla-nueva-off-heap", 4));
+        assertFalse(product.decrementStock("m", 7));
+        assertTrue(inventory.updateDescription("123", "Camisa técnica"));
+        assertEquals(Map.of("m", 6, "talla-nueva-off-heap", 0), inventory.searchBySku("123").getSizes());
+        assertEquals("Camisa técnica", inventory.searchByName("Camisa").getDescription());
+        assertEquals(Map.of("m", 5), original.getSizes());
+        assertTrue(inventory.store().obsoleteBytes() > 0);
+
+        assertTrue(inventory.removeProduct("123"));
+        assertNull(inventory.searchBySku("123"));
+        assertEquals("Camisa técnica", product.getDescription());
+    }
+
+    /**
+     * Prueba de que compactar recupera los registros obsoletos sin alterar los productos
+     * vigentes, y de que los eliminados dejan de poder leerse.
+     */
+    @Test
+    void testCompactReclaimsObsoleteRecords() {
+        for (int i = 0; i < 50; i++) {
+            Map<String, Integer> sizes = new HashMap<>();
+            sizes.put("m", i);
+            inventory.addProduct(new Product(String.format("%03d", i), "Producto " + i, "Tela", sizes));
+        }
+        Product removed = inventory.searchBySku("000");
+        for (int i = 0; i < 50; i += 2) {
+            String sku = String.format("%03d", i);
+            inventory.updateDescription(sku, "Tela técnica " + i);
+            inventory.searchBySku(sku).setStock("talla-nueva-" + i, i);
+        }
+        for (int i = 0; i < 50; i += 5) {
+            inventory.removeProduct(String.format("%03d", i));
+        }
+        long used = inventory.store().usedBytes();
+        long obsolete = inventory.store().obsoleteBytes();
+        assertTrue(obsolete > 0);
+
+        assertEquals(obsolete, inventory.compact());
+        assertEquals(0, inventory.store().obsoleteBytes());
+        assertEquals(used - obsolete, inventory.store().usedBytes());
+        assertEquals(40, inventory.size());
+        for (int i = 0; i < 50; i++) {
+            Product product = inventory.searchBySku(String.format("%03d", i));
+            if (i % 5 == 0) {
+                assertNull(product);
+                continue;
+            }
+            assertEquals("Producto " + i, product.getName());
+            assertEquals(i % 2 == 0 ? "Tela técnica " + i : "Tela", product.getDescription());
+            assertEquals(i, product.getStock("m"));
+            assertEquals(i + 1, product.incrementStock("m", 1));
+        }
+        assertEquals(4, inventory.searchBySku("003").getStock("m"));
+        assertThrows(IllegalStateException.class, removed::getDescription);
+    }
+
+    /**
+     * Prueba de que con las mismas operaciones responde igual que {@link InventoryManager},
+     * incluidos los nombres repetidos y las consultas que recorren el almacén.
+     */
+    @Test
+    void testMatchesHeapInventory() throws Exception {
+        InventoryManager expected = new InventoryManager();
+        Random random = new Random(21);
+        String[] sizes = {"s", "m", "l", "xl"};
+        for (int i = 0; i < 3_000; i++) {
+            String sku = String.format("%05d", random.nextInt(2_000));
+            int op = random.nextInt(10);
+            if (op < 5) {
+                Product product = product(random, sku, sizes);
+                assertEquals(expected.addProduct(product), inventory.addProduct(copy(product)));
+            } else if (op < 7) {
+                assertEquals(expected.removeProduct(sku), inventory.removeProduct(sku));
+            } else if (op == 7) {
+                Product product = product(random, sku, sizes);
+                assertEquals(expected.replaceProduct(product), inventory.replaceProduct(copy(product)));
+            } else if (op == 8) {
+                String size = sizes[random.nextInt(sizes.length)];
+                int quantity = random.nextInt(10);
+                assertEquals(expected.setStock(sku, size, quantity), inventory.setStock(sku, size, quantity));
+            } else {
+                String description = "Tela " + random.nextInt(5) + " ligera";
+                assertEquals(expected.updateDescription(sku, description), inventory.updateDescription(sku, description));
+            }
+        }
+
+        assertEquals(rows(expected.pageBySku(0, Integer.MAX_VALUE)), rows(inventory.pageBySku(0, Integer.MAX_VALUE)));
+        assertEquals(rows(expected.pageByName(0, Integer.MAX_VALUE)), rows(inventory.pageByName(0, Integer.MAX_VALUE)));
+        assertEquals(rows(expected.pageBySku(100, 25)), rows(inventory.pageBySku(100, 25)));
+        assertEquals(rows(expected.pageByName(7, 3)), rows(inventory.pageByName(7, 3)));
+        assertEquals(expected.rankBySku("01000"), inventory.rankBySku("01000"));
+        assertEquals(expected.rankByName("Producto 3"), inventory.rankByName("Producto 3"));
+        assertEquals(rows(expected.searchBySkuRange("00500", "00600")), rows(inventory.searchBySkuRange("00500", "00600")));
+        assertEquals(rows(expected.searchByNamePrefix("Producto 1*")), rows(inventory.searchByNamePrefix("Producto 1*")));
+        for (int n = 0; n < 40; n++) {
+            String name = "Producto " + n;
+            assertEquals(rows(List.of(expected.searchByName(name))), rows(List.of(inventory.searchByName(name))));
+            assertEquals(rows(expected.searchAllByName(name)), rows(inventory.searchAllByName(name)));
+        }
+        assertEquals(rows(expected.searchText("tela lig", 20)), rows(inventory.searchText("tela lig", 20)));
+        assertEquals(rows(expected.searchText("producto 2", 15)), rows(inventory.searchText("producto 2", 15)));
+        for (String size : sizes) {
+            assertEquals(expected.countLowStock(size, 4), inventory.countLowStock(size, 4));
+            assertEquals(rows(expected.searchLowStock(size, 4, 30)), rows(inventory.searchLowStock(size, 4, 30)));
+        }
+        assertEquals(expected.totalUnitsBySize(), inventory.totalUnitsBySize());
+
+        ByteArrayOutputStream heapCsv = new ByteArrayOutputStream();
+        ByteArrayOutputStream offHeapCsv = new ByteArrayOutputStream();
+        expected.export(heapCsv, InventoryExporter.Format.CSV);
+        inventory.export(offHeapCsv, InventoryExporter.Format.CSV);
+        assertEquals(heapCsv.toString("UTF-8"), offHeapCsv.toString("UTF-8"));
+    }
+
+    /**
+     * Prueba de que los incrementos concurrentes no se pierden aunque el registro se
+     * mueva mientras tanto por tallas nuevas.
+     */
+    @Test
+    void testConcurrentIncrementsSurviveRelocation() throws Exception {
+        inventory.addProduct(new Product("001", "Media", "", new HashMap<>()));
+        Product product = inventory.searchBySku("001");
+        int threads = 4;
+        int perThread = 5_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            tasks.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    product.incrementStock("compartida", 1);
+                    if (i % 1_000 == 0) {
+                        inventory.searchBySku("001").setStock("propia-" + thread + "-" + i, i);
+                    }
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        pool.shutdown();
+        assertEquals(threads * perThread, inventory.searchBySku("001").getStock("compartida"));
+        assertEquals(1_000, product.getStock("propia-2-1000"));
+    }
+
+    private static Product product(Random random, String sku, String[] sizes) {
+        Map<String, Integer> stock = new HashMap<>();
+        for (int i = random.nextInt(3); i >= 0; i--) {
+            stock.put(sizes[random.nextInt(sizes.length)], random.nextInt(10));
+        }
+        return new Product(sku, "Producto " + random.nextInt(40), "Tela " + random.nextInt(5), stock);
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getSku(), product.getName(), product.getDescription(), product.getSizes());
+    }
+
+    private static List<String> rows(List<Product> products) {
+        List<String> rows = new ArrayList<>();
+        for (Product product : products) {
+            rows.add(product == null ? "null" : product.toString());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,214 @@
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Producto cuyos datos viven en un {@link OffHeapProductStore}. El objeto solo guarda
+ * el almacén y el identificador del registro: cada consulta decodifica el campo en el
+ * momento y cada cambio se escribe directamente en el almacén, así que crear una de
+ * estas vistas por búsqueda no deja nada retenido en el heap.
+ * <p>
+ * Dos vistas del mismo registro son iguales según {@link #equals}, aunque sean
+ * objetos distintos.
+ */
+public final class OffHeapProduct extends Product {
+    private static final int[] NO_STOCK = new int[0];
+
+    private final OffHeapProductStore store;
+    private final int id;
+
+    /**
+     * Crea la vista de un registro.
+     * 
+     * @param store Almacén que contiene el registro.
+     * @param id    Identificador del producto en el almacén.
+     */
+    OffHeapProduct(OffHeapProductStore store, int id) {
+        super(null, null, null, NO_STOCK);
+        this.store = store;
+        this.id = id;
+    }
+
+    /**
+     * Obtiene el identificador del producto en su almacén.
+     * 
+     * @return Identificador del registro.
+     */
+    int id() {
+        return id;
+    }
+
+    /**
+     * Obtiene el SKU, decodificado del registro.
+     * 
+     * @return El código único del producto.
+     */
+    @Override
+    public String getSku() {
+        return store.sku(id);
+    }
+
+    /**
+     * Obtiene el nombre, decodificado del registro.
+     * 
+     * @return Nombre del producto.
+     */
+    @Override
+    public String getName() {
+        return store.name(id);
+    }
+
+    /**
+     * Obtiene la descripción vigente, decodificada del registro.
+     * 
+     * @return Descripción del producto.
+     */
+    @Override
+    public String getDescription() {
+        return store.description(id);
+    }
+
+    @Override
+    int[] stockLevels() {
+        int[] levels = new int[SizeDictionary.size()];
+        int length;
+        while ((length = store.copyStockLevels(id, levels)) > levels.length) {
+            levels = new int[length];
+        }
+        return length == levels.length ? levels : Arrays.copyOf(levels, length);
+    }
+
+    @Override
+    int copyStockLevels(int[] target) {
+        return store.copyStockLevels(id, target);
+    }
+
+    /**
+     * Obtiene la cantidad disponible de una talla leyendo el registro.
+     * 
+     * @param size Etiqueta de la talla.
+     * @return Cantidad disponible, o 0 si el producto no maneja esa talla.
+     */
+    @Override
+    public int getStock(String size) {
+        int sizeId = SizeDictionary.find(size);
+        if (sizeId < 0) {
+            return 0;
+        }
+        int quantity = store.stock(id, sizeId);
+        return quantity == ABSENT ? 0 : quantity;
+    }
+
+    /**
+     * Cambia la descripción; el almacén escribe un registro nuevo.
+     * 
+     * @param description Nueva descripción del producto.
+     */
+    @Override
+    public void setDescription(String description) {
+        store.setDescription(id, description);
+    }
+
+    /**
+     * Reemplaza las tallas; el almacén escribe un registro nuevo.
+     * 
+     * @param sizes Nuevo mapa de tallas con sus cantidades.
+     */
+    @Override
+    public void setSizes(Map<String, Integer> sizes) {
+        store.setStockLevels(id, toStock(sizes));
+    }
+
+    /**
+     * Fija atómicamente la cantidad de una talla en el registro.
+     * 
+     * @param size     Etiqueta de la talla.
+     * @param quantity Nueva cantidad disponible.
+     */
+    @Override
+    public void setStock(String size, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa: " + quantity);
+        }
+        int sizeId = SizeDictionary.idOf(size);
+        while (true) {
+            int old = store.stock(id, sizeId);
+            if (store.compareAndSetStock(id, sizeId, old, quantity)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Aumenta atómicamente la cantidad de una talla en el registro.
+     * 
+     * @param size   Etiqueta de la talla.
+     * @param amount Unidades a agregar.
+     * @return Nueva cantidad disponible.
+     */
+    @Override
+    public int incrementStock(String size, int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa: " + amount);
+        }
+        int sizeId = SizeDictionary.idOf(size);
+        while (true) {
+            int old = store.stock(id, sizeId);
+            long updated = (long) (old == ABSENT ? 0 : old) + amount;
+            if (updated > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("La cantidad supera el máximo: " + updated);
+            }
+            if (store.compareAndSetStock(id, sizeId, old, (int) updated)) {
+                return (int) updated;
+            }
+        }
+    }
+
+    /**
+     * Disminuye atómicamente la cantidad de una talla en el registro, si alcanza.
+     * 
+     * @param size   Etiqueta de la talla.
+     * @param amount Unidades a retirar.
+     * @return true si se retiraron las unidades, false si no había suficientes.
+     */
+    @Override
+    public boolean decrementStock(String size, int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa: " + amount);
+        }
+        int sizeId = SizeDictionary.find(size);
+        if (sizeId < 0) {
+            return false;
+        }
+        while (true) {
+            int old = store.stock(id, sizeId);
+            if (old == ABSENT || old < amount) {
+                return false;
+            }
+            if (store.compareAndSetStock(id, sizeId, old, old - amount)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Compara dos vistas por almacén e identificador de registro.
+     * 
+     * @param other Objeto a comparar.
+     * @return true si ambas vistas corresponden al mismo registro.
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof OffHeapProduct
+                && ((OffHeapProduct) other).store == store && ((OffHeapProduct) other).id == id;
+    }
+
+    /**
+     * Calcula el hash a partir del identificador del registro.
+     * 
+     * @return Hash de la vista.
+     */
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(id);
+    }
+}
@@ -0,0 +1,478 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Almacén de productos fuera del heap de Java, en bloques de {@link ByteBuffer}
+ * directos. Cada producto es un registro contiguo con sus existencias por talla y
+ * los caracteres de su SKU, nombre y descripción; el recolector de basura no ve
+ * ninguno de esos datos, así que el heap no crece con el catálogo.
+ * <p>
+ * Cada producto recibe un identificador entero que nunca se reutiliza. Una tabla de
+ * direcciones, también fuera del heap, traduce el identificador a la posición de su
+ * registro. Los registros no se modifican en su lugar salvo las existencias: cambiar
+ * la descripción, reemplazar las tallas o agregar una talla para la que no hay
+ * espacio escribe un registro nuevo y actualiza la dirección. Los registros viejos y
+ * los de productos eliminados quedan en su bloque hasta que se llama a
+ * {@link #compact()}, que copia los vigentes a bloques nuevos y suelta los anteriores;
+ * mientras tanto su tamaño se reporta en {@link #obsoleteBytes()}.
+ * <p>
+ * Las existencias usan el mismo protocolo que {@link Product}: se modifican con
+ * operaciones atómicas y, al mover un registro, cada posición vieja se marca como
+ * movida para que una actualización concurrente se reintente sobre el registro nuevo.
+ * Las cadenas se guardan como caracteres UTF-16 para compararlas con una clave sin
+ * decodificarlas y con el mismo orden que {@link String#compareTo}.
+ */
+public final class OffHeapProductStore {
+    /**
+     * Tamaño por defecto de cada bloque de registros.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+
+    /**
+     * Marca temporal de una posición cuyo valor se está copiando a un registro nuevo.
+     */
+    private static final int MOVED = Integer.MIN_VALUE;
+
+    /**
+     * Dirección de un producto eliminado cuyo registro ya se descartó al compactar.
+     */
+    private static final long DISCARDED = -1;
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /**
+     * Encabezado del registro: cantidad de posiciones de existencias y largo en
+     * caracteres del SKU, el nombre y la descripción.
+     */
+    private static final int SLOTS = 0;
+    private static final int SKU_LENGTH = 4;
+    private static final int NAME_LENGTH = 8;
+    private static final int DESCRIPTION_LENGTH = 12;
+    private static final int HEADER_BYTES = 16;
+
+    private static final int HANDLE_BLOCK_SHIFT = 14;
+    private static final int HANDLE_BLOCK = 1 << HANDLE_BLOCK_SHIFT;
+
+    private final int chunkSize;
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private volatile ByteBuffer[] handles = new ByteBuffer[0];
+    private volatile int size;
+    private int position;
+    private long usedBytes;
+    private long obsoleteBytes;
+    private final BitSet released = new BitSet();
+
+    /**
+     * Crea un almacén vacío con bloques de {@link #DEFAULT_CHUNK_SIZE} bytes.
+     */
+    public OffHeapProductStore() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Crea un almacén vacío.
+     * 
+     * @param chunkSize Tamaño de cada bloque de registros; ningún registro puede ser
+     *                  más grande.
+     */
+    public OffHeapProductStore(int chunkSize) {
+        if (chunkSize < 1024) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser de al menos 1024 bytes: " + chunkSize);
+        }
+        this.chunkSize = chunkSize & ~7;
+    }
+
+    /**
+     * Copia un producto al almacén.
+     * 
+     * @param product Producto a copiar; el objeto no queda referenciado.
+     * @return Identificador del producto en el almacén.
+     */
+    public synchronized int add(Product product) {
+        int[] levels = product.stockLevels();
+        long address = write(product.getSku(), product.getName(), product.getDescription(), levels, levels.length);
+        int id = size;
+        if ((id >>> HANDLE_BLOCK_SHIFT) == handles.length) {
+            ByteBuffer[] grown = Arrays.copyOf(handles, handles.length + 1);
+            grown[handles.length] = ByteBuffer.allocateDirect(HANDLE_BLOCK * Long.BYTES).order(ByteOrder.nativeOrder());
+            handles = grown;
+        }
+        setAddress(id, address);
+        size = id + 1;
+        return id;
+    }
+
+    /**
+     * Marca como obsoleto el registro de un producto que salió del inventario. El
+     * identificador sigue siendo válido para quien aún tenga el producto, hasta la
+     * siguiente llamada a {@link #compact()}.
+     * 
+     * @param id Identificador del producto.
+     */
+    public synchronized void release(int id) {
+        if (!released.get(id)) {
+            obsoleteBytes += recordBytes(address(id));
+            released.set(id);
+        }
+    }
+
+    /**
+     * Copia los registros vigentes, uno tras otro, a bloques nuevos y suelta los
+     * bloques anteriores, con lo que se recupera el espacio de los registros
+     * reemplazados y de los productos eliminados. Los identificadores no cambian,
+     * pero las vistas de productos eliminados dejan de poder leerse.
+     * <p>
+     * Igual que las demás escrituras del inventario, no debe ejecutarse mientras otros
+     * hilos leen o modifican productos.
+     * 
+     * @return Bytes recuperados.
+     */
+    public synchronized long compact() {
+        long recovered = obsoleteBytes;
+        ByteBuffer[] old = chunks;
+        chunks = new ByteBuffer[0];
+        position = 0;
+        usedBytes = 0;
+        for (int id = 0; id < size; id++) {
+            long address = (long) LONG.getVolatile(handles[id >>> HANDLE_BLOCK_SHIFT],
+                    (id & (HANDLE_BLOCK - 1)) * Long.BYTES);
+            if (released.get(id) || address == DISCARDED) {
+                setAddress(id, DISCARDED);
+                continue;
+            }
+            ByteBuffer source = old[(int) (address >>> 32)];
+            int bytes = (int) recordBytes(source, (int) address);
+            ByteBuffer target = reserve(bytes);
+            target.put(position, source, (int) address, bytes);
+            setAddress(id, ((long) (chunks.length - 1) << 32) | position);
+            position += bytes;
+            usedBytes += bytes;
+        }
+        obsoleteBytes = 0;
+        return recovered;
+    }
+
+    /**
+     * Obtiene una vista del producto que lee sus datos del almacén al consultarlos.
+     * 
+     * @param id Identificador del producto.
+     * @return Producto asociado al registro.
+     */
+    public Product product(int id) {
+        return new OffHeapProduct(this, id);
+    }
+
+    /**
+     * Obtiene la cantidad de identificadores asignados.
+     * 
+     * @return Productos copiados al almacén, incluidos los ya eliminados.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Obtiene la memoria fuera del heap reservada por el almacén.
+     * 
+     * @return Bytes reservados en bloques de registros y en la tabla de direcciones.
+     */
+    public long reservedBytes() {
+        return (long) chunks.length * chunkSize + (long) handles.length * HANDLE_BLOCK * Long.BYTES;
+    }
+
+    /**
+     * Obtiene los bytes ocupados por registros, vigentes u obsoletos.
+     * 
+     * @return Bytes escritos en los bloques.
+     */
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Obtiene los bytes de registros que ya no pertenecen a ningún producto vigente.
+     * 
+     * @return Bytes de registros reemplazados o de productos eliminados.
+     */
+    public synchronized long obsoleteBytes() {
+        return obsoleteBytes;
+    }
+
+    String sku(int id) {
+        long address = address(id);
+        return string(address, SKU_LENGTH, offset(address, SKU_LENGTH));
+    }
+
+    String name(int id) {
+        long address = address(id);
+        return string(address, NAME_LENGTH, offset(address, NAME_LENGTH));
+    }
+
+    String description(int id) {
+        long address = address(id);
+        return string(address, DESCRIPTION_LENGTH, offset(address, DESCRIPTION_LENGTH));
+    }
+
+    /**
+     * Compara el SKU de un producto con una clave, con el mismo resultado que
+     * {@code sku(id).compareTo(key)} pero sin crear la cadena.
+     */
+    int compareSku(int id, String key) {
+        long address = address(id);
+        return compare(address, SKU_LENGTH, offset(address, SKU_LENGTH), key, false);
+    }
+
+    /**
+     * Compara el nombre de un producto con una clave, con el mismo resultado que
+     * {@code name(id).compareTo(key)} pero sin crear la cadena.
+     */
+    int compareName(int id, String key) {
+        long address = address(id);
+        return compare(address, NAME_LENGTH, offset(address, NAME_LENGTH), key, false);
+    }
+
+    boolean nameStartsWith(int id, String prefix) {
+        long address = address(id);
+        return compare(address, NAME_LENGTH, offset(address, NAME_LENGTH), prefix, true) == 0;
+    }
+
+    /**
+     * Obtiene la cantidad de una talla.
+     * 
+     * @return Cantidad, o {@link Product#ABSENT} si el producto no maneja la talla.
+     */
+    int stock(int id, int sizeId) {
+        while (true) {
+            long address = address(id);
+            ByteBuffer chunk = chunk(address);
+            int base = (int) address;
+            if (sizeId >= chunk.getInt(base + SLOTS)) {
+                return Product.ABSENT;
+            }
+            int quantity = (int) INT.getVolatile(chunk, slot(base, sizeId));
+            if (quantity != MOVED) {
+                return quantity;
+            }
+        }
+    }
+
+    /**
+     * Copia las existencias de un producto, igual que {@link Product#copyStockLevels}.
+     */
+    int copyStockLevels(int id, int[] target) {
+        while (true) {
+            long address = address(id);
+            ByteBuffer chunk = chunk(address);
+            int base = (int) address;
+            int slots = chunk.getInt(base + SLOTS);
+            if (slots > target.length) {
+                return slots;
+            }
+            int sizeId = 0;
+            while (sizeId < slots) {
+                int quantity = (int) INT.getVolatile(chunk, slot(base, sizeId));
+                if (quantity == MOVED) {
+                    break;
+                }
+                target[sizeId++] = quantity;
+            }
+            if (sizeId == slots) {
+                return slots;
+            }
+        }
+    }
+
+    /**
+     * Cambia atómicamente la cantidad de una talla si vale lo esperado. Si el registro
+     * no tiene espacio para la talla, se mueve a uno que sí lo tenga.
+     * 
+     * @return true si se cambió; false si la cantidad ya no era la esperada o el
+     *         registro se estaba moviendo, y hay que volver a leerla.
+     */
+    boolean compareAndSetStock(int id, int sizeId, int expected, int quantity) {
+        long address = address(id);
+        if (sizeId >= chunk(address).getInt((int) address + SLOTS)) {
+            relocate(id, null, null, sizeId + 1);
+            return false;
+        }
+        return INT.compareAndSet(chunk(address), slot((int) address, sizeId), expected, quantity);
+    }
+
+    /**
+     * Cambia la descripción de un producto escribiendo un registro nuevo.
+     */
+    void setDescription(int id, String description) {
+        relocate(id, description, null, 0);
+    }
+
+    /**
+     * Reemplaza las existencias de un producto escribiendo un registro nuevo.
+     */
+    void setStockLevels(int id, int[] levels) {
+        relocate(id, null, levels, 0);
+    }
+
+    /**
+     * Escribe un registro nuevo para un producto y publica su dirección. Las posiciones
+     * de existencias del registro viejo se marcan como movidas antes de copiarlas.
+     */
+    private synchronized void relocate(int id, String description, int[] levels, int minSlots) {
+        long address = address(id);
+        ByteBuffer chunk = chunk(address);
+        int base = (int) address;
+        int slots = chunk.getInt(base + SLOTS);
+        if (levels == null && description == null && minSlots <= slots) {
+            // Otro hilo ya movió el registro a uno con espacio
+            return;
+        }
+        int[] values = new int[slots];
+        for (int sizeId = 0; sizeId < slots; sizeId++) {
+            values[sizeId] = (int) INT.getAndSet(chunk, slot(base, sizeId), MOVED);
+        }
+        if (levels == null) {
+            levels = values;
+        }
+        int capacity = Math.max(levels.length, minSlots > slots ? Math.max(minSlots, SizeDictionary.size()) : 0);
+        String sku = string(address, SKU_LENGTH, offset(address, SKU_LENGTH));
+        String name = string(address, NAME_LENGTH, offset(address, NAME_LENGTH));
+        if (description == null) {
+            description = string(address, DESCRIPTION_LENGTH, offset(address, DESCRIPTION_LENGTH));
+        }
+        obsoleteBytes += recordBytes(address);
+        setAddress(id, write(sku, name, description, levels, capacity));
+    }
+
+    /**
+     * Escribe un registro al final del último bloque, abriendo uno nuevo si no cabe.
+     */
+    private long write(String sku, String name, String description, int[] levels, int slots) {
+        long bytes = HEADER_BYTES + (long) slots * Integer.BYTES
+                + 2L * ((long) sku.length() + name.length() + description.length());
+        if (bytes > chunkSize) {
+            throw new IllegalArgumentException("El producto " + sku + " ocupa " + bytes
+                    + " bytes y no cabe en un bloque de " + chunkSize);
+        }
+        int aligned = (int) ((bytes + 7) & ~7);
+        ByteBuffer chunk = reserve(aligned);
+        int base = position;
+        chunk.putInt(base + SLOTS, slots);
+        chunk.putInt(base + SKU_LENGTH, sku.length());
+        chunk.putInt(base + NAME_LENGTH, name.length());
+        chunk.putInt(base + DESCRIPTION_LENGTH, description.length());
+        for (int sizeId = 0; sizeId < slots; sizeId++) {
+            chunk.putInt(slot(base, sizeId), sizeId < levels.length ? levels[sizeId] : Product.ABSENT);
+        }
+        int at = slot(base, slots);
+        at = putChars(chunk, at, sku);
+        at = putChars(chunk, at, name);
+        putChars(chunk, at, description);
+        position += aligned;
+        usedBytes += aligned;
+        return ((long) (chunks.length - 1) << 32) | base;
+    }
+
+    /**
+     * Obtiene el bloque donde caben los bytes indicados a partir de {@code position},
+     * abriendo uno nuevo si el último no tiene espacio.
+     */
+    private ByteBuffer reserve(int aligned) {
+        if (chunks.length == 0 || position + aligned > chunkSize) {
+            ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = ByteBuffer.allocateDirect(chunkSize).order(ByteOrder.nativeOrder());
+            chunks = grown;
+            position = 0;
+        }
+        return chunks[chunks.length - 1];
+    }
+
+    private static int putChars(ByteBuffer chunk, int at, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            chunk.putChar(at, text.charAt(i));
+            at += 2;
+        }
+        return at;
+    }
+
+    private String string(long address, int field, int at) {
+        ByteBuffer chunk = chunk(address);
+        char[] chars = new char[chunk.getInt((int) address + field)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = chunk.getChar(at);
+            at += 2;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Compara una cadena guardada con una clave como {@link String#compareTo}; con
+     * {@code prefix} solo se comparan los primeros caracteres de la clave.
+     */
+    private int compare(long address, int field, int at, String key, boolean prefix) {
+        ByteBuffer chunk = chunk(address);
+        int length = chunk.getInt((int) address + field);
+        int common = Math.min(length, key.length());
+        for (int i = 0; i < common; i++) {
+            char c = chunk.getChar(at);
+            if (c != key.charAt(i)) {
+                return c - key.charAt(i);
+            }
+            at += 2;
+        }
+        return prefix && length >= key.length() ? 0 : length - key.length();
+    }
+
+    /**
+     * Calcula la posición de los caracteres de un campo dentro del registro.
+     */
+    private int offset(long address, int field) {
+        ByteBuffer chunk = chunk(address);
+        int base = (int) address;
+        int at = slot(base, chunk.getInt(base + SLOTS));
+        if (field >= NAME_LENGTH) {
+            at += 2 * chunk.getInt(base + SKU_LENGTH);
+        }
+        if (field >= DESCRIPTION_LENGTH) {
+            at += 2 * chunk.getInt(base + NAME_LENGTH);
+        }
+        return at;
+    }
+
+    private long recordBytes(long address) {
+        return recordBytes(chunk(address), (int) address);
+    }
+
+    private static long recordBytes(ByteBuffer chunk, int base) {
+        long bytes = HEADER_BYTES + (long) chunk.getInt(base + SLOTS) * Integer.BYTES
+                + 2L * ((long) chunk.getInt(base + SKU_LENGTH) + chunk.getInt(base + NAME_LENGTH)
+                + chunk.getInt(base + DESCRIPTION_LENGTH));
+        return (bytes + 7) & ~7;
+    }
+
+    private static int slot(int base, int sizeId) {
+        return base + HEADER_BYTES + sizeId * Integer.BYTES;
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks[(int) (address >>> 32)];
+    }
+
+    private long address(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Producto inexistente en el almacén: " + id);
+        }
+        long address = (long) LONG.getVolatile(handles[id >>> HANDLE_BLOCK_SHIFT], (id & (HANDLE_BLOCK - 1)) * Long.BYTES);
+        if (address == DISCARDED) {
+            throw new IllegalStateException("El producto " + id + " se eliminó y su registro se descartó al compactar");
+        }
+        return address;
+    }
+
+    private void setAddress(int id, long address) {
+        LONG.setVolatile(handles[id >>> HANDLE_BLOCK_SHIFT], (id & (HANDLE_BLOCK - 1)) * Long.BYTES, address);
+    }
+}
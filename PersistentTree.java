@@ -0,0 +1,574 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Árbol de búsqueda persistente (inmutable) balanceado como árbol AVL.
+ * Ninguna operación modifica el árbol: insertar, reemplazar o eliminar devuelve un
+ * árbol nuevo que copia solo los nodos del camino desde la raíz hasta el cambio
+ * (O(log n) nodos) y comparte el resto con la versión anterior.
+ * <p>
+ * Como cada versión es inmutable, se puede recorrer desde cualquier hilo sin candados
+ * mientras otros hilos crean versiones nuevas: quien tiene una referencia al árbol ve
+ * siempre el mismo contenido. Publicar una versión nueva es cambiar una referencia.
+ * 
+ * @param <K> Tipo de clave, debe ser comparable.
+ * @param <V> Tipo de valor asociado a la clave.
+ */
+public final class PersistentTree<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>> {
+    private static final PersistentTree<?, ?> EMPTY = new PersistentTree<>(null);
+
+    private final Node<K, V> root;
+
+    /**
+     * Nodo inmutable. Guarda la altura para el balanceo y el tamaño del subárbol.
+     */
+    private static final class Node<K, V> implements Map.Entry<K, V> {
+        final K key;
+        final V value;
+        final Node<K, V> left, right;
+        final int height;
+        final int size;
+
+        Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("Las entradas del árbol son de solo lectura");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private PersistentTree(Node<K, V> root) {
+        this.root = root;
+    }
+
+    /**
+     * Obtiene el árbol vacío.
+     * 
+     * @param <K> Tipo de clave.
+     * @param <V> Tipo de valor.
+     * @return Árbol sin entradas.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<K>, V> PersistentTree<K, V> empty() {
+        return (PersistentTree<K, V>) EMPTY;
+    }
+
+    /**
+     * Construye un árbol perfectamente balanceado a partir de entradas ya ordenadas,
+     * en tiempo lineal y sin comparar claves.
+     * 
+     * @param <K>     Tipo de clave.
+     * @param <V>     Tipo de valor.
+     * @param entries Entradas en orden estrictamente ascendente de clave.
+     * @return Árbol con esas entradas.
+     */
+    public static <K extends Comparable<K>, V> PersistentTree<K, V> fromSorted(
+            List<? extends Map.Entry<K, V>> entries) {
+        if (entries.isEmpty()) {
+            return empty();
+        }
+        return new PersistentTree<>(build(entries, 0, entries.size()));
+    }
+
+    private static <K, V> Node<K, V> build(List<? extends Map.Entry<K, V>> entries, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Map.Entry<K, V> entry = entries.get(mid);
+        return new Node<>(entry.getKey(), entry.getValue(), build(entries, from, mid), build(entries, mid + 1, to));
+    }
+
+    /**
+     * Busca el valor asociado a una clave.
+     * 
+     * @param key Clave a buscar.
+     * @return Valor asociado, o null si la clave no existe.
+     */
+    public V get(K key) {
+        Node<K, V> current = root;
+        while (current != null) {
+            int cmp = key.compareTo(current.key);
+            if (cmp == 0) {
+                return current.value;
+            }
+            current = cmp < 0 ? current.left : current.right;
+        }
+        return null;
+    }
+
+    /**
+     * Busca todas las claves de un lote en un solo recorrido del árbol. Las claves se
+     * ordenan y se reparten entre los subárboles a medida que se desciende, de modo que
+     * cada nodo se visita a lo sumo una vez y los caminos compartidos desde la raíz se
+     * recorren una sola vez en lugar de una por clave.
+     * 
+     * @param batch Lote con las claves a buscar; recibe los resultados.
+     * @return El mismo lote, con el valor de cada clave o null si no existe.
+     */
+    public BatchLookup<K, V> searchAll(BatchLookup<K, V> batch) {
+        int n = batch.size();
+        if (n == 0) {
+            return batch;
+        }
+        int[] order = batch.sortedOrder();
+        // Cada nivel deja pendiente a lo sumo un subárbol derecho
+        Object[] nodes = new Object[height(root) + 1];
+        int[] bounds = new int[2 * nodes.length];
+        nodes[0] = root;
+        bounds[0] = 0;
+        bounds[1] = n;
+        int top = 1;
+        while (top > 0) {
+            top--;
+            @SuppressWarnings("unchecked")
+            Node<K, V> node = (Node<K, V>) nodes[top];
+            nodes[top] = null;
+            int lo = bounds[2 * top];
+            int hi = bounds[2 * top + 1];
+            if (node == null) {
+                for (int i = lo; i < hi; i++) {
+                    batch.set(order[i], null);
+                }
+                continue;
+            }
+            // Primera posición del rango cuya clave no es menor que la del nodo
+            int first = lo;
+            int last = hi;
+            while (first < last) {
+                int mid = (first + last) >>> 1;
+                if (batch.key(order[mid]).compareTo(node.key) < 0) {
+                    first = mid + 1;
+                } else {
+                    last = mid;
+                }
+            }
+            int after = first;
+            while (after < hi && batch.key(order[after]).compareTo(node.key) == 0) {
+                batch.set(order[after], node.value);
+                after++;
+            }
+            if (after < hi) {
+                nodes[top] = node.right;
+                bounds[2 * top] = after;
+                bounds[2 * top + 1] = hi;
+                top++;
+            }
+            if (lo < first) {
+                nodes[top] = node.left;
+                bounds[2 * top] = lo;
+                bounds[2 * top + 1] = first;
+                top++;
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Obtiene una versión del árbol en la que la clave tiene el valor dado, agregándola
+     * o reemplazando su valor anterior.
+     * 
+     * @param key   Clave.
+     * @param value Valor.
+     * @return Árbol nuevo, o este mismo si la clave ya tenía ese valor.
+     */
+    public PersistentTree<K, V> put(K key, V value) {
+        Node<K, V> updated = put(root, key, value, true);
+        return updated == root ? this : new PersistentTree<>(updated);
+    }
+
+    /**
+     * Obtiene una versión del árbol con la clave agregada, si no existía.
+     * 
+     * @param key   Clave.
+     * @param value Valor.
+     * @return Árbol nuevo, o este mismo si la clave ya existía.
+     */
+    public PersistentTree<K, V> putIfAbsent(K key, V value) {
+        Node<K, V> updated = put(root, key, value, false);
+        return updated == root ? this : new PersistentTree<>(updated);
+    }
+
+    /**
+     * Obtiene una versión del árbol sin una clave.
+     * 
+     * @param key Clave a quitar.
+     * @return Árbol nuevo, o este mismo si la clave no existía.
+     */
+    public PersistentTree<K, V> remove(K key) {
+        Node<K, V> updated = remove(root, key);
+        return updated == root ? this : new PersistentTree<>(updated);
+    }
+
+    /**
+     * Obtiene la cantidad de entradas, en tiempo constante.
+     * 
+     * @return Número de entradas.
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Indica si el árbol no tiene entradas.
+     * 
+     * @return true si está vacío.
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Obtiene la altura del árbol, en tiempo constante.
+     * 
+     * @return Altura (0 si está vacío).
+     */
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * Cuenta las claves menores que una dada, en O(log n).
+     * 
+     * @param key Clave de referencia; no necesita existir en el árbol.
+     * @return Cantidad de claves estrictamente menores.
+     */
+    public int rank(K key) {
+        int rank = 0;
+        Node<K, V> current = root;
+        while (current != null) {
+            if (key.compareTo(current.key) <= 0) {
+                current = current.left;
+            } else {
+                rank += size(current.left) + 1;
+                current = current.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Obtiene la entrada que ocupa una posición en orden ascendente de clave, en O(log n).
+     * 
+     * @param index Posición, empezando en 0.
+     * @return Entrada de solo lectura en esa posición.
+     * @throws IndexOutOfBoundsException Si la posición no está entre 0 y size() - 1.
+     */
+    public Map.Entry<K, V> select(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Posición " + index + " fuera del árbol de " + size());
+        }
+        return new EntryIterator(index).next();
+    }
+
+    /**
+     * Obtiene una página de entradas en orden ascendente de clave, en O(log n + limit).
+     * 
+     * @param offset Posición de la primera entrada, empezando en 0.
+     * @param limit  Cantidad máxima de entradas.
+     * @return Entradas de la página; vacía si la posición está fuera del árbol.
+     */
+    public List<Map.Entry<K, V>> page(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Posición y límite no pueden ser negativos: " + offset + ", " + limit);
+        }
+        List<Map.Entry<K, V>> page = new ArrayList<>(Math.min(limit, Math.max(0, size() - offset)));
+        for (Iterator<Map.Entry<K, V>> it = new EntryIterator(offset); it.hasNext() && page.size() < limit; ) {
+            page.add(it.next());
+        }
+        return page;
+    }
+
+    /**
+     * Recorre los valores en orden ascendente de clave.
+     * 
+     * @param action Acción a aplicar a cada valor.
+     */
+    public void forEachValue(Consumer<? super V> action) {
+        for (Map.Entry<K, V> entry : this) {
+            action.accept(entry.getValue());
+        }
+    }
+
+    /**
+     * Obtiene un iterador sobre todas las entradas en orden ascendente de clave.
+     * 
+     * @return Iterador perezoso de entradas de solo lectura.
+     */
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator(null, true, null, false, null);
+    }
+
+    /**
+     * Obtiene las entradas cuyas claves están entre dos límites.
+     * 
+     * @param fromKey       Límite inferior.
+     * @param fromInclusive true si el límite inferior forma parte del rango.
+     * @param toKey         Límite superior.
+     * @param toInclusive   true si el límite superior forma parte del rango.
+     * @return Vista perezosa de las entradas del rango.
+     */
+    public Iterable<Map.Entry<K, V>> range(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return () -> new EntryIterator(fromKey, fromInclusive, toKey, toInclusive, null);
+    }
+
+    /**
+     * Obtiene las entradas cuyas claves empiezan con un prefijo.
+     * Solo es válido en árboles cuyas claves son de tipo String.
+     * 
+     * @param prefix Prefijo a buscar.
+     * @return Vista perezosa de las entradas con ese prefijo, en orden.
+     */
+    @SuppressWarnings("unchecked")
+    public Iterable<Map.Entry<K, V>> prefix(String prefix) {
+        return () -> new EntryIterator((K) prefix, true, null, false, prefix);
+    }
+
+    /**
+     * Copia los valores a una lista, en orden ascendente de clave.
+     * 
+     * @param entries Entradas a copiar, por ejemplo un rango.
+     * @param <K>     Tipo de clave.
+     * @param <V>     Tipo de valor.
+     * @return Lista nueva con los valores.
+     */
+    public static <K, V> List<V> values(Iterable<Map.Entry<K, V>> entries) {
+        List<V> values = new ArrayList<>();
+        for (Map.Entry<K, V> entry : entries) {
+            values.add(entry.getValue());
+        }
+        return values;
+    }
+
+    private static <K extends Comparable<K>, V> Node<K, V> put(Node<K, V> node, K key, V value, boolean replace) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp == 0) {
+            if (!replace || node.value == value) {
+                return node;
+            }
+            return new Node<>(node.key, value, node.left, node.right);
+        }
+        if (cmp < 0) {
+            Node<K, V> left = put(node.left, key, value, replace);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        Node<K, V> right = put(node.right, key, value, replace);
+        return right == node.right ? node : balance(node.key, node.value, node.left, right);
+    }
+
+    private static <K extends Comparable<K>, V> Node<K, V> remove(Node<K, V> node, K key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            Node<K, V> left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        if (cmp > 0) {
+            Node<K, V> right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // El sucesor toma el lugar del nodo eliminado
+        Node<K, V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, removeFirst(node.right));
+    }
+
+    private static <K, V> Node<K, V> removeFirst(Node<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeFirst(node.left), node.right);
+    }
+
+    /**
+     * Crea un nodo con los hijos dados y lo rota si sus alturas difieren en dos.
+     */
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int diff = height(left) - height(right);
+        if (diff > 1) {
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left.key, left.value, left.left, left.right);
+            }
+            return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+        }
+        if (diff < -1) {
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right.key, right.value, right.left, right.right);
+            }
+            return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    private static <K, V> Node<K, V> rotateLeft(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+    }
+
+    private static <K, V> Node<K, V> rotateRight(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Iterador en orden con una pila explícita, ya que los nodos no tienen enlace al
+     * padre (un nodo puede pertenecer a varias versiones). La pila mide a lo sumo la
+     * altura del árbol.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final K toKey;
+        private final boolean toInclusive;
+        private final String prefix;
+        private final Object[] stack = new Object[height(root)];
+        private int depth;
+        private Node<K, V> next;
+
+        EntryIterator(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive, String prefix) {
+            this.toKey = toKey;
+            this.toInclusive = toInclusive;
+            this.prefix = prefix;
+            // Baja hasta el límite inferior guardando los nodos que quedan pendientes
+            Node<K, V> current = root;
+            while (current != null) {
+                int cmp = fromKey == null ? -1 : fromKey.compareTo(current.key);
+                if (cmp < 0 || (cmp == 0 && fromInclusive)) {
+                    stack[depth++] = current;
+                    if (cmp == 0) {
+                        break;
+                    }
+                    current = current.left;
+                } else {
+                    current = current.right;
+                }
+            }
+            advance();
+        }
+
+        /**
+         * Iterador que empieza en una posición, bajando por los tamaños de los subárboles.
+         */
+        EntryIterator(int index) {
+            this.toKey = null;
+            this.toInclusive = false;
+            this.prefix = null;
+            Node<K, V> current = root;
+            while (current != null) {
+                int left = size(current.left);
+                if (index <= left) {
+                    stack[depth++] = current;
+                    if (index == left) {
+                        break;
+                    }
+                    current = current.left;
+                } else {
+                    index -= left + 1;
+                    current = current.right;
+                }
+            }
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            if (depth == 0) {
+                next = null;
+                return;
+            }
+            Node<K, V> node = (Node<K, V>) stack[--depth];
+            stack[depth] = null;
+            for (Node<K, V> current = node.right; current != null; current = current.left) {
+                stack[depth++] = current;
+            }
+            next = withinBounds(node);
+        }
+
+        private Node<K, V> withinBounds(Node<K, V> node) {
+            if (toKey != null) {
+                int cmp = node.key.compareTo(toKey);
+                if (cmp > 0 || (cmp == 0 && !toInclusive)) {
+                    return null;
+                }
+            }
+            if (prefix != null && !((String) node.key).startsWith(prefix)) {
+                return null;
+            }
+            return node;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            Node<K, V> current = next;
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return current;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class PersistentTreeTest {
+
+    @Test
+    void testMatchesTreeMap() {
+        PersistentTree<Integer, Integer> tree = PersistentTree.empty();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(20_000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    tree = tree.remove(key);
+                    expected.remove(key);
+                    break;
+                case 1:
+                    tree = tree.put(key, i);
+                    expected.put(key, i);
+                    break;
+                default:
+                    tree = tree.putIfAbsent(key, i);
+                    expected.putIfAbsent(key, i);
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected.entrySet()), entries(tree));
+        for (int key = 0; key < 20_000; key += 7) {
+            assertEquals(expected.get(key), tree.get(key));
+        }
+        // Un árbol AVL mide a lo sumo 1,44 log2(n + 2)
+        assertTrue(tree.height() <= 1.45 * Math.log(tree.size() + 2) / Math.log(2), "altura " + tree.height());
+    }
+
+    @Test
+    void testOldVersionsDoNotChange() {
+        PersistentTree<String, Integer> empty = PersistentTree.empty();
+        PersistentTree<String, Integer> one = empty.put("B", 1);
+        PersistentTree<String, Integer> two = one.put("A", 2).put("C", 3);
+        PersistentTree<String, Integer> removed = two.remove("B");
+        PersistentTree<String, Integer> replaced = two.put("A", 20);
+
+        assertTrue(empty.isEmpty());
+        assertEquals(List.of(Map.entry("B", 1)), entries(one));
+        assertEquals(List.of(Map.entry("A", 2), Map.entry("B", 1), Map.entry("C", 3)), entries(two));
+        assertEquals(List.of(Map.entry("A", 2), Map.entry("C", 3)), entries(removed));
+        assertEquals(20, replaced.get("A"));
+        assertEquals(2, two.get("A"));
+
+        assertSame(two, two.remove("Z"));
+        assertSame(two, two.putIfAbsent("A", 99));
+        assertSame(two, two.put("C", 3));
+    }
+
+    @Test
+    void testRangesAndBulkBuild() {
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>();
+        String[] keys = {"Camiseta A", "Camiseta B", "Gorra", "Short", "Sudadera"};
+        for (int i = 0; i < keys.length; i++) {
+            sorted.add(Map.entry(keys[i], i));
+        }
+        PersistentTree<String, Integer> tree = PersistentTree.fromSorted(sorted);
+        assertEquals(5, tree.size());
+        assertEquals(3, tree.height());
+        assertEquals(sorted, entries(tree));
+        assertEquals(List.of(0, 1), PersistentTree.values(tree.prefix("Camiseta")));
+        assertEquals(List.of(2, 3), PersistentTree.values(tree.range("Gorra", true, "Sudadera", false)));
+        assertEquals(List.of(3, 4), PersistentTree.values(tree.range("Gorra", false, "Z", true)));
+        assertTrue(PersistentTree.values(tree.prefix("Z")).isEmpty());
+        assertTrue(PersistentTree.fromSorted(new ArrayList<Map.Entry<String, Integer>>()).isEmpty());
+    }
+
+    private static <K extends Comparable<K>, V> List<Map.Entry<K, V>> entries(PersistentTree<K, V> tree) {
+        List<Map.Entry<K, V>> entries = new ArrayList<>();
+        for (Map.Entry<K, V> entry : tree) {
+            entries.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        return entries;
+    }
+
+    @Test
+    void testRankSelectAndPage() {
+        PersistentTree<Integer, Integer> tree = PersistentTree.empty();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(8);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(10_000);
+            if (random.nextInt(4) == 0) {
+                tree = tree.remove(key);
+                expected.remove(key);
+            } else {
+                tree = tree.put(key, key);
+                expected.put(key, key);
+            }
+        }
+        List<Integer> keys = new ArrayList<>(expected.keySet());
+        for (int i = 0; i < keys.size(); i += 41) {
+            assertEquals(keys.get(i), tree.select(i).getKey());
+            assertEquals(i, tree.rank(keys.get(i)));
+            int probe = random.nextInt(10_002) - 1;
+            assertEquals(expected.headMap(probe).size(), tree.rank(probe));
+        }
+        List<Integer> page = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : tree.page(500, 25)) {
+            page.add(entry.getKey());
+        }
+        assertEquals(keys.subList(500, 525), page);
+        assertEquals(2, tree.page(keys.size() - 2, 10).size());
+        assertTrue(tree.page(keys.size() + 5, 10).isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> PersistentTree.<Integer, Integer>empty().select(0));
+    }
+
+    @Test
+    void testSearchAllMatchesGet() {
+        PersistentTree<Integer, Integer> tree = PersistentTree.empty();
+        Random random = new Random(9);
+        for (int i = 0; i < 10_000; i++) {
+            tree = tree.put(random.nextInt(20_000), i);
+        }
+        BatchLookup<Integer, Integer> batch = new BatchLookup<>();
+        for (int round = 0; round < 5; round++) {
+            List<Integer> probes = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                probes.add(random.nextInt(20_100) - 50);
+            }
+            probes.add(probes.get(0));
+            assertSame(batch, tree.searchAll(batch.reset(probes)));
+            int found = 0;
+            for (int i = 0; i < probes.size(); i++) {
+                assertEquals(probes.get(i), batch.key(i));
+                assertEquals(tree.get(probes.get(i)), batch.value(i));
+                if (batch.value(i) != null) {
+                    found++;
+                }
+            }
+            assertEquals(found, batch.found());
+        }
+        PersistentTree<Integer, Integer> empty = PersistentTree.empty();
+        assertEquals(0, empty.searchAll(batch.reset(List.of(1, 2))).found());
+        assertEquals(List.of(), tree.searchAll(batch.reset(List.of())).foundValues());
+    }
+}
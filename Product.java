@@ -1,13 +1,32 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Representa un producto con SKU, nombre, descripción y tallas disponibles.
+ * Las existencias se guardan en un arreglo de enteros indexado por el identificador
+ * de cada talla en {@link SizeDictionary}; las operaciones de existencias por talla
+ * son atómicas y no copian estructuras.
  */
 public class Product {
+    /**
+     * Marca de una talla que el producto no maneja.
+     */
+    static final int ABSENT = -1;
+
+    /**
+     * Marca temporal de una posición cuyo valor se está copiando a un arreglo nuevo.
+     */
+    private static final int MOVED = Integer.MIN_VALUE;
+
+    private static final VarHandle STOCK = MethodHandles.arrayElementVarHandle(int[].class);
+
     private String sku;
     private String name;
     private String description;
-    private Map<String, Integer> sizes;
+    private volatile int[] stock;
 
     /**
      * Constructor de la clase Product.
@@ -16,12 +35,55 @@ public class Product {
      * @param name        Nombre del producto.
      * @param description Descripción del producto.
      * @param sizes       Mapa con las tallas disponibles y su cantidad.
+     * @throws IllegalArgumentException Si alguna cantidad es negativa.
      */
     public Product(String sku, String name, String description, Map<String, Integer> sizes) {
+        this(sku, name, description, toStock(sizes));
+    }
+
+    /**
+     * Constructor que recibe directamente el arreglo de existencias por identificador
+     * de talla, con {@link #ABSENT} en las tallas que el producto no maneja.
+     * 
+     * @param sku         Código único del producto.
+     * @param name        Nombre del producto.
+     * @param description Descripción del producto.
+     * @param stock       Existencias indexadas por identificador de talla.
+     */
+    Product(String sku, String name, String description, int[] stock) {
         this.sku = sku;
         this.name = name;
         this.description = description;
-        this.sizes = sizes;
+        this.stock = stock;
+    }
+
+    /**
+     * Convierte un mapa de tallas al arreglo de existencias por identificador de talla.
+     * 
+     * @param sizes Tallas con su cantidad.
+     * @return Existencias indexadas por identificador de talla.
+     * @throws IllegalArgumentException Si alguna cantidad es negativa.
+     */
+    static int[] toStock(Map<String, Integer> sizes) {
+        int[] ids = new int[sizes.size()];
+        int[] quantities = new int[sizes.size()];
+        int max = -1;
+        int i = 0;
+        for (Map.Entry<String, Integer> size : sizes.entrySet()) {
+            int quantity = size.getValue();
+            if (quantity < 0) {
+                throw new IllegalArgumentException("La cantidad no puede ser negativa: " + quantity);
+            }
+            ids[i] = SizeDictionary.idOf(size.getKey());
+            quantities[i] = quantity;
+            max = Math.max(max, ids[i++]);
+        }
+        int[] stock = new int[max + 1];
+        Arrays.fill(stock, ABSENT);
+        for (i = 0; i < ids.length; i++) {
+            stock[ids[i]] = quantities[i];
+        }
+        return stock;
     }
 
     /**
@@ -52,12 +114,86 @@ public class Product {
     }
 
     /**
-     * Obtiene las tallas disponibles del producto y sus cantidades.
+     * Obtiene una copia de las tallas disponibles del producto y sus cantidades.
      * 
      * @return Mapa con tallas y su cantidad disponible.
      */
     public Map<String, Integer> getSizes() { 
-        return sizes; 
+        Map<String, Integer> sizes = new HashMap<>();
+        int[] levels = stockLevels();
+        for (int id = 0; id < levels.length; id++) {
+            if (levels[id] != ABSENT) {
+                sizes.put(SizeDictionary.labelOf(id), levels[id]);
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Obtiene una copia de las existencias indexadas por identificador de talla, con
+     * {@link #ABSENT} en las tallas que el producto no maneja.
+     * 
+     * @return Copia del arreglo de existencias.
+     */
+    int[] stockLevels() {
+        int[] levels = new int[stock.length];
+        int length;
+        while ((length = copyStockLevels(levels)) > levels.length) {
+            levels = new int[length];
+        }
+        return length == levels.length ? levels : Arrays.copyOf(levels, length);
+    }
+
+    /**
+     * Copia las existencias a un arreglo que el llamador reutiliza entre productos.
+     * Si el arreglo no alcanza no se copia nada y se devuelve el tamaño necesario.
+     * 
+     * @param target Arreglo destino.
+     * @return Cantidad de posiciones copiadas, o el tamaño necesario si es mayor que
+     *         el del destino.
+     */
+    int copyStockLevels(int[] target) {
+        while (true) {
+            int[] current = stock;
+            if (current.length > target.length) {
+                return current.length;
+            }
+            int id = 0;
+            while (id < current.length) {
+                int quantity = (int) STOCK.getVolatile(current, id);
+                if (quantity == MOVED) {
+                    // El arreglo se está reemplazando: volver a empezar sobre el nuevo
+                    break;
+                }
+                target[id++] = quantity;
+            }
+            if (id == current.length) {
+                return current.length;
+            }
+        }
+    }
+
+    /**
+     * Obtiene la cantidad disponible de una talla.
+     * 
+     * @param size Etiqueta de la talla.
+     * @return Cantidad disponible, o 0 si el producto no maneja esa talla.
+     */
+    public int getStock(String size) {
+        int id = SizeDictionary.find(size);
+        if (id < 0) {
+            return 0;
+        }
+        while (true) {
+            int[] current = stock;
+            if (id >= current.length) {
+                return 0;
+            }
+            int quantity = (int) STOCK.getVolatile(current, id);
+            if (quantity != MOVED) {
+                return quantity == ABSENT ? 0 : quantity;
+            }
+        }
     }
 
     /**
@@ -73,9 +209,166 @@ public class Product {
      * Modifica las tallas disponibles del producto.
      * 
      * @param sizes Nuevo mapa de tallas con sus cantidades.
+     * @throws IllegalArgumentException Si alguna cantidad es negativa.
      */
-    public void setSizes(Map<String, Integer> sizes) { 
-        this.sizes = sizes; 
+    public synchronized void setSizes(Map<String, Integer> sizes) {
+        int[] replacement = toStock(sizes);
+        freeze(stock);
+        stock = replacement;
+    }
+
+    /**
+     * Fija la cantidad disponible de una talla, agregándola si el producto no la tenía.
+     * 
+     * @param size     Etiqueta de la talla.
+     * @param quantity Nueva cantidad disponible.
+     */
+    public void setStock(String size, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa: " + quantity);
+        }
+        int id = SizeDictionary.idOf(size);
+        while (true) {
+            int[] current = slotsFor(id);
+            int old = (int) STOCK.getVolatile(current, id);
+            if (old != MOVED && STOCK.compareAndSet(current, id, old, quantity)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Aumenta atómicamente la cantidad disponible de una talla, agregándola si el
+     * producto no la tenía.
+     * 
+     * @param size   Etiqueta de la talla.
+     * @param amount Unidades a agregar.
+     * @return Nueva cantidad disponible.
+     * @throws IllegalArgumentException Si la cantidad es negativa o el resultado supera
+     *                                  {@link Integer#MAX_VALUE}.
+     */
+    public int incrementStock(String size, int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa: " + amount);
+        }
+        int id = SizeDictionary.idOf(size);
+        while (true) {
+            int[] current = slotsFor(id);
+            int old = (int) STOCK.getVolatile(current, id);
+            if (old == MOVED) {
+                continue;
+            }
+            long updated = (long) (old == ABSENT ? 0 : old) + amount;
+            if (updated > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("La cantidad supera el máximo: " + updated);
+            }
+            if (STOCK.compareAndSet(current, id, old, (int) updated)) {
+                return (int) updated;
+            }
+        }
+    }
+
+    /**
+     * Disminuye atómicamente la cantidad disponible de una talla. La operación no se
+     * realiza si el producto no maneja la talla o no tiene suficientes unidades.
+     * 
+     * @param size   Etiqueta de la talla.
+     * @param amount Unidades a retirar.
+     * @return true si se retiraron las unidades, false si no había suficientes.
+     */
+    public boolean decrementStock(String size, int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa: " + amount);
+        }
+        int id = SizeDictionary.find(size);
+        if (id < 0) {
+            return false;
+        }
+        while (true) {
+            int[] current = stock;
+            if (id >= current.length) {
+                return false;
+            }
+            int old = (int) STOCK.getVolatile(current, id);
+            if (old == MOVED) {
+                continue;
+            }
+            if (old == ABSENT || old < amount) {
+                return false;
+            }
+            if (STOCK.compareAndSet(current, id, old, old - amount)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Obtiene el arreglo de existencias actual, ampliándolo si aún no tiene espacio
+     * para el identificador de talla indicado.
+     */
+    private int[] slotsFor(int id) {
+        int[] current = stock;
+        return id < current.length ? current : grow(id);
+    }
+
+    /**
+     * Copia las existencias a un arreglo más grande. Cada posición del arreglo viejo
+     * se marca como movida al copiarla, así una actualización concurrente sobre el
+     * arreglo viejo falla y se reintenta sobre el nuevo en vez de perderse.
+     */
+    private synchronized int[] grow(int id) {
+        int[] current = stock;
+        if (id < current.length) {
+            return current;
+        }
+        int[] grown = new int[Math.max(id + 1, SizeDictionary.size())];
+        Arrays.fill(grown, ABSENT);
+        int[] values = freeze(current);
+        System.arraycopy(values, 0, grown, 0, values.length);
+        stock = grown;
+        return grown;
+    }
+
+    /**
+     * Marca todas las posiciones de un arreglo como movidas.
+     * 
+     * @return Copia de los valores que tenía el arreglo antes de marcarlo.
+     */
+    private static int[] freeze(int[] slots) {
+        int[] values = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            values[i] = (int) STOCK.getAndSet(slots, i, MOVED);
+        }
+        return values;
+    }
+
+    /**
+     * Calcula un hash de 64 bits (FNV-1a) del contenido del producto: nombre,
+     * descripción y existencias por talla. Sirve para detectar filas modificadas al
+     * recargar el inventario sin comparar campo por campo.
+     * 
+     * @return Hash del contenido; el SKU no forma parte de él.
+     */
+    long contentHash() {
+        long hash = 0xCBF29CE484222325L;
+        hash = hashChars(hash, getName());
+        hash = hashChars(hash, getDescription());
+        int[] levels = stockLevels();
+        for (int id = 0; id < levels.length; id++) {
+            if (levels[id] != ABSENT) {
+                hash = (hash ^ id) * 0x100000001B3L;
+                hash = (hash ^ levels[id]) * 0x100000001B3L;
+            }
+        }
+        return hash;
+    }
+
+    private static long hashChars(long hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001B3L;
+        }
+        // Separador para que "ab" + "c" no coincida con "a" + "bc"
+        return (hash ^ 0x1F) * 0x100000001B3L;
     }
 
     /**
@@ -85,9 +378,9 @@ public class Product {
      */
     @Override
     public String toString() {
-        return "SKU: " + sku + 
-               ", Nombre: " + name + 
-               ", Descripción: " + description + 
-               ", Tallas: " + sizes;
+        return "SKU: " + getSku() + 
+               ", Nombre: " + getName() + 
+               ", Descripción: " + getDescription() + 
+               ", Tallas: " + getSizes();
     }
 }
@@ -0,0 +1,322 @@
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índices secundarios de productos.
+ * Mantiene un índice por nombre que conserva todos los productos que comparten un
+ * mismo nombre, y un índice invertido de palabras sobre el nombre y la descripción.
+ * Las palabras se normalizan a minúsculas y sin acentos, y se guardan en un árbol
+ * ordenado para poder buscar por palabras parciales mediante prefijos.
+ * Los índices se actualizan de forma incremental al agregar o editar productos.
+ */
+public class ProductSearchIndex {
+    /**
+     * Peso de una palabra que aparece en el nombre frente a una de la descripción.
+     */
+    private static final int NAME_WEIGHT = 3;
+
+    /**
+     * Bonificación cuando la palabra buscada coincide completa y no solo como prefijo.
+     */
+    private static final int EXACT_MATCH_BONUS = 2;
+
+    private final BinarySearchTree<String, List<Product>> byName = new BinarySearchTree<>(true);
+    private final BinarySearchTree<String, Map<Product, Integer>> byToken = new BinarySearchTree<>(true);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Agrega un producto a los índices.
+     * 
+     * @param product Producto a indexar.
+     */
+    public void add(Product product) {
+        lock.writeLock().lock();
+        try {
+            addToName(product);
+            addTokens(product, product.getName(), product.getDescription());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega un lote de productos, construyendo en bloque las entradas nuevas de los árboles.
+     * 
+     * @param products Productos a indexar.
+     */
+    public void addAll(Collection<Product> products) {
+        Map<String, List<Product>> names = new HashMap<>();
+        Map<String, Map<Product, Integer>> tokens = new HashMap<>();
+        for (Product product : products) {
+            names.computeIfAbsent(product.getName(), k -> new ArrayList<>()).add(product);
+            for (Map.Entry<String, Integer> weight : weights(product.getName(), product.getDescription()).entrySet()) {
+                tokens.computeIfAbsent(weight.getKey(), k -> new LinkedHashMap<>()).put(product, weight.getValue());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<Map.Entry<String, List<Product>>> newNames = new ArrayList<>();
+            for (Map.Entry<String, List<Product>> entry : names.entrySet()) {
+                List<Product> existing = byName.search(entry.getKey());
+                if (existing != null) {
+                    existing.addAll(entry.getValue());
+                } else {
+                    newNames.add(entry);
+                }
+            }
+            byName.bulkLoad(newNames);
+
+            List<Map.Entry<String, Map<Product, Integer>>> newTokens = new ArrayList<>();
+            for (Map.Entry<String, Map<Product, Integer>> entry : tokens.entrySet()) {
+                Map<Product, Integer> existing = byToken.search(entry.getKey());
+                if (existing != null) {
+                    existing.putAll(entry.getValue());
+                } else {
+                    newTokens.add(entry);
+                }
+            }
+            byToken.bulkLoad(newTokens);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Actualiza los índices después de cambiar el nombre o la descripción de un producto.
+     * 
+     * @param product        Producto ya modificado.
+     * @param oldName        Nombre anterior del producto.
+     * @param oldDescription Descripción anterior del producto.
+     */
+    public void update(Product product, String oldName, String oldDescription) {
+        lock.writeLock().lock();
+        try {
+            if (!oldName.equals(product.getName())) {
+                removeFromName(product, oldName);
+                addToName(product);
+            }
+            removeTokens(product, oldName, oldDescription);
+            addTokens(product, product.getName(), product.getDescription());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto de los índices.
+     * 
+     * @param product Producto a quitar, con el nombre y la descripción con que se indexó.
+     */
+    public void remove(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeFromName(product, product.getName());
+            removeTokens(product, product.getName(), product.getDescription());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene todos los productos con un nombre exacto.
+     * 
+     * @param name Nombre a buscar.
+     * @return Productos con ese nombre, en el orden en que se agregaron.
+     */
+    public List<Product> searchByName(String name) {
+        lock.readLock().lock();
+        try {
+            List<Product> products = byName.search(name);
+            return products == null ? Collections.emptyList() : new ArrayList<>(products);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca productos que contengan todas las palabras de la consulta, completas o
+     * como inicio de una palabra, en el nombre o en la descripción. No distingue
+     * mayúsculas ni acentos.
+     * 
+     * @param query Palabras a buscar.
+     * @param limit Cantidad máxima de resultados.
+     * @return Productos ordenados de mayor a menor relevancia, y por SKU ante empates.
+     */
+    public List<Product> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Product, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String term : terms) {
+                Map<Product, Integer> termScores = new HashMap<>();
+                for (Map.Entry<String, Map<Product, Integer>> entry : byToken.prefix(term)) {
+                    int bonus = entry.getKey().length() == term.length() ? EXACT_MATCH_BONUS : 1;
+                    for (Map.Entry<Product, Integer> posting : entry.getValue().entrySet()) {
+                        termScores.merge(posting.getKey(), posting.getValue() * bonus, Integer::sum);
+                    }
+                }
+                scores = scores == null ? termScores : intersect(scores, termScores);
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Product, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> a.getValue().equals(b.getValue())
+                ? a.getKey().getSku().compareTo(b.getKey().getSku())
+                : Integer.compare(b.getValue(), a.getValue()));
+        List<Product> results = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            results.add(ranked.get(i).getKey());
+        }
+        return results;
+    }
+
+    /**
+     * Cuenta las claves de ambos árboles, para verificar que no quedan entradas vacías.
+     * 
+     * @return Cantidad de nombres más cantidad de palabras indexadas.
+     */
+    int keyCount() {
+        lock.readLock().lock();
+        try {
+            return byName.size() + byToken.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Map<Product, Integer> intersect(Map<Product, Integer> scores, Map<Product, Integer> termScores) {
+        Map<Product, Integer> result = new HashMap<>();
+        for (Map.Entry<Product, Integer> entry : scores.entrySet()) {
+            Integer score = termScores.get(entry.getKey());
+            if (score != null) {
+                result.put(entry.getKey(), entry.getValue() + score);
+            }
+        }
+        return result;
+    }
+
+    private void addToName(Product product) {
+        List<Product> products = byName.search(product.getName());
+        if (products == null) {
+            products = new ArrayList<>(1);
+            byName.insert(product.getName(), products);
+        }
+        products.add(product);
+    }
+
+    private void removeFromName(Product product, String name) {
+        List<Product> products = byName.search(name);
+        if (products != null && products.remove(product) && products.isEmpty()) {
+            byName.remove(name);
+        }
+    }
+
+    private void addTokens(Product product, String name, String description) {
+        for (Map.Entry<String, Integer> weight : weights(name, description).entrySet()) {
+            Map<Product, Integer> postings = byToken.search(weight.getKey());
+            if (postings == null) {
+                postings = new LinkedHashMap<>();
+                byToken.insert(weight.getKey(), postings);
+            }
+            postings.put(product, weight.getValue());
+        }
+    }
+
+    private void removeTokens(Product product, String name, String description) {
+        for (String token : weights(name, description).keySet()) {
+            Map<Product, Integer> postings = byToken.search(token);
+            if (postings != null && postings.remove(product) != null && postings.isEmpty()) {
+                byToken.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Calcula la relevancia de un producto para una consulta sin usar el índice, con
+     * el mismo puntaje que {@link #search}. Sirve para buscar recorriendo productos que
+     * no están indexados.
+     * 
+     * @param terms       Palabras de la consulta, ya normalizadas con {@link #tokenize}.
+     * @param name        Nombre del producto.
+     * @param description Descripción del producto.
+     * @return Puntaje, o 0 si alguna palabra de la consulta no aparece.
+     */
+    static int score(List<String> terms, String name, String description) {
+        Map<String, Integer> weights = weights(name, description);
+        int total = 0;
+        for (String term : terms) {
+            int termScore = 0;
+            for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+                if (weight.getKey().startsWith(term)) {
+                    int bonus = weight.getKey().length() == term.length() ? EXACT_MATCH_BONUS : 1;
+                    termScore += weight.getValue() * bonus;
+                }
+            }
+            if (termScore == 0) {
+                return 0;
+            }
+            total += termScore;
+        }
+        return total;
+    }
+
+    /**
+     * Calcula el peso de cada palabra de un producto según dónde y cuántas veces aparece.
+     */
+    private static Map<String, Integer> weights(String name, String description) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String token : tokenize(name)) {
+            weights.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(description)) {
+            weights.merge(token, 1, Integer::sum);
+        }
+        return weights;
+    }
+
+    /**
+     * Separa un texto en palabras normalizadas: minúsculas, sin acentos y sin signos.
+     * 
+     * @param text Texto a separar.
+     * @return Palabras normalizadas en el orden en que aparecen.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
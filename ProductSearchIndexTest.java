@@ -0,0 +1,94 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Pruebas unitarias para la clase ProductSearchIndex.
+ */
+class ProductSearchIndexTest {
+    private ProductSearchIndex index;
+    private Product rojo;
+    private Product azul;
+    private Product leggings;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        rojo = new Product("001", "Camiseta Running", "Camiseta ligera color rojo", new HashMap<>());
+        azul = new Product("002", "Camiseta Running", "Camiseta ligera color azul", new HashMap<>());
+        leggings = new Product("003", "Leggings Compresión", "Soporte muscular para correr", new HashMap<>());
+        index.addAll(List.of(rojo, azul));
+        index.add(leggings);
+    }
+
+    /**
+     * Prueba de que el índice por nombre conserva los productos con nombre repetido.
+     */
+    @Test
+    void testSearchByNameKeepsDuplicates() {
+        assertEquals(List.of(rojo, azul), index.searchByName("Camiseta Running"));
+        assertTrue(index.searchByName("Gorra").isEmpty());
+    }
+
+    /**
+     * Prueba de búsqueda por palabras parciales sin distinguir mayúsculas ni acentos.
+     */
+    @Test
+    void testSearchFoldsCaseAndAccents() {
+        assertEquals(List.of(leggings), index.search("COMPRESION", 10));
+        assertEquals(List.of(leggings), index.search("compre musc", 10));
+        assertEquals(List.of(azul), index.search("camis azul", 10));
+        assertTrue(index.search("camiseta verde", 10).isEmpty());
+    }
+
+    /**
+     * Prueba de que las coincidencias en el nombre pesan más que en la descripción.
+     */
+    @Test
+    void testSearchRanksNameMatchesFirst() {
+        Product calcetas = new Product("004", "Calcetas", "Para running de larga distancia", new HashMap<>());
+        index.add(calcetas);
+
+        List<Product> results = index.search("running", 10);
+        assertEquals(List.of(rojo, azul, calcetas), results);
+        assertEquals(1, index.search("running", 1).size());
+    }
+
+    /**
+     * Prueba de actualización incremental al cambiar nombre y descripción.
+     */
+    @Test
+    void testUpdateReindexesProduct() {
+        String oldName = azul.getName();
+        String oldDescription = azul.getDescription();
+        azul.setDescription("Edición especial color verde");
+        index.update(azul, oldName, oldDescription);
+
+        assertEquals(List.of(azul), index.search("verde", 10));
+        assertTrue(index.search("azul", 10).isEmpty());
+
+        index.remove(rojo);
+        assertEquals(List.of(azul), index.searchByName("Camiseta Running"));
+        assertTrue(index.search("rojo", 10).isEmpty());
+    }
+
+    /**
+     * Prueba de que los nombres y palabras que se quedan sin productos salen del índice.
+     */
+    @Test
+    void testRemoveDropsEmptyKeys() {
+        ProductSearchIndex empty = new ProductSearchIndex();
+        empty.add(leggings);
+        String oldDescription = leggings.getDescription();
+        leggings.setDescription("Soporte");
+        empty.update(leggings, leggings.getName(), oldDescription);
+        assertTrue(empty.search("muscular", 10).isEmpty());
+        assertEquals(List.of(leggings), empty.search("soporte", 10));
+
+        empty.remove(leggings);
+        assertEquals(0, empty.keyCount());
+        assertTrue(empty.searchByName("Leggings Compresión").isEmpty());
+    }
+}
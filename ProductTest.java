@@ -8,6 +8,12 @@ import java.util.Map;
  * Pruebas unitarias para la clase Product.
  */
 class ProductTest {
+    /**
+     * Tallas fijas para la prueba concurrente; el diccionario de tallas es global, así
+     * que etiquetas nuevas en cada vuelta aparecerían en las demás pruebas.
+     */
+    private static final String[] LABELS = {"XS", "L", "XL", "XXL"};
+
     private Product product;
     private Map<String, Integer> sizes;
 
@@ -82,5 +88,93 @@ class ProductTest {
         String expected = "SKU: SKU123, Nombre: Camiseta, Descripción: Camiseta de algodón, Tallas: {S=10, M=15}";
         assertEquals(expected, product.toString());
     }
-}
 
+    /**
+     * Prueba de lectura y modificación de existencias por talla.
+     */
+    @Test
+    void testStockOperations() {
+        assertEquals(15, product.getStock("M"));
+        assertEquals(0, product.getStock("XL"));
+
+        assertEquals(18, product.incrementStock("M", 3));
+        assertTrue(product.decrementStock("S", 10));
+        assertEquals(0, product.getStock("S"));
+        assertFalse(product.decrementStock("S", 1));
+        assertFalse(product.decrementStock("XL", 1));
+
+        product.setStock("XL", 4);
+        assertEquals(4, product.getStock("XL"));
+        assertEquals(Integer.valueOf(4), product.getSizes().get("XL"));
+        assertEquals(Integer.valueOf(0), product.getSizes().get("S"));
+    }
+
+    /**
+     * Prueba de que las cantidades negativas se rechazan sin tocar las existencias, ya
+     * que -1 y el mínimo de int son marcas internas del arreglo.
+     */
+    @Test
+    void testNegativeQuantitiesRejected() {
+        Map<String, Integer> negative = new HashMap<>();
+        negative.put("S", -1);
+        assertThrows(IllegalArgumentException.class, () -> new Product("SKU9", "Gorra", "", negative));
+        negative.put("S", Integer.MIN_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> product.setSizes(negative));
+        assertEquals(10, product.getStock("S"));
+        assertEquals(sizes, product.getSizes());
+        product.setStock("M", 3);
+        assertEquals(3, product.getStock("M"));
+    }
+
+    /**
+     * Prueba de que las operaciones concurrentes no pierden actualizaciones,
+     * incluso mientras se agregan tallas nuevas al producto.
+     */
+    @Test
+    void testConcurrentStockUpdates() throws InterruptedException {
+        product.setStock("M", 100_000);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    product.decrementStock("M", 1);
+                    product.incrementStock("S", 1);
+                    if (i % 1_000 == 0) {
+                        product.setStock(LABELS[id], i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(60_000, product.getStock("M"));
+        assertEquals(40_010, product.getStock("S"));
+        assertEquals(9_000, product.getStock(LABELS[3]));
+    }
+
+    /**
+     * Prueba de que el hash de contenido cambia con cada campo y no con el orden de las tallas.
+     */
+    @Test
+    void testContentHash() {
+        Map<String, Integer> reordered = new java.util.LinkedHashMap<>();
+        reordered.put("M", 15);
+        reordered.put("S", 10);
+        Product same = new Product("OTRO", "Camiseta", "Camiseta de algodón", reordered);
+        assertEquals(product.contentHash(), same.contentHash());
+
+        long original = product.contentHash();
+        product.setStock("S", 11);
+        assertNotEquals(original, product.contentHash());
+        product.setStock("S", 10);
+        assertEquals(original, product.contentHash());
+        product.setDescription("Camiseta de algodón orgánico");
+        assertNotEquals(original, product.contentHash());
+        assertNotEquals(new Product("A", "ab", "c", sizes).contentHash(),
+                new Product("A", "a", "bc", sizes).contentHash());
+    }
+}
@@ -0,0 +1,66 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de una recarga incremental del inventario desde un CSV: qué productos se
+ * agregaron, cuáles cambiaron, cuáles se eliminaron y cuántos quedaron igual.
+ */
+public class ReloadReport {
+    /**
+     * SKU de los productos nuevos.
+     */
+    public final List<String> inserted = new ArrayList<>();
+
+    /**
+     * SKU de los productos cuyo nombre, descripción o existencias cambiaron.
+     */
+    public final List<String> updated = new ArrayList<>();
+
+    /**
+     * SKU de los productos que ya no aparecen en el archivo.
+     */
+    public final List<String> deleted = new ArrayList<>();
+
+    /**
+     * Cantidad de filas del archivo que no cambiaron.
+     */
+    public int unchanged;
+
+    /**
+     * Filas del archivo con un SKU repetido, que se ignoraron.
+     */
+    public int duplicates;
+
+    /**
+     * Tiempo en nanosegundos de leer el archivo y compararlo con el inventario.
+     */
+    public long diffNanos;
+
+    /**
+     * Tiempo en nanosegundos de aplicar los cambios.
+     */
+    public long applyNanos;
+
+    /**
+     * Indica si la recarga modificó algo.
+     * 
+     * @return true si hubo productos agregados, modificados o eliminados.
+     */
+    public boolean hasChanges() {
+        return !inserted.isEmpty() || !updated.isEmpty() || !deleted.isEmpty();
+    }
+
+    /**
+     * Representación en cadena del resumen.
+     * 
+     * @return Cantidades de cada tipo de cambio y tiempos.
+     */
+    @Override
+    public String toString() {
+        return String.format("Recarga: %d nuevos, %d modificados, %d eliminados, %d sin cambios"
+                + "%s (comparación %.1f ms, aplicación %.1f ms)",
+                inserted.size(), updated.size(), deleted.size(), unchanged,
+                duplicates > 0 ? ", " + duplicates + " SKU repetidos ignorados" : "",
+                diffNanos / 1e6, applyNanos / 1e6);
+    }
+}
@@ -0,0 +1,136 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diccionario global de tallas. Asigna a cada etiqueta de talla ("xs", "m", "xl"...)
+ * un identificador entero pequeño y estable, de modo que los productos guarden sus
+ * existencias en un arreglo de enteros indexado por ese identificador en lugar de un
+ * mapa de cadenas. Cada etiqueta se almacena una sola vez en toda la aplicación.
+ * <p>
+ * Las etiquetas se escriben sin escapar en la columna de tallas del CSV
+ * ({@code talla:cantidad|talla:cantidad}), así que no se registran etiquetas vacías ni
+ * con {@code , " | :} o saltos de línea: un archivo exportado con ellas no se podría
+ * volver a leer.
+ */
+public final class SizeDictionary {
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] labels = new String[0];
+    private static volatile byte[][] encodedLabels = new byte[0][];
+
+    private SizeDictionary() {
+    }
+
+    /**
+     * Obtiene el identificador de una talla, registrándola si es nueva.
+     * 
+     * @param label Etiqueta de la talla.
+     * @return Identificador de la talla.
+     * @throws IllegalArgumentException Si la talla es nueva y su etiqueta no es válida.
+     */
+    public static int idOf(String label) {
+        Integer id = IDS.get(label);
+        return id != null ? id : register(label);
+    }
+
+    /**
+     * Obtiene el identificador de una talla a partir de sus bytes UTF-8, sin crear
+     * una cadena cuando la talla ya está registrada.
+     * 
+     * @param buffer Búfer que contiene la etiqueta.
+     * @param start  Posición inicial de la etiqueta.
+     * @param length Longitud en bytes de la etiqueta.
+     * @return Identificador de la talla.
+     */
+    public static int idOf(ByteBuffer buffer, int start, int length) {
+        byte[][] known = encodedLabels;
+        for (int id = 0; id < known.length; id++) {
+            if (matches(known[id], buffer, start, length)) {
+                return id;
+            }
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes, 0, length);
+        return idOf(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static boolean matches(byte[] label, ByteBuffer buffer, int start, int length) {
+        if (label.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (label[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Busca el identificador de una talla sin registrarla.
+     * 
+     * @param label Etiqueta de la talla.
+     * @return Identificador de la talla, o -1 si no está registrada.
+     */
+    public static int find(String label) {
+        Integer id = IDS.get(label);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Obtiene la etiqueta asociada a un identificador.
+     * 
+     * @param id Identificador de la talla.
+     * @return Etiqueta de la talla.
+     */
+    public static String labelOf(int id) {
+        return labels[id];
+    }
+
+    /**
+     * Obtiene la etiqueta de una talla ya codificada en UTF-8. El arreglo es compartido
+     * y no debe modificarse.
+     * 
+     * @param id Identificador de la talla.
+     * @return Bytes UTF-8 de la etiqueta.
+     */
+    static byte[] encodedLabelOf(int id) {
+        return encodedLabels[id];
+    }
+
+    /**
+     * Obtiene la cantidad de tallas registradas.
+     * 
+     * @return Número de tallas distintas conocidas.
+     */
+    public static int size() {
+        return labels.length;
+    }
+
+    private static synchronized int register(String label) {
+        Integer existing = IDS.get(label);
+        if (existing != null) {
+            return existing;
+        }
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            if (c == ',' || c == '"' || c == '|' || c == ':' || c == '\n' || c == '\r') {
+                throw new IllegalArgumentException("Etiqueta de talla no válida: " + label);
+            }
+        }
+        if (label.isEmpty()) {
+            throw new IllegalArgumentException("La etiqueta de talla no puede estar vacía");
+        }
+        int id = labels.length;
+        String[] grownLabels = Arrays.copyOf(labels, id + 1);
+        grownLabels[id] = label;
+        byte[][] grownEncoded = Arrays.copyOf(encodedLabels, id + 1);
+        grownEncoded[id] = label.getBytes(StandardCharsets.UTF_8);
+        // Publicar los arreglos antes del mapa para que labelOf siempre encuentre el id
+        labels = grownLabels;
+        encodedLabels = grownEncoded;
+        IDS.put(label, id);
+        return id;
+    }
+}
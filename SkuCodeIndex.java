@@ -0,0 +1,180 @@
+import java.util.function.Consumer;
+
+/**
+ * Índice hash de productos por SKU codificado con {@link SkuCodec}, con
+ * direccionamiento abierto y sondeo lineal. Es la variante de {@link SkuHashIndex}
+ * para claves {@code long}: la clave de cada casilla es el propio código, así que una
+ * búsqueda compara enteros en un arreglo de primitivos sin leer ninguna cadena ni
+ * guardar un hash aparte.
+ * <p>
+ * El 0 marca las casillas vacías; {@link SkuCodec#encode} nunca lo devuelve para un
+ * SKU válido. La tabla se mantiene a lo sumo a la mitad de su capacidad. No es segura
+ * para varios hilos.
+ */
+public class SkuCodeIndex {
+    private static final int MIN_CAPACITY = 16;
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+    private Product[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Crea un índice vacío.
+     */
+    public SkuCodeIndex() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Busca el producto con un código.
+     * 
+     * @param code Código del SKU, obtenido con {@link SkuCodec#encode}.
+     * @return El producto, o null si no existe.
+     */
+    public Product get(long code) {
+        for (int i = slot(code); ; i = (i + 1) & mask) {
+            long key = keys[i];
+            if (key == code) {
+                return values[i];
+            }
+            if (key == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Agrega un producto si su código no está en el índice.
+     * 
+     * @param code    Código del SKU del producto.
+     * @param product Producto a agregar.
+     * @return true si se agregó, false si el código ya existía.
+     * @throws IllegalArgumentException Si el código no es válido.
+     */
+    public boolean putIfAbsent(long code, Product product) {
+        if (code <= EMPTY) {
+            throw new IllegalArgumentException("Código de SKU no válido: " + code);
+        }
+        if (2 * (size + 1) > keys.length) {
+            rehash(capacityFor(size + 1));
+        }
+        int i = slot(code);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == code) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = code;
+        values[i] = product;
+        size++;
+        return true;
+    }
+
+    /**
+     * Quita el producto con un código. Igual que en {@link SkuHashIndex}, las casillas
+     * siguientes del grupo se corren hacia atrás en vez de dejar marcas de borrado.
+     * 
+     * @param code Código del SKU a quitar.
+     * @return El producto quitado, o null si no existía.
+     */
+    public Product remove(long code) {
+        int i = slot(code);
+        while (keys[i] != EMPTY && keys[i] != code) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            return null;
+        }
+        Product removed = values[i];
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Recorre los productos del índice, sin un orden definido.
+     * 
+     * @param action Acción a aplicar a cada producto.
+     */
+    public void forEach(Consumer<? super Product> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Reserva espacio para una cantidad de productos.
+     * 
+     * @param expected Cantidad total de productos esperada.
+     */
+    public void ensureCapacity(int expected) {
+        int needed = capacityFor(expected);
+        if (needed > keys.length) {
+            rehash(needed);
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de productos del índice.
+     * 
+     * @return Número de productos.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int capacityFor(int expected) {
+        long needed = Math.max(MIN_CAPACITY, 2L * expected);
+        if (needed > 1 << 30) {
+            throw new IllegalStateException("Demasiados productos para el índice hash: " + expected);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Product[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Product[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = slot(oldKeys[j]);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Casilla ideal de un código. Los códigos están alineados a la izquierda y los SKU
+     * cortos dejan ceros en los bits bajos, así que se mezclan todos los bits antes de
+     * tomar los bajos.
+     */
+    private int slot(long code) {
+        long h = code * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,63 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Pruebas unitarias para la clase SkuCodeIndex.
+ */
+class SkuCodeIndexTest {
+
+    /**
+     * Prueba de inserción, búsqueda y duplicados con crecimiento de la tabla.
+     */
+    @Test
+    void testPutAndGet() {
+        SkuCodeIndex index = new SkuCodeIndex();
+        int n = 100_000;
+        for (int i = 0; i < n; i++) {
+            String sku = String.format("%06d", i);
+            assertTrue(index.putIfAbsent(SkuCodec.encode(sku), new Product(sku, "Producto " + i, "", new HashMap<>())));
+        }
+        assertFalse(index.putIfAbsent(SkuCodec.encode("000007"), new Product("000007", "Otro", "", new HashMap<>())));
+
+        assertEquals(n, index.size());
+        for (int i = 0; i < n; i++) {
+            String sku = String.format("%06d", i);
+            assertEquals(sku, index.get(SkuCodec.encode(sku)).getSku());
+        }
+        assertEquals("Producto 7", index.get(SkuCodec.encode("000007")).getName());
+        assertNull(index.get(SkuCodec.encode("999999")));
+        assertNull(index.get(SkuCodec.encode("7")));
+        assertThrows(IllegalArgumentException.class, () -> index.putIfAbsent(SkuCodec.NOT_ENCODABLE, null));
+    }
+
+    /**
+     * Prueba de que las bajas al azar no cortan los grupos de sondeo.
+     */
+    @Test
+    void testRemoveKeepsOtherEntries() {
+        SkuCodeIndex index = new SkuCodeIndex();
+        Random random = new Random(23);
+        List<String> present = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String sku = Integer.toString(i, 36).toUpperCase();
+            index.putIfAbsent(SkuCodec.encode(sku), new Product(sku, "", "", new HashMap<>()));
+            present.add(sku);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            String sku = present.remove(random.nextInt(present.size()));
+            assertEquals(sku, index.remove(SkuCodec.encode(sku)).getSku());
+            assertNull(index.remove(SkuCodec.encode(sku)));
+        }
+        assertEquals(present.size(), index.size());
+        for (String sku : present) {
+            assertEquals(sku, index.get(SkuCodec.encode(sku)).getSku());
+        }
+        int[] visited = new int[1];
+        index.forEach(product -> visited[0]++);
+        assertEquals(present.size(), visited[0]);
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Codifica los SKU cortos como un {@code long}, para indexarlos sin guardar ni comparar
+ * cadenas. Admite SKU de 1 a {@link #MAX_LENGTH} caracteres formados por dígitos,
+ * letras ASCII y guiones, lo que cubre los códigos numéricos como {@code 001} y los
+ * alfanuméricos de largo fijo.
+ * <p>
+ * Cada carácter ocupa 6 bits, alineados a la izquierda, con valores de 1 a 63 en el
+ * mismo orden que en ASCII; el 0 marca el final. Así la codificación es inyectiva
+ * ({@code 01} y {@code 1} dan códigos distintos) y conserva el orden de
+ * {@link String#compareTo}: comparar dos códigos como enteros da el mismo resultado
+ * que comparar sus SKU. Los códigos nunca son negativos.
+ */
+public final class SkuCodec {
+    /**
+     * Código que indica que el SKU no se puede codificar.
+     */
+    public static final long NOT_ENCODABLE = -1;
+
+    /**
+     * Cantidad máxima de caracteres de un SKU codificable.
+     */
+    public static final int MAX_LENGTH = 10;
+
+    private static final int BITS = 6;
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Valor de cada carácter ASCII, o 0 si no es válido.
+     */
+    private static final byte[] CODES = new byte[128];
+
+    /**
+     * Carácter de cada valor.
+     */
+    private static final char[] CHARS = new char[1 << BITS];
+
+    static {
+        int code = 1;
+        for (char c = 0; c < CODES.length; c++) {
+            if (c == '-' || (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) {
+                CODES[c] = (byte) code;
+                CHARS[code] = c;
+                code++;
+            }
+        }
+    }
+
+    private SkuCodec() {
+    }
+
+    /**
+     * Codifica un SKU.
+     * 
+     * @param sku SKU a codificar.
+     * @return Código del SKU, o {@link #NOT_ENCODABLE} si es vacío, demasiado largo o
+     *         tiene caracteres no admitidos.
+     */
+    public static long encode(String sku) {
+        int length = sku.length();
+        if (length == 0 || length > MAX_LENGTH) {
+            return NOT_ENCODABLE;
+        }
+        long code = 0;
+        for (int i = 0; i < length; i++) {
+            char c = sku.charAt(i);
+            int value = c < CODES.length ? CODES[c] : 0;
+            if (value == 0) {
+                return NOT_ENCODABLE;
+            }
+            code = (code << BITS) | value;
+        }
+        return code << (BITS * (MAX_LENGTH - length));
+    }
+
+    /**
+     * Recupera el SKU de un código.
+     * 
+     * @param code Código obtenido con {@link #encode}.
+     * @return SKU codificado.
+     * @throws IllegalArgumentException Si el código no es válido.
+     */
+    public static String decode(long code) {
+        if (code <= 0 || code >>> (BITS * MAX_LENGTH) != 0) {
+            throw new IllegalArgumentException("Código de SKU no válido: " + code);
+        }
+        char[] chars = new char[MAX_LENGTH];
+        int length = 0;
+        for (int shift = BITS * (MAX_LENGTH - 1); shift >= 0; shift -= BITS) {
+            int value = (int) (code >>> shift) & MASK;
+            if (value == 0) {
+                break;
+            }
+            chars[length++] = CHARS[value];
+        }
+        if (encode(new String(chars, 0, length)) != code) {
+            throw new IllegalArgumentException("Código de SKU no válido: " + code);
+        }
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,49 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class SkuCodecTest {
+    /**
+     * Prueba de que los códigos se comparan igual que los SKU y se pueden decodificar.
+     */
+    @Test
+    void testPreservesOrderAndRoundTrips() {
+        Random random = new Random(23);
+        String alphabet = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+        Map<Long, String> seen = new HashMap<>();
+        String previous = "0";
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder sku = new StringBuilder();
+            int length = 1 + random.nextInt(SkuCodec.MAX_LENGTH);
+            for (int c = 0; c < length; c++) {
+                sku.append(alphabet.charAt(random.nextInt(i % 2 == 0 ? 11 : alphabet.length())));
+            }
+            String text = sku.toString();
+            long code = SkuCodec.encode(text);
+            assertTrue(code > 0, text);
+            assertEquals(text, SkuCodec.decode(code));
+            assertEquals(Integer.signum(text.compareTo(previous)), Long.signum(Long.compare(code, SkuCodec.encode(previous))),
+                    text + " / " + previous);
+            String other = seen.put(code, text);
+            assertTrue(other == null || other.equals(text), text + " / " + other);
+            previous = text;
+        }
+        assertNotEquals(SkuCodec.encode("01"), SkuCodec.encode("1"));
+        assertTrue(SkuCodec.encode("001") < SkuCodec.encode("030"));
+    }
+
+    /**
+     * Prueba de que los SKU vacíos, largos o con otros caracteres no se codifican.
+     */
+    @Test
+    void testRejectsUnsupportedSkus() {
+        assertEquals(SkuCodec.NOT_ENCODABLE, SkuCodec.encode(""));
+        assertEquals(SkuCodec.NOT_ENCODABLE, SkuCodec.encode("12345678901"));
+        assertEquals(SkuCodec.NOT_ENCODABLE, SkuCodec.encode("SKU 1"));
+        assertEquals(SkuCodec.NOT_ENCODABLE, SkuCodec.encode("año"));
+        assertThrows(IllegalArgumentException.class, () -> SkuCodec.decode(SkuCodec.NOT_ENCODABLE));
+        assertThrows(IllegalArgumentException.class, () -> SkuCodec.decode(1));
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Índice hash de productos por SKU con direccionamiento abierto y sondeo lineal.
+ * Resuelve las búsquedas exactas en tiempo constante: en lugar de una comparación de
+ * cadenas por cada nivel del árbol, compara el hash guardado de cada casilla y solo
+ * llama a {@code equals} cuando coincide. Las claves, hashes y productos se guardan en
+ * arreglos paralelos, sin un objeto por entrada.
+ * <p>
+ * La tabla se mantiene a lo sumo a la mitad de su capacidad para que los sondeos
+ * sean cortos. No es segura para varios hilos.
+ */
+public class SkuHashIndex {
+    private static final int MIN_CAPACITY = 16;
+
+    private String[] keys;
+    private int[] hashes;
+    private Product[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Crea un índice vacío.
+     */
+    public SkuHashIndex() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Busca el producto con un SKU.
+     * 
+     * @param sku SKU a buscar.
+     * @return El producto, o null si no existe.
+     */
+    public Product get(String sku) {
+        int hash = spread(sku.hashCode());
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            String key = keys[i];
+            if (key == null) {
+                return null;
+            }
+            if (hashes[i] == hash && key.equals(sku)) {
+                return values[i];
+            }
+        }
+    }
+
+    /**
+     * Agrega un producto si su SKU no está en el índice.
+     * 
+     * @param product Producto a agregar.
+     * @return true si se agregó, false si el SKU ya existía.
+     */
+    public boolean putIfAbsent(Product product) {
+        if (2 * (size + 1) > keys.length) {
+            rehash(capacityFor(size + 1));
+        }
+        String sku = product.getSku();
+        int hash = spread(sku.hashCode());
+        int i = hash & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == hash && keys[i].equals(sku)) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = sku;
+        hashes[i] = hash;
+        values[i] = product;
+        size++;
+        return true;
+    }
+
+    /**
+     * Quita el producto con un SKU. Las casillas siguientes del mismo grupo se corren
+     * hacia atrás para no dejar marcas de borrado que alarguen los sondeos.
+     * 
+     * @param sku SKU a quitar.
+     * @return El producto quitado, o null si no existía.
+     */
+    public Product remove(String sku) {
+        int hash = spread(sku.hashCode());
+        int i = hash & mask;
+        while (keys[i] != null && !(hashes[i] == hash && keys[i].equals(sku))) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == null) {
+            return null;
+        }
+        Product removed = values[i];
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            int home = hashes[j] & mask;
+            // La entrada en j puede ocupar el hueco si su casilla ideal no está entre el hueco y j
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                hashes[hole] = hashes[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Reserva espacio para una cantidad de productos, evitando crecer de a poco en
+     * las cargas en bloque.
+     * 
+     * @param expected Cantidad total de productos esperada.
+     */
+    public void ensureCapacity(int expected) {
+        int needed = capacityFor(expected);
+        if (needed > keys.length) {
+            rehash(needed);
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de productos del índice.
+     * 
+     * @return Número de productos.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static int capacityFor(int expected) {
+        long needed = Math.max(MIN_CAPACITY, 2L * expected);
+        if (needed > 1 << 30) {
+            throw new IllegalStateException("Demasiados productos para el índice hash: " + expected);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        values = new Product[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        Product[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = oldHashes[j] & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                hashes[i] = oldHashes[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Mezcla los bits del hash de la cadena, ya que el sondeo usa solo los bits bajos
+     * y los SKU consecutivos difieren casi solo en ellos.
+     */
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
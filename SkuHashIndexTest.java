@@ -0,0 +1,87 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.HashMap;
+
+/**
+ * Pruebas unitarias para la clase SkuHashIndex.
+ */
+class SkuHashIndexTest {
+
+    /**
+     * Prueba de inserción y búsqueda con crecimiento de la tabla.
+     */
+    @Test
+    void testPutAndGet() {
+        SkuHashIndex index = new SkuHashIndex();
+        int n = 100_000;
+        Product[] products = new Product[n];
+        for (int i = 0; i < n; i++) {
+            products[i] = new Product(String.format("%06d", i), "Producto " + i, "", new HashMap<>());
+            assertTrue(index.putIfAbsent(products[i]));
+        }
+
+        assertEquals(n, index.size());
+        for (int i = 0; i < n; i++) {
+            assertSame(products[i], index.get(String.format("%06d", i)));
+        }
+        assertNull(index.get("999999"));
+        assertNull(index.get(""));
+    }
+
+    /**
+     * Prueba de que un SKU repetido conserva el primer producto.
+     */
+    @Test
+    void testDuplicateKeepsFirst() {
+        SkuHashIndex index = new SkuHashIndex();
+        Product first = new Product("001", "Gorra", "", new HashMap<>());
+        index.putIfAbsent(first);
+        assertFalse(index.putIfAbsent(new Product("001", "Visera", "", new HashMap<>())));
+        assertSame(first, index.get("001"));
+        assertEquals(1, index.size());
+    }
+
+    /**
+     * Prueba de que reservar capacidad conserva los productos existentes.
+     */
+    @Test
+    void testEnsureCapacity() {
+        SkuHashIndex index = new SkuHashIndex();
+        Product product = new Product("Aa", "Gorra", "", new HashMap<>());
+        // "Aa" y "BB" tienen el mismo hashCode
+        Product collision = new Product("BB", "Visera", "", new HashMap<>());
+        index.putIfAbsent(product);
+        index.putIfAbsent(collision);
+        index.ensureCapacity(10_000);
+        assertSame(product, index.get("Aa"));
+        assertSame(collision, index.get("BB"));
+        assertEquals(2, index.size());
+    }
+
+    /**
+     * Prueba de que quitar productos no corta los grupos de sondeo de los demás.
+     */
+    @Test
+    void testRemove() {
+        SkuHashIndex index = new SkuHashIndex();
+        int n = 20_000;
+        for (int i = 0; i < n; i++) {
+            index.putIfAbsent(new Product(Integer.toString(i), "Producto", "", new HashMap<>()));
+        }
+        for (int i = 0; i < n; i += 3) {
+            assertEquals(Integer.toString(i), index.remove(Integer.toString(i)).getSku());
+        }
+        assertNull(index.remove("0"));
+
+        assertEquals(n - (n + 2) / 3, index.size());
+        for (int i = 0; i < n; i++) {
+            Product product = index.get(Integer.toString(i));
+            if (i % 3 == 0) {
+                assertNull(product);
+            } else {
+                assertEquals(Integer.toString(i), product.getSku());
+            }
+        }
+        assertTrue(index.putIfAbsent(new Product("0", "Producto", "", new HashMap<>())));
+    }
+}
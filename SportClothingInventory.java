@@ -2,21 +2,69 @@
  * Clase principal para la gestión del inventario de ropa deportiva.
  * Permite agregar, buscar, listar y editar productos almacenados en un inventario.
  */
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
 
 public class SportClothingInventory {
+    private static final String ARCHIVO_CSV = "inventario_ropa_deportiva_30.csv";
+    private static final String ARCHIVO_SNAPSHOT = "inventario.snapshot";
+    private static final String ARCHIVO_BITACORA = "inventario.journal";
+    private static final int PUERTO_SERVIDOR = 8080;
+    private static final String PROPIEDAD_METRICAS = "inventario.metricas";
+
     private static InventoryManager manager = new InventoryManager();
     private static Scanner scanner = new Scanner(System.in);
+    private static InventoryJournal bitacora;
 
     /**
      * Método principal que ejecuta el programa de inventario.
-     * Carga los datos desde un archivo CSV y muestra un menú interactivo.
-     * @param args Argumentos de la línea de comandos (no utilizados).
+     * Carga los datos desde un archivo CSV y muestra un menú interactivo, o con
+     * {@code --servidor [puerto]} atiende el inventario por HTTP con {@link InventoryServer}.
+     * Con {@code --lote [comandos] [salida]} ejecuta los comandos de un archivo con
+     * {@link InventoryBatchRunner}, sin menú; {@code -} o la falta del argumento indican
+     * la entrada o la salida estándar.
+     * Las métricas están apagadas salvo que se inicie con {@code -Dinventario.metricas=true}.
+     * @param args Argumentos de la línea de comandos: vacíos para el menú,
+     *             {@code --servidor} seguido opcionalmente del puerto, o {@code --lote}
+     *             seguido opcionalmente de los archivos de comandos y de resultados.
      */
     public static void main(String[] args) {
-        manager.loadFromCSV("inventario_ropa_deportiva_30.csv");
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            manager = new ConcurrentInventoryManager();
+        }
+        boolean lote = args.length > 0 && args[0].equals("--lote");
+        PrintStream salidaEstandar = System.out;
+        if (lote) {
+            // Los mensajes de carga van a la salida de errores para no mezclarse con los resultados.
+            System.setOut(System.err);
+        }
+        manager.getMetrics().setEnabled(Boolean.getBoolean(PROPIEDAD_METRICAS));
+        boolean desdeSnapshot = cargarInventario();
+        abrirBitacora(desdeSnapshot);
+        if (lote) {
+            String comandos = args.length > 1 ? args[1] : "-";
+            String resultados = args.length > 2 ? args[2] : "-";
+            ejecutarLote(comandos, resultados, salidaEstandar);
+            return;
+        }
+        if (manager instanceof ConcurrentInventoryManager) {
+            int puerto = args.length > 1 ? Integer.parseInt(args[1]) : PUERTO_SERVIDOR;
+            atenderServidor((ConcurrentInventoryManager) manager, puerto);
+            return;
+        }
         
         boolean salir = false;
         
@@ -44,8 +92,27 @@ public class SportClothingInventory {
                 case 6:
                     editarProducto();
                     break;
+                case 7:
+                    buscarPorPalabras();
+                    break;
+                case 8:
+                    if (!manager.getMetrics().isEnabled()) {
+                        System.out.println("Las métricas están desactivadas; inicie con -D" + PROPIEDAD_METRICAS + "=true.");
+                    }
+                    System.out.print(manager.getMetrics().toText());
+                    break;
+                case 9:
+                    recargarInventario();
+                    break;
+                case 10:
+                    consultarExistencias();
+                    break;
+                case 11:
+                    exportarInventario();
+                    break;
                 case 0:
                     salir = true;
+                    cerrarBitacora();
                     System.out.println("Saliendo del programa...");
                     break;
                 default:
@@ -56,6 +123,141 @@ public class SportClothingInventory {
         scanner.close();
     }
 
+    /**
+     * Atiende el inventario por HTTP hasta que se presiona Enter o termina el proceso,
+     * y luego cierra la bitácora igual que al salir del menú. Sin consola, por ejemplo
+     * como servicio, atiende hasta que el proceso recibe la señal de terminar.
+     * 
+     * @param inventario Inventario a publicar.
+     * @param puerto     Puerto TCP del servidor.
+     */
+    private static void atenderServidor(ConcurrentInventoryManager inventario, int puerto) {
+        InventoryServer servidor;
+        try {
+            servidor = new InventoryServer(inventario, puerto);
+        } catch (IOException e) {
+            System.out.println("No se pudo iniciar el servidor: " + e.getMessage());
+            cerrarBitacora();
+            return;
+        }
+        Thread detener = new Thread(() -> {
+            servidor.stop(5);
+            cerrarBitacora();
+        }, "inventory-http-shutdown");
+        Runtime.getRuntime().addShutdownHook(detener);
+        servidor.start();
+        System.out.println("Servidor escuchando en el puerto " + servidor.port() + ". Presione Enter para detenerlo.");
+        try {
+            scanner.nextLine();
+        } catch (NoSuchElementException e) {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Runtime.getRuntime().removeShutdownHook(detener);
+        detener.run();
+        System.out.println("Saliendo del programa...");
+    }
+
+    /**
+     * Ejecuta un archivo de comandos y cierra la bitácora igual que al salir del menú.
+     * 
+     * @param comandos       Archivo de comandos, o {@code -} para la entrada estándar.
+     * @param resultados     Archivo de resultados, o {@code -} para la salida estándar.
+     * @param salidaEstandar Salida estándar original del proceso.
+     */
+    private static void ejecutarLote(String comandos, String resultados, PrintStream salidaEstandar) {
+        try (BufferedReader in = comandos.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(comandos));
+             OutputStream archivo = resultados.equals("-") ? null : Files.newOutputStream(Paths.get(resultados))) {
+            long errores = new InventoryBatchRunner(manager).run(in, archivo != null ? archivo : salidaEstandar);
+            System.out.println("Lote terminado con " + errores + " errores.");
+        } catch (IOException e) {
+            System.out.println("No se pudo ejecutar el lote: " + e.getMessage());
+        }
+        cerrarBitacora();
+    }
+
+    /**
+     * Carga el inventario desde el snapshot binario si está al día; si no existe, está
+     * dañado o el CSV es más reciente, lee el CSV y genera un snapshot nuevo.
+     * 
+     * @return true si se cargó el snapshot, false si se leyó el CSV.
+     */
+    private static boolean cargarInventario() {
+        Path csv = Paths.get(ARCHIVO_CSV);
+        Path snapshot = Paths.get(ARCHIVO_SNAPSHOT);
+        try {
+            if (Files.exists(snapshot) && (!Files.exists(csv)
+                    || Files.getLastModifiedTime(snapshot).compareTo(Files.getLastModifiedTime(csv)) >= 0)
+                    && manager.loadFromSnapshot(ARCHIVO_SNAPSHOT)) {
+                return true;
+            }
+        } catch (IOException e) {
+            System.out.println("No se pudo revisar el snapshot: " + e.getMessage());
+        }
+        manager.loadFromCSV(ARCHIVO_CSV);
+        guardarSnapshot();
+        return false;
+    }
+
+    /**
+     * Abre la bitácora de cambios, aplica los que quedaron pendientes de la ejecución
+     * anterior y la compacta en el snapshot.
+     * <p>
+     * Los registros de la bitácora parten del snapshot que estaba vigente cuando se
+     * escribieron. Si el inventario se cargó del CSV, esa base ya no es la actual y
+     * aplicarlos pisaría los datos nuevos con ediciones viejas, así que se descartan.
+     * 
+     * @param desdeSnapshot true si el inventario se cargó del snapshot.
+     */
+    private static void abrirBitacora(boolean desdeSnapshot) {
+        try {
+            Path archivo = Paths.get(ARCHIVO_BITACORA);
+            if (!desdeSnapshot && Files.exists(archivo) && Files.size(archivo) > 0) {
+                System.out.println("Se descartó la bitácora anterior porque el inventario se cargó del CSV.");
+                Files.delete(archivo);
+            }
+            bitacora = new InventoryJournal(archivo, Paths.get(ARCHIVO_SNAPSHOT));
+            int aplicados = manager.attachJournal(bitacora);
+            if (aplicados > 0) {
+                System.out.println("Se recuperaron " + aplicados + " cambios de la bitácora.");
+                bitacora.compact(manager);
+            }
+        } catch (IOException e) {
+            System.out.println("No se pudo abrir la bitácora; los cambios no se guardarán: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compacta la bitácora en el snapshot y la cierra.
+     */
+    private static void cerrarBitacora() {
+        if (bitacora == null) {
+            return;
+        }
+        try {
+            bitacora.compact(manager);
+            bitacora.close();
+        } catch (IOException e) {
+            System.out.println("No se pudo cerrar la bitácora: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda el estado actual del inventario en el snapshot binario.
+     */
+    private static void guardarSnapshot() {
+        try {
+            manager.saveSnapshot(ARCHIVO_SNAPSHOT);
+        } catch (IOException e) {
+            System.out.println("No se pudo guardar el snapshot: " + e.getMessage());
+        }
+    }
+
     /**
      * Muestra el menú de opciones en la consola.
      */
@@ -67,10 +269,33 @@ public class SportClothingInventory {
         System.out.println("4. Listar productos por SKU");
         System.out.println("5. Listar productos por nombre");
         System.out.println("6. Editar producto");
+        System.out.println("7. Buscar productos por palabras clave");
+        System.out.println("8. Ver métricas del inventario");
+        System.out.println("9. Recargar inventario desde CSV");
+        System.out.println("10. Consultar existencias por talla");
+        System.out.println("11. Exportar inventario (CSV o JSON)");
         System.out.println("0. Salir");
         System.out.print("Ingrese su opción: ");
     }
 
+    /**
+     * Vuelve a leer un CSV del proveedor y aplica solo los productos nuevos,
+     * modificados y eliminados.
+     */
+    private static void recargarInventario() {
+        System.out.print("Ingrese el archivo CSV (Enter para " + ARCHIVO_CSV + "): ");
+        String archivo = scanner.nextLine().trim();
+        if (archivo.isEmpty()) {
+            archivo = ARCHIVO_CSV;
+        }
+        try {
+            ReloadReport reporte = manager.reloadFromCSV(archivo);
+            System.out.println(reporte);
+        } catch (IOException e) {
+            System.out.println("Error al recargar el archivo: " + e.getMessage());
+        }
+    }
+
     /**
      * Permite agregar un nuevo producto ingresado manualmente por el usuario.
      */
@@ -101,10 +326,11 @@ public class SportClothingInventory {
         }
         
         Product nuevoProducto = new Product(sku, nombre, descripcion, tallas);
-        manager.skuTree.insert(sku, nuevoProducto);
-        manager.nameTree.insert(nombre, nuevoProducto);
-        
-        System.out.println("Producto agregado exitosamente.");
+        if (manager.addProduct(nuevoProducto)) {
+            System.out.println("Producto agregado exitosamente.");
+        } else {
+            System.out.println("Ya existe un producto con el SKU " + sku + ".");
+        }
     }
 
     /**
@@ -130,15 +356,77 @@ public class SportClothingInventory {
         System.out.print("Ingrese el nombre a buscar: ");
         String nombre = scanner.nextLine();
         
-        Product producto = manager.searchByName(nombre);
-        if (producto != null) {
-            System.out.println("Producto encontrado:");
-            System.out.println(producto);
+        List<Product> productos = manager.searchAllByName(nombre);
+        if (!productos.isEmpty()) {
+            System.out.println(productos.size() == 1 ? "Producto encontrado:" : "Productos encontrados:");
+            for (Product producto : productos) {
+                System.out.println(producto);
+            }
         } else {
             System.out.println("Producto no encontrado.");
         }
     }
 
+    /**
+     * Busca productos por palabras completas o parciales del nombre o la descripción
+     * e imprime los resultados más relevantes.
+     */
+    private static void buscarPorPalabras() {
+        System.out.print("Ingrese las palabras a buscar: ");
+        String consulta = scanner.nextLine();
+        
+        List<Product> productos = manager.searchText(consulta, 20);
+        if (!productos.isEmpty()) {
+            System.out.println("Productos encontrados:");
+            for (Product producto : productos) {
+                System.out.println(producto);
+            }
+        } else {
+            System.out.println("No se encontraron productos.");
+        }
+    }
+
+    /**
+     * Muestra el total de unidades por talla y los productos de una talla que tienen
+     * menos unidades que un umbral.
+     */
+    private static void consultarExistencias() {
+        System.out.println("Unidades por talla: " + manager.totalUnitsBySize());
+        System.out.print("Ingrese la talla a revisar: ");
+        String talla = scanner.nextLine();
+        System.out.print("Mostrar productos con menos de cuántas unidades: ");
+        int umbral = scanner.nextInt();
+        scanner.nextLine();
+
+        int total = manager.countLowStock(talla, umbral);
+        System.out.println(total + " productos con menos de " + umbral + " unidades en talla " + talla + ":");
+        for (Product producto : manager.searchLowStock(talla, umbral, 20)) {
+            System.out.println(producto);
+        }
+        if (total > 20) {
+            System.out.println("... y " + (total - 20) + " más.");
+        }
+    }
+
+    /**
+     * Exporta el inventario completo, ordenado por SKU, a un archivo CSV o JSON Lines
+     * según la extensión indicada.
+     */
+    private static void exportarInventario() {
+        System.out.print("Ingrese el archivo destino (.csv o .jsonl): ");
+        String archivo = scanner.nextLine().trim();
+        InventoryExporter.Format formato = archivo.endsWith(".jsonl") || archivo.endsWith(".json")
+                ? InventoryExporter.Format.JSON_LINES : InventoryExporter.Format.CSV;
+        try {
+            long start = System.nanoTime();
+            long total = manager.export(archivo, formato);
+            System.out.printf("Se exportaron %d productos a %s (%.1f ms).%n", total, archivo,
+                    (System.nanoTime() - start) / 1e6);
+        } catch (IOException e) {
+            System.out.println("No se pudo exportar el inventario: " + e.getMessage());
+        }
+    }
+
     /**
      * Lista todos los productos ordenados por SKU.
      */
@@ -179,11 +467,10 @@ public class SportClothingInventory {
                 case 1:
                     System.out.print("Ingrese nueva descripción: ");
                     String nuevaDescripcion = scanner.nextLine();
-                    producto.setDescription(nuevaDescripcion);
+                    manager.updateDescription(sku, nuevaDescripcion);
                     System.out.println("Descripción actualizada.");
                     break;
                 case 2:
-                    Map<String, Integer> nuevasTallas = new HashMap<>(producto.getSizes());
                     while (true) {
                         System.out.print("Ingrese talla a modificar (o 'fin' para terminar): ");
                         String talla = scanner.nextLine();
@@ -196,10 +483,13 @@ public class SportClothingInventory {
                         int cantidad = scanner.nextInt();
                         scanner.nextLine();
                         
-                        nuevasTallas.put(talla, cantidad);
+                        if (cantidad < 0) {
+                            System.out.println("La cantidad no puede ser negativa.");
+                        } else {
+                            manager.setStock(sku, talla, cantidad);
+                        }
                     }
                     
-                    producto.setSizes(nuevasTallas);
                     System.out.println("Tallas y cantidades actualizadas.");
                     break;
                 default:
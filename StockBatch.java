@@ -0,0 +1,103 @@
+import java.util.Arrays;
+
+/**
+ * Lote de cambios de existencias (SKU, talla y cantidad nueva) con el resultado de
+ * cada uno, para aplicarlos juntos con {@link InventoryManager#setStock(StockBatch)}.
+ * Igual que {@link BatchLookup}, está pensado para reutilizarse: los arreglos internos
+ * se conservan entre un lote y otro y solo crecen cuando llega un lote más grande.
+ */
+public class StockBatch {
+    private String[] skus = new String[16];
+    private String[] labels = new String[16];
+    private int[] quantities = new int[16];
+    private boolean[] applied = new boolean[16];
+    private int size;
+
+    /**
+     * Agrega un cambio al lote.
+     * 
+     * @param sku      SKU del producto.
+     * @param label    Etiqueta de la talla.
+     * @param quantity Nueva cantidad disponible.
+     * @throws IllegalArgumentException Si la cantidad es negativa.
+     */
+    public void add(String sku, String label, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa: " + quantity);
+        }
+        if (size == skus.length) {
+            int capacity = size * 2;
+            skus = Arrays.copyOf(skus, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            applied = Arrays.copyOf(applied, capacity);
+        }
+        skus[size] = sku;
+        labels[size] = label;
+        quantities[size] = quantity;
+        applied[size] = false;
+        size++;
+    }
+
+    /**
+     * Vacía el lote conservando su capacidad.
+     */
+    public void clear() {
+        Arrays.fill(skus, 0, size, null);
+        Arrays.fill(labels, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Obtiene la cantidad de cambios del lote.
+     * 
+     * @return Número de cambios.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Obtiene el SKU de un cambio.
+     * 
+     * @param index Posición del cambio.
+     * @return SKU del producto.
+     */
+    public String sku(int index) {
+        return skus[index];
+    }
+
+    /**
+     * Obtiene la talla de un cambio.
+     * 
+     * @param index Posición del cambio.
+     * @return Etiqueta de la talla.
+     */
+    public String label(int index) {
+        return labels[index];
+    }
+
+    /**
+     * Obtiene la cantidad nueva de un cambio.
+     * 
+     * @param index Posición del cambio.
+     * @return Cantidad disponible que se fija.
+     */
+    public int quantity(int index) {
+        return quantities[index];
+    }
+
+    /**
+     * Indica si un cambio se aplicó, es decir, si el producto existía.
+     * 
+     * @param index Posición del cambio.
+     * @return true si se aplicó.
+     */
+    public boolean isApplied(int index) {
+        return applied[index];
+    }
+
+    void setApplied(int index, boolean value) {
+        applied[index] = value;
+    }
+}
@@ -0,0 +1,523 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de existencias por talla. Para cada talla guarda un árbol AVL ordenado por
+ * (cantidad, SKU) en el que cada nodo lleva la cantidad de productos y la suma de
+ * unidades de su subárbol. Así las preguntas de reabastecimiento se responden sin
+ * recorrer el catálogo:
+ * <ul>
+ * <li>cuántos productos tienen menos de N unidades de una talla, en O(log n);</li>
+ * <li>cuáles son, en O(log n + k), de menor a mayor cantidad;</li>
+ * <li>el total de unidades de una talla, en tiempo constante.</li>
+ * </ul>
+ * Solo se indexan las tallas que cada producto maneja; una talla con 0 unidades sí
+ * se indexa. El índice recuerda las cantidades con que indexó cada producto, de modo
+ * que {@link #update} solo toca las tallas que cambiaron.
+ */
+public class StockIndex {
+    /**
+     * Un lote que cambia al menos uno de cada tantos nodos de una talla reconstruye su
+     * árbol en vez de quitar y volver a insertar cada nodo.
+     */
+    private static final int REBUILD_RATIO = 16;
+
+    private static final Comparator<Node> ORDER = Node::compareTo;
+
+    private final Map<Product, int[]> indexed = new IdentityHashMap<>();
+    private Tree[] bySize = new Tree[0];
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Nodo del árbol de una talla, con los agregados de su subárbol. Guarda el SKU
+     * codificado con {@link SkuCodec}, que conserva el orden de las cadenas, para que
+     * las comparaciones no tengan que leer el producto.
+     */
+    private static final class Node {
+        final int quantity;
+        final Product product;
+        final long code;
+        Node left, right;
+        int height = 1;
+        int count = 1;
+        long units;
+
+        Node(int quantity, Product product) {
+            this.quantity = quantity;
+            this.product = product;
+            this.code = SkuCodec.encode(product.getSku());
+            this.units = quantity;
+        }
+
+        int compareTo(Node other) {
+            int cmp = Integer.compare(quantity, other.quantity);
+            if (cmp != 0) {
+                return cmp;
+            }
+            if (code != SkuCodec.NOT_ENCODABLE && other.code != SkuCodec.NOT_ENCODABLE) {
+                return Long.compare(code, other.code);
+            }
+            return product.getSku().compareTo(other.product.getSku());
+        }
+
+        void refresh() {
+            height = Math.max(height(left), height(right)) + 1;
+            count = count(left) + count(right) + 1;
+            units = units(left) + units(right) + quantity;
+        }
+    }
+
+    /**
+     * Árbol de una talla.
+     */
+    private static final class Tree {
+        Node root;
+    }
+
+    /**
+     * Agrega un producto al índice con sus existencias actuales.
+     * 
+     * @param product Producto a indexar.
+     */
+    public void add(Product product) {
+        lock.writeLock().lock();
+        try {
+            addLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega un lote de productos tomando el candado una sola vez.
+     * 
+     * @param products Productos a indexar.
+     */
+    public void addAll(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                addLocked(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vuelve a leer las existencias de un producto y actualiza solo las tallas cuya
+     * cantidad cambió desde la última vez que se indexó.
+     * 
+     * @param product Producto ya modificado.
+     */
+    public void update(Product product) {
+        lock.writeLock().lock();
+        try {
+            int[] old = indexed.get(product);
+            if (old == null) {
+                return;
+            }
+            int[] levels = product.stockLevels();
+            for (int id = 0; id < Math.max(old.length, levels.length); id++) {
+                int before = id < old.length ? old[id] : Product.ABSENT;
+                int after = id < levels.length ? levels[id] : Product.ABSENT;
+                if (before != after) {
+                    if (before != Product.ABSENT) {
+                        Tree tree = bySize[id];
+                        tree.root = delete(tree.root, new Node(before, product));
+                    }
+                    if (after != Product.ABSENT) {
+                        Tree tree = treeFor(id);
+                        tree.root = insert(tree.root, new Node(after, product));
+                    }
+                }
+            }
+            indexed.put(product, levels);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Actualiza un lote de productos tomando el candado una sola vez. En las tallas
+     * donde el lote cambia muchos nodos frente al tamaño del árbol, el árbol se
+     * reconstruye en O(n + k log k) mezclando sus nodos en orden con los nuevos, en vez
+     * de hacer k eliminaciones e inserciones de O(log n) cada una.
+     * 
+     * @param products Productos ya modificados; los repetidos se actualizan una vez.
+     */
+    public void updateAll(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            List<List<Node>> removed = new ArrayList<>();
+            List<List<Node>> added = new ArrayList<>();
+            for (Product product : products) {
+                int[] old = indexed.get(product);
+                if (old == null) {
+                    continue;
+                }
+                // Un producto repetido ya quedó indexado con sus cantidades actuales
+                int[] levels = product.stockLevels();
+                for (int id = 0; id < Math.max(old.length, levels.length); id++) {
+                    int before = level(old, id);
+                    int after = level(levels, id);
+                    if (before != after) {
+                        while (removed.size() <= id) {
+                            removed.add(new ArrayList<>());
+                            added.add(new ArrayList<>());
+                        }
+                        if (before != Product.ABSENT) {
+                            removed.get(id).add(new Node(before, product));
+                        }
+                        if (after != Product.ABSENT) {
+                            added.get(id).add(new Node(after, product));
+                        }
+                    }
+                }
+                indexed.put(product, levels);
+            }
+            for (int id = 0; id < removed.size(); id++) {
+                int changes = Math.max(removed.get(id).size(), added.get(id).size());
+                if (changes == 0) {
+                    continue;
+                }
+                Tree tree = treeFor(id);
+                if ((long) changes * REBUILD_RATIO >= count(tree.root)) {
+                    rebuild(tree, removed.get(id), added.get(id));
+                    continue;
+                }
+                for (Node node : removed.get(id)) {
+                    tree.root = delete(tree.root, node);
+                }
+                for (Node node : added.get(id)) {
+                    tree.root = insert(tree.root, node);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto del índice.
+     * 
+     * @param product Producto a quitar.
+     */
+    public void remove(Product product) {
+        lock.writeLock().lock();
+        try {
+            int[] levels = indexed.remove(product);
+            if (levels == null) {
+                return;
+            }
+            for (int id = 0; id < levels.length; id++) {
+                if (levels[id] != Product.ABSENT) {
+                    Tree tree = bySize[id];
+                    tree.root = delete(tree.root, new Node(levels[id], product));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cuenta los productos que manejan una talla y tienen menos unidades que un umbral.
+     * 
+     * @param size      Etiqueta de la talla.
+     * @param threshold Umbral, exclusivo.
+     * @return Cantidad de productos por debajo del umbral.
+     */
+    public int countBelow(String size, int threshold) {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            Node current = root(size);
+            while (current != null) {
+                if (current.quantity < threshold) {
+                    count += count(current.left) + 1;
+                    current = current.right;
+                } else {
+                    current = current.left;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los productos que manejan una talla y tienen menos unidades que un umbral.
+     * 
+     * @param size      Etiqueta de la talla.
+     * @param threshold Umbral, exclusivo.
+     * @param limit     Cantidad máxima de resultados.
+     * @return Productos de menor a mayor cantidad; a igual cantidad, por SKU.
+     */
+    public List<Product> searchBelow(String size, int threshold, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Product> products = new ArrayList<>();
+            Node root = root(size);
+            Node[] stack = new Node[height(root)];
+            int depth = 0;
+            Node current = root;
+            while ((current != null || depth > 0) && products.size() < limit) {
+                if (current != null) {
+                    stack[depth++] = current;
+                    current = current.left;
+                } else {
+                    Node node = stack[--depth];
+                    if (node.quantity >= threshold) {
+                        break;
+                    }
+                    products.add(node.product);
+                    current = node.right;
+                }
+            }
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Suma las unidades de una talla en todo el catálogo.
+     * 
+     * @param size Etiqueta de la talla.
+     * @return Total de unidades, o 0 si ningún producto maneja la talla.
+     */
+    public long totalUnits(String size) {
+        lock.readLock().lock();
+        try {
+            return units(root(size));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Suma las unidades de cada talla en todo el catálogo.
+     * 
+     * @return Total de unidades por etiqueta de talla, en el orden de los identificadores
+     *         de talla; solo incluye tallas que algún producto maneja.
+     */
+    public Map<String, Long> totalUnitsBySize() {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> totals = new LinkedHashMap<>();
+            for (int id = 0; id < bySize.length; id++) {
+                if (bySize[id] != null && bySize[id].root != null) {
+                    totals.put(SizeDictionary.labelOf(id), bySize[id].root.units);
+                }
+            }
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addLocked(Product product) {
+        if (indexed.containsKey(product)) {
+            return;
+        }
+        int[] levels = product.stockLevels();
+        for (int id = 0; id < levels.length; id++) {
+            if (levels[id] != Product.ABSENT) {
+                Tree tree = treeFor(id);
+                tree.root = insert(tree.root, new Node(levels[id], product));
+            }
+        }
+        indexed.put(product, levels);
+    }
+
+    /**
+     * Reconstruye el árbol de una talla sin los nodos que se quitan y con los nuevos,
+     * balanceado por completo.
+     * 
+     * @param tree    Árbol a reconstruir.
+     * @param removed Claves de los nodos que se quitan; todas están en el árbol.
+     * @param added   Nodos nuevos.
+     */
+    private static void rebuild(Tree tree, List<Node> removed, List<Node> added) {
+        added.sort(ORDER);
+        removed.sort(ORDER);
+        Node[] nodes = new Node[count(tree.root) - removed.size() + added.size()];
+        Node[] stack = new Node[height(tree.root)];
+        int depth = 0;
+        int size = 0;
+        int next = 0;
+        int skipped = 0;
+        Node current = tree.root;
+        while (current != null || depth > 0) {
+            if (current != null) {
+                stack[depth++] = current;
+                current = current.left;
+                continue;
+            }
+            Node node = stack[--depth];
+            current = node.right;
+            // El recorrido encuentra los nodos que se quitan en el mismo orden en que
+            // están ordenadas las claves, así que basta comparar con la siguiente
+            if (skipped < removed.size() && removed.get(skipped).product == node.product
+                    && removed.get(skipped).quantity == node.quantity) {
+                skipped++;
+                continue;
+            }
+            while (next < added.size() && added.get(next).compareTo(node) < 0) {
+                nodes[size++] = added.get(next++);
+            }
+            nodes[size++] = node;
+        }
+        while (next < added.size()) {
+            nodes[size++] = added.get(next++);
+        }
+        tree.root = build(nodes, 0, size);
+    }
+
+    /**
+     * Enlaza un tramo de nodos en orden como un árbol balanceado.
+     */
+    private static Node build(Node[] nodes, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node node = nodes[mid];
+        node.left = build(nodes, from, mid);
+        node.right = build(nodes, mid + 1, to);
+        node.refresh();
+        return node;
+    }
+
+    private static int level(int[] levels, int id) {
+        return id < levels.length ? levels[id] : Product.ABSENT;
+    }
+
+    private Node root(String size) {
+        int id = SizeDictionary.find(size);
+        return id < 0 || id >= bySize.length || bySize[id] == null ? null : bySize[id].root;
+    }
+
+    private Tree treeFor(int id) {
+        if (id >= bySize.length) {
+            Tree[] grown = new Tree[Math.max(id + 1, SizeDictionary.size())];
+            System.arraycopy(bySize, 0, grown, 0, bySize.length);
+            bySize = grown;
+        }
+        if (bySize[id] == null) {
+            bySize[id] = new Tree();
+        }
+        return bySize[id];
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (node.compareTo(added) > 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    /**
+     * Quita el nodo con la misma cantidad y SKU que la clave indicada.
+     */
+    private static Node delete(Node node, Node key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = node.compareTo(key);
+        if (cmp > 0) {
+            node.left = delete(node.left, key);
+        } else if (cmp < 0) {
+            node.right = delete(node.right, key);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // El sucesor toma el lugar del nodo eliminado
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteFirst(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private static Node deleteFirst(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteFirst(node.left);
+        return balance(node);
+    }
+
+    /**
+     * Recalcula los agregados de un nodo y lo rota si sus hijos difieren en altura en dos.
+     */
+    private static Node balance(Node node) {
+        int diff = height(node.left) - height(node.right);
+        if (diff > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (diff < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        node.refresh();
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.refresh();
+        right.refresh();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.refresh();
+        left.refresh();
+        return left;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int count(Node node) {
+        return node == null ? 0 : node.count;
+    }
+
+    private static long units(Node node) {
+        return node == null ? 0 : node.units;
+    }
+}
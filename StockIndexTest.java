@@ -0,0 +1,130 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class StockIndexTest {
+    private StockIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new StockIndex();
+    }
+
+    /**
+     * Prueba de las consultas por umbral y de los totales por talla.
+     */
+    @Test
+    void testThresholdsAndTotals() {
+        index.add(product("001", Map.of("s", 3, "m", 10)));
+        index.add(product("002", Map.of("m", 2)));
+        index.add(product("003", Map.of("m", 0, "xl", 7)));
+
+        assertEquals(2, index.countBelow("m", 5));
+        assertEquals(List.of("003", "002"), skus(index.searchBelow("m", 5, 10)));
+        assertEquals(List.of("003"), skus(index.searchBelow("m", 5, 1)));
+        assertEquals(0, index.countBelow("m", 0));
+        assertEquals(3, index.countBelow("m", 11));
+        assertEquals(0, index.countBelow("xs", 100));
+        assertTrue(index.searchBelow("talla-inexistente", 100, 10).isEmpty());
+
+        assertEquals(12, index.totalUnits("m"));
+        assertEquals(Map.of("s", 3L, "m", 12L, "xl", 7L), new HashMap<>(index.totalUnitsBySize()));
+    }
+
+    /**
+     * Prueba de que las actualizaciones y bajas mantienen los agregados correctos.
+     */
+    @Test
+    void testUpdatesMatchFullScan() {
+        Random random = new Random(3);
+        String[] sizes = {"s", "m", "l"};
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            Map<String, Integer> stock = new HashMap<>();
+            stock.put(sizes[random.nextInt(3)], random.nextInt(20));
+            Product product = product(String.format("%05d", i), stock);
+            products.add(product);
+        }
+        index.addAll(products);
+        for (int i = 0; i < 5_000; i++) {
+            Product product = products.get(random.nextInt(products.size()));
+            if (random.nextBoolean()) {
+                product.setStock(sizes[random.nextInt(3)], random.nextInt(20));
+            } else {
+                product.setSizes(Map.of(sizes[random.nextInt(3)], random.nextInt(20)));
+            }
+            index.update(product);
+        }
+        for (int i = 0; i < 500; i++) {
+            index.remove(products.remove(random.nextInt(products.size())));
+        }
+
+        assertMatchesScan(products, sizes);
+    }
+
+    /**
+     * Prueba de que los lotes, grandes y pequeños frente al índice y con productos
+     * repetidos, dejan el mismo índice que recorrer el catálogo.
+     */
+    @Test
+    void testBatchUpdatesMatchFullScan() {
+        Random random = new Random(25);
+        String[] sizes = {"s", "m", "l"};
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            products.add(product(String.format("%05d", i), Map.of("m", random.nextInt(20))));
+        }
+        index.addAll(products);
+        for (int batchSize : new int[] {1, 10, 100, 1_000, 5_000}) {
+            List<Product> batch = new ArrayList<>();
+            for (int i = 0; i < batchSize; i++) {
+                Product product = products.get(random.nextInt(products.size()));
+                if (random.nextInt(4) > 0) {
+                    product.setStock(sizes[random.nextInt(3)], random.nextInt(20));
+                } else {
+                    product.setSizes(Map.of(sizes[random.nextInt(3)], random.nextInt(20)));
+                }
+                batch.add(product);
+            }
+            index.updateAll(batch);
+            assertMatchesScan(products, sizes);
+        }
+    }
+
+    private void assertMatchesScan(List<Product> products, String[] sizes) {
+        for (String size : sizes) {
+            List<Product> expected = new ArrayList<>();
+            long units = 0;
+            for (Product product : products) {
+                if (product.getSizes().containsKey(size)) {
+                    units += product.getStock(size);
+                    if (product.getStock(size) < 8) {
+                        expected.add(product);
+                    }
+                }
+            }
+            expected.sort(Comparator.comparingInt((Product p) -> p.getStock(size)).thenComparing(Product::getSku));
+            assertEquals(units, index.totalUnits(size));
+            assertEquals(expected.size(), index.countBelow(size, 8));
+            assertEquals(skus(expected), skus(index.searchBelow(size, 8, Integer.MAX_VALUE)));
+        }
+    }
+
+    private static Product product(String sku, Map<String, Integer> sizes) {
+        return new Product(sku, "Producto " + sku, "", new HashMap<>(sizes));
+    }
+
+    private static List<String> skus(List<Product> products) {
+        List<String> skus = new ArrayList<>();
+        for (Product product : products) {
+            skus.add(product.getSku());
+        }
+        return skus;
+    }
+}
@@ -0,0 +1,206 @@
+import inventario.jmh.InventoryTargets;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Implementación de {@link InventoryTargets} sobre las clases del proyecto. Está en el
+ * paquete por defecto para poder usarlas; las mediciones la cargan por nombre.
+ */
+public final class InventoryJmhTargets implements InventoryTargets {
+    @Override
+    public Object newTree() {
+        return new BinarySearchTree<Integer, Integer>(true);
+    }
+
+    @Override
+    public void insert(Object tree, Integer key) {
+        tree(tree).insert(key, key);
+    }
+
+    @Override
+    public Object search(Object tree, Integer key) {
+        return tree(tree).search(key);
+    }
+
+    @Override
+    public Function<String, Integer> readIndex(String kind, List<String> keys) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            entries.add(Map.entry(keys.get(i), i));
+        }
+        switch (kind) {
+            case "BinarySearchTree": {
+                BinarySearchTree<String, Integer> tree = new BinarySearchTree<>(true);
+                tree.bulkLoad(entries);
+                return tree::search;
+            }
+            case "PersistentTree":
+                return PersistentTree.fromSorted(entries)::get;
+            case "EytzingerIndex":
+                return EytzingerIndex.fromSorted(entries, entries.size())::get;
+            default:
+                throw new IllegalArgumentException("Índice desconocido: " + kind);
+        }
+    }
+
+    @Override
+    public void writeCatalog(Path file, int rows) throws IOException {
+        new CatalogGenerator(rows).writeCatalog(file);
+    }
+
+    @Override
+    public String skuOf(int rows, long key) {
+        return new CatalogGenerator(rows).skuOf(key);
+    }
+
+    @Override
+    public String nameOf(int rows, long key) {
+        return new CatalogGenerator(rows).nameOf(key);
+    }
+
+    @Override
+    public List<?> parseCsv(Path file) throws IOException {
+        return CsvParser.parse(file);
+    }
+
+    @Override
+    public List<?> parseSplit(Path file) throws IOException {
+        List<Product> products = new ArrayList<>();
+        try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] data = line.split(",");
+                Map<String, Integer> sizes = new HashMap<>();
+                for (String entry : data[3].split("\\|")) {
+                    String[] parts = entry.split(":");
+                    sizes.put(parts[0], Integer.parseInt(parts[1]));
+                }
+                products.add(new Product(data[0], data[1], data[2], sizes));
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public Object loadFromCSV(Path file, String manager) {
+        InventoryManager inventory;
+        switch (manager) {
+            case "InventoryManager":
+                inventory = new InventoryManager();
+                break;
+            case "ConcurrentInventoryManager":
+                inventory = new ConcurrentInventoryManager();
+                break;
+            case "OffHeapInventoryManager":
+                inventory = new OffHeapInventoryManager();
+                break;
+            default:
+                throw new IllegalArgumentException("Inventario desconocido: " + manager);
+        }
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            inventory.loadFromCSV(file.toString());
+        } finally {
+            System.setOut(out);
+        }
+        if (inventory.size() == 0) {
+            throw new IllegalStateException("No se cargó el archivo " + file);
+        }
+        return inventory;
+    }
+
+    @Override
+    public void setSkuCodecEnabled(Object inventory, boolean enabled) {
+        manager(inventory).setSkuCodecEnabled(enabled);
+    }
+
+    @Override
+    public Object searchBySku(Object inventory, String sku) {
+        return manager(inventory).searchBySku(sku);
+    }
+
+    @Override
+    public int rankBySku(Object inventory, String sku) {
+        return manager(inventory).rankBySku(sku);
+    }
+
+    @Override
+    public Object searchByName(Object inventory, String name) {
+        return manager(inventory).searchByName(name);
+    }
+
+    @Override
+    public long offHeapBytes(Object inventory) {
+        Number reserved = manager(inventory).getMetrics().gauges().get("offHeap.reservedBytes");
+        return reserved == null ? 0 : reserved.longValue();
+    }
+
+    @Override
+    public void listProductsBySku(Object inventory, OutputStream out) {
+        PrintStream previous = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            manager(inventory).listProductsBySku();
+        } finally {
+            System.setOut(previous);
+        }
+    }
+
+    @Override
+    public long export(Object inventory, OutputStream out, String format) throws IOException {
+        return manager(inventory).export(out, InventoryExporter.Format.valueOf(format));
+    }
+
+    @Override
+    public Closeable attachJournal(Object inventory, Path file, Path snapshotFile) throws IOException {
+        InventoryJournal journal = new InventoryJournal(file, snapshotFile);
+        manager(inventory).attachJournal(journal);
+        return journal;
+    }
+
+    @Override
+    public long runBatch(Object inventory, int batchSize, String commands) throws IOException {
+        InventoryBatchRunner runner = new InventoryBatchRunner(manager(inventory), batchSize);
+        return runner.run(new BufferedReader(new StringReader(commands)), OutputStream.nullOutputStream());
+    }
+
+    @Override
+    public Object startServer(Object inventory) throws IOException {
+        InventoryServer server = new InventoryServer((ConcurrentInventoryManager) inventory, 0);
+        server.start();
+        return server;
+    }
+
+    @Override
+    public int port(Object server) {
+        return ((InventoryServer) server).port();
+    }
+
+    @Override
+    public void stopServer(Object server) {
+        ((InventoryServer) server).stop(0);
+    }
+
+    private static InventoryManager manager(Object inventory) {
+        return (InventoryManager) inventory;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BinarySearchTree<Integer, Integer> tree(Object tree) {
+        return (BinarySearchTree<Integer, Integer>) tree;
+    }
+}
@@ -0,0 +1,124 @@
+package inventario.jmh;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tiempo de ejecutar con {@code InventoryBatchRunner} un archivo de cambios de talla
+ * sobre SKU aleatorios, aplicados uno por uno y en lotes, con y sin bitácora. Con la
+ * bitácora conectada cada cambio suelto espera su propio {@code fsync}, así que la
+ * combinación {@code batchSize=1}, {@code journal=true} tarda minutos con un millón de
+ * comandos; conviene bajarlos con {@code -p commands=20000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BatchBenchmark {
+    /**
+     * Cantidad de productos del inventario.
+     */
+    @Param({"1000000"})
+    public int rows;
+
+    /**
+     * Cantidad de comandos del archivo.
+     */
+    @Param({"1000000"})
+    public int commands;
+
+    /**
+     * Comandos por lote; 1 los aplica uno por uno.
+     */
+    @Param({"1", "100000"})
+    public int batchSize;
+
+    /**
+     * Si el inventario tiene una bitácora conectada.
+     */
+    @Param({"false", "true"})
+    public boolean journal;
+
+    private InventoryTargets targets;
+    private Object inventory;
+    private String text;
+    private Path directory;
+    private Closeable attached;
+
+    /**
+     * Carga el catálogo, conecta la bitácora si corresponde y genera los comandos.
+     * 
+     * @throws IOException Si no se pueden escribir los archivos temporales.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        targets = InventoryTargets.load();
+        directory = Files.createTempDirectory("jmh");
+        Path file = directory.resolve("catalogo.csv");
+        try {
+            targets.writeCatalog(file, rows);
+            inventory = targets.loadFromCSV(file, "InventoryManager");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        if (journal) {
+            attached = targets.attachJournal(inventory, directory.resolve("inventario.journal"),
+                    directory.resolve("inventario.snapshot"));
+        }
+        Random random = new Random(42);
+        StringBuilder lines = new StringBuilder(commands * 32);
+        for (int i = 0; i < commands; i++) {
+            lines.append("talla,").append(targets.skuOf(rows, random.nextInt(rows))).append(",m,")
+                    .append(random.nextInt(100)).append('\n');
+        }
+        text = lines.toString();
+    }
+
+    /**
+     * Cierra la bitácora y borra los archivos temporales.
+     * 
+     * @throws IOException Si no se pueden borrar.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        if (attached != null) {
+            attached.close();
+        }
+        Files.deleteIfExists(directory.resolve("inventario.journal"));
+        Files.deleteIfExists(directory.resolve("inventario.snapshot"));
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Ejecuta todos los comandos.
+     * 
+     * @return Cantidad de comandos fallidos, para que JMH la consuma.
+     * @throws IOException Si falla la lectura de los comandos.
+     */
+    @Benchmark
+    public long run() throws IOException {
+        long errors = targets.runBatch(inventory, batchSize, text);
+        if (errors != 0) {
+            throw new IllegalStateException("El lote tuvo " + errors + " errores");
+        }
+        return errors;
+    }
+}
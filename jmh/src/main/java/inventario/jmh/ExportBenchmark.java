@@ -0,0 +1,89 @@
+package inventario.jmh;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tiempo de listar el inventario completo con {@code listProductsBySku}, que imprime con
+ * {@code println} y {@code Product.toString}, frente a exportarlo con
+ * {@code InventoryExporter} en CSV y JSON Lines. Todos escriben a un destino que
+ * descarta los bytes, así solo se mide la codificación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExportBenchmark {
+    /**
+     * Cantidad de productos del inventario.
+     */
+    @Param({"1000000"})
+    public int rows;
+
+    private final OutputStream sink = OutputStream.nullOutputStream();
+    private InventoryTargets targets;
+    private Object inventory;
+
+    /**
+     * Genera el catálogo y lo carga.
+     * 
+     * @throws IOException Si no se puede escribir el catálogo.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        targets = InventoryTargets.load();
+        Path file = Files.createTempFile("jmh", ".csv");
+        try {
+            targets.writeCatalog(file, rows);
+            inventory = targets.loadFromCSV(file, "InventoryManager");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Lista el inventario con {@code println}.
+     */
+    @Benchmark
+    public void println() {
+        targets.listProductsBySku(inventory, sink);
+    }
+
+    /**
+     * Exporta el inventario en CSV.
+     * 
+     * @return Productos escritos, para que JMH los consuma.
+     * @throws IOException No ocurre con este destino.
+     */
+    @Benchmark
+    public long csv() throws IOException {
+        return targets.export(inventory, sink, "CSV");
+    }
+
+    /**
+     * Exporta el inventario en JSON Lines.
+     * 
+     * @return Productos escritos, para que JMH los consuma.
+     * @throws IOException No ocurre con este destino.
+     */
+    @Benchmark
+    public long jsonLines() throws IOException {
+        return targets.export(inventory, sink, "JSON_LINES");
+    }
+}
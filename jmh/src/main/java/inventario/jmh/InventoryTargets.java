@@ -0,0 +1,237 @@
+package inventario.jmh;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Operaciones del inventario que miden las clases de este paquete.
+ * <p>
+ * JMH no admite mediciones en el paquete por defecto, y desde un paquete con nombre no
+ * se pueden usar las clases del proyecto, que viven en el paquete por defecto. Por eso
+ * las mediciones llaman a esta interfaz, que implementa {@code InventoryJmhTargets} en
+ * el paquete por defecto. Cada llamada tiene una sola implementación posible, así que
+ * el JIT la resuelve en línea y no cuenta en la medición.
+ * <p>
+ * Los árboles, inventarios y servidores se manejan como {@link Object}; la
+ * implementación los convierte a su tipo.
+ */
+public interface InventoryTargets {
+    /**
+     * Carga la implementación del paquete por defecto.
+     * 
+     * @return Operaciones del inventario.
+     */
+    static InventoryTargets load() {
+        try {
+            return (InventoryTargets) Class.forName("InventoryJmhTargets").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No se encontró InventoryJmhTargets", e);
+        }
+    }
+
+    /**
+     * Crea un {@code BinarySearchTree} balanceado vacío con claves y valores enteros.
+     * 
+     * @return Árbol nuevo.
+     */
+    Object newTree();
+
+    /**
+     * Inserta una clave en un árbol, con ella misma como valor.
+     * 
+     * @param tree Árbol creado con {@link #newTree()}.
+     * @param key  Clave a insertar.
+     */
+    void insert(Object tree, Integer key);
+
+    /**
+     * Busca una clave en un árbol.
+     * 
+     * @param tree Árbol creado con {@link #newTree()}.
+     * @param key  Clave a buscar.
+     * @return Valor de la clave, o null si no está.
+     */
+    Object search(Object tree, Integer key);
+
+    /**
+     * Construye un índice de lectura por clave de texto sobre claves ya ordenadas, con
+     * la posición de cada clave como valor.
+     * 
+     * @param kind Índice: {@code BinarySearchTree}, {@code PersistentTree} o
+     *             {@code EytzingerIndex}.
+     * @param keys Claves en orden ascendente y sin repetir.
+     * @return Búsqueda sobre el índice.
+     */
+    Function<String, Integer> readIndex(String kind, List<String> keys);
+
+    /**
+     * Escribe un catálogo sintético con {@code CatalogGenerator}.
+     * 
+     * @param file Archivo de destino.
+     * @param rows Cantidad de productos.
+     * @throws IOException Si no se puede escribir.
+     */
+    void writeCatalog(Path file, int rows) throws IOException;
+
+    /**
+     * Obtiene el SKU de un producto del catálogo generado.
+     * 
+     * @param rows Cantidad de productos del catálogo.
+     * @param key  Número del producto, entre 0 y {@code rows - 1}.
+     * @return SKU del producto.
+     */
+    String skuOf(int rows, long key);
+
+    /**
+     * Obtiene el nombre de un producto del catálogo generado.
+     * 
+     * @param rows Cantidad de productos del catálogo.
+     * @param key  Número del producto, entre 0 y {@code rows - 1}.
+     * @return Nombre del producto.
+     */
+    String nameOf(int rows, long key);
+
+    /**
+     * Lee un CSV con {@code CsvParser}.
+     * 
+     * @param file Archivo CSV.
+     * @return Productos leídos.
+     * @throws IOException Si no se puede leer o tiene filas inválidas.
+     */
+    List<?> parseCsv(Path file) throws IOException;
+
+    /**
+     * Lee un CSV como lo hacía la primera versión de {@code loadFromCSV}, con
+     * {@code BufferedReader} y {@code String.split}, para comparar con {@link #parseCsv}.
+     * 
+     * @param file Archivo CSV sin campos entre comillas.
+     * @return Productos leídos.
+     * @throws IOException Si no se puede leer.
+     */
+    List<?> parseSplit(Path file) throws IOException;
+
+    /**
+     * Crea un inventario y le carga un CSV con {@code loadFromCSV}, sin el mensaje que
+     * imprime.
+     * 
+     * @param file    Archivo CSV.
+     * @param manager Clase del inventario: {@code InventoryManager},
+     *                {@code ConcurrentInventoryManager} u {@code OffHeapInventoryManager}.
+     * @return Inventario cargado.
+     */
+    Object loadFromCSV(Path file, String manager);
+
+    /**
+     * Activa o desactiva los SKU codificados con {@code SkuCodec}.
+     * 
+     * @param inventory Inventario creado con {@link #loadFromCSV}.
+     * @param enabled   true para activarlos.
+     */
+    void setSkuCodecEnabled(Object inventory, boolean enabled);
+
+    /**
+     * Busca un producto por SKU con {@code searchBySku}.
+     * 
+     * @param inventory Inventario creado con {@link #loadFromCSV}.
+     * @param sku       SKU a buscar.
+     * @return Producto encontrado, o null.
+     */
+    Object searchBySku(Object inventory, String sku);
+
+    /**
+     * Busca la posición de un SKU en el árbol ordenado con {@code rankBySku}.
+     * 
+     * @param inventory Inventario creado con {@link #loadFromCSV}.
+     * @param sku       SKU a buscar.
+     * @return Posición del SKU, o negativa si no está.
+     */
+    int rankBySku(Object inventory, String sku);
+
+    /**
+     * Busca un producto por nombre con {@code searchByName}.
+     * 
+     * @param inventory Inventario creado con {@link #loadFromCSV}.
+     * @param name      Nombre a buscar.
+     * @return Producto encontrado, o null.
+     */
+    Object searchByName(Object inventory, String name);
+
+    /**
+     * Obtiene la memoria directa reservada por un {@code OffHeapInventoryManager}.
+     * 
+     * @param inventory Inventario creado con {@link #loadFromCSV}.
+     * @return Bytes reservados fuera del heap, o 0 si el inventario no usa memoria directa.
+     */
+    long offHeapBytes(Object inventory);
+
+    /**
+     * Lista el inventario por SKU con {@code listProductsBySku}, que imprime cada
+     * producto con {@code println}, enviando la salida a otro destino.
+     * 
+     * @param inventory Inventario creado con {@link #loadFromCSV}.
+     * @param out       Destino de la salida.
+     */
+    void listProductsBySku(Object inventory, OutputStream out);
+
+    /**
+     * Exporta el inventario con {@code InventoryExporter}.
+     * 
+     * @param inventory Inventario creado con {@link #loadFromCSV}.
+     * @param out       Destino.
+     * @param format    Nombre de un {@code InventoryExporter.Format}.
+     * @return Productos escritos.
+     * @throws IOException Si el destino falla.
+     */
+    long export(Object inventory, OutputStream out, String format) throws IOException;
+
+    /**
+     * Conecta una bitácora nueva al inventario.
+     * 
+     * @param inventory    Inventario creado con {@link #loadFromCSV}.
+     * @param file         Archivo de la bitácora.
+     * @param snapshotFile Snapshot donde se compacta.
+     * @return La bitácora, para cerrarla al terminar.
+     * @throws IOException Si no se puede abrir.
+     */
+    Closeable attachJournal(Object inventory, Path file, Path snapshotFile) throws IOException;
+
+    /**
+     * Ejecuta comandos con {@code InventoryBatchRunner}, descartando los resultados.
+     * 
+     * @param inventory Inventario creado con {@link #loadFromCSV}.
+     * @param batchSize Comandos por lote; 1 los aplica uno por uno.
+     * @param commands  Comandos, uno por línea.
+     * @return Cantidad de comandos que fallaron.
+     * @throws IOException Si falla la lectura de los comandos.
+     */
+    long runBatch(Object inventory, int batchSize, String commands) throws IOException;
+
+    /**
+     * Publica un inventario concurrente con un {@code InventoryServer} en un puerto libre.
+     * 
+     * @param inventory Inventario creado con {@link #loadFromCSV} como
+     *                  {@code ConcurrentInventoryManager}.
+     * @return El servidor, ya atendiendo.
+     * @throws IOException Si no se puede abrir el puerto.
+     */
+    Object startServer(Object inventory) throws IOException;
+
+    /**
+     * Obtiene el puerto de un servidor.
+     * 
+     * @param server Servidor creado con {@link #startServer}.
+     * @return Puerto TCP.
+     */
+    int port(Object server);
+
+    /**
+     * Detiene un servidor.
+     * 
+     * @param server Servidor creado con {@link #startServer}.
+     */
+    void stopServer(Object server);
+}
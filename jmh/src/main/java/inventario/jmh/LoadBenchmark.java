@@ -0,0 +1,98 @@
+package inventario.jmh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filas por segundo de {@code loadFromCSV} sobre catálogos generados con
+ * {@code CatalogGenerator}, de 30 a 10.000.000 de filas. Cada invocación carga el
+ * archivo completo en un inventario nuevo; el contador {@code rows} reporta las filas
+ * por segundo y con {@code -prof gc} JMH agrega los bytes reservados.
+ * <p>
+ * El archivo de 10.000.000 de filas ocupa cerca de un gigabyte en el directorio
+ * temporal, y su carga necesita unos 4 GB de heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LoadBenchmark {
+    /**
+     * Cantidad de filas del catálogo.
+     */
+    @Param({"30", "10000", "1000000", "10000000"})
+    public int rows;
+
+    private InventoryTargets targets;
+    private Path file;
+
+    /**
+     * Filas cargadas en la iteración, que JMH reporta por segundo.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rows {
+        public long rows;
+
+        /**
+         * Reinicia el contador al empezar cada iteración.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+
+    /**
+     * Genera el catálogo.
+     * 
+     * @throws IOException Si no se puede escribir el archivo.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        targets = InventoryTargets.load();
+        file = Files.createTempFile("jmh", ".csv");
+        targets.writeCatalog(file, rows);
+    }
+
+    /**
+     * Borra el catálogo.
+     * 
+     * @throws IOException Si no se puede borrar el archivo.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Carga el catálogo en un inventario nuevo.
+     * 
+     * @param counter Contador de filas cargadas.
+     * @return El inventario, para que JMH lo consuma.
+     */
+    @Benchmark
+    public Object loadFromCSV(Rows counter) {
+        Object inventory = targets.loadFromCSV(file, "InventoryManager");
+        counter.rows += rows;
+        return inventory;
+    }
+}
@@ -0,0 +1,117 @@
+package inventario.jmh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latencia de {@code searchBySku}, {@code rankBySku} (la búsqueda en el árbol por SKU)
+ * y {@code searchByName} sobre un inventario cargado desde un catálogo generado. El
+ * parámetro {@code store} elige el inventario: {@code hash} es {@code InventoryManager},
+ * {@code codec} el mismo con los SKU codificados con {@code SkuCodec} y
+ * {@code offheap} es {@code OffHeapInventoryManager}. JMH muestrea el tiempo de cada
+ * llamada y reporta la mediana y los percentiles altos. Las claves buscadas siguen una
+ * secuencia aleatoria fija de productos existentes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LookupBenchmark {
+    private static final int PROBES = 1 << 16;
+
+    /**
+     * Cantidad de productos del inventario.
+     */
+    @Param({"1000000"})
+    public int rows;
+
+    /**
+     * Inventario: {@code hash}, {@code codec} u {@code offheap}.
+     */
+    @Param({"hash", "codec", "offheap"})
+    public String store;
+
+    private InventoryTargets targets;
+    private Object inventory;
+    private String[] skus;
+    private String[] names;
+    private int next;
+
+    /**
+     * Genera el catálogo, lo carga y prepara las claves a buscar.
+     * 
+     * @throws IOException Si no se puede escribir el catálogo.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        targets = InventoryTargets.load();
+        Path file = Files.createTempFile("jmh", ".csv");
+        try {
+            targets.writeCatalog(file, rows);
+            inventory = targets.loadFromCSV(file,
+                    store.equals("offheap") ? "OffHeapInventoryManager" : "InventoryManager");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        if (store.equals("codec")) {
+            targets.setSkuCodecEnabled(inventory, true);
+        }
+        skus = new String[PROBES];
+        names = new String[PROBES];
+        Random random = new Random(7);
+        for (int i = 0; i < PROBES; i++) {
+            long key = random.nextInt(rows);
+            skus[i] = targets.skuOf(rows, key);
+            names[i] = targets.nameOf(rows, key);
+        }
+    }
+
+    /**
+     * Busca el siguiente SKU de la secuencia.
+     * 
+     * @return Producto encontrado, para que JMH lo consuma.
+     */
+    @Benchmark
+    public Object searchBySku() {
+        next = (next + 1) & (PROBES - 1);
+        return targets.searchBySku(inventory, skus[next]);
+    }
+
+    /**
+     * Busca la posición del siguiente SKU de la secuencia en el árbol ordenado.
+     * 
+     * @return Posición del SKU, para que JMH la consuma.
+     */
+    @Benchmark
+    public int rankBySku() {
+        next = (next + 1) & (PROBES - 1);
+        return targets.rankBySku(inventory, skus[next]);
+    }
+
+    /**
+     * Busca el siguiente nombre de la secuencia.
+     * 
+     * @return Producto encontrado, para que JMH lo consuma.
+     */
+    @Benchmark
+    public Object searchByName() {
+        next = (next + 1) & (PROBES - 1);
+        return targets.searchByName(inventory, names[next]);
+    }
+}
@@ -0,0 +1,119 @@
+package inventario.jmh;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Memoria que retiene un inventario cargado con {@code InventoryManager} y con
+ * {@code OffHeapInventoryManager}. Cada invocación carga el catálogo y mide el heap
+ * ocupado antes y después, tras pedir varias recolecciones completas; los contadores
+ * {@code heapBytes} y {@code directBytes} reportan el heap retenido y la memoria directa
+ * que reserva el inventario fuera del heap. El tiempo que JMH reporta incluye esas
+ * recolecciones y no sirve como tiempo de carga; para eso está {@link LoadBenchmark}.
+ * La latencia de {@code searchBySku} de ambos inventarios está en {@link LookupBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MemoryBenchmark {
+    /**
+     * Cantidad de filas del catálogo.
+     */
+    @Param({"30", "10000", "1000000"})
+    public int rows;
+
+    /**
+     * Clase del inventario.
+     */
+    @Param({"InventoryManager", "OffHeapInventoryManager"})
+    public String manager;
+
+    private InventoryTargets targets;
+    private Path file;
+
+    /**
+     * Memoria retenida por el inventario cargado en la iteración.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long heapBytes;
+        public long directBytes;
+
+        /**
+         * Reinicia los contadores al empezar cada iteración.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            heapBytes = 0;
+            directBytes = 0;
+        }
+    }
+
+    /**
+     * Genera el catálogo.
+     * 
+     * @throws IOException Si no se puede escribir el archivo.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        targets = InventoryTargets.load();
+        file = Files.createTempFile("jmh", ".csv");
+        targets.writeCatalog(file, rows);
+    }
+
+    /**
+     * Borra el catálogo.
+     * 
+     * @throws IOException Si no se puede borrar el archivo.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Carga el catálogo y mide la memoria que queda ocupada.
+     * 
+     * @param footprint Contadores de memoria.
+     * @return El inventario, para que JMH lo consuma.
+     */
+    @Benchmark
+    public Object load(Footprint footprint) {
+        long empty = retainedHeap();
+        Object inventory = targets.loadFromCSV(file, manager);
+        footprint.heapBytes = retainedHeap() - empty;
+        footprint.directBytes = targets.offHeapBytes(inventory);
+        return inventory;
+    }
+
+    /**
+     * Heap ocupado después de pedir varias recolecciones completas.
+     */
+    private static long retainedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,85 @@
+package inventario.jmh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tiempo de lectura de un catálogo generado con {@code CsvParser}, frente a la lectura
+ * original de {@code loadFromCSV} con {@code BufferedReader} y {@code String.split}.
+ * Solo se mide el análisis del archivo, sin construir los índices.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParserBenchmark {
+    /**
+     * Cantidad de filas del catálogo.
+     */
+    @Param({"1000000"})
+    public int rows;
+
+    private InventoryTargets targets;
+    private Path file;
+
+    /**
+     * Genera el catálogo.
+     * 
+     * @throws IOException Si no se puede escribir el archivo.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        targets = InventoryTargets.load();
+        file = Files.createTempFile("jmh", ".csv");
+        targets.writeCatalog(file, rows);
+    }
+
+    /**
+     * Borra el catálogo.
+     * 
+     * @throws IOException Si no se puede borrar el archivo.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Lee el catálogo con {@code CsvParser}.
+     * 
+     * @return Productos leídos, para que JMH los consuma.
+     * @throws IOException Si no se puede leer.
+     */
+    @Benchmark
+    public List<?> csvParser() throws IOException {
+        return targets.parseCsv(file);
+    }
+
+    /**
+     * Lee el catálogo con {@code String.split}.
+     * 
+     * @return Productos leídos, para que JMH los consuma.
+     * @throws IOException Si no se puede leer.
+     */
+    @Benchmark
+    public List<?> split() throws IOException {
+        return targets.parseSplit(file);
+    }
+}
@@ -0,0 +1,78 @@
+package inventario.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latencia de las búsquedas por SKU en los índices de lectura: {@code BinarySearchTree},
+ * {@code PersistentTree} y {@code EytzingerIndex}, con claves de nueve dígitos y
+ * búsquedas en orden aleatorio. Para 100.000.000 de claves conviene agregar
+ * {@code -jvmArgsAppend -Xmx32g}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReadIndexBenchmark {
+    private static final int PROBES = 1 << 16;
+
+    /**
+     * Cantidad de claves del índice.
+     */
+    @Param({"30", "10000", "1000000", "10000000"})
+    public int count;
+
+    /**
+     * Índice: {@code BinarySearchTree}, {@code PersistentTree} o {@code EytzingerIndex}.
+     */
+    @Param({"BinarySearchTree", "PersistentTree", "EytzingerIndex"})
+    public String index;
+
+    private Function<String, Integer> lookup;
+    private String[] probes;
+    private int next;
+
+    /**
+     * Construye el índice y prepara las claves a buscar.
+     */
+    @Setup
+    public void setUp() {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(String.format("%09d", i));
+        }
+        lookup = InventoryTargets.load().readIndex(index, keys);
+        probes = new String[PROBES];
+        Random random = new Random(7);
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = keys.get(random.nextInt(count));
+        }
+    }
+
+    /**
+     * Busca la siguiente clave de la secuencia.
+     * 
+     * @return Valor encontrado, para que JMH lo consuma.
+     */
+    @Benchmark
+    public Integer get() {
+        next = (next + 1) & (PROBES - 1);
+        return lookup.apply(probes[next]);
+    }
+}
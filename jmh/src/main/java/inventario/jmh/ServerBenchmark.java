@@ -0,0 +1,195 @@
+package inventario.jmh;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Búsquedas por SKU contra un {@code InventoryServer} local sobre un
+ * {@code ConcurrentInventoryManager}, con {@value #CONNECTIONS} conexiones abiertas a la
+ * vez, una por hilo de JMH. Cada invocación envía una tanda de {@code depth}
+ * solicitudes encadenadas y lee todas las respuestas; JMH reporta las tandas por
+ * segundo y la latencia de ida y vuelta de cada una. Las búsquedas por segundo son las
+ * tandas por segundo multiplicadas por {@code depth}. Los SKU buscados siguen una
+ * secuencia aleatoria fija de productos existentes, que cada conexión recorre desde
+ * otro punto.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(ServerBenchmark.CONNECTIONS)
+public class ServerBenchmark {
+    /**
+     * Conexiones abiertas contra el servidor.
+     */
+    public static final int CONNECTIONS = 16;
+
+    private static final int PROBES = 1 << 16;
+
+    /**
+     * Cantidad de productos del inventario.
+     */
+    @Param({"1000000"})
+    public int rows;
+
+    /**
+     * Solicitudes encadenadas por tanda.
+     */
+    @Param({"1", "16"})
+    public int depth;
+
+    private InventoryTargets targets;
+    private Object server;
+    private String[] skus;
+
+    /**
+     * Conexión de un hilo con el servidor.
+     */
+    @State(Scope.Thread)
+    public static class Connection {
+        private Socket socket;
+        private OutputStream out;
+        private InputStream in;
+        private int next;
+
+        /**
+         * Abre la conexión.
+         * 
+         * @param benchmark Estado con el servidor ya iniciado.
+         * @throws IOException Si no se puede conectar.
+         */
+        @Setup(Level.Trial)
+        public void open(ServerBenchmark benchmark) throws IOException {
+            socket = new Socket("localhost", benchmark.targets.port(benchmark.server));
+            socket.setTcpNoDelay(true);
+            out = new BufferedOutputStream(socket.getOutputStream());
+            in = new BufferedInputStream(socket.getInputStream());
+            next = new Random(Thread.currentThread().getId()).nextInt(PROBES);
+        }
+
+        /**
+         * Cierra la conexión.
+         * 
+         * @throws IOException Si no se puede cerrar.
+         */
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * Genera el catálogo, lo carga y arranca el servidor.
+     * 
+     * @throws IOException Si no se puede escribir el catálogo o abrir el puerto.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        targets = InventoryTargets.load();
+        Path file = Files.createTempFile("jmh", ".csv");
+        Object inventory;
+        try {
+            targets.writeCatalog(file, rows);
+            inventory = targets.loadFromCSV(file, "ConcurrentInventoryManager");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        skus = new String[PROBES];
+        Random random = new Random(7);
+        for (int i = 0; i < PROBES; i++) {
+            skus[i] = targets.skuOf(rows, random.nextInt(rows));
+        }
+        server = targets.startServer(inventory);
+    }
+
+    /**
+     * Detiene el servidor.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        targets.stopServer(server);
+    }
+
+    /**
+     * Envía una tanda de búsquedas por SKU y lee todas las respuestas.
+     * 
+     * @param connection Conexión del hilo.
+     * @return Bytes leídos de los cuerpos, para que JMH los consuma.
+     * @throws IOException Si la conexión falla o una respuesta no es un 200.
+     */
+    @Benchmark
+    public long lookupBatch(Connection connection) throws IOException {
+        for (int r = 0; r < depth; r++) {
+            connection.next = (connection.next + 1) & (PROBES - 1);
+            String request = "GET /products/" + skus[connection.next] + " HTTP/1.1\r\nHost: localhost\r\n\r\n";
+            connection.out.write(request.getBytes(StandardCharsets.US_ASCII));
+        }
+        connection.out.flush();
+        long bytes = 0;
+        for (int r = 0; r < depth; r++) {
+            bytes += skipResponse(connection.in);
+        }
+        return bytes;
+    }
+
+    /**
+     * Lee una respuesta HTTP completa, que debe ser un 200 con {@code Content-Length}.
+     * 
+     * @return Longitud del cuerpo.
+     */
+    private static long skipResponse(InputStream in) throws IOException {
+        String status = readLine(in);
+        if (!status.startsWith("HTTP/1.1 200")) {
+            throw new IllegalStateException("Respuesta inesperada: " + status);
+        }
+        long length = -1;
+        for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                length = Long.parseLong(line.substring(15).trim());
+            }
+        }
+        if (length < 0) {
+            throw new IllegalStateException("Respuesta sin Content-Length");
+        }
+        in.skipNBytes(length);
+        return length;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b < 0) {
+                throw new IOException("El servidor cerró la conexión");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+}
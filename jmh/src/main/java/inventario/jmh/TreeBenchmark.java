@@ -0,0 +1,108 @@
+package inventario.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Inserciones y búsquedas por segundo en {@code BinarySearchTree} balanceado, con
+ * claves aleatorias, ordenadas y en orden inverso. Las búsquedas usan siempre claves
+ * en orden aleatorio sobre un árbol con todas las claves.
+ * <p>
+ * Cada invocación de {@link #insert} arma un árbol completo de {@value #KEYS} claves;
+ * el resultado se reporta por clave. Con {@code -prof gc} JMH agrega los bytes
+ * reservados por operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TreeBenchmark {
+    /**
+     * Cantidad de claves de cada árbol.
+     */
+    public static final int KEYS = 1_000_000;
+
+    /**
+     * Orden de inserción de las claves: {@code aleatorio}, {@code ordenado} o {@code inverso}.
+     */
+    @Param({"aleatorio", "ordenado", "inverso"})
+    public String order;
+
+    private InventoryTargets targets;
+    private Integer[] keys;
+    private Integer[] probes;
+    private Object tree;
+    private int next;
+
+    /**
+     * Prepara las claves y el árbol sobre el que se busca.
+     */
+    @Setup
+    public void setUp() {
+        targets = InventoryTargets.load();
+        keys = keys(order);
+        probes = keys("aleatorio");
+        tree = targets.newTree();
+        for (Integer key : keys) {
+            targets.insert(tree, key);
+        }
+    }
+
+    /**
+     * Arma un árbol con todas las claves en el orden elegido.
+     * 
+     * @return El árbol, para que JMH lo consuma.
+     */
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public Object insert() {
+        Object built = targets.newTree();
+        for (Integer key : keys) {
+            targets.insert(built, key);
+        }
+        return built;
+    }
+
+    /**
+     * Busca la siguiente clave de una secuencia aleatoria.
+     * 
+     * @return Valor encontrado, para que JMH lo consuma.
+     */
+    @Benchmark
+    public Object search() {
+        Integer probe = probes[next];
+        next = next + 1 == KEYS ? 0 : next + 1;
+        return targets.search(tree, probe);
+    }
+
+    private static Integer[] keys(String order) {
+        Integer[] keys = new Integer[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = order.equals("inverso") ? KEYS - 1 - i : i;
+        }
+        if (order.equals("aleatorio")) {
+            Random random = new Random(42);
+            for (int i = KEYS - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Integer swap = keys[i];
+                keys[i] = keys[j];
+                keys[j] = swap;
+            }
+        }
+        return keys;
+    }
+}